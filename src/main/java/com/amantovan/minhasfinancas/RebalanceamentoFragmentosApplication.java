@@ -0,0 +1,59 @@
+package com.amantovan.minhasfinancas;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.Environment;
+
+import com.amantovan.minhasfinancas.config.datasource.RebalanceadorFragmentos;
+
+/**
+ * Move um usuário para outro fragmento sem subir o servidor web, com a mesma configuração da
+ * aplicação:
+ * 
+ * <pre>
+ * java -cp minhasfinancas.jar \
+ *     -Dloader.main=com.amantovan.minhasfinancas.RebalanceamentoFragmentosApplication \
+ *     org.springframework.boot.loader.PropertiesLauncher \
+ *     --minhasfinancas.fragmentos.habilitado=true \
+ *     --minhasfinancas.fragmentos.rebalancear.usuario=42 \
+ *     --minhasfinancas.fragmentos.rebalancear.destino=1
+ * </pre>
+ * 
+ * Termina com 0 se o usuário foi movido (ou já estava no destino), 1 se a mudança falhou e 2
+ * se os parâmetros não foram informados.
+ */
+public class RebalanceamentoFragmentosApplication {
+
+	private static final Logger log = LoggerFactory.getLogger(RebalanceamentoFragmentosApplication.class);
+	
+	static final int SUCESSO = 0;
+	static final int FALHA = 1;
+	static final int PARAMETROS_INVALIDOS = 2;
+
+	public static void main(String[] args) {
+		System.exit(executar(args));
+	}
+	
+	static int executar(String... args) {
+		try (ConfigurableApplicationContext contexto = new SpringApplicationBuilder(MinhasfinancasApplication.class)
+				.web(WebApplicationType.NONE)
+				.run(args)) {
+			Environment environment = contexto.getEnvironment();
+			Long usuario = environment.getProperty("minhasfinancas.fragmentos.rebalancear.usuario", Long.class);
+			Integer destino = environment.getProperty("minhasfinancas.fragmentos.rebalancear.destino", Integer.class);
+			if (usuario == null || destino == null) {
+				log.error("Informe minhasfinancas.fragmentos.rebalancear.usuario e minhasfinancas.fragmentos.rebalancear.destino.");
+				return PARAMETROS_INVALIDOS;
+			}
+			
+			contexto.getBean(RebalanceadorFragmentos.class).moverUsuario(usuario, destino);
+			return SUCESSO;
+		} catch (RuntimeException e) {
+			log.error("Falha no rebalanceamento dos fragmentos.", e);
+			return FALHA;
+		}
+	}
+}
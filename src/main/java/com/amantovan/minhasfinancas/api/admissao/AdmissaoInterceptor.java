@@ -0,0 +1,88 @@
+package com.amantovan.minhasfinancas.api.admissao;
+
+import java.io.IOException;
+import java.util.Map;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.handler.HandlerInterceptorAdapter;
+
+import com.amantovan.minhasfinancas.api.admissao.ControleAdmissao.Admissao;
+import com.amantovan.minhasfinancas.api.admissao.ControleAdmissao.Motivo;
+import com.amantovan.minhasfinancas.api.autenticacao.AutenticacaoInterceptor;
+
+/**
+ * Aplica o {@link ControleAdmissao} a cada requisição da API. O cliente é o usuário do token de
+ * acesso, ou o informado no parâmetro {@code usuario} ou no caminho de {@code /api/usuarios/{id}},
+ * e na falta dele o endereço de origem.
+ */
+public class AdmissaoInterceptor extends HandlerInterceptorAdapter {
+
+	private static final String ATRIBUTO_ADMISSAO = AdmissaoInterceptor.class.getName() + ".admissao";
+	
+	private final ControleAdmissao controle;
+	
+	public AdmissaoInterceptor(ControleAdmissao controle) {
+		this.controle = controle;
+	}
+	
+	@Override
+	public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws IOException {
+		if (!(handler instanceof HandlerMethod) || request.getDispatcherType() == DispatcherType.ASYNC) {
+			return true;
+		}
+		
+		String caminho = (String) request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+		Admissao admissao = controle.admitir(request.getMethod(), caminho, cliente(request, caminho));
+		if (admissao.isAceita()) {
+			request.setAttribute(ATRIBUTO_ADMISSAO, admissao);
+			return true;
+		}
+		
+		boolean sobrecarga = admissao.getMotivo() == Motivo.SOBRECARGA;
+		response.setStatus(sobrecarga ? HttpStatus.SERVICE_UNAVAILABLE.value() : HttpStatus.TOO_MANY_REQUESTS.value());
+		response.setHeader("Retry-After", String.valueOf(admissao.getEsperaSegundos()));
+		response.setContentType("text/plain;charset=UTF-8");
+		response.getWriter().write(sobrecarga 
+				? "Servidor sobrecarregado, tente novamente em instantes." 
+				: "Limite de requisições excedido, tente novamente em instantes.");
+		return false;
+	}
+	
+	@Override
+	public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+		liberar(request);
+	}
+	
+	@Override
+	public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+		liberar(request);
+	}
+	
+	private void liberar(HttpServletRequest request) {
+		Admissao admissao = (Admissao) request.getAttribute(ATRIBUTO_ADMISSAO);
+		if (admissao != null) {
+			request.removeAttribute(ATRIBUTO_ADMISSAO);
+			controle.liberar(admissao);
+		}
+	}
+	
+	@SuppressWarnings("unchecked")
+	private String cliente(HttpServletRequest request, String caminho) {
+		Object autenticado = request.getAttribute(AutenticacaoInterceptor.ATRIBUTO_USUARIO);
+		if (autenticado != null) {
+			return "usuario:" + autenticado;
+		}
+		String usuario = request.getParameter("usuario");
+		if (usuario == null && caminho != null && caminho.startsWith("/api/usuarios/{id}")) {
+			Map<String, String> variaveis = (Map<String, String>) request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+			usuario = variaveis == null ? null : variaveis.get("id");
+		}
+		return usuario != null ? "usuario:" + usuario : "origem:" + request.getRemoteAddr();
+	}
+}
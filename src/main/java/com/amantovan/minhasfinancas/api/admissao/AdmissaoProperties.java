@@ -0,0 +1,43 @@
+package com.amantovan.minhasfinancas.api.admissao;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+/**
+ * Limites de admissão das requisições da API. Cada endpoint pode ter seu próprio limite em
+ * {@code minhasfinancas.admissao.endpoints[n]}, identificado pelo método e pelo padrão do
+ * mapeamento (por exemplo {@code GET} e {@code /api/lancamentos}); os demais usam o
+ * {@code limite-padrao}.
+ */
+@Data
+@ConfigurationProperties(prefix = "minhasfinancas.admissao")
+public class AdmissaoProperties {
+
+	private boolean habilitado = true;
+	private Limite limitePadrao = new Limite();
+	private List<Limite> endpoints = new ArrayList<>();
+	private int filaMaximaPool = 10;
+	
+	@Data
+	public static class Limite {
+		
+		private String metodo;
+		private String caminho;
+		private int capacidade = 20;
+		private double reposicaoPorSegundo = 10;
+		private int concorrenciaPorUsuario = 4;
+		
+		boolean atende(String metodo, String caminho) {
+			return this.metodo != null && this.metodo.equalsIgnoreCase(metodo) 
+					&& this.caminho != null && this.caminho.equals(caminho);
+		}
+		
+		public String getNome() {
+			return metodo == null ? "padrao" : metodo.toUpperCase() + " " + caminho;
+		}
+	}
+}
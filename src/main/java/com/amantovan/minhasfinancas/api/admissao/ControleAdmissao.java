@@ -0,0 +1,216 @@
+package com.amantovan.minhasfinancas.api.admissao;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+import org.springframework.scheduling.annotation.Scheduled;
+
+import com.amantovan.minhasfinancas.api.admissao.AdmissaoProperties.Limite;
+
+/**
+ * Decide se uma requisição entra ou é recusada antes de chegar ao banco.
+ * 
+ * A requisição é recusada com 503 quando o pool de conexões já tem fila, e com 429 quando o
+ * cliente esgotou o balde de tokens do endpoint ou já tem o máximo de requisições em
+ * andamento nele. Recusar cedo mantém a latência dos demais clientes limitada, em vez de
+ * deixar as requisições acumularem na fila do pool até expirarem.
+ */
+public class ControleAdmissao {
+
+	public enum Motivo {
+		TAXA, CONCORRENCIA, SOBRECARGA
+	}
+	
+	private final AdmissaoProperties propriedades;
+	private final MonitorPoolConexoes monitorPool;
+	private final Map<String, BaldeTokens> baldes = new ConcurrentHashMap<>();
+	private final Map<String, Integer> emAndamento = new ConcurrentHashMap<>();
+	private final Map<String, ContadorRejeicoes> rejeicoes = new ConcurrentHashMap<>();
+	private final List<Consumer<ContadorRejeicoes>> observadores = new CopyOnWriteArrayList<>();
+	
+	public ControleAdmissao(AdmissaoProperties propriedades, MonitorPoolConexoes monitorPool) {
+		this.propriedades = propriedades;
+		this.monitorPool = monitorPool;
+	}
+	
+	public Admissao admitir(String metodo, String caminho, String cliente) {
+		Limite limite = limite(metodo, caminho);
+		
+		if (monitorPool.isSaturado()) {
+			return recusar(limite, Motivo.SOBRECARGA, 1);
+		}
+		
+		String chave = limite.getNome() + "|" + cliente;
+		long espera = baldes.computeIfAbsent(chave, k -> new BaldeTokens(limite.getCapacidade(), limite.getReposicaoPorSegundo()))
+				.consumir(System.nanoTime());
+		if (espera > 0) {
+			return recusar(limite, Motivo.TAXA, Math.max(1, (long) Math.ceil(espera / 1e9)));
+		}
+		
+		boolean[] admitida = {false};
+		emAndamento.compute(chave, (k, atual) -> {
+			int quantidade = atual == null ? 0 : atual;
+			if (quantidade >= limite.getConcorrenciaPorUsuario()) {
+				return atual;
+			}
+			admitida[0] = true;
+			return quantidade + 1;
+		});
+		if (!admitida[0]) {
+			return recusar(limite, Motivo.CONCORRENCIA, 1);
+		}
+		return new Admissao(chave, null, 0);
+	}
+	
+	public void liberar(Admissao admissao) {
+		if (admissao.isAceita()) {
+			emAndamento.computeIfPresent(admissao.chave, (k, atual) -> atual <= 1 ? null : atual - 1);
+		}
+	}
+	
+	/**
+	 * Descarta os baldes que já se encheram de novo, que equivalem a baldes novos.
+	 */
+	@Scheduled(fixedDelayString = "${minhasfinancas.admissao.intervalo-limpeza:60000}")
+	public void limparBaldes() {
+		long agora = System.nanoTime();
+		baldes.values().removeIf(balde -> balde.cheio(agora));
+	}
+	
+	public void observarRejeicoes(Consumer<ContadorRejeicoes> observador) {
+		observadores.add(observador);
+		rejeicoes.values().forEach(observador);
+	}
+	
+	public Collection<Limite> getLimites() {
+		List<Limite> limites = new ArrayList<>(propriedades.getEndpoints());
+		limites.add(propriedades.getLimitePadrao());
+		return Collections.unmodifiableList(limites);
+	}
+	
+	public int getBaldesAtivos() {
+		return baldes.size();
+	}
+	
+	public int getAguardandoConexao() {
+		return monitorPool.getAguardandoConexao();
+	}
+	
+	private Limite limite(String metodo, String caminho) {
+		for (Limite limite : propriedades.getEndpoints()) {
+			if (limite.atende(metodo, caminho)) {
+				return limite;
+			}
+		}
+		return propriedades.getLimitePadrao();
+	}
+	
+	private Admissao recusar(Limite limite, Motivo motivo, long esperaSegundos) {
+		String chave = limite.getNome() + "|" + motivo;
+		ContadorRejeicoes contador = rejeicoes.get(chave);
+		if (contador == null) {
+			ContadorRejeicoes novo = new ContadorRejeicoes(limite.getNome(), motivo);
+			contador = rejeicoes.putIfAbsent(chave, novo);
+			if (contador == null) {
+				contador = novo;
+				observadores.forEach(observador -> observador.accept(novo));
+			}
+		}
+		contador.total.increment();
+		return new Admissao(null, motivo, esperaSegundos);
+	}
+	
+	public static class Admissao {
+		
+		private final String chave;
+		private final Motivo motivo;
+		private final long esperaSegundos;
+		
+		Admissao(String chave, Motivo motivo, long esperaSegundos) {
+			this.chave = chave;
+			this.motivo = motivo;
+			this.esperaSegundos = esperaSegundos;
+		}
+		
+		public boolean isAceita() {
+			return motivo == null;
+		}
+		
+		public Motivo getMotivo() {
+			return motivo;
+		}
+		
+		public long getEsperaSegundos() {
+			return esperaSegundos;
+		}
+	}
+	
+	public static class ContadorRejeicoes {
+		
+		private final String endpoint;
+		private final Motivo motivo;
+		private final LongAdder total = new LongAdder();
+		
+		ContadorRejeicoes(String endpoint, Motivo motivo) {
+			this.endpoint = endpoint;
+			this.motivo = motivo;
+		}
+		
+		public String getEndpoint() {
+			return endpoint;
+		}
+		
+		public Motivo getMotivo() {
+			return motivo;
+		}
+		
+		public double getTotal() {
+			return total.sum();
+		}
+	}
+	
+	static class BaldeTokens {
+		
+		private final double capacidade;
+		private final double reposicaoPorNano;
+		private double tokens;
+		private long ultimaReposicao;
+		
+		BaldeTokens(double capacidade, double reposicaoPorSegundo) {
+			this.capacidade = capacidade;
+			this.reposicaoPorNano = reposicaoPorSegundo / TimeUnit.SECONDS.toNanos(1);
+			this.tokens = capacidade;
+			this.ultimaReposicao = System.nanoTime();
+		}
+		
+		/**
+		 * Consome um token e retorna zero, ou retorna quantos nanossegundos faltam para o próximo.
+		 */
+		synchronized long consumir(long agora) {
+			repor(agora);
+			if (tokens >= 1) {
+				tokens--;
+				return 0;
+			}
+			return reposicaoPorNano > 0 ? (long) Math.ceil((1 - tokens) / reposicaoPorNano) : Long.MAX_VALUE;
+		}
+		
+		synchronized boolean cheio(long agora) {
+			repor(agora);
+			return tokens >= capacidade;
+		}
+		
+		private void repor(long agora) {
+			tokens = Math.min(capacidade, tokens + (agora - ultimaReposicao) * reposicaoPorNano);
+			ultimaReposicao = agora;
+		}
+	}
+}
@@ -0,0 +1,64 @@
+package com.amantovan.minhasfinancas.api.admissao;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import com.amantovan.minhasfinancas.config.datasource.DataSourceFragmentado;
+import com.amantovan.minhasfinancas.config.datasource.DataSourceRoteado;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+
+/**
+ * Acompanha a fila de espera dos pools de conexão por trás do {@link DataSource} da
+ * aplicação, inclusive os de réplicas e fragmentos. O pool é considerado saturado quando
+ * alguma das filas atinge o tamanho máximo configurado.
+ */
+public class MonitorPoolConexoes {
+
+	private final List<HikariDataSource> pools = new ArrayList<>();
+	private final int filaMaxima;
+	
+	public MonitorPoolConexoes(DataSource dataSource, int filaMaxima) {
+		this.filaMaxima = filaMaxima;
+		if (dataSource != null) {
+			localizarPools(dataSource);
+		}
+	}
+	
+	public boolean isSaturado() {
+		for (HikariDataSource pool : pools) {
+			HikariPoolMXBean estado = pool.getHikariPoolMXBean();
+			if (estado != null && estado.getThreadsAwaitingConnection() >= filaMaxima) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	public int getAguardandoConexao() {
+		int aguardando = 0;
+		for (HikariDataSource pool : pools) {
+			HikariPoolMXBean estado = pool.getHikariPoolMXBean();
+			if (estado != null) {
+				aguardando += estado.getThreadsAwaitingConnection();
+			}
+		}
+		return aguardando;
+	}
+	
+	private void localizarPools(DataSource dataSource) {
+		if (dataSource instanceof HikariDataSource) {
+			pools.add((HikariDataSource) dataSource);
+		} else if (dataSource instanceof DelegatingDataSource) {
+			localizarPools(((DelegatingDataSource) dataSource).getTargetDataSource());
+		} else if (dataSource instanceof DataSourceRoteado) {
+			((DataSourceRoteado) dataSource).getFontes().forEach(this::localizarPools);
+		} else if (dataSource instanceof DataSourceFragmentado) {
+			((DataSourceFragmentado) dataSource).getFontes().forEach(this::localizarPools);
+		}
+	}
+}
@@ -0,0 +1,14 @@
+package com.amantovan.minhasfinancas.api.autenticacao;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Endpoint atendido sem token de acesso, como o login e o cadastro.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface AcessoPublico {
+}
@@ -0,0 +1,76 @@
+package com.amantovan.minhasfinancas.api.autenticacao;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Optional;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.handler.HandlerInterceptorAdapter;
+
+/**
+ * Exige um token de acesso válido no cabeçalho {@code Authorization: Bearer} em toda a API,
+ * exceto nos endpoints {@link AcessoPublico}. O usuário do token fica no atributo
+ * {@link #ATRIBUTO_USUARIO} da requisição, e um {@code usuario} no parâmetro ou um id em
+ * {@code /api/usuarios/{id}} diferente dele é recusado com 403.
+ */
+public class AutenticacaoInterceptor extends HandlerInterceptorAdapter {
+
+	public static final String ATRIBUTO_USUARIO = "minhasfinancas.usuarioAutenticado";
+	public static final String OUTRO_USUARIO = "O token de acesso não pertence ao usuário informado.";
+	private static final String PREFIXO = "Bearer ";
+
+	private final EmissorTokenAcesso emissor;
+
+	public AutenticacaoInterceptor(EmissorTokenAcesso emissor) {
+		this.emissor = emissor;
+	}
+
+	@Override
+	public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws IOException {
+		if (!(handler instanceof HandlerMethod) || request.getDispatcherType() == DispatcherType.ASYNC
+				|| ((HandlerMethod) handler).hasMethodAnnotation(AcessoPublico.class)) {
+			return true;
+		}
+
+		String cabecalho = request.getHeader(HttpHeaders.AUTHORIZATION);
+		Optional<Long> usuario = cabecalho != null && cabecalho.startsWith(PREFIXO)
+				? emissor.verificar(cabecalho.substring(PREFIXO.length()).trim())
+				: Optional.empty();
+		if (!usuario.isPresent()) {
+			response.setHeader(HttpHeaders.WWW_AUTHENTICATE, "Bearer");
+			return recusar(response, HttpStatus.UNAUTHORIZED, "Token de acesso ausente, inválido ou expirado.");
+		}
+
+		String informado = usuarioInformado(request);
+		if (informado != null && !informado.equals(usuario.get().toString())) {
+			return recusar(response, HttpStatus.FORBIDDEN, OUTRO_USUARIO);
+		}
+		request.setAttribute(ATRIBUTO_USUARIO, usuario.get());
+		return true;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static String usuarioInformado(HttpServletRequest request) {
+		String usuario = request.getParameter("usuario");
+		String caminho = (String) request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+		if (usuario == null && caminho != null && caminho.startsWith("/api/usuarios/{id}")) {
+			Map<String, String> variaveis = (Map<String, String>) request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+			usuario = variaveis == null ? null : variaveis.get("id");
+		}
+		return usuario;
+	}
+
+	private static boolean recusar(HttpServletResponse response, HttpStatus status, String mensagem) throws IOException {
+		response.setStatus(status.value());
+		response.setContentType("text/plain;charset=UTF-8");
+		response.getWriter().write(mensagem);
+		return false;
+	}
+}
@@ -0,0 +1,27 @@
+package com.amantovan.minhasfinancas.api.autenticacao;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+/**
+ * Chaves HMAC dos tokens de acesso, identificadas por um nome em
+ * {@code minhasfinancas.autenticacao.chaves.<nome>}. Os tokens são assinados com a
+ * {@code chave-atual} e aceitos com qualquer chave da lista.
+ * 
+ * A troca de chave é feita sem derrubar as instâncias: primeiro a nova chave entra na lista em
+ * todas elas, depois passa a ser a {@code chave-atual} e, passada a validade dos tokens, a
+ * antiga sai da lista. Sem chaves configuradas cada instância gera uma chave própria ao subir,
+ * o que só serve para uma instância única.
+ */
+@Data
+@ConfigurationProperties(prefix = "minhasfinancas.autenticacao")
+public class AutenticacaoProperties {
+
+	private String chaveAtual;
+	private Map<String, String> chaves = new LinkedHashMap<>();
+	private int validadeMinutos = 15;
+}
@@ -0,0 +1,119 @@
+package com.amantovan.minhasfinancas.api.autenticacao;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Emite e confere tokens {@code chave.conteúdo.assinatura}, em que o conteúdo leva o id do
+ * usuário e a expiração e a assinatura é o HMAC-SHA256 dos dois primeiros trechos. A conferência
+ * é feita só em memória, sem consultar o usuário no banco.
+ */
+public class EmissorTokenAcesso {
+
+	private static final Logger log = LoggerFactory.getLogger(EmissorTokenAcesso.class);
+
+	private static final String ALGORITMO = "HmacSHA256";
+	private static final int TAMANHO_MINIMO_CHAVE = 32;
+	private static final String CHAVE_LOCAL = "local";
+	private static final Base64.Encoder CODIFICADOR = Base64.getUrlEncoder().withoutPadding();
+	private static final Base64.Decoder DECODIFICADOR = Base64.getUrlDecoder();
+
+	private final Map<String, SecretKeySpec> chaves = new LinkedHashMap<>();
+	private final String chaveAtual;
+	private final long validadeSegundos;
+	private final Clock relogio;
+
+	public EmissorTokenAcesso(AutenticacaoProperties propriedades, Clock relogio) {
+		this.relogio = relogio;
+		this.validadeSegundos = propriedades.getValidadeMinutos() * 60l;
+		propriedades.getChaves().forEach((nome, segredo) -> {
+			byte[] bytes = segredo == null ? new byte[0] : segredo.getBytes(StandardCharsets.UTF_8);
+			if (nome.contains(".") || bytes.length < TAMANHO_MINIMO_CHAVE) {
+				throw new IllegalStateException("A chave de autenticação " + nome
+						+ " precisa de um nome sem ponto e de ao menos " + TAMANHO_MINIMO_CHAVE + " bytes.");
+			}
+			chaves.put(nome, new SecretKeySpec(bytes, ALGORITMO));
+		});
+
+		if (chaves.isEmpty()) {
+			log.warn("Nenhuma chave de autenticação configurada; usando uma chave gerada para esta instância.");
+			byte[] bytes = new byte[TAMANHO_MINIMO_CHAVE];
+			new SecureRandom().nextBytes(bytes);
+			chaves.put(CHAVE_LOCAL, new SecretKeySpec(bytes, ALGORITMO));
+			this.chaveAtual = CHAVE_LOCAL;
+		} else if (propriedades.getChaveAtual() == null) {
+			this.chaveAtual = chaves.keySet().iterator().next();
+		} else if (chaves.containsKey(propriedades.getChaveAtual())) {
+			this.chaveAtual = propriedades.getChaveAtual();
+		} else {
+			throw new IllegalStateException("A chave atual " + propriedades.getChaveAtual() + " não está entre as chaves de autenticação.");
+		}
+	}
+
+	public TokenAcesso emitir(Long idUsuario) {
+		Instant expiraEm = relogio.instant().plusSeconds(validadeSegundos).truncatedTo(ChronoUnit.SECONDS);
+		String conteudo = CODIFICADOR.encodeToString((idUsuario + ":" + expiraEm.getEpochSecond()).getBytes(StandardCharsets.UTF_8));
+		String assinado = chaveAtual + "." + conteudo;
+		return new TokenAcesso(assinado + "." + CODIFICADOR.encodeToString(assinar(chaves.get(chaveAtual), assinado)), expiraEm);
+	}
+
+	/**
+	 * Id do usuário do token, vazio quando a assinatura não confere, a chave não é mais aceita ou o
+	 * token expirou.
+	 */
+	public Optional<Long> verificar(String token) {
+		if (token == null) {
+			return Optional.empty();
+		}
+		int primeiro = token.indexOf('.');
+		int ultimo = token.lastIndexOf('.');
+		if (primeiro < 0 || ultimo == primeiro) {
+			return Optional.empty();
+		}
+		SecretKeySpec chave = chaves.get(token.substring(0, primeiro));
+		if (chave == null) {
+			return Optional.empty();
+		}
+
+		try {
+			byte[] assinatura = DECODIFICADOR.decode(token.substring(ultimo + 1));
+			if (!MessageDigest.isEqual(assinatura, assinar(chave, token.substring(0, ultimo)))) {
+				return Optional.empty();
+			}
+			String conteudo = new String(DECODIFICADOR.decode(token.substring(primeiro + 1, ultimo)), StandardCharsets.UTF_8);
+			int separador = conteudo.indexOf(':');
+			long expiraEm = Long.parseLong(conteudo.substring(separador + 1));
+			if (relogio.instant().getEpochSecond() >= expiraEm) {
+				return Optional.empty();
+			}
+			return Optional.of(Long.valueOf(conteudo.substring(0, separador)));
+		} catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+			return Optional.empty();
+		}
+	}
+
+	private static byte[] assinar(SecretKeySpec chave, String texto) {
+		try {
+			Mac mac = Mac.getInstance(ALGORITMO);
+			mac.init(chave);
+			return mac.doFinal(texto.getBytes(StandardCharsets.UTF_8));
+		} catch (GeneralSecurityException e) {
+			throw new IllegalStateException("Falha ao assinar o token de acesso", e);
+		}
+	}
+}
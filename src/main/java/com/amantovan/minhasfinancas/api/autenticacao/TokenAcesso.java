@@ -0,0 +1,14 @@
+package com.amantovan.minhasfinancas.api.autenticacao;
+
+import java.time.Instant;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class TokenAcesso {
+
+	private String valor;
+	private Instant expiraEm;
+}
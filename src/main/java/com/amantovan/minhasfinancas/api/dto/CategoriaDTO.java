@@ -0,0 +1,13 @@
+package com.amantovan.minhasfinancas.api.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class CategoriaDTO {
+
+	private Long id;
+	private String nome;
+	private Long usuario;
+}
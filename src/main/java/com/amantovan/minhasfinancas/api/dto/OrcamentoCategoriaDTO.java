@@ -0,0 +1,15 @@
+package com.amantovan.minhasfinancas.api.dto;
+
+import java.math.BigDecimal;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class OrcamentoCategoriaDTO {
+
+	private Integer ano;
+	private Integer mes;
+	private BigDecimal valor;
+}
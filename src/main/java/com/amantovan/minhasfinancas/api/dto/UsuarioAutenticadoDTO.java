@@ -0,0 +1,21 @@
+package com.amantovan.minhasfinancas.api.dto;
+
+import java.time.Instant;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Resposta do login: os dados do usuário e o token a enviar em {@code Authorization: Bearer}
+ * até {@code expiraEm}, quando o cliente autentica de novo.
+ */
+@Data
+@Builder
+public class UsuarioAutenticadoDTO {
+
+	private Long id;
+	private String nome;
+	private String email;
+	private String token;
+	private Instant expiraEm;
+}
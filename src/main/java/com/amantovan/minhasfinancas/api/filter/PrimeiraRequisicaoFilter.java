@@ -0,0 +1,49 @@
+package com.amantovan.minhasfinancas.api.filter;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Registra quanto tempo depois do início da JVM a primeira requisição foi concluída, que é
+ * o tempo que uma instância nova leva para começar a atender.
+ */
+@Component
+public class PrimeiraRequisicaoFilter extends OncePerRequestFilter {
+
+	private static final Logger log = LoggerFactory.getLogger(PrimeiraRequisicaoFilter.class);
+	
+	private final AtomicBoolean atendida = new AtomicBoolean();
+	private volatile long tempoPrimeiraRequisicao = -1;
+	
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+			throws ServletException, IOException {
+		try {
+			filterChain.doFilter(request, response);
+		} finally {
+			if (!atendida.get() && atendida.compareAndSet(false, true)) {
+				tempoPrimeiraRequisicao = ManagementFactory.getRuntimeMXBean().getUptime();
+				log.info("Primeira requisição concluída {} ms após o início da JVM.", tempoPrimeiraRequisicao);
+			}
+		}
+	}
+	
+	/**
+	 * Milissegundos entre o início da JVM e o fim da primeira requisição, ou -1 se nenhuma
+	 * requisição foi concluída ainda.
+	 */
+	public long getTempoPrimeiraRequisicao() {
+		return tempoPrimeiraRequisicao;
+	}
+}
@@ -0,0 +1,82 @@
+package com.amantovan.minhasfinancas.api.resource;
+
+import java.util.List;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestAttribute;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.amantovan.minhasfinancas.api.autenticacao.AutenticacaoInterceptor;
+import com.amantovan.minhasfinancas.api.dto.CategoriaDTO;
+import com.amantovan.minhasfinancas.api.dto.OrcamentoCategoriaDTO;
+import com.amantovan.minhasfinancas.exception.RegraNegocioException;
+import com.amantovan.minhasfinancas.model.entity.Categoria;
+import com.amantovan.minhasfinancas.model.entity.OrcamentoCategoria;
+import com.amantovan.minhasfinancas.model.entity.Usuario;
+import com.amantovan.minhasfinancas.service.CategoriaService;
+import com.amantovan.minhasfinancas.service.ResumoOrcamentoCategoria;
+
+import lombok.RequiredArgsConstructor;
+
+@RestController
+@RequestMapping("/api/categorias")
+@RequiredArgsConstructor
+public class CategoriaResource {
+
+	private final CategoriaService service;
+
+	@GetMapping
+	public ResponseEntity listar(@RequestAttribute(AutenticacaoInterceptor.ATRIBUTO_USUARIO) Long idUsuario) {
+		List<Categoria> categorias = service.listarPorUsuario(idUsuario);
+		return ResponseEntity.ok(categorias);
+	}
+
+	@PostMapping
+	public ResponseEntity salvar(@RequestBody CategoriaDTO dto,
+			@RequestAttribute(AutenticacaoInterceptor.ATRIBUTO_USUARIO) Long idUsuario) {
+		if (dto.getUsuario() != null && !dto.getUsuario().equals(idUsuario)) {
+			return new ResponseEntity(AutenticacaoInterceptor.OUTRO_USUARIO, HttpStatus.FORBIDDEN);
+		}
+
+		try {
+			Usuario usuario = Usuario.builder().id(idUsuario).build();
+			Categoria categoria = service.salvar(Categoria.builder().nome(dto.getNome()).usuario(usuario).build());
+			return new ResponseEntity(categoria, HttpStatus.CREATED);
+		} catch (RegraNegocioException e) {
+			return ResponseEntity.badRequest().body(e.getMessage());
+		}
+	}
+
+	@PutMapping("{id}/orcamento")
+	public ResponseEntity definirOrcamento(@PathVariable("id") Long id, @RequestBody OrcamentoCategoriaDTO dto,
+			@RequestAttribute(AutenticacaoInterceptor.ATRIBUTO_USUARIO) Long idUsuario) {
+		return service.obterPorId(id)
+				.filter(categoria -> categoria.getUsuario().getId().equals(idUsuario))
+				.map(categoria -> {
+					try {
+						OrcamentoCategoria orcamento = service.definirOrcamento(categoria, dto.getAno(), dto.getMes(), dto.getValor());
+						return ResponseEntity.ok(orcamento);
+					} catch (RegraNegocioException e) {
+						return ResponseEntity.badRequest().body(e.getMessage());
+					}
+				}).orElseGet(
+					() -> new ResponseEntity("Categoria não encontrada na base de dados.", HttpStatus.BAD_REQUEST));
+	}
+
+	@GetMapping("orcamento")
+	public ResponseEntity obterResumoOrcamento(
+			@RequestAttribute(AutenticacaoInterceptor.ATRIBUTO_USUARIO) Long idUsuario,
+			@RequestParam("ano") Integer ano,
+			@RequestParam("mes") Integer mes) {
+		List<ResumoOrcamentoCategoria> resumo = service.obterResumoOrcamento(idUsuario, ano, mes);
+		return ResponseEntity.ok(resumo);
+	}
+}
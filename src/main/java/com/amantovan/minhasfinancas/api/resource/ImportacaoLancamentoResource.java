@@ -0,0 +1,90 @@
+package com.amantovan.minhasfinancas.api.resource;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestAttribute;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.amantovan.minhasfinancas.api.autenticacao.AutenticacaoInterceptor;
+import com.amantovan.minhasfinancas.model.entity.Usuario;
+import com.amantovan.minhasfinancas.model.enuns.FormatoExtrato;
+import com.amantovan.minhasfinancas.service.ErroImportacao;
+import com.amantovan.minhasfinancas.service.ImportacaoLancamentoService;
+import com.amantovan.minhasfinancas.service.ObservadorImportacao;
+import com.amantovan.minhasfinancas.service.ResumoImportacao;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Recebe o extrato como corpo da requisição e devolve, em JSON por linha, cada linha rejeitada
+ * e o resumo após cada lote gravado. O último resumo vem com {@code concluido} verdadeiro.
+ */
+@RestController
+@RequestMapping("/api/lancamentos/importacao")
+@RequiredArgsConstructor
+public class ImportacaoLancamentoResource {
+
+	private static final String NDJSON = "application/x-ndjson";
+	private static final Charset CHARSET_OFX = Charset.forName("windows-1252");
+	
+	private final ImportacaoLancamentoService service;
+	private final ObjectMapper mapper;
+	
+	@PostMapping
+	public ResponseEntity importar(
+			@RequestAttribute(AutenticacaoInterceptor.ATRIBUTO_USUARIO) Long idUsuario,
+			@RequestParam(value = "formato", defaultValue = "CSV") FormatoExtrato formato,
+			HttpServletRequest request,
+			HttpServletResponse response) throws IOException {
+		Usuario usuario = Usuario.builder().id(idUsuario).build();
+		
+		// Sem charset declarado, OFX costuma vir em windows-1252 e CSV em UTF-8.
+		Charset charset = request.getCharacterEncoding() != null ? Charset.forName(request.getCharacterEncoding())
+				: formato == FormatoExtrato.OFX ? CHARSET_OFX : StandardCharsets.UTF_8;
+		
+		response.setContentType(NDJSON);
+		response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+		OutputStream saida = response.getOutputStream();
+		try (Reader extrato = new BufferedReader(new InputStreamReader(request.getInputStream(), charset))) {
+			service.importar(extrato, formato, usuario, new ObservadorImportacao() {
+				@Override
+				public void erro(ErroImportacao erro) {
+					escrever(saida, erro, false);
+				}
+				
+				@Override
+				public void progresso(ResumoImportacao resumo) {
+					escrever(saida, resumo, true);
+				}
+			});
+		}
+		return null;
+	}
+	
+	private void escrever(OutputStream saida, Object objeto, boolean enviar) {
+		try {
+			saida.write(mapper.writeValueAsBytes(objeto));
+			saida.write('\n');
+			if (enviar) {
+				saida.flush();
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+}
@@ -1,30 +1,46 @@
 package com.amantovan.minhasfinancas.api.resource;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.YearMonth;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Optional;
+import java.util.stream.Collectors;
 
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestAttribute;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.amantovan.minhasfinancas.api.autenticacao.AutenticacaoInterceptor;
 import com.amantovan.minhasfinancas.api.dto.AtualizaStatusDTO;
 import com.amantovan.minhasfinancas.api.dto.LancamentoDTO;
 import com.amantovan.minhasfinancas.exception.RegraNegocioException;
+import com.amantovan.minhasfinancas.exception.TokenSincronizacaoExpiradoException;
+import com.amantovan.minhasfinancas.model.entity.Categoria;
 import com.amantovan.minhasfinancas.model.entity.Lancamento;
 import com.amantovan.minhasfinancas.model.entity.Usuario;
+import com.amantovan.minhasfinancas.model.enuns.CampoLancamento;
 import com.amantovan.minhasfinancas.model.enuns.StatusLancamento;
 import com.amantovan.minhasfinancas.model.enuns.TipoLancamento;
+import com.amantovan.minhasfinancas.service.CategoriaService;
+import com.amantovan.minhasfinancas.service.GrupoCommitLancamentoService;
 import com.amantovan.minhasfinancas.service.LancamentoService;
-import com.amantovan.minhasfinancas.service.UsuarioService;
+import com.amantovan.minhasfinancas.service.SincronizacaoLancamentoService;
 
 import lombok.RequiredArgsConstructor;
 
@@ -33,36 +49,121 @@ import lombok.RequiredArgsConstructor;
 @RequiredArgsConstructor
 public class LancamentoResource {
 
+	private static final String LANCAMENTO_NAO_ENCONTRADO = "Lançamento não encontrado para o usuário informado.";
+	private static final MediaType TEXT_CSV = new MediaType("text", "csv", StandardCharsets.UTF_8);
+
 	private final LancamentoService service;
-	private final UsuarioService usuarioService;
+	private final GrupoCommitLancamentoService grupoCommitService;
+	private final CategoriaService categoriaService;
+	private final SincronizacaoLancamentoService sincronizacaoService;
 	
 	@GetMapping
 	public ResponseEntity buscar(
 			@RequestParam(value = "descricao", required = false) String descricao, 
 			@RequestParam(value = "mes", required = false) Integer mes, 
 			@RequestParam(value = "ano", required = false) Integer ano,
-			@RequestParam("usuario") Long idUsuario) {
+			@RequestParam(value = "categoria", required = false) Long idCategoria,
+			@RequestParam(value = "de", required = false) @DateTimeFormat(pattern = "yyyy-MM") YearMonth de,
+			@RequestParam(value = "ate", required = false) @DateTimeFormat(pattern = "yyyy-MM") YearMonth ate,
+			@RequestParam(value = "fields", required = false) List<String> fields,
+			@RequestAttribute(AutenticacaoInterceptor.ATRIBUTO_USUARIO) Long idUsuario) {
 		Lancamento lancamentoFiltro = new Lancamento();
 		lancamentoFiltro.setDescricao(descricao);
 		lancamentoFiltro.setMes(mes);
 		lancamentoFiltro.setAno(ano);
-		
-		Optional<Usuario> usuario = usuarioService.obterPorId(idUsuario);
-		if (!usuario.isPresent()) {
-			return ResponseEntity.badRequest().body("Não foi possível realizar a consulta. Usuário não encontrado para o Id informado.");
-		} else {
-			lancamentoFiltro.setUsuario(usuario.get());
+		if (idCategoria != null) {
+			lancamentoFiltro.setCategoria(Categoria.builder().id(idCategoria).build());
 		}
 		
-		List<Lancamento> lancamentos = service.buscar(lancamentoFiltro);
+		lancamentoFiltro.setUsuario(Usuario.builder().id(idUsuario).build());
+		
+		if (fields != null) {
+			try {
+				return ResponseEntity.ok(service.buscarCampos(lancamentoFiltro, de, ate, campos(fields)));
+			} catch (RegraNegocioException e) {
+				return ResponseEntity.badRequest().body(e.getMessage());
+			}
+		}
+		List<Lancamento> lancamentos = service.buscar(lancamentoFiltro, de, ate);
 		return new ResponseEntity(lancamentos, HttpStatus.OK);
 	}
 	
+	/**
+	 * Sincronização incremental: só o que mudou desde o token, em páginas. Um token expirado
+	 * responde 410 e o cliente recomeça sem token.
+	 */
+	@GetMapping("alteracoes")
+	public ResponseEntity alteracoes(
+			@RequestAttribute(AutenticacaoInterceptor.ATRIBUTO_USUARIO) Long idUsuario,
+			@RequestParam(value = "desde", required = false) String desde,
+			@RequestParam(value = "tamanho", defaultValue = "100") int tamanho) {
+		try {
+			return ResponseEntity.ok(sincronizacaoService.buscarAlteracoes(idUsuario, desde, tamanho));
+		} catch (TokenSincronizacaoExpiradoException e) {
+			return new ResponseEntity(e.getMessage(), HttpStatus.GONE);
+		} catch (RegraNegocioException e) {
+			return ResponseEntity.badRequest().body(e.getMessage());
+		}
+	}
+	
+	@GetMapping("{id}")
+	public ResponseEntity obter(
+			@PathVariable("id") Long id,
+			@RequestParam(value = "fields", required = false) List<String> fields,
+			@RequestAttribute(AutenticacaoInterceptor.ATRIBUTO_USUARIO) Long idUsuario) {
+		try {
+			List<CampoLancamento> campos = fields == null ? Arrays.asList(CampoLancamento.values()) : campos(fields);
+			return service.obterCamposPorId(id, idUsuario, campos)
+					.<ResponseEntity>map(ResponseEntity::ok)
+					.orElseGet(() -> new ResponseEntity(LANCAMENTO_NAO_ENCONTRADO, HttpStatus.NOT_FOUND));
+		} catch (RegraNegocioException e) {
+			return ResponseEntity.badRequest().body(e.getMessage());
+		}
+	}
+	
+	@GetMapping("exportacao")
+	public ResponseEntity exportar(
+			@RequestParam(value = "descricao", required = false) String descricao, 
+			@RequestParam(value = "mes", required = false) Integer mes, 
+			@RequestParam(value = "ano", required = false) Integer ano,
+			@RequestParam(value = "categoria", required = false) Long idCategoria,
+			@RequestParam(value = "de", required = false) @DateTimeFormat(pattern = "yyyy-MM") YearMonth de,
+			@RequestParam(value = "ate", required = false) @DateTimeFormat(pattern = "yyyy-MM") YearMonth ate,
+			@RequestParam(value = "fields", required = false) List<String> fields,
+			@RequestAttribute(AutenticacaoInterceptor.ATRIBUTO_USUARIO) Long idUsuario,
+			HttpServletResponse response) throws IOException {
+		Lancamento lancamentoFiltro = new Lancamento();
+		lancamentoFiltro.setDescricao(descricao);
+		lancamentoFiltro.setMes(mes);
+		lancamentoFiltro.setAno(ano);
+		lancamentoFiltro.setUsuario(Usuario.builder().id(idUsuario).build());
+		if (idCategoria != null) {
+			lancamentoFiltro.setCategoria(Categoria.builder().id(idCategoria).build());
+		}
+		
+		List<CampoLancamento> campos;
+		try {
+			campos = fields == null ? Arrays.asList(CampoLancamento.values()) : campos(fields);
+		} catch (RegraNegocioException e) {
+			return ResponseEntity.badRequest().body(e.getMessage());
+		}
+		
+		// Escrito direto na resposta, linha a linha, enquanto o banco devolve os lançamentos.
+		response.setContentType(TEXT_CSV.toString());
+		response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"lancamentos.csv\"");
+		service.exportar(lancamentoFiltro, de, ate, campos, response.getWriter());
+		return null;
+	}
+	
 	@PostMapping
-	public ResponseEntity salvar(@RequestBody LancamentoDTO dto) {
+	public ResponseEntity salvar(@RequestBody LancamentoDTO dto,
+			@RequestAttribute(AutenticacaoInterceptor.ATRIBUTO_USUARIO) Long idUsuario) {
+		if (dto.getUsuario() != null && !dto.getUsuario().equals(idUsuario)) {
+			return new ResponseEntity(AutenticacaoInterceptor.OUTRO_USUARIO, HttpStatus.FORBIDDEN);
+		}
 		try {
-			Lancamento entidade = converter(dto);
-			entidade = service.salvar(entidade);
+			Lancamento entidade = converter(dto, idUsuario);
+			entidade = grupoCommitService.salvar(entidade);
 			return new ResponseEntity(entidade, HttpStatus.CREATED);
 		} catch (RegraNegocioException e) {
 			// TODO Auto-generated catch block
@@ -70,62 +171,123 @@ public class LancamentoResource {
 		}
 	}
 	
+	/**
+	 * As alterações são um único comando limitado ao usuário informado; quando nenhuma linha é
+	 * alterada, o lançamento não existe para esse usuário.
+	 */
 	@PutMapping("{id}")
-	public ResponseEntity atualizar(@PathVariable Long id, @RequestBody LancamentoDTO dto) {
-		return service.obterPorId(id).map( entidade -> {
-			try {
-				Lancamento lancamento = converter(dto);
-				lancamento.setId(entidade.getId());
-				service.atualizar(lancamento);
-				return ResponseEntity.ok(lancamento);
-			} catch (RegraNegocioException e) {
-				return ResponseEntity.badRequest().body(e.getMessage());
+	public ResponseEntity atualizar(@PathVariable Long id, @RequestBody LancamentoDTO dto,
+			@RequestAttribute(AutenticacaoInterceptor.ATRIBUTO_USUARIO) Long idUsuario) {
+		if (dto.getUsuario() != null && !dto.getUsuario().equals(idUsuario)) {
+			return new ResponseEntity(AutenticacaoInterceptor.OUTRO_USUARIO, HttpStatus.FORBIDDEN);
+		}
+		try {
+			Lancamento lancamento = converterReferencias(dto, idUsuario);
+			lancamento.setId(id);
+			if (!service.atualizarDoUsuario(lancamento)) {
+				String mensagem = dto.getCategoria() == null
+						? LANCAMENTO_NAO_ENCONTRADO
+						: "Lançamento ou categoria não encontrados para o usuário informado.";
+				return new ResponseEntity(mensagem, HttpStatus.NOT_FOUND);
 			}
-		}).orElseGet(
-			() -> new ResponseEntity("Lançamento não encontrado na base de dados.", HttpStatus.BAD_REQUEST));
+			return ResponseEntity.ok(lancamento);
+		} catch (RegraNegocioException | IllegalArgumentException e) {
+			return ResponseEntity.badRequest().body(e.getMessage());
+		}
 	}
 	
+	/**
+	 * Responde com o lançamento como ficou gravado, relido depois do comando; a leitura cai no
+	 * primário pela janela de leitura das próprias escritas.
+	 */
 	@PutMapping("{id}/atualiza-status")
-	public ResponseEntity atualizarStatus(@PathVariable("id") Long id, @RequestBody AtualizaStatusDTO dto ) {
-		return service.obterPorId(id).map(entidade -> {
-			StatusLancamento statusSelecionado = StatusLancamento.valueOf(dto.getStatus());
-			
-			if (statusSelecionado == null)
-				return ResponseEntity.badRequest().body("Não foi possível atualizar o status do lançamento, envie um status válido.");
-			
-			try {
-				entidade.setStatus(statusSelecionado);
-				service.atualizar(entidade);
-				return ResponseEntity.ok(entidade);
-			} catch (RegraNegocioException e) {
-				return ResponseEntity.badRequest().body(e.getMessage());
-			}
-		}).orElseGet(
-				() -> new ResponseEntity("Lançamento não encontrado na base de dados.", HttpStatus.BAD_REQUEST));
+	public ResponseEntity atualizarStatus(@PathVariable("id") Long id, @RequestBody AtualizaStatusDTO dto,
+			@RequestAttribute(AutenticacaoInterceptor.ATRIBUTO_USUARIO) Long idUsuario) {
+		StatusLancamento statusSelecionado;
+		try {
+			statusSelecionado = StatusLancamento.valueOf(dto.getStatus());
+		} catch (IllegalArgumentException | NullPointerException e) {
+			return ResponseEntity.badRequest().body("Não foi possível atualizar o status do lançamento, envie um status válido.");
+		}
 		
+		if (!service.atualizarStatusDoUsuario(id, idUsuario, statusSelecionado)) {
+			return new ResponseEntity(LANCAMENTO_NAO_ENCONTRADO, HttpStatus.NOT_FOUND);
+		}
+		return service.obterPorId(id)
+				.<ResponseEntity>map(ResponseEntity::ok)
+				.orElseGet(() -> new ResponseEntity(LANCAMENTO_NAO_ENCONTRADO, HttpStatus.NOT_FOUND));
 	}
 	
 	@DeleteMapping("{id}")
-	public ResponseEntity deletar(@PathVariable("id") Long id) {
-		return service.obterPorId(id).map(entidade -> {
-			service.deletar(entidade);
-			return new ResponseEntity(HttpStatus.NO_CONTENT);
-		}).orElseGet(
-				() -> new ResponseEntity("Lançamento não encontrado na base de dados.", HttpStatus.BAD_REQUEST));
+	public ResponseEntity deletar(@PathVariable("id") Long id,
+			@RequestAttribute(AutenticacaoInterceptor.ATRIBUTO_USUARIO) Long idUsuario) {
+		if (!service.deletarDoUsuario(id, idUsuario)) {
+			return new ResponseEntity(LANCAMENTO_NAO_ENCONTRADO, HttpStatus.NOT_FOUND);
+		}
+		return new ResponseEntity(HttpStatus.NO_CONTENT);
 	}
 	
-	private Lancamento converter(LancamentoDTO dto) {
+	/**
+	 * Converte os nomes de {@code fields=}, mantendo a ordem pedida e descartando repetidos.
+	 */
+	private static List<CampoLancamento> campos(List<String> nomes) {
+		List<CampoLancamento> campos = new ArrayList<>();
+		for (String nome : nomes) {
+			CampoLancamento campo = CampoLancamento.doNome(nome.trim()).orElseThrow(() -> new RegraNegocioException(
+					"Campo desconhecido: " + nome.trim() + ". Campos disponíveis: "
+					+ Arrays.stream(CampoLancamento.values()).map(CampoLancamento::getNome).collect(Collectors.joining(", ")) + "."));
+			if (!campos.contains(campo)) {
+				campos.add(campo);
+			}
+		}
+		if (campos.isEmpty()) {
+			throw new RegraNegocioException("Informe ao menos um campo em fields.");
+		}
+		return campos;
+	}
+	
+	/**
+	 * Usuário e categoria vão só pelo id; quem confere se existem e se pertencem ao mesmo dono é
+	 * o próprio comando de atualização.
+	 */
+	private Lancamento converterReferencias(LancamentoDTO dto, Long idUsuario) {
 		Lancamento lancamento = new Lancamento();
-		lancamento.setId(dto.getId());
 		lancamento.setDescricao(dto.getDescricao());
 		lancamento.setAno(dto.getAno());
 		lancamento.setMes(dto.getMes());
 		lancamento.setValor(dto.getValor());
+		lancamento.setUsuario(Usuario.builder().id(idUsuario).build());
+		if (dto.getCategoria() != null) {
+			lancamento.setCategoria(Categoria.builder().id(dto.getCategoria()).build());
+		}
+		if (dto.getTipo() != null) {
+			lancamento.setTipo(TipoLancamento.valueOf(dto.getTipo()));
+		}
+		if (dto.getStatus() != null) {
+			lancamento.setStatus(StatusLancamento.valueOf(dto.getStatus()));
+		}
+		return lancamento;
+	}
+	
+	/**
+	 * Só para a inclusão: o id informado é ignorado, senão o {@code save} sobrescreveria o
+	 * lançamento existente com esse id, mesmo de outro usuário. O usuário vem do token de acesso,
+	 * sem consulta; só a categoria é conferida no banco.
+	 */
+	private Lancamento converter(LancamentoDTO dto, Long idUsuario) {
+		Lancamento lancamento = new Lancamento();
+		lancamento.setDescricao(dto.getDescricao());
+		lancamento.setAno(dto.getAno());
+		lancamento.setMes(dto.getMes());
+		lancamento.setValor(dto.getValor());
+		lancamento.setUsuario(Usuario.builder().id(idUsuario).build());
 		
-		Usuario usuario = usuarioService.obterPorId(dto.getUsuario()).orElseThrow( 
-				() -> new RegraNegocioException("Usuário não encontrado para o Id informado."));
-		
-		lancamento.setUsuario(usuario);
+		if (dto.getCategoria() != null) {
+			Categoria categoria = categoriaService.obterPorId(dto.getCategoria())
+					.filter(encontrada -> encontrada.getUsuario().getId().equals(idUsuario))
+					.orElseThrow(() -> new RegraNegocioException("Categoria não encontrada para o usuário informado."));
+			lancamento.setCategoria(categoria);
+		}
 
 		if (dto.getTipo() != null) {			
 			lancamento.setTipo(TipoLancamento.valueOf(dto.getTipo()));
@@ -0,0 +1,38 @@
+package com.amantovan.minhasfinancas.api.resource;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.amantovan.minhasfinancas.service.NotificacaoSaldoService;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Assinatura do saldo por Server-Sent Events, no lugar de consultar {@code /saldo} periodicamente.
+ * Cada evento {@code saldo} traz o saldo atual e os lançamentos alterados desde o anterior.
+ */
+@RestController
+@RequestMapping("/api/usuarios")
+@RequiredArgsConstructor
+public class NotificacaoSaldoResource {
+
+	private static final int ESPERA_RECONEXAO_SEGUNDOS = 30;
+	
+	private final NotificacaoSaldoService service;
+	
+	@GetMapping(value = "{id}/saldo/eventos", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+	public ResponseEntity<SseEmitter> assinar(@PathVariable("id") Long id) {
+		// Tipado para que o Spring trate o corpo como fluxo de eventos.
+		return service.assinar(id)
+				.map(ResponseEntity::ok)
+				.orElseGet(() -> ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+						.header("Retry-After", String.valueOf(ESPERA_RECONEXAO_SEGUNDOS))
+						.build());
+	}
+}
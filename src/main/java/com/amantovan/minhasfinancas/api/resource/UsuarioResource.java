@@ -1,8 +1,10 @@
 package com.amantovan.minhasfinancas.api.resource;
 
 import java.math.BigDecimal;
-import java.util.Optional;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
 
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -10,13 +12,21 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.amantovan.minhasfinancas.api.autenticacao.AcessoPublico;
+import com.amantovan.minhasfinancas.api.autenticacao.EmissorTokenAcesso;
+import com.amantovan.minhasfinancas.api.autenticacao.TokenAcesso;
+import com.amantovan.minhasfinancas.api.dto.UsuarioAutenticadoDTO;
 import com.amantovan.minhasfinancas.api.dto.UsuarioDTO;
 import com.amantovan.minhasfinancas.exception.ErroAutenticacao;
 import com.amantovan.minhasfinancas.exception.RegraNegocioException;
+import com.amantovan.minhasfinancas.exception.ServicoSobrecarregadoException;
 import com.amantovan.minhasfinancas.model.entity.Usuario;
+import com.amantovan.minhasfinancas.service.HistoricoLancamentoService;
 import com.amantovan.minhasfinancas.service.LancamentoService;
+import com.amantovan.minhasfinancas.service.PrevisaoSaldoService;
 import com.amantovan.minhasfinancas.service.UsuarioService;
 
 import lombok.RequiredArgsConstructor;
@@ -26,19 +36,35 @@ import lombok.RequiredArgsConstructor;
 @RequiredArgsConstructor
 public class UsuarioResource {
 	
+	private static final int ESPERA_SOBRECARGA_SEGUNDOS = 1;
+	
 	private final UsuarioService service;
 	private final LancamentoService lancamentoService;
+	private final PrevisaoSaldoService previsaoService;
+	private final HistoricoLancamentoService historicoService;
+	private final EmissorTokenAcesso emissorToken;
 	
+	@AcessoPublico
 	@PostMapping("/autenticar")
 	public ResponseEntity autenticar(@RequestBody UsuarioDTO dto) {
 		try {
 			Usuario usuarioAutenticado = service.autenticar(dto.getEmail(), dto.getSenha());
-			return ResponseEntity.ok(usuarioAutenticado);
+			TokenAcesso token = emissorToken.emitir(usuarioAutenticado.getId());
+			return ResponseEntity.ok(UsuarioAutenticadoDTO.builder()
+					.id(usuarioAutenticado.getId())
+					.nome(usuarioAutenticado.getNome())
+					.email(usuarioAutenticado.getEmail())
+					.token(token.getValor())
+					.expiraEm(token.getExpiraEm())
+					.build());
 		} catch (ErroAutenticacao e) {
 			return ResponseEntity.badRequest().body(e.getMessage());
+		} catch (ServicoSobrecarregadoException e) {
+			return sobrecarregado(e);
 		}
 	}
 	
+	@AcessoPublico
 	@PostMapping
 	public ResponseEntity salvar(@RequestBody UsuarioDTO dto) {
 		Usuario usuario = Usuario.builder().nome(dto.getNome()).email(dto.getEmail()).senha(dto.getSenha()).build();
@@ -48,18 +74,40 @@ public class UsuarioResource {
 			return new ResponseEntity(usuarioSalvo, HttpStatus.CREATED);
 		} catch (RegraNegocioException exception) {
 			return ResponseEntity.badRequest().body(exception.getMessage());
+		} catch (ServicoSobrecarregadoException exception) {
+			return sobrecarregado(exception);
 		}
 	}
 	
 	@GetMapping("{id}/saldo")
-	public ResponseEntity obterSaldo(@PathVariable("id") Long id) {
-		Optional<Usuario> usuario = service.obterPorId(id);
-		
-		if(!usuario.isPresent())
-			return new ResponseEntity(HttpStatus.NOT_FOUND);
-		
-		BigDecimal saldo = lancamentoService.obterSaldoPorUsuario(id);
+	public ResponseEntity obterSaldo(
+			@PathVariable("id") Long id,
+			@RequestParam(value = "de", required = false) @DateTimeFormat(pattern = "yyyy-MM") YearMonth de,
+			@RequestParam(value = "ate", required = false) @DateTimeFormat(pattern = "yyyy-MM") YearMonth ate,
+			@RequestParam(value = "em", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime em) {
+		if (em != null) {
+			if (de != null || ate != null) {
+				return ResponseEntity.badRequest().body("Informe a data do saldo ou o período de competência, não os dois.");
+			}
+			return ResponseEntity.ok(historicoService.obterSaldoEm(id, em));
+		}
+		BigDecimal saldo = lancamentoService.obterSaldoPorUsuario(id, de, ate);
 		return ResponseEntity.ok(saldo);
 	}
 	
+	@GetMapping("{id}/previsao")
+	public ResponseEntity obterPrevisao(@PathVariable("id") Long id, @RequestParam(value = "meses", defaultValue = "6") int meses) {
+		try {
+			return ResponseEntity.ok(previsaoService.prever(id, meses));
+		} catch (RegraNegocioException e) {
+			return ResponseEntity.badRequest().body(e.getMessage());
+		}
+	}
+	
+	private ResponseEntity sobrecarregado(ServicoSobrecarregadoException e) {
+		return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+				.header("Retry-After", String.valueOf(ESPERA_SOBRECARGA_SEGUNDOS))
+				.body(e.getMessage());
+	}
+	
 }
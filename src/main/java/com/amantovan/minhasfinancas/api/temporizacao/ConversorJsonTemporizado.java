@@ -0,0 +1,66 @@
+package com.amantovan.minhasfinancas.api.temporizacao;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.util.FastByteArrayOutputStream;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Conversor JSON que mede a serialização. Durante uma requisição medida o corpo é escrito
+ * primeiro em memória, para que o {@code Server-Timing} já inclua a serialização quando os
+ * cabeçalhos são enviados.
+ */
+public class ConversorJsonTemporizado extends MappingJackson2HttpMessageConverter {
+
+	public static final String CABECALHO = "Server-Timing";
+
+	public ConversorJsonTemporizado(ObjectMapper objectMapper) {
+		super(objectMapper);
+	}
+
+	@Override
+	protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage)
+			throws IOException, HttpMessageNotWritableException {
+		TemporizacaoRequisicao medicao = TemporizacaoRequisicao.atual();
+		if (medicao == null) {
+			super.writeInternal(object, type, outputMessage);
+			return;
+		}
+
+		MensagemEmMemoria corpo = new MensagemEmMemoria(outputMessage);
+		TemporizacaoRequisicao.iniciar(FaseRequisicao.SERIALIZACAO);
+		try {
+			super.writeInternal(object, type, corpo);
+		} finally {
+			TemporizacaoRequisicao.encerrar();
+		}
+		outputMessage.getHeaders().set(CABECALHO, medicao.cabecalho());
+		corpo.getBody().writeTo(outputMessage.getBody());
+	}
+
+	private static class MensagemEmMemoria implements HttpOutputMessage {
+
+		private final HttpOutputMessage original;
+		private final FastByteArrayOutputStream corpo = new FastByteArrayOutputStream(1024);
+
+		MensagemEmMemoria(HttpOutputMessage original) {
+			this.original = original;
+		}
+
+		@Override
+		public HttpHeaders getHeaders() {
+			return original.getHeaders();
+		}
+
+		@Override
+		public FastByteArrayOutputStream getBody() {
+			return corpo;
+		}
+	}
+}
@@ -0,0 +1,48 @@
+package com.amantovan.minhasfinancas.api.temporizacao;
+
+/**
+ * Fases em que o tempo de uma requisição é dividido, com o nome usado no {@code Server-Timing}.
+ */
+public enum FaseRequisicao {
+
+	/**
+	 * Busca do usuário pelo {@code UsuarioService}, incluindo as consultas que ela faz.
+	 */
+	USUARIO("usuario", true),
+	/**
+	 * Código dos demais serviços, fora as chamadas aos repositórios.
+	 */
+	SERVICO("servico", false),
+	/**
+	 * Preparação e execução dos comandos JDBC.
+	 */
+	BANCO("db", false),
+	/**
+	 * Tempo dentro dos repositórios fora da execução JDBC: leitura do resultado e montagem das
+	 * entidades pelo Hibernate.
+	 */
+	HIDRATACAO("hidratacao", false),
+	/**
+	 * Escrita do corpo da resposta pelo Jackson.
+	 */
+	SERIALIZACAO("json", false);
+
+	private final String nome;
+	private final boolean absorvente;
+
+	FaseRequisicao(String nome, boolean absorvente) {
+		this.nome = nome;
+		this.absorvente = absorvente;
+	}
+
+	public String getNome() {
+		return nome;
+	}
+
+	/**
+	 * Uma fase absorvente fica com o tempo das fases chamadas dentro dela.
+	 */
+	boolean isAbsorvente() {
+		return absorvente;
+	}
+}
@@ -0,0 +1,51 @@
+package com.amantovan.minhasfinancas.api.temporizacao;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.annotation.Pointcut;
+
+/**
+ * Atribui às fases da requisição o tempo passado nos serviços e repositórios. O tempo de um
+ * repositório fora da execução JDBC, medida por {@link TemporizacaoJdbc}, é a montagem das
+ * entidades pelo Hibernate.
+ */
+@Aspect
+public class TemporizacaoAspect {
+
+	@Pointcut("execution(* com.amantovan.minhasfinancas.service.UsuarioService+.*(..))")
+	void usuario() {
+	}
+
+	@Pointcut("execution(* com.amantovan.minhasfinancas.service..*Service+.*(..))")
+	void servico() {
+	}
+
+	@Pointcut("execution(* org.springframework.data.repository.Repository+.*(..))")
+	void repositorio() {
+	}
+
+	@Around("usuario()")
+	public Object medirUsuario(ProceedingJoinPoint chamada) throws Throwable {
+		return medir(FaseRequisicao.USUARIO, chamada);
+	}
+
+	@Around("servico() && !usuario()")
+	public Object medirServico(ProceedingJoinPoint chamada) throws Throwable {
+		return medir(FaseRequisicao.SERVICO, chamada);
+	}
+
+	@Around("repositorio()")
+	public Object medirRepositorio(ProceedingJoinPoint chamada) throws Throwable {
+		return medir(FaseRequisicao.HIDRATACAO, chamada);
+	}
+
+	private static Object medir(FaseRequisicao fase, ProceedingJoinPoint chamada) throws Throwable {
+		TemporizacaoRequisicao.iniciar(fase);
+		try {
+			return chamada.proceed();
+		} finally {
+			TemporizacaoRequisicao.encerrar();
+		}
+	}
+}
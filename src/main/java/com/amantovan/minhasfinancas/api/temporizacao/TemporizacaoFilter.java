@@ -0,0 +1,68 @@
+package com.amantovan.minhasfinancas.api.temporizacao;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Abre a medição de cada requisição da API, envia o {@code Server-Timing} quando nenhum
+ * conversor o enviou e registra uma amostra das medições no log. Requisições lentas são
+ * sempre registradas.
+ */
+public class TemporizacaoFilter extends OncePerRequestFilter {
+
+	private static final Logger log = LoggerFactory.getLogger(TemporizacaoFilter.class);
+
+	private final TemporizacaoProperties propriedades;
+
+	public TemporizacaoFilter(TemporizacaoProperties propriedades) {
+		this.propriedades = propriedades;
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+			throws ServletException, IOException {
+		TemporizacaoRequisicao medicao = TemporizacaoRequisicao.iniciarRequisicao();
+		try {
+			chain.doFilter(request, response);
+		} finally {
+			TemporizacaoRequisicao.encerrarRequisicao();
+			if (!response.isCommitted() && !response.containsHeader(ConversorJsonTemporizado.CABECALHO)) {
+				response.setHeader(ConversorJsonTemporizado.CABECALHO, medicao.cabecalho());
+			}
+			registrar(request, response, medicao);
+		}
+	}
+
+	private void registrar(HttpServletRequest request, HttpServletResponse response, TemporizacaoRequisicao medicao) {
+		long totalNanos = medicao.getTotalNanos();
+		boolean lenta = totalNanos >= propriedades.getLimiteLentoMs() * 1_000_000L;
+		if (!log.isInfoEnabled() || (!lenta && ThreadLocalRandom.current().nextDouble() >= propriedades.getAmostragem())) {
+			return;
+		}
+
+		StringBuilder linha = new StringBuilder(160)
+				.append("temporizacao metodo=").append(request.getMethod())
+				.append(" caminho=").append(request.getRequestURI())
+				.append(" status=").append(response.getStatus())
+				.append(" lenta=").append(lenta);
+		for (FaseRequisicao fase : FaseRequisicao.values()) {
+			linha.append(' ').append(fase.getNome()).append("_us=").append(medicao.getNanos(fase) / 1_000);
+		}
+		linha.append(" total_us=").append(totalNanos / 1_000);
+		log.info(linha.toString());
+	}
+
+	@Override
+	protected boolean shouldNotFilter(HttpServletRequest request) {
+		return !request.getRequestURI().startsWith(request.getContextPath() + "/api/");
+	}
+}
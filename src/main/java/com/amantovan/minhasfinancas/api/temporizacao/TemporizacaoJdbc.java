@@ -0,0 +1,43 @@
+package com.amantovan.minhasfinancas.api.temporizacao;
+
+import org.hibernate.BaseSessionEventListener;
+
+/**
+ * Mede a preparação e a execução dos comandos JDBC de cada sessão do Hibernate como
+ * {@link FaseRequisicao#BANCO}. É instanciado pelo Hibernate a cada sessão, pela propriedade
+ * {@code hibernate.session.events.auto}.
+ */
+public class TemporizacaoJdbc extends BaseSessionEventListener {
+
+	private static final long serialVersionUID = 1L;
+
+	@Override
+	public void jdbcPrepareStatementStart() {
+		TemporizacaoRequisicao.iniciar(FaseRequisicao.BANCO);
+	}
+
+	@Override
+	public void jdbcPrepareStatementEnd() {
+		TemporizacaoRequisicao.encerrar();
+	}
+
+	@Override
+	public void jdbcExecuteStatementStart() {
+		TemporizacaoRequisicao.iniciar(FaseRequisicao.BANCO);
+	}
+
+	@Override
+	public void jdbcExecuteStatementEnd() {
+		TemporizacaoRequisicao.encerrar();
+	}
+
+	@Override
+	public void jdbcExecuteBatchStart() {
+		TemporizacaoRequisicao.iniciar(FaseRequisicao.BANCO);
+	}
+
+	@Override
+	public void jdbcExecuteBatchEnd() {
+		TemporizacaoRequisicao.encerrar();
+	}
+}
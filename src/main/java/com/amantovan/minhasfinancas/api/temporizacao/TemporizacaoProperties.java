@@ -0,0 +1,18 @@
+package com.amantovan.minhasfinancas.api.temporizacao;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+/**
+ * Medição do tempo de cada requisição por fase. {@code amostragem} é a fração das requisições
+ * registradas no log; as que passam de {@code limite-lento-ms} são sempre registradas.
+ */
+@Data
+@ConfigurationProperties(prefix = "minhasfinancas.temporizacao")
+public class TemporizacaoProperties {
+
+	private boolean habilitado = true;
+	private double amostragem = 0.01;
+	private long limiteLentoMs = 1000;
+}
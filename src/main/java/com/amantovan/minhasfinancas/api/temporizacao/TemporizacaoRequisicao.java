@@ -0,0 +1,118 @@
+package com.amantovan.minhasfinancas.api.temporizacao;
+
+import java.util.Locale;
+
+/**
+ * Acumula, na thread da requisição, o tempo gasto em cada {@link FaseRequisicao}.
+ *
+ * As fases podem se aninhar, como um serviço que chama um repositório que executa uma
+ * consulta; cada uma fica só com o próprio tempo, descontado o das fases internas. Fora de
+ * uma requisição medida, ou em outras threads, as chamadas não fazem nada. Para ficar barata o
+ * bastante para produção, a medição usa só {@link System#nanoTime()} e arrays de tamanho fixo.
+ */
+public final class TemporizacaoRequisicao {
+
+	private static final int PROFUNDIDADE_MAXIMA = 32;
+	private static final ThreadLocal<TemporizacaoRequisicao> ATUAL = new ThreadLocal<>();
+
+	private final long inicio;
+	private final long[] totais = new long[FaseRequisicao.values().length];
+	private final FaseRequisicao[] fases = new FaseRequisicao[PROFUNDIDADE_MAXIMA];
+	private final long[] inicios = new long[PROFUNDIDADE_MAXIMA];
+	private final long[] internos = new long[PROFUNDIDADE_MAXIMA];
+	private int profundidade;
+	private int absorvidas;
+	private int excedentes;
+
+	private TemporizacaoRequisicao(long inicio) {
+		this.inicio = inicio;
+	}
+
+	public static TemporizacaoRequisicao iniciarRequisicao() {
+		TemporizacaoRequisicao medicao = new TemporizacaoRequisicao(System.nanoTime());
+		ATUAL.set(medicao);
+		return medicao;
+	}
+
+	public static void encerrarRequisicao() {
+		ATUAL.remove();
+	}
+
+	public static TemporizacaoRequisicao atual() {
+		return ATUAL.get();
+	}
+
+	public static void iniciar(FaseRequisicao fase) {
+		TemporizacaoRequisicao medicao = ATUAL.get();
+		if (medicao != null) {
+			medicao.abrir(fase, System.nanoTime());
+		}
+	}
+
+	public static void encerrar() {
+		TemporizacaoRequisicao medicao = ATUAL.get();
+		if (medicao != null) {
+			medicao.fechar(System.nanoTime());
+		}
+	}
+
+	void abrir(FaseRequisicao fase, long agora) {
+		if (absorvidas > 0) {
+			absorvidas++;
+		} else if (profundidade == PROFUNDIDADE_MAXIMA) {
+			excedentes++;
+		} else {
+			fases[profundidade] = fase;
+			inicios[profundidade] = agora;
+			internos[profundidade] = 0;
+			profundidade++;
+			absorvidas = fase.isAbsorvente() ? 1 : 0;
+		}
+	}
+
+	void fechar(long agora) {
+		if (absorvidas > 1) {
+			absorvidas--;
+		} else if (excedentes > 0) {
+			excedentes--;
+		} else if (profundidade > 0) {
+			profundidade--;
+			long duracao = agora - inicios[profundidade];
+			totais[fases[profundidade].ordinal()] += duracao - internos[profundidade];
+			if (profundidade > 0) {
+				internos[profundidade - 1] += duracao;
+			}
+			absorvidas = 0;
+		}
+	}
+
+	public long getNanos(FaseRequisicao fase) {
+		return totais[fase.ordinal()];
+	}
+
+	public long getTotalNanos() {
+		return System.nanoTime() - inicio;
+	}
+
+	/**
+	 * Valor do cabeçalho {@code Server-Timing}, com as fases que tiveram tempo e o total até agora,
+	 * em milissegundos.
+	 */
+	public String cabecalho() {
+		StringBuilder cabecalho = new StringBuilder(128);
+		for (FaseRequisicao fase : FaseRequisicao.values()) {
+			if (totais[fase.ordinal()] > 0) {
+				adicionar(cabecalho, fase.getNome(), totais[fase.ordinal()]);
+			}
+		}
+		adicionar(cabecalho, "total", getTotalNanos());
+		return cabecalho.toString();
+	}
+
+	private static void adicionar(StringBuilder cabecalho, String nome, long nanos) {
+		if (cabecalho.length() > 0) {
+			cabecalho.append(", ");
+		}
+		cabecalho.append(nome).append(";dur=").append(String.format(Locale.ROOT, "%.2f", nanos / 1_000_000d));
+	}
+}
@@ -0,0 +1,34 @@
+package com.amantovan.minhasfinancas.api.temporizacao;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * Envia o {@code Server-Timing} das respostas escritas por outros conversores, como as mensagens
+ * de erro em texto, antes que o corpo comprometa os cabeçalhos. As respostas JSON recebem o
+ * cabeçalho do {@link ConversorJsonTemporizado}, já com a serialização.
+ */
+@ControllerAdvice
+public class TemporizacaoRespostaAdvice implements ResponseBodyAdvice<Object> {
+
+	@Override
+	public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+		return !ConversorJsonTemporizado.class.isAssignableFrom(converterType);
+	}
+
+	@Override
+	public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+			Class<? extends HttpMessageConverter<?>> selectedConverterType, ServerHttpRequest request,
+			ServerHttpResponse response) {
+		TemporizacaoRequisicao medicao = TemporizacaoRequisicao.atual();
+		if (medicao != null) {
+			response.getHeaders().set(ConversorJsonTemporizado.CABECALHO, medicao.cabecalho());
+		}
+		return body;
+	}
+}
@@ -0,0 +1,41 @@
+package com.amantovan.minhasfinancas.config;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import com.amantovan.minhasfinancas.api.admissao.AdmissaoInterceptor;
+import com.amantovan.minhasfinancas.api.admissao.AdmissaoProperties;
+import com.amantovan.minhasfinancas.api.admissao.ControleAdmissao;
+import com.amantovan.minhasfinancas.api.admissao.MonitorPoolConexoes;
+
+@Configuration
+@EnableConfigurationProperties(AdmissaoProperties.class)
+public class AdmissaoConfig implements WebMvcConfigurer {
+
+	private final AdmissaoProperties propriedades;
+	private final ObjectProvider<DataSource> dataSource;
+	
+	public AdmissaoConfig(AdmissaoProperties propriedades, ObjectProvider<DataSource> dataSource) {
+		this.propriedades = propriedades;
+		this.dataSource = dataSource;
+	}
+	
+	@Bean
+	public ControleAdmissao controleAdmissao() {
+		return new ControleAdmissao(propriedades, 
+				new MonitorPoolConexoes(dataSource.getIfAvailable(), propriedades.getFilaMaximaPool()));
+	}
+	
+	@Override
+	public void addInterceptors(InterceptorRegistry registry) {
+		if (propriedades.isHabilitado()) {
+			registry.addInterceptor(new AdmissaoInterceptor(controleAdmissao())).addPathPatterns("/api/**");
+		}
+	}
+}
@@ -0,0 +1,40 @@
+package com.amantovan.minhasfinancas.config;
+
+import java.time.Clock;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import com.amantovan.minhasfinancas.api.autenticacao.AutenticacaoInterceptor;
+import com.amantovan.minhasfinancas.api.autenticacao.AutenticacaoProperties;
+import com.amantovan.minhasfinancas.api.autenticacao.EmissorTokenAcesso;
+
+/**
+ * Registrado antes da admissão, para que ela já conheça o usuário do token.
+ */
+@Configuration
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@EnableConfigurationProperties(AutenticacaoProperties.class)
+public class AutenticacaoConfig implements WebMvcConfigurer {
+
+	private final AutenticacaoProperties propriedades;
+	
+	public AutenticacaoConfig(AutenticacaoProperties propriedades) {
+		this.propriedades = propriedades;
+	}
+	
+	@Bean
+	public EmissorTokenAcesso emissorTokenAcesso() {
+		return new EmissorTokenAcesso(propriedades, Clock.systemUTC());
+	}
+	
+	@Override
+	public void addInterceptors(InterceptorRegistry registry) {
+		registry.addInterceptor(new AutenticacaoInterceptor(emissorTokenAcesso())).addPathPatterns("/api/**");
+	}
+}
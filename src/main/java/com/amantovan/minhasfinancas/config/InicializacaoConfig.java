@@ -0,0 +1,24 @@
+package com.amantovan.minhasfinancas.config;
+
+import java.util.Arrays;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.util.StringUtils;
+
+/**
+ * Ativada por {@code minhasfinancas.inicializacao.preguicosa=true}, ligada no perfil
+ * {@code producao}.
+ */
+@Configuration
+public class InicializacaoConfig {
+
+	@Bean
+	@ConditionalOnProperty(name = "minhasfinancas.inicializacao.preguicosa", havingValue = "true")
+	public static InicializacaoPreguicosaPostProcessor inicializacaoPreguicosaPostProcessor(Environment environment) {
+		String ansiosos = environment.getProperty("minhasfinancas.inicializacao.ansiosos", "");
+		return new InicializacaoPreguicosaPostProcessor(Arrays.asList(StringUtils.commaDelimitedListToStringArray(ansiosos)));
+	}
+}
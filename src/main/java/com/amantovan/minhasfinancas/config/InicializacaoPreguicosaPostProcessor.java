@@ -0,0 +1,101 @@
+package com.amantovan.minhasfinancas.config;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.servlet.Filter;
+
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.AnnotatedBeanDefinition;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.web.servlet.ServletContextInitializer;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.Lifecycle;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.core.type.MethodMetadata;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Marca como preguiçosos os beans que não precisam existir antes da primeira requisição que
+ * os usa, encurtando a subida da aplicação.
+ * 
+ * Continuam sendo criados na subida os beans que só funcionam se existirem desde o início:
+ * tarefas agendadas, ouvintes de eventos, runners, filtros, configuração do MVC, métricas e
+ * componentes com ciclo de vida, além dos nomes informados em
+ * {@code minhasfinancas.inicializacao.ansiosos}.
+ */
+public class InicializacaoPreguicosaPostProcessor implements BeanFactoryPostProcessor {
+
+	private static final List<Class<?>> TIPOS_ANSIOSOS = Arrays.asList(
+			SmartInitializingSingleton.class, Lifecycle.class, ApplicationListener.class, 
+			ApplicationRunner.class, CommandLineRunner.class, Filter.class, ServletContextInitializer.class, 
+			WebMvcConfigurer.class, MeterBinder.class);
+	
+	private final Set<String> ansiosos;
+	
+	public InicializacaoPreguicosaPostProcessor(Collection<String> ansiosos) {
+		this.ansiosos = new HashSet<>(ansiosos);
+	}
+	
+	@Override
+	public void postProcessBeanFactory(ConfigurableListableBeanFactory beanFactory) {
+		for (String nome : beanFactory.getBeanDefinitionNames()) {
+			BeanDefinition definicao = beanFactory.getBeanDefinition(nome);
+			if (ansiosos.contains(nome) || definicao.getRole() == BeanDefinition.ROLE_INFRASTRUCTURE) {
+				continue;
+			}
+			
+			Class<?> tipo = tipo(definicao, beanFactory.getBeanClassLoader());
+			if (tipo != null && !ansioso(tipo)) {
+				definicao.setLazyInit(true);
+			}
+		}
+	}
+	
+	private static Class<?> tipo(BeanDefinition definicao, ClassLoader classLoader) {
+		String nomeTipo = definicao.getBeanClassName();
+		if (definicao instanceof AnnotatedBeanDefinition) {
+			MethodMetadata metodoFabrica = ((AnnotatedBeanDefinition) definicao).getFactoryMethodMetadata();
+			if (metodoFabrica != null) {
+				nomeTipo = metodoFabrica.getReturnTypeName();
+			}
+		}
+		if (nomeTipo == null) {
+			return null;
+		}
+		try {
+			return ClassUtils.forName(nomeTipo, classLoader);
+		} catch (ClassNotFoundException | LinkageError e) {
+			return null;
+		}
+	}
+	
+	private static boolean ansioso(Class<?> tipo) {
+		for (Class<?> tipoAnsioso : TIPOS_ANSIOSOS) {
+			if (tipoAnsioso.isAssignableFrom(tipo)) {
+				return true;
+			}
+		}
+		for (Method metodo : ReflectionUtils.getUniqueDeclaredMethods(tipo)) {
+			if (AnnotatedElementUtils.hasAnnotation(metodo, Scheduled.class) 
+					|| AnnotatedElementUtils.hasAnnotation(metodo, EventListener.class)) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
@@ -0,0 +1,36 @@
+package com.amantovan.minhasfinancas.config;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.amantovan.minhasfinancas.config.datasource.GerenciadorFragmentos;
+import com.amantovan.minhasfinancas.service.TransporteInvalidacao;
+import com.amantovan.minhasfinancas.service.impl.TransporteInvalidacaoLocal;
+import com.amantovan.minhasfinancas.service.impl.TransporteInvalidacaoPostgres;
+
+/**
+ * Transporte das invalidações de cache entre as instâncias, escolhido em
+ * {@code minhasfinancas.invalidacao.transporte}: {@code local}, o padrão, para uma instância
+ * só, ou {@code postgres}, com LISTEN/NOTIFY, quando houver várias atrás do balanceador.
+ */
+@Configuration
+public class InvalidacaoConfig {
+
+	@Bean
+	@ConditionalOnProperty(name = "minhasfinancas.invalidacao.transporte", havingValue = "local", matchIfMissing = true)
+	public TransporteInvalidacao transporteInvalidacaoLocal() {
+		return new TransporteInvalidacaoLocal();
+	}
+
+	@Bean
+	@ConditionalOnProperty(name = "minhasfinancas.invalidacao.transporte", havingValue = "postgres")
+	public TransporteInvalidacao transporteInvalidacaoPostgres(DataSource dataSource, GerenciadorFragmentos fragmentos,
+			@Value("${minhasfinancas.invalidacao.canal:minhasfinancas_invalidacao}") String canal,
+			@Value("${minhasfinancas.invalidacao.espera-reconexao-ms:5000}") long esperaReconexaoMs) {
+		return new TransporteInvalidacaoPostgres(dataSource, fragmentos, canal, esperaReconexaoMs);
+	}
+}
@@ -0,0 +1,70 @@
+package com.amantovan.minhasfinancas.config;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.net.HttpURLConnection;
+import java.net.URL;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Mede o tempo de subida da aplicação. Com {@code minhasfinancas.inicializacao.encerrar-apos-subida=true}
+ * a aplicação faz uma requisição a si mesma e encerra, o que serve de execução de treino para
+ * o arquivo de CDS e para o benchmark de inicialização.
+ */
+@Component
+public class MedidorInicializacao {
+
+	private static final Logger log = LoggerFactory.getLogger(MedidorInicializacao.class);
+	
+	private boolean encerrarAposSubida;
+	private volatile long tempoSubida = -1;
+	
+	public MedidorInicializacao(@Value("${minhasfinancas.inicializacao.encerrar-apos-subida:false}") boolean encerrarAposSubida) {
+		this.encerrarAposSubida = encerrarAposSubida;
+	}
+	
+	@EventListener(ApplicationReadyEvent.class)
+	public void aoSubir(ApplicationReadyEvent evento) {
+		tempoSubida = ManagementFactory.getRuntimeMXBean().getUptime();
+		log.info("Aplicação pronta {} ms após o início da JVM.", tempoSubida);
+		
+		if (encerrarAposSubida) {
+			aquecer(evento.getApplicationContext().getEnvironment().getProperty("local.server.port"));
+			System.exit(SpringApplication.exit(evento.getApplicationContext()));
+		}
+	}
+	
+	/**
+	 * Milissegundos entre o início da JVM e a aplicação pronta, ou -1 durante a subida.
+	 */
+	public long getTempoSubida() {
+		return tempoSubida;
+	}
+	
+	private void aquecer(String porta) {
+		if (porta == null) {
+			return;
+		}
+		try {
+			HttpURLConnection conexao = (HttpURLConnection) new URL("http://localhost:" + porta + "/api/usuarios/0/saldo").openConnection();
+			InputStream corpo = conexao.getResponseCode() >= 400 ? conexao.getErrorStream() : conexao.getInputStream();
+			if (corpo != null) {
+				try (InputStream descartado = corpo) {
+					while (descartado.read() != -1) {
+						// descarta o corpo
+					}
+				}
+			}
+		} catch (IOException e) {
+			log.warn("Falha na requisição de aquecimento.", e);
+		}
+	}
+}
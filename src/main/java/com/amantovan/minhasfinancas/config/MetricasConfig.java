@@ -0,0 +1,105 @@
+package com.amantovan.minhasfinancas.config;
+
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.amantovan.minhasfinancas.api.admissao.AdmissaoProperties.Limite;
+import com.amantovan.minhasfinancas.api.admissao.ControleAdmissao;
+import com.amantovan.minhasfinancas.api.admissao.ControleAdmissao.ContadorRejeicoes;
+import com.amantovan.minhasfinancas.api.filter.PrimeiraRequisicaoFilter;
+import com.amantovan.minhasfinancas.service.CacheBuscaLancamentoService;
+import com.amantovan.minhasfinancas.service.FiltroEmailService;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+@Configuration
+public class MetricasConfig {
+
+	@Bean
+	public MeterBinder metricasFiltroEmail(FiltroEmailService filtro) {
+		return registry -> {
+			Gauge.builder("minhasfinancas.filtro.email.falso.positivo.estimado", filtro, FiltroEmailService::getTaxaFalsoPositivoEstimada)
+				.description("Taxa de falso positivo estimada pela ocupação do filtro de emails")
+				.register(registry);
+			FunctionCounter.builder("minhasfinancas.filtro.email.consultas", filtro, FiltroEmailService::getConsultas)
+				.register(registry);
+			FunctionCounter.builder("minhasfinancas.filtro.email.negativos", filtro, FiltroEmailService::getNegativos)
+				.description("Consultas respondidas sem acessar o banco")
+				.register(registry);
+			FunctionCounter.builder("minhasfinancas.filtro.email.falsos.positivos", filtro, FiltroEmailService::getFalsosPositivos)
+				.description("Positivos do filtro que o banco não confirmou")
+				.register(registry);
+		};
+	}
+	
+	@Bean
+	public MeterBinder metricasCacheBusca(CacheBuscaLancamentoService cache) {
+		return registry -> {
+			FunctionCounter.builder("minhasfinancas.cache.busca.acertos", cache, CacheBuscaLancamentoService::getAcertos)
+				.register(registry);
+			FunctionCounter.builder("minhasfinancas.cache.busca.falhas", cache, CacheBuscaLancamentoService::getFalhas)
+				.register(registry);
+			FunctionCounter.builder("minhasfinancas.cache.busca.coalescidas", cache, CacheBuscaLancamentoService::getCoalescidas)
+				.description("Buscas que aguardaram uma consulta idêntica já em andamento")
+				.register(registry);
+			FunctionCounter.builder("minhasfinancas.cache.busca.invalidacoes", cache, CacheBuscaLancamentoService::getInvalidacoes)
+				.register(registry);
+			Gauge.builder("minhasfinancas.cache.busca.taxa.acerto", cache, CacheBuscaLancamentoService::getTaxaAcerto)
+				.register(registry);
+			Gauge.builder("minhasfinancas.cache.busca.entradas", cache, CacheBuscaLancamentoService::getEntradas)
+				.register(registry);
+			Gauge.builder("minhasfinancas.cache.busca.memoria", cache, CacheBuscaLancamentoService::getBytesEstimados)
+				.description("Memória estimada dos resultados guardados")
+				.baseUnit("bytes")
+				.register(registry);
+		};
+	}
+	
+	@Bean
+	public MeterBinder metricasInicializacao(MedidorInicializacao medidor, PrimeiraRequisicaoFilter primeiraRequisicao) {
+		return registry -> {
+			TimeGauge.builder("minhasfinancas.inicializacao.pronta", medidor, TimeUnit.MILLISECONDS, MedidorInicializacao::getTempoSubida)
+				.description("Tempo entre o início da JVM e a aplicação pronta")
+				.register(registry);
+			TimeGauge.builder("minhasfinancas.inicializacao.primeira.requisicao", primeiraRequisicao, TimeUnit.MILLISECONDS, 
+					PrimeiraRequisicaoFilter::getTempoPrimeiraRequisicao)
+				.description("Tempo entre o início da JVM e a primeira requisição concluída")
+				.register(registry);
+		};
+	}
+	
+	@Bean
+	public MeterBinder metricasAdmissao(ControleAdmissao controle) {
+		return registry -> {
+			for (Limite limite : controle.getLimites()) {
+				Tags tags = Tags.of("endpoint", limite.getNome());
+				Gauge.builder("minhasfinancas.admissao.limite.capacidade", limite, Limite::getCapacidade)
+					.tags(tags)
+					.register(registry);
+				Gauge.builder("minhasfinancas.admissao.limite.reposicao", limite, Limite::getReposicaoPorSegundo)
+					.description("Tokens repostos por segundo no balde de cada cliente")
+					.tags(tags)
+					.register(registry);
+				Gauge.builder("minhasfinancas.admissao.limite.concorrencia", limite, Limite::getConcorrenciaPorUsuario)
+					.tags(tags)
+					.register(registry);
+			}
+			Gauge.builder("minhasfinancas.admissao.baldes", controle, ControleAdmissao::getBaldesAtivos)
+				.register(registry);
+			Gauge.builder("minhasfinancas.admissao.pool.aguardando", controle, ControleAdmissao::getAguardandoConexao)
+				.description("Threads aguardando conexão nos pools do banco")
+				.register(registry);
+			controle.observarRejeicoes(contador -> 
+				FunctionCounter.builder("minhasfinancas.admissao.rejeicoes", contador, ContadorRejeicoes::getTotal)
+					.tag("endpoint", contador.getEndpoint())
+					.tag("motivo", contador.getMotivo().name().toLowerCase())
+					.register(registry));
+		};
+	}
+}
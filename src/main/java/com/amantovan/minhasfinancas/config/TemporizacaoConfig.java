@@ -0,0 +1,48 @@
+package com.amantovan.minhasfinancas.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+import com.amantovan.minhasfinancas.api.temporizacao.ConversorJsonTemporizado;
+import com.amantovan.minhasfinancas.api.temporizacao.TemporizacaoAspect;
+import com.amantovan.minhasfinancas.api.temporizacao.TemporizacaoFilter;
+import com.amantovan.minhasfinancas.api.temporizacao.TemporizacaoJdbc;
+import com.amantovan.minhasfinancas.api.temporizacao.TemporizacaoProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+@Configuration
+@ConditionalOnProperty(prefix = "minhasfinancas.temporizacao", name = "habilitado", matchIfMissing = true)
+@EnableConfigurationProperties(TemporizacaoProperties.class)
+public class TemporizacaoConfig {
+
+	@Bean
+	public FilterRegistrationBean<TemporizacaoFilter> temporizacaoFilter(TemporizacaoProperties propriedades) {
+		FilterRegistrationBean<TemporizacaoFilter> registro = new FilterRegistrationBean<>(new TemporizacaoFilter(propriedades));
+		registro.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+		return registro;
+	}
+
+	@Bean
+	public TemporizacaoAspect temporizacaoAspect() {
+		return new TemporizacaoAspect();
+	}
+
+	/**
+	 * Substitui o conversor JSON padrão do Spring Boot, que só é criado na falta de outro.
+	 */
+	@Bean
+	public MappingJackson2HttpMessageConverter mappingJackson2HttpMessageConverter(ObjectMapper objectMapper) {
+		return new ConversorJsonTemporizado(objectMapper);
+	}
+
+	@Bean
+	public HibernatePropertiesCustomizer temporizacaoJdbc() {
+		return propriedades -> propriedades.put("hibernate.session.events.auto", TemporizacaoJdbc.class.getName());
+	}
+}
@@ -0,0 +1,53 @@
+package com.amantovan.minhasfinancas.config.datasource;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Usuários donos da operação em andamento na thread atual. Definidos pelos serviços antes
+ * do primeiro acesso ao banco e usados pelo roteamento de conexões. Um fragmento definido
+ * explicitamente tem precedência sobre o fragmento dos usuários.
+ */
+public final class ContextoRoteamento {
+
+	private static final ThreadLocal<Set<Long>> USUARIOS = new ThreadLocal<>();
+	private static final ThreadLocal<Integer> FRAGMENTO = new ThreadLocal<>();
+	
+	private ContextoRoteamento() {
+	}
+	
+	public static void definirUsuario(Long idUsuario) {
+		definirUsuarios(Collections.singleton(idUsuario));
+	}
+	
+	public static void definirUsuarios(Collection<Long> idsUsuarios) {
+		Set<Long> usuarios = new LinkedHashSet<>(idsUsuarios);
+		usuarios.removeIf(Objects::isNull);
+		USUARIOS.set(Collections.unmodifiableSet(usuarios));
+	}
+	
+	public static Set<Long> obterUsuarios() {
+		Set<Long> usuarios = USUARIOS.get();
+		return usuarios == null ? Collections.emptySet() : usuarios;
+	}
+	
+	public static void definirFragmento(Integer fragmento) {
+		if (fragmento == null) {
+			FRAGMENTO.remove();
+		} else {
+			FRAGMENTO.set(fragmento);
+		}
+	}
+	
+	public static Integer obterFragmento() {
+		return FRAGMENTO.get();
+	}
+	
+	public static void limpar() {
+		USUARIOS.remove();
+		FRAGMENTO.remove();
+	}
+}
@@ -0,0 +1,56 @@
+package com.amantovan.minhasfinancas.config.datasource;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+/**
+ * Envia cada conexão para o fragmento definido no {@link ContextoRoteamento} ou, na falta
+ * dele, para o fragmento do primeiro usuário do contexto. Sem nenhum dos dois a conexão vai
+ * para o fragmento 0, que também guarda o diretório de usuários movidos.
+ * 
+ * Assim como o {@link DataSourceRoteado}, precisa ficar atrás de um
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy} para que o
+ * contexto seja lido no primeiro comando e não no início da transação.
+ */
+public class DataSourceFragmentado extends AbstractRoutingDataSource {
+
+	private final List<DataSource> fragmentos;
+	private final GerenciadorFragmentos gerenciador;
+	
+	public DataSourceFragmentado(List<DataSource> fragmentos, GerenciadorFragmentos gerenciador) {
+		this.fragmentos = fragmentos;
+		this.gerenciador = gerenciador;
+		Map<Object, Object> alvos = new HashMap<>();
+		for (int i = 0; i < fragmentos.size(); i++) {
+			alvos.put(i, fragmentos.get(i));
+		}
+		setTargetDataSources(alvos);
+		setDefaultTargetDataSource(fragmentos.get(0));
+		setLenientFallback(false);
+	}
+	
+	@Override
+	protected Object determineCurrentLookupKey() {
+		Integer fragmento = ContextoRoteamento.obterFragmento();
+		if (fragmento != null) {
+			return fragmento;
+		}
+		
+		Set<Long> usuarios = ContextoRoteamento.obterUsuarios();
+		if (!usuarios.isEmpty()) {
+			return gerenciador.fragmentoDoUsuario(usuarios.iterator().next());
+		}
+		return 0;
+	}
+	
+	public List<DataSource> getFontes() {
+		return Collections.unmodifiableList(fragmentos);
+	}
+}
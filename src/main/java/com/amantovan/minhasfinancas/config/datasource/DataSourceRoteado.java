@@ -0,0 +1,112 @@
+package com.amantovan.minhasfinancas.config.datasource;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Envia transações somente leitura para as réplicas, em rodízio entre as que passaram na
+ * última verificação de saúde, e todo o resto para o primário.
+ * 
+ * Depois que um usuário escreve, suas leituras continuam no primário durante a janela de
+ * leitura consistente, para que ele veja a própria escrita mesmo com atraso de replicação.
+ * Precisa ficar atrás de um {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy},
+ * senão a conexão é obtida antes de a transação ser marcada como somente leitura.
+ */
+public class DataSourceRoteado extends AbstractRoutingDataSource {
+
+	private static final Logger log = LoggerFactory.getLogger(DataSourceRoteado.class);
+	
+	static final String PRIMARIO = "primario";
+	
+	private final List<String> replicas = new ArrayList<>();
+	private final Map<String, DataSource> fontes = new HashMap<>();
+	private final Map<Long, Long> ultimasEscritas = new ConcurrentHashMap<>();
+	private final AtomicInteger proxima = new AtomicInteger();
+	private final long janelaLeituraConsistente;
+	private volatile List<String> replicasSaudaveis;
+	
+	public DataSourceRoteado(DataSource primario, List<DataSource> replicas, Duration janelaLeituraConsistente) {
+		this.janelaLeituraConsistente = janelaLeituraConsistente.toMillis();
+		fontes.put(PRIMARIO, primario);
+		for (int i = 0; i < replicas.size(); i++) {
+			String chave = "replica-" + i;
+			this.replicas.add(chave);
+			fontes.put(chave, replicas.get(i));
+		}
+		replicasSaudaveis = Collections.unmodifiableList(new ArrayList<>(this.replicas));
+		setTargetDataSources(new HashMap<>(fontes));
+		setDefaultTargetDataSource(primario);
+	}
+	
+	@Override
+	protected Object determineCurrentLookupKey() {
+		Set<Long> usuarios = ContextoRoteamento.obterUsuarios();
+		long agora = System.currentTimeMillis();
+		
+		if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+			usuarios.forEach(usuario -> ultimasEscritas.put(usuario, agora));
+			return PRIMARIO;
+		}
+		
+		for (Long usuario : usuarios) {
+			Long ultimaEscrita = ultimasEscritas.get(usuario);
+			if (ultimaEscrita != null && agora - ultimaEscrita < janelaLeituraConsistente) {
+				return PRIMARIO;
+			}
+		}
+		
+		List<String> saudaveis = replicasSaudaveis;
+		if (saudaveis.isEmpty()) {
+			return PRIMARIO;
+		}
+		return saudaveis.get(Math.floorMod(proxima.getAndIncrement(), saudaveis.size()));
+	}
+	
+	public void verificarReplicas() {
+		List<String> saudaveis = new ArrayList<>();
+		for (String replica : replicas) {
+			if (saudavel(fontes.get(replica))) {
+				saudaveis.add(replica);
+			} else {
+				log.warn("Réplica {} indisponível, leituras seguem para as demais fontes.", replica);
+			}
+		}
+		replicasSaudaveis = Collections.unmodifiableList(saudaveis);
+		
+		long limite = System.currentTimeMillis() - janelaLeituraConsistente;
+		ultimasEscritas.values().removeIf(ultimaEscrita -> ultimaEscrita < limite);
+	}
+	
+	public List<String> getReplicasSaudaveis() {
+		return replicasSaudaveis;
+	}
+	
+	public Collection<DataSource> getFontes() {
+		return Collections.unmodifiableCollection(fontes.values());
+	}
+	
+	private boolean saudavel(DataSource fonte) {
+		try (Connection conexao = fonte.getConnection()) {
+			return conexao.isValid(2);
+		} catch (SQLException | RuntimeException e) {
+			return false;
+		}
+	}
+}
@@ -0,0 +1,25 @@
+package com.amantovan.minhasfinancas.config.datasource;
+
+import javax.sql.DataSource;
+
+import org.springframework.boot.jdbc.DataSourceBuilder;
+
+import lombok.Data;
+
+@Data
+public class FonteDados {
+
+	private String url;
+	private String username;
+	private String password;
+	private String driverClassName;
+	
+	public DataSource criar() {
+		return DataSourceBuilder.create()
+				.url(url)
+				.username(username)
+				.password(password)
+				.driverClassName(driverClassName)
+				.build();
+	}
+}
@@ -0,0 +1,67 @@
+package com.amantovan.minhasfinancas.config.datasource;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.PlatformTransactionManager;
+
+/**
+ * Ativada por {@code minhasfinancas.fragmentos.habilitado=true}. Os fragmentos são configurados
+ * em {@code minhasfinancas.fragmentos.fontes[n].*}, na ordem dos seus números, e substituem o
+ * {@code spring.datasource.*}. Não pode ser combinada com as réplicas de leitura. As
+ * migrações do Flyway são aplicadas em cada fragmento, na ordem dos números.
+ */
+@Configuration
+@EnableConfigurationProperties(FragmentosProperties.class)
+public class FragmentacaoConfig {
+
+	@Bean
+	public GerenciadorFragmentos gerenciadorFragmentos(FragmentosProperties fragmentos, 
+			ObjectProvider<PlatformTransactionManager> transactionManager) {
+		if (!fragmentos.isHabilitado()) {
+			return GerenciadorFragmentos.unico();
+		}
+		return new GerenciadorFragmentos(fragmentos.getFontes().size(), transactionManager);
+	}
+	
+	@Bean
+	@Primary
+	@ConditionalOnProperty(name = "minhasfinancas.fragmentos.habilitado", havingValue = "true")
+	public DataSource dataSource(FragmentosProperties fragmentos, GerenciadorFragmentos gerenciador,
+			@Value("${minhasfinancas.datasource.replicas.habilitado:false}") boolean replicasHabilitadas) {
+		if (replicasHabilitadas) {
+			throw new IllegalStateException("Fragmentação e réplicas de leitura não podem ser habilitadas juntas.");
+		}
+		if (fragmentos.getFontes().isEmpty()) {
+			throw new IllegalStateException("Informe ao menos um fragmento em minhasfinancas.fragmentos.fontes.");
+		}
+		
+		List<DataSource> fontes = fragmentos.getFontes().stream()
+				.map(FonteDados::criar)
+				.collect(Collectors.toList());
+		DataSourceFragmentado dataSourceFragmentado = new DataSourceFragmentado(fontes, gerenciador);
+		dataSourceFragmentado.afterPropertiesSet();
+		return new LazyConnectionDataSourceProxy(dataSourceFragmentado);
+	}
+	
+	@Bean
+	@ConditionalOnProperty(name = "minhasfinancas.fragmentos.habilitado", havingValue = "true")
+	public FlywayMigrationStrategy migracaoFragmentos(GerenciadorFragmentos gerenciador) {
+		return flyway -> {
+			for (int fragmento = 0; fragmento < gerenciador.getQuantidade(); fragmento++) {
+				gerenciador.comFragmento(fragmento, flyway::migrate);
+			}
+		};
+	}
+}
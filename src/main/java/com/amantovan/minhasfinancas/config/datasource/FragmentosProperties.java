@@ -0,0 +1,17 @@
+package com.amantovan.minhasfinancas.config.datasource;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+@Data
+@ConfigurationProperties(prefix = "minhasfinancas.fragmentos")
+public class FragmentosProperties {
+
+	private boolean habilitado;
+	private boolean ajustarSequencias = true;
+	private List<FonteDados> fontes = new ArrayList<>();
+}
@@ -0,0 +1,156 @@
+package com.amantovan.minhasfinancas.config.datasource;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Resolve o fragmento de cada usuário e executa operações em um fragmento específico ou em
+ * todos eles.
+ * 
+ * O fragmento de um usuário é o da faixa do seu id ({@link IdFragmentado}), salvo quando o
+ * diretório registra que ele foi movido. Usuários novos vão para o fragmento indicado pelo
+ * hash do email, o que também define onde a autenticação procura primeiro.
+ * 
+ * Todos os fragmentos compartilham um único gerenciador de transações sobre o
+ * {@link DataSourceFragmentado}: cada transação fica presa ao fragmento da sua primeira
+ * conexão, e o trabalho que atravessa fragmentos roda em uma transação nova por fragmento.
+ * Com um único fragmento as operações rodam direto na transação corrente.
+ */
+public class GerenciadorFragmentos {
+
+	private final int quantidade;
+	private final ObjectProvider<PlatformTransactionManager> transactionManager;
+	private final Map<Long, Integer> diretorio = new ConcurrentHashMap<>();
+	private volatile TransactionTemplate novaTransacao;
+	
+	public GerenciadorFragmentos(int quantidade, ObjectProvider<PlatformTransactionManager> transactionManager) {
+		if (quantidade < 1) {
+			throw new IllegalArgumentException("É necessário ao menos um fragmento.");
+		}
+		this.quantidade = quantidade;
+		this.transactionManager = transactionManager;
+	}
+	
+	public static GerenciadorFragmentos unico() {
+		return new GerenciadorFragmentos(1, null);
+	}
+	
+	public int getQuantidade() {
+		return quantidade;
+	}
+	
+	public boolean isFragmentado() {
+		return quantidade > 1;
+	}
+	
+	public int fragmentoDoUsuario(Long idUsuario) {
+		if (!isFragmentado() || idUsuario == null) {
+			return 0;
+		}
+		Integer movido = diretorio.get(idUsuario);
+		return movido != null ? movido : fragmentoDoId(idUsuario);
+	}
+	
+	public int fragmentoDoId(Long id) {
+		if (!isFragmentado() || id == null) {
+			return 0;
+		}
+		int fragmento = IdFragmentado.fragmento(id);
+		return fragmento < quantidade ? fragmento : 0;
+	}
+	
+	public int fragmentoParaNovoUsuario(String email) {
+		if (!isFragmentado() || email == null) {
+			return 0;
+		}
+		return Math.floorMod(email.toLowerCase(Locale.ROOT).hashCode(), quantidade);
+	}
+	
+	public void registrarMudanca(Long idUsuario, int fragmento) {
+		if (fragmento == fragmentoDoId(idUsuario)) {
+			diretorio.remove(idUsuario);
+		} else {
+			diretorio.put(idUsuario, fragmento);
+		}
+	}
+	
+	public void atualizarDiretorio(Map<Long, Integer> movidos) {
+		diretorio.keySet().retainAll(movidos.keySet());
+		movidos.forEach(this::registrarMudanca);
+	}
+	
+	/**
+	 * Executa a ação com as conexões presas ao fragmento, sem abrir transação. Serve para
+	 * chamadas fora de transação ou que abrem as próprias.
+	 */
+	public <T> T comFragmento(int fragmento, Supplier<T> acao) {
+		if (!isFragmentado()) {
+			return acao.get();
+		}
+		Integer anterior = ContextoRoteamento.obterFragmento();
+		ContextoRoteamento.definirFragmento(fragmento);
+		try {
+			return acao.get();
+		} finally {
+			ContextoRoteamento.definirFragmento(anterior);
+		}
+	}
+	
+	/**
+	 * Executa a ação em uma transação nova no fragmento, suspendendo a transação corrente.
+	 */
+	public <T> T noFragmento(int fragmento, Supplier<T> acao) {
+		if (!isFragmentado()) {
+			return acao.get();
+		}
+		return comFragmento(fragmento, () -> novaTransacao().execute(status -> acao.get()));
+	}
+	
+	public <T> List<T> emTodos(Supplier<T> acao) {
+		if (!isFragmentado()) {
+			return Collections.singletonList(acao.get());
+		}
+		List<T> resultados = new ArrayList<>(quantidade);
+		for (int fragmento = 0; fragmento < quantidade; fragmento++) {
+			resultados.add(noFragmento(fragmento, acao));
+		}
+		return resultados;
+	}
+	
+	/**
+	 * Procura primeiro no fragmento provável e depois nos demais, parando no primeiro que
+	 * encontrar.
+	 */
+	public <T> Optional<T> buscar(int provavel, Supplier<Optional<T>> acao) {
+		if (!isFragmentado()) {
+			return acao.get();
+		}
+		Optional<T> encontrado = noFragmento(provavel, acao);
+		for (int fragmento = 0; fragmento < quantidade && !encontrado.isPresent(); fragmento++) {
+			if (fragmento != provavel) {
+				encontrado = noFragmento(fragmento, acao);
+			}
+		}
+		return encontrado;
+	}
+	
+	private TransactionTemplate novaTransacao() {
+		if (novaTransacao == null) {
+			TransactionTemplate template = new TransactionTemplate(transactionManager.getObject());
+			template.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+			novaTransacao = template;
+		}
+		return novaTransacao;
+	}
+}
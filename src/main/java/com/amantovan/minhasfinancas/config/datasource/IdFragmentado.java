@@ -0,0 +1,26 @@
+package com.amantovan.minhasfinancas.config.datasource;
+
+/**
+ * Esquema de ids globalmente únicos entre fragmentos. Cada fragmento gera ids na própria
+ * faixa de 2^40 valores, de modo que o fragmento de origem de um id é {@code id >> 40}.
+ * O fragmento 0 começa em 1, o que mantém válidos os ids da base anterior à fragmentação.
+ */
+public final class IdFragmentado {
+
+	public static final int BITS_SEQUENCIA = 40;
+	
+	private IdFragmentado() {
+	}
+	
+	public static int fragmento(long id) {
+		return (int) (id >>> BITS_SEQUENCIA);
+	}
+	
+	public static long primeiroId(int fragmento) {
+		return fragmento == 0 ? 1 : (long) fragmento << BITS_SEQUENCIA;
+	}
+	
+	public static long limite(int fragmento) {
+		return (long) (fragmento + 1) << BITS_SEQUENCIA;
+	}
+}
@@ -0,0 +1,95 @@
+package com.amantovan.minhasfinancas.config.datasource;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.amantovan.minhasfinancas.model.entity.DiretorioFragmento;
+import com.amantovan.minhasfinancas.model.repository.DiretorioFragmentoRepository;
+
+/**
+ * Na subida, coloca as sequências de {@code usuario}, {@code lancamento} e {@code categoria} de
+ * cada fragmento no início da sua faixa de ids, quando a faixa ainda está vazia, e carrega o
+ * diretório de usuários movidos, que depois é recarregado periodicamente.
+ */
+@Component
+@Order(0)
+@ConditionalOnProperty(name = "minhasfinancas.fragmentos.habilitado", havingValue = "true")
+public class InicializadorFragmentos implements ApplicationRunner {
+
+	private static final Logger log = LoggerFactory.getLogger(InicializadorFragmentos.class);
+	
+	private static final List<String> TABELAS = Arrays.asList("usuario", "lancamento", "categoria");
+	
+	private GerenciadorFragmentos gerenciador;
+	private FragmentosProperties fragmentos;
+	private DiretorioFragmentoRepository diretorioRepository;
+	private JdbcTemplate jdbcTemplate;
+	
+	public InicializadorFragmentos(GerenciadorFragmentos gerenciador, FragmentosProperties fragmentos,
+			DiretorioFragmentoRepository diretorioRepository, DataSource dataSource) {
+		this.gerenciador = gerenciador;
+		this.fragmentos = fragmentos;
+		this.diretorioRepository = diretorioRepository;
+		this.jdbcTemplate = new JdbcTemplate(dataSource);
+	}
+	
+	@Override
+	public void run(ApplicationArguments args) {
+		if (fragmentos.isAjustarSequencias()) {
+			ajustarSequencias();
+		}
+		carregarDiretorio();
+	}
+	
+	public void ajustarSequencias() {
+		for (int fragmento = 1; fragmento < gerenciador.getQuantidade(); fragmento++) {
+			int atual = fragmento;
+			gerenciador.noFragmento(fragmento, () -> {
+				TABELAS.forEach(tabela -> ajustarSequencia(tabela, atual));
+				return null;
+			});
+		}
+	}
+	
+	@Scheduled(initialDelayString = "${minhasfinancas.fragmentos.intervalo-diretorio:60000}",
+			fixedDelayString = "${minhasfinancas.fragmentos.intervalo-diretorio:60000}")
+	public void carregarDiretorio() {
+		Map<Long, Integer> movidos = gerenciador.comFragmento(0, () -> diretorioRepository.findAll()).stream()
+				.collect(Collectors.toMap(DiretorioFragmento::getIdUsuario, DiretorioFragmento::getFragmento));
+		gerenciador.atualizarDiretorio(movidos);
+	}
+	
+	private void ajustarSequencia(String tabela, int fragmento) {
+		long inicio = IdFragmentado.primeiroId(fragmento);
+		Long maior = jdbcTemplate.queryForObject(
+				"select max(id) from financas." + tabela + " where id >= ? and id < ?", 
+				Long.class, inicio, IdFragmentado.limite(fragmento));
+		if (maior != null) {
+			return;
+		}
+		
+		String banco = jdbcTemplate.execute((ConnectionCallback<String>) conexao -> conexao.getMetaData().getDatabaseProductName());
+		if ("PostgreSQL".equals(banco)) {
+			jdbcTemplate.queryForObject("select setval(pg_get_serial_sequence(?, 'id'), ?, false)", 
+					Long.class, "financas." + tabela, inicio);
+		} else {
+			jdbcTemplate.execute("alter table financas." + tabela + " alter column id restart with " + inicio);
+		}
+		log.info("Sequência de {} do fragmento {} reiniciada em {}.", tabela, fragmento, inicio);
+	}
+}
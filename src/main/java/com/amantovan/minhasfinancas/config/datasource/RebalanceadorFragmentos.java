@@ -0,0 +1,143 @@
+package com.amantovan.minhasfinancas.config.datasource;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import com.amantovan.minhasfinancas.model.entity.DiretorioFragmento;
+import com.amantovan.minhasfinancas.model.entity.Lancamento;
+import com.amantovan.minhasfinancas.model.entity.Usuario;
+import com.amantovan.minhasfinancas.model.enuns.TipoEventoLancamento;
+import com.amantovan.minhasfinancas.model.repository.DiretorioFragmentoRepository;
+import com.amantovan.minhasfinancas.service.EventoLancamentoService;
+
+/**
+ * Move um usuário, com todos os seus lançamentos, categorias, orçamentos e histórico, para outro
+ * fragmento. Os ids de usuário, lançamentos e categorias são mantidos e o diretório no
+ * fragmento 0 passa a apontar para o destino.
+ * 
+ * Executado pela linha de comando com
+ * {@link com.amantovan.minhasfinancas.RebalanceamentoFragmentosApplication}, nunca junto com
+ * o servidor web.
+ * 
+ * A cópia é feita em três transações: grava no destino, atualiza o diretório e remove da
+ * origem. Se o processo cair no meio basta repeti-lo, pois a cópia no destino é refeita do
+ * zero. Os lançamentos copiados geram eventos de criação no destino e os removidos geram
+ * eventos de exclusão na origem, o que mantém as projeções de cada fragmento corretas.
+ * 
+ * O usuário não deve receber escritas durante a mudança, e as demais instâncias só enxergam
+ * o novo fragmento quando recarregam o diretório
+ * ({@code minhasfinancas.fragmentos.intervalo-diretorio}).
+ */
+@Component
+@ConditionalOnProperty(name = "minhasfinancas.fragmentos.habilitado", havingValue = "true")
+public class RebalanceadorFragmentos {
+
+	private static final Logger log = LoggerFactory.getLogger(RebalanceadorFragmentos.class);
+	
+	private GerenciadorFragmentos gerenciador;
+	private DiretorioFragmentoRepository diretorioRepository;
+	private EventoLancamentoService eventoService;
+	private JdbcTemplate jdbcTemplate;
+	
+	public RebalanceadorFragmentos(GerenciadorFragmentos gerenciador, DiretorioFragmentoRepository diretorioRepository,
+			EventoLancamentoService eventoService, DataSource dataSource) {
+		this.gerenciador = gerenciador;
+		this.diretorioRepository = diretorioRepository;
+		this.eventoService = eventoService;
+		this.jdbcTemplate = new JdbcTemplate(dataSource);
+	}
+	
+	public void moverUsuario(Long idUsuario, int destino) {
+		if (destino < 0 || destino >= gerenciador.getQuantidade()) {
+			throw new IllegalArgumentException("Fragmento de destino inexistente: " + destino);
+		}
+		int origem = gerenciador.fragmentoDoUsuario(idUsuario);
+		if (origem == destino) {
+			log.info("Usuário {} já está no fragmento {}.", idUsuario, destino);
+			return;
+		}
+		
+		List<Map<String, Object>> usuario = gerenciador.noFragmento(origem, () -> 
+				jdbcTemplate.queryForList("select * from financas.usuario where id = ?", idUsuario));
+		if (usuario.isEmpty()) {
+			throw new IllegalArgumentException("Usuário " + idUsuario + " não encontrado no fragmento " + origem);
+		}
+		List<Map<String, Object>> lancamentos = gerenciador.noFragmento(origem, () -> 
+				jdbcTemplate.queryForList("select * from financas.lancamento where id_usuario = ?", idUsuario));
+		List<Map<String, Object>> categorias = gerenciador.noFragmento(origem, () -> 
+				jdbcTemplate.queryForList("select * from financas.categoria where id_usuario = ?", idUsuario));
+		// Os orçamentos não são referenciados por id, então ganham ids novos no destino.
+		List<Map<String, Object>> orcamentos = gerenciador.noFragmento(origem, () -> 
+				jdbcTemplate.queryForList("select * from financas.orcamento_categoria where id_usuario = ?", idUsuario));
+		orcamentos.forEach(orcamento -> orcamento.remove("id"));
+		List<Map<String, Object>> excluidos = gerenciador.noFragmento(origem, () -> 
+				jdbcTemplate.queryForList("select * from financas.lancamento_excluido where id_usuario = ?", idUsuario));
+		// O histórico é inserido na ordem original, e os ids novos preservam a ordem entre os estados.
+		List<Map<String, Object>> historico = gerenciador.noFragmento(origem, () -> 
+				jdbcTemplate.queryForList("select * from financas.historico_lancamento where id_usuario = ? order by id", idUsuario));
+		historico.forEach(estado -> estado.remove("id"));
+		List<Map<String, Object>> consolidados = gerenciador.noFragmento(origem, () -> 
+				jdbcTemplate.queryForList("select * from financas.saldo_consolidado where id_usuario = ?", idUsuario));
+		consolidados.forEach(consolidado -> consolidado.remove("id"));
+		List<Long> idsLancamentos = lancamentos.stream()
+				.map(lancamento -> ((Number) lancamento.get("id")).longValue())
+				.collect(Collectors.toList());
+		
+		gerenciador.noFragmento(destino, () -> {
+			remover(idUsuario);
+			inserir("usuario", usuario.get(0));
+			categorias.forEach(categoria -> inserir("categoria", categoria));
+			lancamentos.forEach(lancamento -> inserir("lancamento", lancamento));
+			orcamentos.forEach(orcamento -> inserir("orcamento_categoria", orcamento));
+			excluidos.forEach(excluido -> inserir("lancamento_excluido", excluido));
+			historico.forEach(estado -> inserir("historico_lancamento", estado));
+			consolidados.forEach(consolidado -> inserir("saldo_consolidado", consolidado));
+			registrarEventos(idUsuario, idsLancamentos, TipoEventoLancamento.CRIADO);
+			return null;
+		});
+		
+		gerenciador.noFragmento(0, () -> diretorioRepository.save(DiretorioFragmento.builder()
+				.idUsuario(idUsuario)
+				.fragmento(destino)
+				.build()));
+		gerenciador.registrarMudanca(idUsuario, destino);
+		
+		gerenciador.noFragmento(origem, () -> {
+			remover(idUsuario);
+			registrarEventos(idUsuario, idsLancamentos, TipoEventoLancamento.DELETADO);
+			return null;
+		});
+		log.info("Usuário {} movido do fragmento {} para o {} com {} lançamentos.", idUsuario, origem, destino, lancamentos.size());
+	}
+	
+	private void remover(Long idUsuario) {
+		jdbcTemplate.update("delete from financas.lancamento where id_usuario = ?", idUsuario);
+		jdbcTemplate.update("delete from financas.orcamento_categoria where id_usuario = ?", idUsuario);
+		jdbcTemplate.update("delete from financas.lancamento_excluido where id_usuario = ?", idUsuario);
+		jdbcTemplate.update("delete from financas.historico_lancamento where id_usuario = ?", idUsuario);
+		jdbcTemplate.update("delete from financas.saldo_consolidado where id_usuario = ?", idUsuario);
+		jdbcTemplate.update("delete from financas.categoria where id_usuario = ?", idUsuario);
+		jdbcTemplate.update("delete from financas.usuario where id = ?", idUsuario);
+	}
+	
+	private void inserir(String tabela, Map<String, Object> linha) {
+		String colunas = String.join(", ", linha.keySet());
+		String parametros = linha.keySet().stream().map(coluna -> "?").collect(Collectors.joining(", "));
+		jdbcTemplate.update("insert into financas." + tabela + " (" + colunas + ") values (" + parametros + ")", 
+				linha.values().toArray());
+	}
+	
+	private void registrarEventos(Long idUsuario, List<Long> idsLancamentos, TipoEventoLancamento tipo) {
+		Usuario usuario = Usuario.builder().id(idUsuario).build();
+		idsLancamentos.forEach(id -> eventoService.registrar(Lancamento.builder().id(id).usuario(usuario).build(), tipo));
+	}
+}
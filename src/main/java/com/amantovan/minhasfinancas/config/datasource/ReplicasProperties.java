@@ -0,0 +1,18 @@
+package com.amantovan.minhasfinancas.config.datasource;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+@Data
+@ConfigurationProperties(prefix = "minhasfinancas.datasource.replicas")
+public class ReplicasProperties {
+
+	private boolean habilitado;
+	private Duration janelaLeituraConsistente = Duration.ofSeconds(5);
+	private List<FonteDados> fontes = new ArrayList<>();
+}
@@ -0,0 +1,50 @@
+package com.amantovan.minhasfinancas.config.datasource;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import javax.sql.DataSource;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.scheduling.annotation.Scheduled;
+
+/**
+ * Ativada por {@code minhasfinancas.datasource.replicas.habilitado=true}. O primário continua
+ * configurado em {@code spring.datasource.*} e as réplicas em
+ * {@code minhasfinancas.datasource.replicas.fontes[n].*}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "minhasfinancas.datasource.replicas.habilitado", havingValue = "true")
+@EnableConfigurationProperties(ReplicasProperties.class)
+public class RoteamentoDataSourceConfig {
+
+	private DataSourceRoteado dataSourceRoteado;
+	
+	@Bean
+	@Primary
+	public DataSource dataSource(DataSourceProperties primario, ReplicasProperties replicas) {
+		List<DataSource> fontesReplicas = replicas.getFontes().stream()
+				.map(FonteDados::criar)
+				.collect(Collectors.toList());
+		
+		dataSourceRoteado = new DataSourceRoteado(
+				primario.initializeDataSourceBuilder().build(), 
+				fontesReplicas, 
+				replicas.getJanelaLeituraConsistente());
+		dataSourceRoteado.afterPropertiesSet();
+		return new LazyConnectionDataSourceProxy(dataSourceRoteado);
+	}
+	
+	@Scheduled(fixedDelayString = "${minhasfinancas.datasource.replicas.intervalo-verificacao:10000}")
+	public void verificarReplicas() {
+		if (dataSourceRoteado != null) {
+			dataSourceRoteado.verificarReplicas();
+		}
+	}
+}
@@ -0,0 +1,8 @@
+package com.amantovan.minhasfinancas.exception;
+
+public class ServicoSobrecarregadoException extends RuntimeException {
+
+	public ServicoSobrecarregadoException(String mensagem) {
+		super(mensagem);
+	}
+}
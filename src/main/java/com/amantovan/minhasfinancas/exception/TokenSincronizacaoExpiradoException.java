@@ -0,0 +1,8 @@
+package com.amantovan.minhasfinancas.exception;
+
+public class TokenSincronizacaoExpiradoException extends RuntimeException {
+
+	public TokenSincronizacaoExpiradoException(String mensagem) {
+		super(mensagem);
+	}
+}
@@ -0,0 +1,51 @@
+package com.amantovan.minhasfinancas.model.entity;
+
+import java.math.BigDecimal;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import javax.persistence.Version;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Quanto cada lançamento já contribuiu para o {@link GastoCategoria} de qual categoria e mês,
+ * para que a projeção aplique apenas a diferença, inclusive quando o lançamento muda de
+ * categoria ou de mês.
+ */
+@Entity
+@Table(name = "contribuicao_categoria", schema = "financas")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ContribuicaoCategoria {
+
+	@Id
+	@Column(name = "id_lancamento")
+	private Long idLancamento;
+	
+	@Column(name = "id_usuario")
+	private Long idUsuario;
+	
+	@Column(name = "id_categoria")
+	private Long idCategoria;
+	
+	@Column(name = "ano")
+	private Integer ano;
+	
+	@Column(name = "mes")
+	private Integer mes;
+	
+	@Column(name = "valor")
+	private BigDecimal valor;
+	
+	@Version
+	@Column(name = "versao")
+	private Long versao;
+}
@@ -0,0 +1,41 @@
+package com.amantovan.minhasfinancas.model.entity;
+
+import java.math.BigDecimal;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import javax.persistence.Version;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Quanto cada lançamento já contribuiu para o {@link SaldoUsuario}. Permite aplicar
+ * apenas a diferença a cada evento, tornando a projeção idempotente.
+ */
+@Entity
+@Table(name = "contribuicao_saldo", schema = "financas")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ContribuicaoSaldo {
+
+	@Id
+	@Column(name = "id_lancamento")
+	private Long idLancamento;
+	
+	@Column(name = "id_usuario")
+	private Long idUsuario;
+	
+	@Column(name = "valor")
+	private BigDecimal valor;
+	
+	@Version
+	@Column(name = "versao")
+	private Long versao;
+}
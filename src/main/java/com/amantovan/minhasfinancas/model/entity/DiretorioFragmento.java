@@ -0,0 +1,30 @@
+package com.amantovan.minhasfinancas.model.entity;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Usuários que não estão no fragmento indicado pelo próprio id. Fica no fragmento 0.
+ */
+@Entity
+@Table(name = "diretorio_fragmento", schema = "financas")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DiretorioFragmento {
+
+	@Id
+	@Column(name = "id_usuario")
+	private Long idUsuario;
+	
+	@Column(name = "fragmento")
+	private Integer fragmento;
+}
@@ -0,0 +1,60 @@
+package com.amantovan.minhasfinancas.model.entity;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import javax.persistence.Column;
+import javax.persistence.Convert;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+
+import org.springframework.data.jpa.convert.threeten.Jsr310JpaConverters;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Diferença encontrada pela reconciliação entre o saldo projetado e o calculado a partir
+ * dos lançamentos.
+ */
+@Entity
+@Table(name = "divergencia_saldo", schema = "financas",
+	indexes = @Index(name = "idx_divergencia_saldo_execucao", columnList = "data_execucao"))
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DivergenciaSaldo {
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@Column(name = "id")
+	private Long id;
+	
+	@Column(name = "data_execucao", columnDefinition = "date")
+	@Convert(converter = Jsr310JpaConverters.LocalDateConverter.class)
+	private LocalDate dataExecucao;
+	
+	@Column(name = "id_usuario")
+	private Long idUsuario;
+	
+	@Column(name = "saldo_projetado")
+	private BigDecimal saldoProjetado;
+	
+	@Column(name = "saldo_calculado")
+	private BigDecimal saldoCalculado;
+	
+	@Column(name = "corrigido")
+	private boolean corrigido;
+	
+	@Column(name = "data_registro")
+	@Convert(converter = Jsr310JpaConverters.LocalDateTimeConverter.class)
+	private LocalDateTime dataRegistro;
+}
@@ -0,0 +1,63 @@
+package com.amantovan.minhasfinancas.model.entity;
+
+import java.time.LocalDateTime;
+
+import javax.persistence.Column;
+import javax.persistence.Convert;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+
+import org.springframework.data.jpa.convert.threeten.Jsr310JpaConverters;
+
+import com.amantovan.minhasfinancas.model.enuns.TipoEventoLancamento;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Registro da outbox de alterações de lançamentos. Gravado na mesma transação
+ * da alteração e consumido de forma assíncrona pelas projeções.
+ */
+@Entity
+@Table(name = "evento_lancamento", schema = "financas",
+	indexes = @Index(name = "idx_evento_lancamento_pendente", columnList = "data_processamento, id"))
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class EventoLancamento {
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@Column(name = "id")
+	private Long id;
+	
+	@Column(name = "id_lancamento")
+	private Long idLancamento;
+	
+	@Column(name = "id_usuario")
+	private Long idUsuario;
+	
+	@Column(name = "tipo")
+	@Enumerated(EnumType.STRING)
+	private TipoEventoLancamento tipo;
+	
+	@Column(name = "data_criacao")
+	@Convert(converter = Jsr310JpaConverters.LocalDateTimeConverter.class)
+	private LocalDateTime dataCriacao;
+	
+	@Column(name = "data_processamento")
+	@Convert(converter = Jsr310JpaConverters.LocalDateTimeConverter.class)
+	private LocalDateTime dataProcessamento;
+	
+	@Column(name = "tentativas")
+	private int tentativas;
+}
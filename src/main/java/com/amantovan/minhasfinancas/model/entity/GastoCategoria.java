@@ -0,0 +1,65 @@
+package com.amantovan.minhasfinancas.model.entity;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import javax.persistence.Column;
+import javax.persistence.Convert;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+import javax.persistence.Version;
+
+import org.springframework.data.jpa.convert.threeten.Jsr310JpaConverters;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Modelo de leitura com o total de despesas efetivadas de uma categoria no mês, mantido
+ * pela projeção de gastos por categoria.
+ */
+@Entity
+@Table(name = "gasto_categoria", schema = "financas",
+	uniqueConstraints = @UniqueConstraint(name = "uk_gasto_categoria_mes", columnNames = {"id_categoria", "ano", "mes"}),
+	indexes = @Index(name = "idx_gasto_categoria_usuario", columnList = "id_usuario, ano, mes"))
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class GastoCategoria {
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@Column(name = "id")
+	private Long id;
+	
+	@Column(name = "id_usuario")
+	private Long idUsuario;
+	
+	@Column(name = "id_categoria")
+	private Long idCategoria;
+	
+	@Column(name = "ano")
+	private Integer ano;
+	
+	@Column(name = "mes")
+	private Integer mes;
+	
+	@Column(name = "valor")
+	private BigDecimal valor;
+	
+	@Column(name = "data_atualizacao")
+	@Convert(converter = Jsr310JpaConverters.LocalDateTimeConverter.class)
+	private LocalDateTime dataAtualizacao;
+	
+	@Version
+	@Column(name = "versao")
+	private Long versao;
+}
@@ -0,0 +1,68 @@
+package com.amantovan.minhasfinancas.model.entity;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import javax.persistence.Column;
+import javax.persistence.Convert;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+
+import org.springframework.data.jpa.convert.threeten.Jsr310JpaConverters;
+
+import com.amantovan.minhasfinancas.model.enuns.StatusLancamento;
+import com.amantovan.minhasfinancas.model.enuns.TipoLancamento;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Estado de um lançamento a partir de {@code data}, gravado a cada criação, alteração ou
+ * exclusão e nunca alterado depois. Status nulo indica que o lançamento foi excluído.
+ */
+@Entity
+@Table(name = "historico_lancamento", schema = "financas",
+	indexes = {
+		@Index(name = "idx_historico_lancamento_usuario_data", columnList = "id_usuario, data"),
+		@Index(name = "idx_historico_lancamento_lancamento", columnList = "id_lancamento, id")
+	})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class HistoricoLancamento {
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@Column(name = "id")
+	private Long id;
+
+	@Column(name = "id_lancamento")
+	private Long idLancamento;
+
+	@Column(name = "id_usuario")
+	private Long idUsuario;
+
+	@Column(name = "tipo")
+	@Enumerated(EnumType.STRING)
+	private TipoLancamento tipo;
+
+	@Column(name = "status")
+	@Enumerated(EnumType.STRING)
+	private StatusLancamento status;
+
+	@Column(name = "valor")
+	private BigDecimal valor;
+
+	@Column(name = "data")
+	@Convert(converter = Jsr310JpaConverters.LocalDateTimeConverter.class)
+	private LocalDateTime data;
+}
@@ -2,6 +2,8 @@ package com.amantovan.minhasfinancas.model.entity;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+
 import javax.persistence.Column;
 import javax.persistence.Convert;
 import javax.persistence.Entity;
@@ -10,12 +12,18 @@ import javax.persistence.Enumerated;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
+import javax.persistence.PrePersist;
+import javax.persistence.PreUpdate;
 import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
 
 import org.springframework.data.jpa.convert.threeten.Jsr310JpaConverters;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import com.amantovan.minhasfinancas.model.enuns.StatusLancamento;
 import com.amantovan.minhasfinancas.model.enuns.TipoLancamento;
 
@@ -25,7 +33,12 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Entity
-@Table(name = "lancamento", schema = "financas")
+@Table(name = "lancamento", schema = "financas",
+	uniqueConstraints = @UniqueConstraint(name = "uk_lancamento_impressao_digital", columnNames = {"id_usuario", "impressao_digital"}),
+	indexes = {
+		@Index(name = "idx_lancamento_usuario_competencia", columnList = "id_usuario, competencia"),
+		@Index(name = "idx_lancamento_usuario_atualizacao", columnList = "id_usuario, data_atualizacao, id")
+	})
 @Data
 @Builder
 @NoArgsConstructor
@@ -50,10 +63,14 @@ public class Lancamento {
 	@JoinColumn(name = "id_usuario")
 	private Usuario usuario;
 	
+	@ManyToOne
+	@JoinColumn(name = "id_categoria")
+	private Categoria categoria;
+	
 	@Column(name = "valor")
 	private BigDecimal valor;
 	
-	@Column(name = "data_cadastro")
+	@Column(name = "data_cadastro", columnDefinition = "date")
 	@Convert(converter = Jsr310JpaConverters.LocalDateConverter.class)
 	private LocalDate dataCadastro;
 	
@@ -65,4 +82,37 @@ public class Lancamento {
 	@Enumerated(EnumType.STRING)
 	private StatusLancamento status;
 	
+	/**
+	 * Identifica a transação do extrato que originou o lançamento; nulo fora da importação.
+	 */
+	@JsonIgnore
+	@Column(name = "impressao_digital", length = 64)
+	private String impressaoDigital;
+	
+	/**
+	 * Primeiro dia do mês de {@code mes}/{@code ano}, mantido pelo próprio lançamento para que
+	 * períodos que cruzam o ano sejam uma única faixa no índice de (usuário, competência).
+	 */
+	@JsonIgnore
+	@Column(name = "competencia", columnDefinition = "date")
+	@Convert(converter = Jsr310JpaConverters.LocalDateConverter.class)
+	private LocalDate competencia;
+	
+	/**
+	 * Momento da última criação ou alteração; com o id, é o cursor da sincronização incremental.
+	 */
+	@Column(name = "data_atualizacao")
+	@Convert(converter = Jsr310JpaConverters.LocalDateTimeConverter.class)
+	private LocalDateTime dataAtualizacao;
+	
+	/**
+	 * Também chamado antes dos comandos em massa, que não passam pelos callbacks da entidade.
+	 */
+	@PrePersist
+	@PreUpdate
+	public void prepararGravacao() {
+		competencia = mes == null || ano == null || mes < 1 || mes > 12 ? null : LocalDate.of(ano, mes, 1);
+		dataAtualizacao = LocalDateTime.now();
+	}
+	
 }
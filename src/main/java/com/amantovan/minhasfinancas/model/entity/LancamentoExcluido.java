@@ -0,0 +1,42 @@
+package com.amantovan.minhasfinancas.model.entity;
+
+import java.time.LocalDateTime;
+
+import javax.persistence.Column;
+import javax.persistence.Convert;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+
+import org.springframework.data.jpa.convert.threeten.Jsr310JpaConverters;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Marca deixada pela exclusão de um lançamento, para que a sincronização incremental avise os
+ * clientes. É removida depois do período de retenção.
+ */
+@Entity
+@Table(name = "lancamento_excluido", schema = "financas",
+	indexes = @Index(name = "idx_lancamento_excluido_usuario_exclusao", columnList = "id_usuario, data_exclusao, id_lancamento"))
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LancamentoExcluido {
+
+	@Id
+	@Column(name = "id_lancamento")
+	private Long idLancamento;
+
+	@Column(name = "id_usuario")
+	private Long idUsuario;
+
+	@Column(name = "data_exclusao")
+	@Convert(converter = Jsr310JpaConverters.LocalDateTimeConverter.class)
+	private LocalDateTime dataExclusao;
+}
@@ -0,0 +1,51 @@
+package com.amantovan.minhasfinancas.model.entity;
+
+import java.math.BigDecimal;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Valor previsto pelo usuário para uma categoria em um mês.
+ */
+@Entity
+@Table(name = "orcamento_categoria", schema = "financas",
+	uniqueConstraints = @UniqueConstraint(name = "uk_orcamento_categoria_mes", columnNames = {"id_categoria", "ano", "mes"}),
+	indexes = @Index(name = "idx_orcamento_categoria_usuario", columnList = "id_usuario, ano, mes"))
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrcamentoCategoria {
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@Column(name = "id")
+	private Long id;
+	
+	@Column(name = "id_usuario")
+	private Long idUsuario;
+	
+	@Column(name = "id_categoria")
+	private Long idCategoria;
+	
+	@Column(name = "ano")
+	private Integer ano;
+	
+	@Column(name = "mes")
+	private Integer mes;
+	
+	@Column(name = "valor")
+	private BigDecimal valor;
+}
@@ -0,0 +1,74 @@
+package com.amantovan.minhasfinancas.model.entity;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import javax.persistence.Column;
+import javax.persistence.Convert;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+
+import org.springframework.data.jpa.convert.threeten.Jsr310JpaConverters;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Faixa de ids de usuário de uma execução da reconciliação, gravada no fragmento dos usuários
+ * que ela cobre. {@code ultimoIdProcessado} é o ponto de retomada depois de uma queda.
+ *
+ * {@code responsavel} é a instância que está processando a partição; a reivindicação é
+ * renovada a cada página e expira se a instância parar de renová-la.
+ */
+@Entity
+@Table(name = "particao_reconciliacao", schema = "financas",
+	indexes = @Index(name = "idx_particao_reconciliacao_pendente", columnList = "data_conclusao"),
+	uniqueConstraints = @UniqueConstraint(name = "uk_particao_reconciliacao_inicio", columnNames = {"data_execucao", "id_inicial"}))
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ParticaoReconciliacao {
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@Column(name = "id")
+	private Long id;
+	
+	@Column(name = "data_execucao", columnDefinition = "date")
+	@Convert(converter = Jsr310JpaConverters.LocalDateConverter.class)
+	private LocalDate dataExecucao;
+	
+	@Column(name = "id_inicial")
+	private Long idInicial;
+	
+	@Column(name = "id_final")
+	private Long idFinal;
+	
+	@Column(name = "ultimo_id_processado")
+	private Long ultimoIdProcessado;
+	
+	@Column(name = "usuarios_verificados")
+	private int usuariosVerificados;
+	
+	@Column(name = "divergencias")
+	private int divergencias;
+	
+	@Column(name = "responsavel")
+	private String responsavel;
+	
+	@Column(name = "data_reivindicacao")
+	@Convert(converter = Jsr310JpaConverters.LocalDateTimeConverter.class)
+	private LocalDateTime dataReivindicacao;
+	
+	@Column(name = "data_conclusao")
+	@Convert(converter = Jsr310JpaConverters.LocalDateTimeConverter.class)
+	private LocalDateTime dataConclusao;
+}
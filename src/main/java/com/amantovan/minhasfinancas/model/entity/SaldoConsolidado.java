@@ -0,0 +1,49 @@
+package com.amantovan.minhasfinancas.model.entity;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import javax.persistence.Column;
+import javax.persistence.Convert;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+
+import org.springframework.data.jpa.convert.threeten.Jsr310JpaConverters;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Saldo efetivado do usuário em {@code data}, calculado periodicamente a partir do histórico.
+ * O saldo em uma data qualquer parte do último consolidado anterior a ela.
+ */
+@Entity
+@Table(name = "saldo_consolidado", schema = "financas",
+	indexes = @Index(name = "idx_saldo_consolidado_usuario_data", columnList = "id_usuario, data"))
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SaldoConsolidado {
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@Column(name = "id")
+	private Long id;
+
+	@Column(name = "id_usuario")
+	private Long idUsuario;
+
+	@Column(name = "data")
+	@Convert(converter = Jsr310JpaConverters.LocalDateTimeConverter.class)
+	private LocalDateTime data;
+
+	@Column(name = "saldo")
+	private BigDecimal saldo;
+}
@@ -0,0 +1,55 @@
+package com.amantovan.minhasfinancas.model.enuns;
+
+import java.util.Optional;
+
+/**
+ * Campos do lançamento que podem ser pedidos em {@code fields=}. Usuário e categoria só
+ * expõem o id, lido da própria chave estrangeira do lançamento.
+ */
+public enum CampoLancamento {
+
+	ID("id"),
+	DESCRICAO("descricao"),
+	MES("mes"),
+	ANO("ano"),
+	VALOR("valor"),
+	TIPO("tipo"),
+	STATUS("status"),
+	DATA_CADASTRO("dataCadastro"),
+	CATEGORIA("categoria", "id"),
+	USUARIO("usuario", "id");
+
+	private final String nome;
+	private final String[] caminho;
+
+	CampoLancamento(String nome, String... subcaminho) {
+		this.nome = nome;
+		this.caminho = new String[subcaminho.length + 1];
+		this.caminho[0] = nome;
+		System.arraycopy(subcaminho, 0, this.caminho, 1, subcaminho.length);
+	}
+
+	public String getNome() {
+		return nome;
+	}
+
+	/**
+	 * Atributos percorridos a partir do lançamento, como em {@code categoria.id}.
+	 */
+	public String[] getCaminho() {
+		return caminho.clone();
+	}
+
+	public boolean isReferencia() {
+		return caminho.length > 1;
+	}
+
+	public static Optional<CampoLancamento> doNome(String nome) {
+		for (CampoLancamento campo : values()) {
+			if (campo.nome.equals(nome)) {
+				return Optional.of(campo);
+			}
+		}
+		return Optional.empty();
+	}
+}
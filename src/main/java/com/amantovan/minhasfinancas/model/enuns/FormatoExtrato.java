@@ -0,0 +1,8 @@
+package com.amantovan.minhasfinancas.model.enuns;
+
+public enum FormatoExtrato {
+
+	CSV,
+	OFX
+
+}
@@ -0,0 +1,8 @@
+package com.amantovan.minhasfinancas.model.enuns;
+
+public enum TipoEventoLancamento {
+
+	CRIADO,
+	ATUALIZADO,
+	DELETADO
+}
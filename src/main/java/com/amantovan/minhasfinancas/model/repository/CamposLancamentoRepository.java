@@ -0,0 +1,24 @@
+package com.amantovan.minhasfinancas.model.repository;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.springframework.data.jpa.domain.Specification;
+
+import com.amantovan.minhasfinancas.model.entity.Lancamento;
+import com.amantovan.minhasfinancas.model.enuns.CampoLancamento;
+
+public interface CamposLancamentoRepository {
+
+	/**
+	 * Seleciona só as colunas dos campos pedidos, na mesma ordem, para os lançamentos da
+	 * especificação, ordenados pelo id.
+	 */
+	List<Object[]> buscarCampos(Specification<Lancamento> especificacao, List<CampoLancamento> campos);
+	
+	/**
+	 * Como {@link #buscarCampos}, mas lê as linhas do banco aos poucos. Precisa ser chamado e
+	 * consumido dentro de uma transação e fechado ao final.
+	 */
+	Stream<Object[]> percorrerCampos(Specification<Lancamento> especificacao, List<CampoLancamento> campos);
+}
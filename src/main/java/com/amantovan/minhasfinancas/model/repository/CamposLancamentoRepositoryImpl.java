@@ -0,0 +1,77 @@
+package com.amantovan.minhasfinancas.model.repository;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Tuple;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Selection;
+
+import org.hibernate.jpa.QueryHints;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.amantovan.minhasfinancas.model.entity.Lancamento;
+import com.amantovan.minhasfinancas.model.enuns.CampoLancamento;
+
+public class CamposLancamentoRepositoryImpl implements CamposLancamentoRepository {
+
+	private static final int TAMANHO_LOTE_LEITURA = 500;
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	@Override
+	@Transactional(readOnly = true)
+	public List<Object[]> buscarCampos(Specification<Lancamento> especificacao, List<CampoLancamento> campos) {
+		return consulta(especificacao, campos).getResultList().stream()
+				.map(Tuple::toArray)
+				.collect(Collectors.toList());
+	}
+
+	@Override
+	@Transactional(propagation = Propagation.MANDATORY)
+	public Stream<Object[]> percorrerCampos(Specification<Lancamento> especificacao, List<CampoLancamento> campos) {
+		return consulta(especificacao, campos)
+				.setHint(QueryHints.HINT_FETCH_SIZE, TAMANHO_LOTE_LEITURA)
+				.setHint(QueryHints.HINT_READONLY, true)
+				.getResultStream()
+				.map(Tuple::toArray);
+	}
+
+	private TypedQuery<Tuple> consulta(Specification<Lancamento> especificacao, List<CampoLancamento> campos) {
+		CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+		CriteriaQuery<Tuple> query = builder.createTupleQuery();
+		Root<Lancamento> root = query.from(Lancamento.class);
+		query.multiselect(campos.stream()
+				.<Selection<?>>map(campo -> caminho(root, campo))
+				.collect(Collectors.toList()));
+		Predicate predicado = especificacao.toPredicate(root, query, builder);
+		if (predicado != null) {
+			query.where(predicado);
+		}
+		query.orderBy(builder.asc(root.get("id")));
+
+		return entityManager.createQuery(query);
+	}
+
+	/**
+	 * O id de uma referência é lido da chave estrangeira, sem join com a outra tabela.
+	 */
+	private static Path<?> caminho(Root<Lancamento> root, CampoLancamento campo) {
+		Path<?> caminho = root;
+		for (String atributo : campo.getCaminho()) {
+			caminho = caminho.get(atributo);
+		}
+		return caminho;
+	}
+}
@@ -0,0 +1,14 @@
+package com.amantovan.minhasfinancas.model.repository;
+
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import com.amantovan.minhasfinancas.model.entity.Categoria;
+
+public interface CategoriaRepository extends JpaRepository<Categoria, Long>{
+
+	List<Categoria> findByUsuarioIdOrderByNome(Long idUsuario);
+	
+	boolean existsByUsuarioIdAndNomeIgnoreCase(Long idUsuario, String nome);
+}
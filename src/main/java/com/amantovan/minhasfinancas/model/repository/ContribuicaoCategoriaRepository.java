@@ -0,0 +1,9 @@
+package com.amantovan.minhasfinancas.model.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import com.amantovan.minhasfinancas.model.entity.ContribuicaoCategoria;
+
+public interface ContribuicaoCategoriaRepository extends JpaRepository<ContribuicaoCategoria, Long>{
+
+}
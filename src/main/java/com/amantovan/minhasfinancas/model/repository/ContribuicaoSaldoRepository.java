@@ -0,0 +1,12 @@
+package com.amantovan.minhasfinancas.model.repository;
+
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import com.amantovan.minhasfinancas.model.entity.ContribuicaoSaldo;
+
+public interface ContribuicaoSaldoRepository extends JpaRepository<ContribuicaoSaldo, Long>{
+
+	List<ContribuicaoSaldo> findByIdUsuario(Long idUsuario);
+}
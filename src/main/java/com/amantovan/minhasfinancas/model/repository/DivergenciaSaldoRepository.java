@@ -0,0 +1,13 @@
+package com.amantovan.minhasfinancas.model.repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import com.amantovan.minhasfinancas.model.entity.DivergenciaSaldo;
+
+public interface DivergenciaSaldoRepository extends JpaRepository<DivergenciaSaldo, Long>{
+
+	List<DivergenciaSaldo> findByDataExecucaoOrderByIdUsuarioAsc(LocalDate dataExecucao);
+}
@@ -0,0 +1,15 @@
+package com.amantovan.minhasfinancas.model.repository;
+
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import com.amantovan.minhasfinancas.model.entity.EventoLancamento;
+
+public interface EventoLancamentoRepository extends JpaRepository<EventoLancamento, Long>{
+
+	List<EventoLancamento> findByDataProcessamentoIsNullAndTentativasLessThanOrderByIdAsc(int tentativas, Pageable pageable);
+	
+	boolean existsByIdUsuarioAndDataProcessamentoIsNullAndTentativasLessThan(Long idUsuario, int tentativas);
+}
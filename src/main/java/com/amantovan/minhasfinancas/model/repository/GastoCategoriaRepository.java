@@ -0,0 +1,15 @@
+package com.amantovan.minhasfinancas.model.repository;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import com.amantovan.minhasfinancas.model.entity.GastoCategoria;
+
+public interface GastoCategoriaRepository extends JpaRepository<GastoCategoria, Long>{
+
+	Optional<GastoCategoria> findByIdCategoriaAndAnoAndMes(Long idCategoria, Integer ano, Integer mes);
+	
+	List<GastoCategoria> findByIdUsuarioAndAnoAndMes(Long idUsuario, Integer ano, Integer mes);
+}
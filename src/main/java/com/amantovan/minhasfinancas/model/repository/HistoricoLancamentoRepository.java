@@ -0,0 +1,50 @@
+package com.amantovan.minhasfinancas.model.repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.amantovan.minhasfinancas.model.entity.HistoricoLancamento;
+
+public interface HistoricoLancamentoRepository extends JpaRepository<HistoricoLancamento, Long> {
+
+	/**
+	 * Copia o estado gravado dos lançamentos, já com as alterações da transação, em um único comando.
+	 */
+	@Modifying(flushAutomatically = true)
+	@Query("insert into HistoricoLancamento (idLancamento, idUsuario, tipo, status, valor, data) "
+			+ "select l.id, l.usuario.id, l.tipo, l.status, l.valor, l.dataAtualizacao from Lancamento l where l.id in :ids")
+	int registrar(@Param("ids") Collection<Long> ids);
+
+	@Modifying
+	@Query("insert into HistoricoLancamento (idLancamento, idUsuario, tipo, status, valor, data) "
+			+ "select l.id, l.usuario.id, l.tipo, l.status, l.valor, l.dataAtualizacao from Lancamento l "
+			+ "where l.dataAtualizacao is not null "
+			+ "and not exists (select h.id from HistoricoLancamento h where h.idLancamento = l.id)")
+	int preencherSemHistorico();
+
+	@Query("select h from HistoricoLancamento h where h.idUsuario = :idUsuario and h.data > :desde and h.data <= :ate "
+			+ "order by h.idLancamento, h.id")
+	List<HistoricoLancamento> buscarDoPeriodo(
+			@Param("idUsuario") Long idUsuario,
+			@Param("desde") LocalDateTime desde,
+			@Param("ate") LocalDateTime ate);
+
+	/**
+	 * Último estado de cada lançamento gravado até {@code data}.
+	 */
+	@Query("select h from HistoricoLancamento h where h.idLancamento in :ids and h.id = "
+			+ "(select max(a.id) from HistoricoLancamento a where a.idLancamento = h.idLancamento and a.data <= :data)")
+	List<HistoricoLancamento> buscarVigentesEm(@Param("ids") Collection<Long> ids, @Param("data") LocalDateTime data);
+
+	@Query("select distinct h.idUsuario from HistoricoLancamento h where h.idUsuario is not null and h.data <= :limite "
+			+ "and h.data > coalesce((select max(c.data) from SaldoConsolidado c where c.idUsuario = h.idUsuario), :semConsolidacao)")
+	List<Long> obterUsuariosAlteradosAposConsolidacao(
+			@Param("limite") LocalDateTime limite,
+			@Param("semConsolidacao") LocalDateTime semConsolidacao);
+}
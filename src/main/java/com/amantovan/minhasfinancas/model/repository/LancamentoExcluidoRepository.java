@@ -0,0 +1,29 @@
+package com.amantovan.minhasfinancas.model.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.amantovan.minhasfinancas.model.entity.LancamentoExcluido;
+
+public interface LancamentoExcluidoRepository extends JpaRepository<LancamentoExcluido, Long> {
+
+	@Query("select e from LancamentoExcluido e where e.idUsuario = :idUsuario and e.dataExclusao <= :ate "
+			+ "and (e.dataExclusao > :data or (e.dataExclusao = :data and e.idLancamento > :id)) "
+			+ "order by e.dataExclusao, e.idLancamento")
+	List<LancamentoExcluido> buscarExcluidosDesde(
+			@Param("idUsuario") Long idUsuario,
+			@Param("data") LocalDateTime data,
+			@Param("id") Long id,
+			@Param("ate") LocalDateTime ate,
+			Pageable pageable);
+
+	@Modifying
+	@Query("delete from LancamentoExcluido e where e.dataExclusao < :limite")
+	int removerAnteriores(@Param("limite") LocalDateTime limite);
+}
@@ -1,8 +1,16 @@
 package com.amantovan.minhasfinancas.model.repository;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
@@ -10,7 +18,8 @@ import com.amantovan.minhasfinancas.model.entity.Lancamento;
 import com.amantovan.minhasfinancas.model.enuns.StatusLancamento;
 import com.amantovan.minhasfinancas.model.enuns.TipoLancamento;
 
-public interface LancamentoRepository extends JpaRepository<Lancamento, Long>{
+public interface LancamentoRepository extends JpaRepository<Lancamento, Long>, JpaSpecificationExecutor<Lancamento>,
+		CamposLancamentoRepository {
 
 	@Query( value = 
 			"select sum(l.valor) from Lancamento l join l.usuario u "
@@ -19,4 +28,110 @@ public interface LancamentoRepository extends JpaRepository<Lancamento, Long>{
 			@Param("idUsuario") Long idUsuario, 
 			@Param("tipo") TipoLancamento tipo,
 			@Param("status") StatusLancamento status);
+
+	@Query( value = 
+			"select sum(l.valor) from Lancamento l "
+			+ "where l.usuario.id = :idUsuario and l.competencia between :de and :ate "
+			+ "and l.tipo = :tipo and l.status = :status")
+	BigDecimal obterSaldoPorTipoLancamentoEUsuarioEStatusNoPeriodo(
+			@Param("idUsuario") Long idUsuario, 
+			@Param("tipo") TipoLancamento tipo,
+			@Param("status") StatusLancamento status,
+			@Param("de") LocalDate de,
+			@Param("ate") LocalDate ate);
+
+	/**
+	 * Confere um lote inteiro de uma vez, pelo índice único de (usuário, impressão digital).
+	 */
+	@Query("select l.impressaoDigital from Lancamento l where l.usuario.id = :idUsuario and l.impressaoDigital in :impressoes")
+	Set<String> obterImpressoesDigitaisExistentes(
+			@Param("idUsuario") Long idUsuario,
+			@Param("impressoes") Collection<String> impressoes);
+
+	List<Lancamento> findByUsuarioIdAndStatusIn(Long idUsuario, Collection<StatusLancamento> status);
+
+	/**
+	 * Lançamentos da previsão de saldo: os pendentes até o último mês projetado, inclusive os já
+	 * vencidos, e os efetivados de {@code inicioHistorico} até o mês anterior a {@code mesAtual}.
+	 */
+	@Query("select l from Lancamento l where l.usuario.id = :idUsuario and ("
+			+ "(l.status = com.amantovan.minhasfinancas.model.enuns.StatusLancamento.PENDENTE "
+			+ "and l.competencia <= :ultimoMes) "
+			+ "or (l.status = com.amantovan.minhasfinancas.model.enuns.StatusLancamento.EFETIVADO "
+			+ "and l.competencia >= :inicioHistorico and l.competencia < :mesAtual))")
+	List<Lancamento> obterParaPrevisao(
+			@Param("idUsuario") Long idUsuario,
+			@Param("inicioHistorico") LocalDate inicioHistorico,
+			@Param("mesAtual") LocalDate mesAtual,
+			@Param("ultimoMes") LocalDate ultimoMes);
+
+	@Query("select distinct l.ano, l.mes from Lancamento l "
+			+ "where l.competencia is null and l.ano is not null and l.mes between 1 and 12")
+	List<Object[]> obterMesesSemCompetencia();
+
+	@Modifying
+	@Query("update Lancamento l set l.competencia = :competencia "
+			+ "where l.competencia is null and l.ano = :ano and l.mes = :mes")
+	int preencherCompetencia(
+			@Param("ano") Integer ano,
+			@Param("mes") Integer mes,
+			@Param("competencia") LocalDate competencia);
+
+	/**
+	 * Atualiza os dados do lançamento em um único comando, limitado ao dono informado; o retorno
+	 * é a quantidade de linhas alteradas. A categoria é removida, como no {@code merge}.
+	 */
+	@Modifying
+	@Query("update Lancamento l set l.descricao = :#{#lancamento.descricao}, l.mes = :#{#lancamento.mes}, "
+			+ "l.ano = :#{#lancamento.ano}, l.competencia = :#{#lancamento.competencia}, l.valor = :#{#lancamento.valor}, "
+			+ "l.tipo = :#{#lancamento.tipo}, l.status = :#{#lancamento.status}, l.categoria = null, "
+			+ "l.dataAtualizacao = :#{#lancamento.dataAtualizacao} "
+			+ "where l.id = :#{#lancamento.id} and l.usuario.id = :#{#lancamento.usuario.id}")
+	int atualizarDoUsuario(@Param("lancamento") Lancamento lancamento);
+
+	/**
+	 * Como {@link #atualizarDoUsuario(Lancamento)}, só alterando a linha se a categoria também
+	 * pertencer ao dono.
+	 */
+	@Modifying
+	@Query("update Lancamento l set l.descricao = :#{#lancamento.descricao}, l.mes = :#{#lancamento.mes}, "
+			+ "l.ano = :#{#lancamento.ano}, l.competencia = :#{#lancamento.competencia}, l.valor = :#{#lancamento.valor}, "
+			+ "l.tipo = :#{#lancamento.tipo}, l.status = :#{#lancamento.status}, l.categoria = :#{#lancamento.categoria}, "
+			+ "l.dataAtualizacao = :#{#lancamento.dataAtualizacao} "
+			+ "where l.id = :#{#lancamento.id} and l.usuario.id = :#{#lancamento.usuario.id} "
+			+ "and exists (select c.id from Categoria c where c.id = :#{#lancamento.categoria.id} and c.usuario.id = :#{#lancamento.usuario.id})")
+	int atualizarComCategoriaDoUsuario(@Param("lancamento") Lancamento lancamento);
+
+	@Modifying
+	@Query("update Lancamento l set l.status = :status, l.dataAtualizacao = :dataAtualizacao "
+			+ "where l.id = :id and l.usuario.id = :idUsuario")
+	int atualizarStatusDoUsuario(
+			@Param("id") Long id,
+			@Param("idUsuario") Long idUsuario,
+			@Param("status") StatusLancamento status,
+			@Param("dataAtualizacao") LocalDateTime dataAtualizacao);
+
+	@Modifying
+	@Query("delete from Lancamento l where l.id = :id and l.usuario.id = :idUsuario")
+	int deletarDoUsuario(
+			@Param("id") Long id,
+			@Param("idUsuario") Long idUsuario);
+
+	/**
+	 * Lançamentos do usuário alterados depois do cursor (data, id) e até {@code ate}, na ordem do
+	 * índice de (usuário, data de atualização, id).
+	 */
+	@Query("select l from Lancamento l where l.usuario.id = :idUsuario and l.dataAtualizacao <= :ate "
+			+ "and (l.dataAtualizacao > :data or (l.dataAtualizacao = :data and l.id > :id)) "
+			+ "order by l.dataAtualizacao, l.id")
+	List<Lancamento> buscarAlteradosDesde(
+			@Param("idUsuario") Long idUsuario,
+			@Param("data") LocalDateTime data,
+			@Param("id") Long id,
+			@Param("ate") LocalDateTime ate,
+			Pageable pageable);
+
+	@Modifying
+	@Query("update Lancamento l set l.dataAtualizacao = :dataAtualizacao where l.dataAtualizacao is null")
+	int preencherDataAtualizacao(@Param("dataAtualizacao") LocalDateTime dataAtualizacao);
 }
@@ -0,0 +1,15 @@
+package com.amantovan.minhasfinancas.model.repository;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import com.amantovan.minhasfinancas.model.entity.OrcamentoCategoria;
+
+public interface OrcamentoCategoriaRepository extends JpaRepository<OrcamentoCategoria, Long>{
+
+	Optional<OrcamentoCategoria> findByIdCategoriaAndAnoAndMes(Long idCategoria, Integer ano, Integer mes);
+	
+	List<OrcamentoCategoria> findByIdUsuarioAndAnoAndMes(Long idUsuario, Integer ano, Integer mes);
+}
@@ -0,0 +1,31 @@
+package com.amantovan.minhasfinancas.model.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.amantovan.minhasfinancas.model.entity.ParticaoReconciliacao;
+
+public interface ParticaoReconciliacaoRepository extends JpaRepository<ParticaoReconciliacao, Long>{
+
+	List<ParticaoReconciliacao> findByDataConclusaoIsNullOrderByIdAsc();
+
+	/**
+	 * Reivindica ou renova a partição para o responsável, se ela estiver pendente e livre, já
+	 * for dele ou tiver a reivindicação anterior a {@code expiradaAntesDe}. A linha fica travada
+	 * até o fim da transação; o retorno é a quantidade de linhas alteradas.
+	 */
+	@Modifying(clearAutomatically = true)
+	@Query("update ParticaoReconciliacao p set p.responsavel = :responsavel, p.dataReivindicacao = :agora "
+			+ "where p.id = :id and p.dataConclusao is null "
+			+ "and (p.responsavel is null or p.responsavel = :responsavel or p.dataReivindicacao < :expiradaAntesDe)")
+	int reivindicar(
+			@Param("id") Long id,
+			@Param("responsavel") String responsavel,
+			@Param("agora") LocalDateTime agora,
+			@Param("expiradaAntesDe") LocalDateTime expiradaAntesDe);
+}
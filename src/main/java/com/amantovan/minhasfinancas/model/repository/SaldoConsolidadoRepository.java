@@ -0,0 +1,13 @@
+package com.amantovan.minhasfinancas.model.repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import com.amantovan.minhasfinancas.model.entity.SaldoConsolidado;
+
+public interface SaldoConsolidadoRepository extends JpaRepository<SaldoConsolidado, Long> {
+
+	Optional<SaldoConsolidado> findFirstByIdUsuarioAndDataLessThanEqualOrderByDataDesc(Long idUsuario, LocalDateTime data);
+}
@@ -1,8 +1,16 @@
 package com.amantovan.minhasfinancas.model.repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.amantovan.minhasfinancas.model.entity.Usuario;
 
@@ -11,4 +19,29 @@ public interface UsuarioRepository extends JpaRepository<Usuario, Long>{
 	boolean existsByEmail(String email);
 	
 	Optional<Usuario> findByEmail(String email);
+	
+	@Query("select u.email from Usuario u where u.email is not null")
+	Stream<String> obterEmails();
+	
+	@Query("select u.email from Usuario u where u.id in :ids and u.email is not null")
+	List<String> obterEmailsPorIds(@Param("ids") Collection<Long> ids);
+	
+	long countByEmailIsNotNull();
+	
+	@Query("select min(u.id) from Usuario u")
+	Long obterMenorId();
+	
+	@Query("select max(u.id) from Usuario u")
+	Long obterMaiorId();
+	
+	@Query("select u.id from Usuario u where u.id > :idAnterior and u.id < :idFinal order by u.id")
+	List<Long> obterIdsAPartirDe(@Param("idAnterior") Long idAnterior, @Param("idFinal") Long idFinal, Pageable pageable);
+	
+	/**
+	 * Troca a senha gravada só se ela ainda for a lida no login, sem sobrescrever uma troca concorrente.
+	 */
+	@Transactional
+	@Modifying
+	@Query("update Usuario u set u.senha = :nova where u.id = :id and u.senha = :anterior")
+	int recodificarSenha(@Param("id") Long id, @Param("anterior") String anterior, @Param("nova") String nova);
 }
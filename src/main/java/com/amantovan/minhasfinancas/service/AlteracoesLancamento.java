@@ -0,0 +1,27 @@
+package com.amantovan.minhasfinancas.service;
+
+import java.util.List;
+
+import com.amantovan.minhasfinancas.model.entity.Lancamento;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Uma página da sincronização incremental: lançamentos criados ou alterados, ids excluídos e o
+ * token para pedir a próxima página. Com {@code maisAlteracoes} falso o cliente está em dia e
+ * guarda o token para a próxima sincronização.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AlteracoesLancamento {
+
+	private List<Lancamento> alterados;
+	private List<Long> excluidos;
+	private String token;
+	private boolean maisAlteracoes;
+}
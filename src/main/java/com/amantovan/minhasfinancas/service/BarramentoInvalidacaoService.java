@@ -0,0 +1,18 @@
+package com.amantovan.minhasfinancas.service;
+
+public interface BarramentoInvalidacaoService {
+
+	/**
+	 * Invalida os dados em cache do usuário nesta e nas demais instâncias, após o commit da
+	 * transação corrente ou imediatamente, se não houver uma.
+	 */
+	void publicar(Long idUsuario);
+
+	/**
+	 * Avisa as demais instâncias de que o usuário acabou de ser cadastrado, com as mesmas
+	 * garantias de entrega de {@link #publicar(Long)}.
+	 */
+	void publicarCadastro(Long idUsuario);
+
+	int enviarPendentes();
+}
@@ -0,0 +1,20 @@
+package com.amantovan.minhasfinancas.service;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+import com.amantovan.minhasfinancas.model.entity.Lancamento;
+
+public interface CacheBuscaLancamentoService {
+
+	List<Lancamento> buscar(Lancamento filtro, Supplier<List<Lancamento>> consulta);
+	void invalidar(Long usuario);
+	void limpar();
+	long getAcertos();
+	long getFalhas();
+	long getCoalescidas();
+	long getInvalidacoes();
+	double getTaxaAcerto();
+	int getEntradas();
+	long getBytesEstimados();
+}
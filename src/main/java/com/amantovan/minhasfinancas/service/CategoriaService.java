@@ -0,0 +1,17 @@
+package com.amantovan.minhasfinancas.service;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+
+import com.amantovan.minhasfinancas.model.entity.Categoria;
+import com.amantovan.minhasfinancas.model.entity.OrcamentoCategoria;
+
+public interface CategoriaService {
+
+	Categoria salvar(Categoria categoria);
+	List<Categoria> listarPorUsuario(Long idUsuario);
+	Optional<Categoria> obterPorId(Long id);
+	OrcamentoCategoria definirOrcamento(Categoria categoria, Integer ano, Integer mes, BigDecimal valor);
+	List<ResumoOrcamentoCategoria> obterResumoOrcamento(Long idUsuario, Integer ano, Integer mes);
+}
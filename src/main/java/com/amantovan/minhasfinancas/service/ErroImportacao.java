@@ -0,0 +1,19 @@
+package com.amantovan.minhasfinancas.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Linha do extrato que não foi importada e o motivo.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ErroImportacao {
+
+	private int linha;
+	private String mensagem;
+}
@@ -0,0 +1,10 @@
+package com.amantovan.minhasfinancas.service;
+
+import com.amantovan.minhasfinancas.model.entity.Lancamento;
+import com.amantovan.minhasfinancas.model.enuns.TipoEventoLancamento;
+
+public interface EventoLancamentoService {
+
+	void registrar(Lancamento lancamento, TipoEventoLancamento tipo);
+	int despacharPendentes();
+}
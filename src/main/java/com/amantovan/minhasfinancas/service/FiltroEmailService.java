@@ -0,0 +1,13 @@
+package com.amantovan.minhasfinancas.service;
+
+public interface FiltroEmailService {
+
+	boolean podeExistir(String email);
+	void adicionar(String email);
+	void registrarFalsoPositivo();
+	void reconstruir();
+	double getTaxaFalsoPositivoEstimada();
+	long getConsultas();
+	long getNegativos();
+	long getFalsosPositivos();
+}
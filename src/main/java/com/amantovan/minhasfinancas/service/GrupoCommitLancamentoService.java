@@ -0,0 +1,9 @@
+package com.amantovan.minhasfinancas.service;
+
+import com.amantovan.minhasfinancas.model.entity.Lancamento;
+
+public interface GrupoCommitLancamentoService {
+
+	Lancamento salvar(Lancamento lancamento);
+	boolean isHabilitado();
+}
@@ -0,0 +1,15 @@
+package com.amantovan.minhasfinancas.service;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+public interface HistoricoLancamentoService {
+
+	/**
+	 * Saldo efetivado do usuário como estava em {@code data}, considerando os lançamentos
+	 * alterados ou excluídos depois dela com o estado que tinham naquele momento.
+	 */
+	BigDecimal obterSaldoEm(Long idUsuario, LocalDateTime data);
+
+	int consolidarSaldos();
+}
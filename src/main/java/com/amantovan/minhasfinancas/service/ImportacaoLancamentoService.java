@@ -0,0 +1,11 @@
+package com.amantovan.minhasfinancas.service;
+
+import java.io.Reader;
+
+import com.amantovan.minhasfinancas.model.entity.Usuario;
+import com.amantovan.minhasfinancas.model.enuns.FormatoExtrato;
+
+public interface ImportacaoLancamentoService {
+
+	ResumoImportacao importar(Reader extrato, FormatoExtrato formato, Usuario usuario, ObservadorImportacao observador);
+}
@@ -1,20 +1,54 @@
 package com.amantovan.minhasfinancas.service;
 
+import java.io.IOException;
+import java.io.Writer;
 import java.math.BigDecimal;
+import java.time.YearMonth;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import com.amantovan.minhasfinancas.model.entity.Lancamento;
+import com.amantovan.minhasfinancas.model.enuns.CampoLancamento;
 import com.amantovan.minhasfinancas.model.enuns.StatusLancamento;
 
 public interface LancamentoService {
 
 	Lancamento salvar(Lancamento lancamento);
+	List<Lancamento> salvarLote(List<Lancamento> lancamentos);
 	Lancamento atualizar(Lancamento lancamento);
 	void deletar(Lancamento lancamento);
 	List<Lancamento> buscar(Lancamento lancamentoFiltro);
+	/**
+	 * Busca pelo filtro limitando a competência ao período informado; {@code de} e {@code ate}
+	 * podem ser nulos para um período aberto.
+	 */
+	List<Lancamento> buscar(Lancamento lancamentoFiltro, YearMonth de, YearMonth ate);
+	/**
+	 * Como a busca, mas lendo do banco só as colunas dos campos pedidos; cada lançamento vem
+	 * como um mapa do nome do campo para o valor.
+	 */
+	List<Map<String, Object>> buscarCampos(Lancamento lancamentoFiltro, YearMonth de, YearMonth ate, List<CampoLancamento> campos);
+	Optional<Map<String, Object>> obterCamposPorId(Long id, Long idUsuario, List<CampoLancamento> campos);
+	/**
+	 * Escreve os lançamentos do filtro em CSV separado por ponto e vírgula, com os campos pedidos
+	 * como colunas.
+	 */
+	void exportar(Lancamento lancamentoFiltro, YearMonth de, YearMonth ate, List<CampoLancamento> campos, Writer writer) throws IOException;
 	void atualizarStatus(Lancamento lancamento, StatusLancamento status);
+	/**
+	 * Atualiza, altera o status ou exclui o lançamento em um único comando, limitado ao usuário
+	 * informado, sem ler o registro antes. Retornam {@code false} quando o lançamento não existe
+	 * para esse usuário.
+	 */
+	boolean atualizarDoUsuario(Lancamento lancamento);
+	boolean atualizarStatusDoUsuario(Long id, Long idUsuario, StatusLancamento status);
+	boolean deletarDoUsuario(Long id, Long idUsuario);
 	void validar(Lancamento lancamento);
 	Optional<Lancamento> obterPorId(Long id);
 	BigDecimal obterSaldoPorUsuario(Long id);
+	BigDecimal obterSaldoPorUsuario(Long id, YearMonth de, YearMonth ate);
+	Set<String> obterImpressoesDigitaisExistentes(Long idUsuario, Collection<String> impressoesDigitais);
 }
@@ -0,0 +1,24 @@
+package com.amantovan.minhasfinancas.service;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Evento enviado aos assinantes de um usuário: o saldo depois das alterações e os lançamentos
+ * alterados desde o último evento. A primeira notificação de cada assinatura traz só o saldo.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotificacaoSaldo {
+
+	private Long usuario;
+	private BigDecimal saldo;
+	private List<Long> lancamentos;
+}
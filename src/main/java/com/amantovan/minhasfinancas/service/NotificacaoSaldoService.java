@@ -0,0 +1,22 @@
+package com.amantovan.minhasfinancas.service;
+
+import java.util.Optional;
+
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+public interface NotificacaoSaldoService {
+
+	/**
+	 * Abre um fluxo de {@link NotificacaoSaldo} para o usuário; vazio quando o limite de
+	 * conexões, geral ou do usuário, foi atingido.
+	 */
+	Optional<SseEmitter> assinar(Long idUsuario);
+
+	/**
+	 * Registra a alteração de um lançamento, enviada aos assinantes do usuário depois do commit
+	 * da transação corrente.
+	 */
+	void notificar(Long idUsuario, Long idLancamento);
+
+	int getAssinaturas();
+}
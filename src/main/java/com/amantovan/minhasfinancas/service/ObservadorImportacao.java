@@ -0,0 +1,10 @@
+package com.amantovan.minhasfinancas.service;
+
+/**
+ * Recebe o andamento de uma importação enquanto o extrato ainda está sendo lido.
+ */
+public interface ObservadorImportacao {
+
+	void erro(ErroImportacao erro);
+	void progresso(ResumoImportacao resumo);
+}
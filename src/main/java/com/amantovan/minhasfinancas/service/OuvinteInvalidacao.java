@@ -0,0 +1,29 @@
+package com.amantovan.minhasfinancas.service;
+
+import java.util.Collection;
+
+/**
+ * Cache ou estado local que recebe as invalidações do {@link BarramentoInvalidacaoService}.
+ */
+public interface OuvinteInvalidacao {
+
+	void invalidarUsuarios(Collection<Long> usuarios);
+
+	/**
+	 * Usuários alterados em outras instâncias; por padrão, tratados como as alterações desta.
+	 */
+	default void invalidarUsuariosDeOutraInstancia(Collection<Long> usuarios) {
+		invalidarUsuarios(usuarios);
+	}
+
+	/**
+	 * Usuários cadastrados em outras instâncias; por padrão, ignorados.
+	 */
+	default void registrarCadastrosDeOutraInstancia(Collection<Long> usuarios) {
+	}
+
+	/**
+	 * Chamado quando invalidações de outras instâncias podem ter se perdido.
+	 */
+	void invalidarTudo();
+}
@@ -0,0 +1,23 @@
+package com.amantovan.minhasfinancas.service;
+
+import java.math.BigDecimal;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Faixas do saldo ao fim do mês: em 10% dos cenários ele ficou abaixo de {@code percentil10},
+ * em metade abaixo de {@code mediana} e em 90% abaixo de {@code percentil90}. {@code pendente}
+ * é o total dos lançamentos pendentes que caem no mês.
+ */
+@Data
+@Builder
+public class PrevisaoMensal {
+
+	private Integer ano;
+	private Integer mes;
+	private BigDecimal pendente;
+	private BigDecimal percentil10;
+	private BigDecimal mediana;
+	private BigDecimal percentil90;
+}
@@ -0,0 +1,21 @@
+package com.amantovan.minhasfinancas.service;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Saldo projetado mês a mês. {@code cenarios} é quantos cenários entraram nas faixas, que
+ * pode ser menor que o configurado quando o orçamento de tempo acaba antes.
+ */
+@Data
+@Builder
+public class PrevisaoSaldo {
+
+	private BigDecimal saldoAtual;
+	private int cenarios;
+	private boolean interrompida;
+	private List<PrevisaoMensal> meses;
+}
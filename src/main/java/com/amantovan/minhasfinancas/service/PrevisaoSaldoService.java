@@ -0,0 +1,6 @@
+package com.amantovan.minhasfinancas.service;
+
+public interface PrevisaoSaldoService {
+
+	PrevisaoSaldo prever(Long idUsuario, int meses);
+}
@@ -0,0 +1,15 @@
+package com.amantovan.minhasfinancas.service;
+
+import com.amantovan.minhasfinancas.model.entity.EventoLancamento;
+
+/**
+ * Modelo de leitura atualizado a partir da outbox de lançamentos.
+ * 
+ * A entrega é "pelo menos uma vez": o mesmo evento pode ser aplicado mais de uma vez
+ * e eventos antigos podem chegar depois de o lançamento já ter mudado de novo, por isso
+ * as implementações devem ler o estado atual do lançamento e ser idempotentes.
+ */
+public interface ProjecaoLancamento {
+
+	void aplicar(EventoLancamento evento);
+}
@@ -0,0 +1,6 @@
+package com.amantovan.minhasfinancas.service;
+
+public interface ReconciliacaoSaldoService {
+
+	ResumoReconciliacao reconciliar();
+}
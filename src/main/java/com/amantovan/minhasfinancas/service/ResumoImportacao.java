@@ -0,0 +1,22 @@
+package com.amantovan.minhasfinancas.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Totais de uma importação até o momento; {@code concluido} só fica verdadeiro no último envio.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResumoImportacao {
+
+	private int lidos;
+	private int importados;
+	private int rejeitados;
+	private int duplicados;
+	private boolean concluido;
+}
@@ -0,0 +1,20 @@
+package com.amantovan.minhasfinancas.service;
+
+import java.math.BigDecimal;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Linha da tela de orçamento: previsto, gasto e disponível de uma categoria no mês.
+ */
+@Data
+@Builder
+public class ResumoOrcamentoCategoria {
+
+	private Long idCategoria;
+	private String nome;
+	private BigDecimal orcado;
+	private BigDecimal gasto;
+	private BigDecimal disponivel;
+}
@@ -0,0 +1,18 @@
+package com.amantovan.minhasfinancas.service;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Totais de uma execução da reconciliação nesta instância, somando o que já tinha sido feito
+ * antes de uma retomada. Partições processadas por outras instâncias não entram.
+ */
+@Data
+@Builder
+public class ResumoReconciliacao {
+
+	private int particoes;
+	private int usuariosVerificados;
+	private int divergencias;
+	private long duracaoMs;
+}
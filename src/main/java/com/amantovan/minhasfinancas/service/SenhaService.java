@@ -0,0 +1,16 @@
+package com.amantovan.minhasfinancas.service;
+
+public interface SenhaService {
+
+	String codificar(String senha);
+
+	/**
+	 * Confere a senha com o valor gravado, aceitando também as senhas legadas em texto puro.
+	 */
+	boolean confere(String senha, String codificada);
+
+	/**
+	 * Indica se o valor gravado é legado ou usa um custo diferente do configurado.
+	 */
+	boolean precisaRecodificar(String codificada);
+}
@@ -0,0 +1,12 @@
+package com.amantovan.minhasfinancas.service;
+
+public interface SincronizacaoLancamentoService {
+
+	/**
+	 * Alterações dos lançamentos do usuário depois do token, na ordem em que aconteceram; sem
+	 * token, começa do início.
+	 */
+	AlteracoesLancamento buscarAlteracoes(Long idUsuario, String token, int tamanho);
+
+	int removerExclusoesAntigas();
+}
@@ -0,0 +1,17 @@
+package com.amantovan.minhasfinancas.service;
+
+/**
+ * O que aconteceu com os usuários de uma mensagem do {@link BarramentoInvalidacaoService}.
+ */
+public enum TipoInvalidacao {
+
+	/**
+	 * Dados do usuário alterados; os caches descartam o que guardam dele.
+	 */
+	ALTERACAO,
+
+	/**
+	 * Usuário recém-cadastrado.
+	 */
+	CADASTRO
+}
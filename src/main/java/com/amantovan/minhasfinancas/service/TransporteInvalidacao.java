@@ -0,0 +1,24 @@
+package com.amantovan.minhasfinancas.service;
+
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * Leva as invalidações de uma instância às demais. As mensagens são entregues a todas as
+ * instâncias assinantes, inclusive a que enviou, junto com a origem e o tipo informados no envio.
+ */
+public interface TransporteInvalidacao {
+
+	void enviar(String origem, TipoInvalidacao tipo, Collection<Long> usuarios);
+
+	/**
+	 * {@code aoPerderMensagens} é chamado sempre que o transporte não puder garantir que recebeu
+	 * todas as mensagens, como depois de uma reconexão.
+	 */
+	void assinar(Receptor receptor, Runnable aoPerderMensagens);
+
+	interface Receptor {
+
+		void receber(String origem, TipoInvalidacao tipo, Set<Long> usuarios);
+	}
+}
@@ -0,0 +1,168 @@
+package com.amantovan.minhasfinancas.service.impl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.amantovan.minhasfinancas.service.BarramentoInvalidacaoService;
+import com.amantovan.minhasfinancas.service.OuvinteInvalidacao;
+import com.amantovan.minhasfinancas.service.TipoInvalidacao;
+import com.amantovan.minhasfinancas.service.TransporteInvalidacao;
+
+/**
+ * Os usuários publicados em uma transação são reunidos e, após o commit, invalidados nos
+ * caches desta instância na mesma thread, o que preserva a leitura das próprias escritas. Eles
+ * também entram em um conjunto de pendentes, enviado às demais instâncias em lotes a cada
+ * {@code minhasfinancas.invalidacao.intervalo-ms}; várias alterações do mesmo usuário no
+ * intervalo viram uma única invalidação. Os cadastros seguem separados das alterações, para
+ * que as demais instâncias saibam quais usuários são novos.
+ *
+ * Se o envio falhar, os usuários voltam para os pendentes e seguem no próximo lote.
+ */
+@Service
+public class BarramentoInvalidacaoServiceImpl implements BarramentoInvalidacaoService {
+
+	private static final Logger log = LoggerFactory.getLogger(BarramentoInvalidacaoServiceImpl.class);
+
+	private final String origem = UUID.randomUUID().toString();
+	private final Object chaveTransacao = new Object();
+	private final Object trava = new Object();
+	private final TransporteInvalidacao transporte;
+	private final List<OuvinteInvalidacao> ouvintes;
+	private final int tamanhoLote;
+	private Map<TipoInvalidacao, Set<Long>> pendentes = new EnumMap<>(TipoInvalidacao.class);
+
+	public BarramentoInvalidacaoServiceImpl(
+			TransporteInvalidacao transporte,
+			ObjectProvider<OuvinteInvalidacao> ouvintes,
+			@Value("${minhasfinancas.invalidacao.tamanho-lote:500}") int tamanhoLote) {
+		this.transporte = transporte;
+		this.ouvintes = ouvintes.orderedStream().collect(Collectors.toList());
+		this.tamanhoLote = tamanhoLote;
+		transporte.assinar(this::receber, this::invalidarTudo);
+	}
+
+	@Override
+	public void publicar(Long idUsuario) {
+		publicar(TipoInvalidacao.ALTERACAO, idUsuario);
+	}
+
+	@Override
+	public void publicarCadastro(Long idUsuario) {
+		publicar(TipoInvalidacao.CADASTRO, idUsuario);
+	}
+
+	@SuppressWarnings("unchecked")
+	private void publicar(TipoInvalidacao tipo, Long idUsuario) {
+		if (idUsuario == null) {
+			return;
+		}
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			aplicar(tipo, Collections.singleton(idUsuario));
+			return;
+		}
+
+		Map<TipoInvalidacao, Set<Long>> daTransacao =
+				(Map<TipoInvalidacao, Set<Long>>) TransactionSynchronizationManager.getResource(chaveTransacao);
+		if (daTransacao == null) {
+			Map<TipoInvalidacao, Set<Long>> usuarios = new EnumMap<>(TipoInvalidacao.class);
+			TransactionSynchronizationManager.bindResource(chaveTransacao, usuarios);
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+				@Override
+				public void afterCommit() {
+					usuarios.forEach(BarramentoInvalidacaoServiceImpl.this::aplicar);
+				}
+
+				@Override
+				public void afterCompletion(int status) {
+					TransactionSynchronizationManager.unbindResourceIfPossible(chaveTransacao);
+				}
+			});
+			daTransacao = usuarios;
+		}
+		daTransacao.computeIfAbsent(tipo, t -> new LinkedHashSet<>()).add(idUsuario);
+	}
+
+	@Override
+	@Scheduled(fixedDelayString = "${minhasfinancas.invalidacao.intervalo-ms:100}")
+	public int enviarPendentes() {
+		Map<TipoInvalidacao, Set<Long>> aEnviar;
+		synchronized (trava) {
+			if (pendentes.isEmpty()) {
+				return 0;
+			}
+			aEnviar = pendentes;
+			pendentes = new EnumMap<>(TipoInvalidacao.class);
+		}
+
+		int total = 0;
+		for (Map.Entry<TipoInvalidacao, Set<Long>> entrada : aEnviar.entrySet()) {
+			total += enviar(entrada.getKey(), new ArrayList<>(entrada.getValue()));
+		}
+		return total;
+	}
+
+	private int enviar(TipoInvalidacao tipo, List<Long> usuarios) {
+		int enviados = 0;
+		try {
+			while (enviados < usuarios.size()) {
+				int fim = Math.min(enviados + tamanhoLote, usuarios.size());
+				transporte.enviar(origem, tipo, usuarios.subList(enviados, fim));
+				enviados = fim;
+			}
+		} catch (RuntimeException e) {
+			log.warn("Não foi possível enviar a invalidação de {} usuários; nova tentativa no próximo lote",
+					usuarios.size() - enviados, e);
+			adicionarPendentes(tipo, usuarios.subList(enviados, usuarios.size()));
+		}
+		return enviados;
+	}
+
+	/**
+	 * Os cadastros desta instância já entram no filtro de e-mails por quem os grava; aqui só
+	 * seguem para as demais.
+	 */
+	private void aplicar(TipoInvalidacao tipo, Collection<Long> usuarios) {
+		if (tipo == TipoInvalidacao.ALTERACAO) {
+			ouvintes.forEach(ouvinte -> ouvinte.invalidarUsuarios(usuarios));
+		}
+		adicionarPendentes(tipo, usuarios);
+	}
+
+	private void adicionarPendentes(TipoInvalidacao tipo, Collection<Long> usuarios) {
+		synchronized (trava) {
+			pendentes.computeIfAbsent(tipo, t -> new LinkedHashSet<>()).addAll(usuarios);
+		}
+	}
+
+	private void receber(String origemMensagem, TipoInvalidacao tipo, Set<Long> usuarios) {
+		if (origem.equals(origemMensagem)) {
+			return;
+		}
+		if (tipo == TipoInvalidacao.CADASTRO) {
+			ouvintes.forEach(ouvinte -> ouvinte.registrarCadastrosDeOutraInstancia(usuarios));
+		} else {
+			ouvintes.forEach(ouvinte -> ouvinte.invalidarUsuariosDeOutraInstancia(usuarios));
+		}
+	}
+
+	private void invalidarTudo() {
+		ouvintes.forEach(OuvinteInvalidacao::invalidarTudo);
+	}
+}
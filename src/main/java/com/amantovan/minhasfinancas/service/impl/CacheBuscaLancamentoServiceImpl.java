@@ -0,0 +1,361 @@
+package com.amantovan.minhasfinancas.service.impl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.amantovan.minhasfinancas.model.entity.Lancamento;
+import com.amantovan.minhasfinancas.model.enuns.StatusLancamento;
+import com.amantovan.minhasfinancas.model.enuns.TipoLancamento;
+import com.amantovan.minhasfinancas.service.BarramentoInvalidacaoService;
+import com.amantovan.minhasfinancas.service.CacheBuscaLancamentoService;
+import com.amantovan.minhasfinancas.service.OuvinteInvalidacao;
+
+/**
+ * Cache dos resultados de {@code buscar}, com chave no filtro normalizado e índice por usuário.
+ * Só entram filtros de um usuário por descrição, mês, ano, tipo, status e categoria; os
+ * demais vão direto ao banco. Os lançamentos devolvidos são compartilhados entre as chamadas e
+ * não devem ser alterados.
+ *
+ * Falhas simultâneas para a mesma chave esperam uma única consulta. Uma alteração invalida
+ * as entradas e as consultas em andamento do usuário após o commit, então um resultado lido
+ * antes do commit nunca é guardado depois dele. As alterações feitas em outras instâncias
+ * chegam pelo {@link BarramentoInvalidacaoService}.
+ *
+ * As falhas são lidas das réplicas, e a janela de leitura consistente do roteamento só vale
+ * para as escritas desta instância. Por isso, uma consulta iniciada até
+ * {@code minhasfinancas.cache-busca.janela-sem-cache-ms} depois da última invalidação do
+ * usuário é devolvida sem ser guardada, já que a réplica pode não ter a alteração ainda; a
+ * janela deve cobrir o atraso de replicação. Como proteção para atrasos maiores, as entradas
+ * expiram depois de {@code minhasfinancas.cache-busca.ttl-ms}.
+ */
+@Service
+public class CacheBuscaLancamentoServiceImpl implements CacheBuscaLancamentoService, OuvinteInvalidacao {
+
+	private static final long BYTES_ENTRADA = 96;
+	private static final long BYTES_LANCAMENTO = 160;
+
+	private final boolean habilitado;
+	private final int capacidade;
+	private final int tamanhoMaximoResultado;
+	private final long janelaSemCacheNanos;
+	private final long ttlNanos;
+
+	private final Object trava = new Object();
+	private final LinkedHashMap<Chave, Entrada> entradas = new LinkedHashMap<>(16, 0.75f, true);
+	private final Map<Long, Set<Chave>> chavesPorUsuario = new HashMap<>();
+	private final Map<Chave, CompletableFuture<List<Lancamento>>> emAndamento = new HashMap<>();
+	private final Map<Long, Long> ultimasInvalidacoes = new HashMap<>();
+	private Long ultimaInvalidacaoGeral;
+	private long bytesEstimados;
+	private long acertos;
+	private long falhas;
+	private long coalescidas;
+	private long invalidacoes;
+
+	public CacheBuscaLancamentoServiceImpl(
+			@Value("${minhasfinancas.cache-busca.habilitado:true}") boolean habilitado,
+			@Value("${minhasfinancas.cache-busca.capacidade:10000}") int capacidade,
+			@Value("${minhasfinancas.cache-busca.tamanho-maximo-resultado:1000}") int tamanhoMaximoResultado,
+			@Value("${minhasfinancas.cache-busca.janela-sem-cache-ms:5000}") long janelaSemCacheMs,
+			@Value("${minhasfinancas.cache-busca.ttl-ms:60000}") long ttlMs) {
+		this.habilitado = habilitado;
+		this.capacidade = capacidade;
+		this.tamanhoMaximoResultado = tamanhoMaximoResultado;
+		this.janelaSemCacheNanos = TimeUnit.MILLISECONDS.toNanos(janelaSemCacheMs);
+		this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMs);
+	}
+
+	@Override
+	public List<Lancamento> buscar(Lancamento filtro, Supplier<List<Lancamento>> consulta) {
+		Chave chave = habilitado ? Chave.de(filtro) : null;
+		if (chave == null) {
+			return consulta.get();
+		}
+
+		long inicio = System.nanoTime();
+		CompletableFuture<List<Lancamento>> consultaAtual;
+		CompletableFuture<List<Lancamento>> novaConsulta = null;
+		synchronized (trava) {
+			Entrada entrada = entradas.get(chave);
+			if (entrada != null && inicio - entrada.getArmazenadaEm() >= ttlNanos) {
+				descartar(chave);
+				entrada = null;
+			}
+			if (entrada != null) {
+				acertos++;
+				return entrada.getLancamentos();
+			}
+			consultaAtual = emAndamento.get(chave);
+			if (consultaAtual != null) {
+				coalescidas++;
+			} else {
+				falhas++;
+				novaConsulta = new CompletableFuture<>();
+				emAndamento.put(chave, novaConsulta);
+			}
+		}
+
+		if (novaConsulta == null) {
+			return aguardar(consultaAtual);
+		}
+		return consultar(chave, novaConsulta, consulta, inicio);
+	}
+
+	@Override
+	public void invalidar(Long usuario) {
+		if (usuario == null) {
+			return;
+		}
+
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+				@Override
+				public void afterCommit() {
+					remover(usuario);
+				}
+			});
+		} else {
+			remover(usuario);
+		}
+	}
+
+	@Override
+	public void invalidarUsuarios(Collection<Long> usuarios) {
+		usuarios.forEach(this::remover);
+	}
+
+	@Override
+	public void invalidarTudo() {
+		limpar();
+	}
+
+	@Override
+	public void limpar() {
+		synchronized (trava) {
+			entradas.clear();
+			chavesPorUsuario.clear();
+			emAndamento.clear();
+			ultimasInvalidacoes.clear();
+			ultimaInvalidacaoGeral = System.nanoTime();
+			bytesEstimados = 0;
+		}
+	}
+
+	@Override
+	public long getAcertos() {
+		synchronized (trava) {
+			return acertos;
+		}
+	}
+
+	@Override
+	public long getFalhas() {
+		synchronized (trava) {
+			return falhas;
+		}
+	}
+
+	@Override
+	public long getCoalescidas() {
+		synchronized (trava) {
+			return coalescidas;
+		}
+	}
+
+	@Override
+	public long getInvalidacoes() {
+		synchronized (trava) {
+			return invalidacoes;
+		}
+	}
+
+	@Override
+	public double getTaxaAcerto() {
+		synchronized (trava) {
+			long total = acertos + falhas + coalescidas;
+			return total == 0 ? 0d : (double) (acertos + coalescidas) / total;
+		}
+	}
+
+	@Override
+	public int getEntradas() {
+		synchronized (trava) {
+			return entradas.size();
+		}
+	}
+
+	/**
+	 * Estimativa da memória ocupada pelos resultados, a partir de um tamanho fixo por
+	 * lançamento mais a descrição.
+	 */
+	@Override
+	public long getBytesEstimados() {
+		synchronized (trava) {
+			return bytesEstimados;
+		}
+	}
+
+	private List<Lancamento> consultar(Chave chave, CompletableFuture<List<Lancamento>> consultaAtual,
+			Supplier<List<Lancamento>> consulta, long inicio) {
+		List<Lancamento> resultado;
+		try {
+			resultado = Collections.unmodifiableList(new ArrayList<>(consulta.get()));
+		} catch (RuntimeException | Error e) {
+			synchronized (trava) {
+				emAndamento.remove(chave, consultaAtual);
+			}
+			consultaAtual.completeExceptionally(e);
+			throw e;
+		}
+
+		synchronized (trava) {
+			// Se o usuário foi invalidado durante a consulta ela já saiu do mapa e o resultado não é guardado.
+			if (emAndamento.remove(chave, consultaAtual) && resultado.size() <= tamanhoMaximoResultado
+					&& !recemInvalidado(chave.getUsuario(), inicio)) {
+				armazenar(chave, new Entrada(resultado, estimarBytes(resultado), System.nanoTime()));
+			}
+		}
+		consultaAtual.complete(resultado);
+		return resultado;
+	}
+
+	private List<Lancamento> aguardar(CompletableFuture<List<Lancamento>> consulta) {
+		try {
+			return consulta.join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			if (e.getCause() instanceof Error) {
+				throw (Error) e.getCause();
+			}
+			throw e;
+		}
+	}
+
+	private void armazenar(Chave chave, Entrada entrada) {
+		Entrada anterior = entradas.put(chave, entrada);
+		if (anterior != null) {
+			bytesEstimados -= anterior.getBytes();
+		}
+		bytesEstimados += entrada.getBytes();
+		chavesPorUsuario.computeIfAbsent(chave.getUsuario(), usuario -> new HashSet<>()).add(chave);
+
+		Iterator<Map.Entry<Chave, Entrada>> maisAntigas = entradas.entrySet().iterator();
+		while (entradas.size() > capacidade && maisAntigas.hasNext()) {
+			Map.Entry<Chave, Entrada> maisAntiga = maisAntigas.next();
+			maisAntigas.remove();
+			bytesEstimados -= maisAntiga.getValue().getBytes();
+			removerDoUsuario(maisAntiga.getKey());
+		}
+	}
+
+	private void descartar(Chave chave) {
+		bytesEstimados -= entradas.remove(chave).getBytes();
+		removerDoUsuario(chave);
+	}
+
+	private void removerDoUsuario(Chave chave) {
+		Set<Chave> chaves = chavesPorUsuario.get(chave.getUsuario());
+		chaves.remove(chave);
+		if (chaves.isEmpty()) {
+			chavesPorUsuario.remove(chave.getUsuario());
+		}
+	}
+
+	/**
+	 * Verdadeiro se a consulta começou dentro da janela sem cache de uma invalidação do usuário
+	 * ou de todos.
+	 */
+	private boolean recemInvalidado(Long usuario, long inicio) {
+		Long ultima = ultimasInvalidacoes.get(usuario);
+		return (ultima != null && inicio - ultima < janelaSemCacheNanos)
+				|| (ultimaInvalidacaoGeral != null && inicio - ultimaInvalidacaoGeral < janelaSemCacheNanos);
+	}
+
+	private void remover(Long usuario) {
+		synchronized (trava) {
+			invalidacoes++;
+			long agora = System.nanoTime();
+			if (janelaSemCacheNanos > 0) {
+				if (ultimasInvalidacoes.size() >= capacidade) {
+					ultimasInvalidacoes.values().removeIf(ultima -> agora - ultima >= janelaSemCacheNanos);
+				}
+				ultimasInvalidacoes.put(usuario, agora);
+			}
+			Set<Chave> chaves = chavesPorUsuario.remove(usuario);
+			if (chaves != null) {
+				for (Chave chave : chaves) {
+					bytesEstimados -= entradas.remove(chave).getBytes();
+				}
+			}
+			emAndamento.keySet().removeIf(chave -> chave.getUsuario().equals(usuario));
+		}
+	}
+
+	private long estimarBytes(List<Lancamento> lancamentos) {
+		long bytes = BYTES_ENTRADA;
+		for (Lancamento lancamento : lancamentos) {
+			bytes += BYTES_LANCAMENTO;
+			if (lancamento.getDescricao() != null) {
+				bytes += 2L * lancamento.getDescricao().length();
+			}
+		}
+		return bytes;
+	}
+
+	@lombok.Value
+	static class Chave {
+
+		Long usuario;
+		String descricao;
+		Integer mes;
+		Integer ano;
+		TipoLancamento tipo;
+		StatusLancamento status;
+		Long categoria;
+
+		/**
+		 * Normaliza o filtro da mesma forma que o {@code ExampleMatcher} da busca, que ignora
+		 * maiúsculas e procura a descrição como trecho. Devolve nulo quando o filtro não pode ser
+		 * atribuído a um único usuário ou usa campos fora da chave.
+		 */
+		static Chave de(Lancamento filtro) {
+			if (filtro == null || filtro.getUsuario() == null || filtro.getUsuario().getId() == null
+					|| filtro.getId() != null || filtro.getValor() != null || filtro.getDataCadastro() != null
+					|| filtro.getImpressaoDigital() != null || filtro.getCompetencia() != null
+					|| (filtro.getCategoria() != null && filtro.getCategoria().getId() == null)) {
+				return null;
+			}
+			String descricao = filtro.getDescricao() == null ? null : filtro.getDescricao().toLowerCase(Locale.ROOT);
+			return new Chave(filtro.getUsuario().getId(), descricao, filtro.getMes(), filtro.getAno(),
+					filtro.getTipo(), filtro.getStatus(), filtro.getCategoria() == null ? null : filtro.getCategoria().getId());
+		}
+	}
+
+	@lombok.Value
+	static class Entrada {
+
+		List<Lancamento> lancamentos;
+		long bytes;
+		long armazenadaEm;
+	}
+}
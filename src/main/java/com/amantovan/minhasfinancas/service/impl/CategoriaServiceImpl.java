@@ -0,0 +1,123 @@
+package com.amantovan.minhasfinancas.service.impl;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.amantovan.minhasfinancas.config.datasource.ContextoRoteamento;
+import com.amantovan.minhasfinancas.config.datasource.GerenciadorFragmentos;
+import com.amantovan.minhasfinancas.exception.RegraNegocioException;
+import com.amantovan.minhasfinancas.model.entity.Categoria;
+import com.amantovan.minhasfinancas.model.entity.GastoCategoria;
+import com.amantovan.minhasfinancas.model.entity.OrcamentoCategoria;
+import com.amantovan.minhasfinancas.model.repository.CategoriaRepository;
+import com.amantovan.minhasfinancas.model.repository.GastoCategoriaRepository;
+import com.amantovan.minhasfinancas.model.repository.OrcamentoCategoriaRepository;
+import com.amantovan.minhasfinancas.service.CategoriaService;
+import com.amantovan.minhasfinancas.service.ResumoOrcamentoCategoria;
+
+@Service
+public class CategoriaServiceImpl implements CategoriaService {
+
+	private CategoriaRepository repository;
+	private OrcamentoCategoriaRepository orcamentoRepository;
+	private GastoCategoriaRepository gastoRepository;
+	private GerenciadorFragmentos fragmentos;
+	
+	public CategoriaServiceImpl(CategoriaRepository repository, OrcamentoCategoriaRepository orcamentoRepository,
+			GastoCategoriaRepository gastoRepository, GerenciadorFragmentos fragmentos) {
+		this.repository = repository;
+		this.orcamentoRepository = orcamentoRepository;
+		this.gastoRepository = gastoRepository;
+		this.fragmentos = fragmentos;
+	}
+	
+	@Override
+	@Transactional
+	public Categoria salvar(Categoria categoria) {
+		if (categoria.getNome() == null || categoria.getNome().trim().equals("")) {
+			throw new RegraNegocioException("Informe um nome válido.");
+		}
+		if (categoria.getUsuario() == null || categoria.getUsuario().getId() == null) {
+			throw new RegraNegocioException("Informe um Usuário.");
+		}
+		
+		Long idUsuario = categoria.getUsuario().getId();
+		ContextoRoteamento.definirUsuario(idUsuario);
+		categoria.setNome(categoria.getNome().trim());
+		if (categoria.getId() == null && repository.existsByUsuarioIdAndNomeIgnoreCase(idUsuario, categoria.getNome())) {
+			throw new RegraNegocioException("Já existe uma categoria com este nome.");
+		}
+		return repository.save(categoria);
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public List<Categoria> listarPorUsuario(Long idUsuario) {
+		ContextoRoteamento.definirUsuario(idUsuario);
+		return repository.findByUsuarioIdOrderByNome(idUsuario);
+	}
+
+	@Override
+	public Optional<Categoria> obterPorId(Long id) {
+		return fragmentos.buscar(fragmentos.fragmentoDoId(id), () -> repository.findById(id));
+	}
+
+	@Override
+	@Transactional
+	public OrcamentoCategoria definirOrcamento(Categoria categoria, Integer ano, Integer mes, BigDecimal valor) {
+		if (mes == null || mes < 1 || mes > 12) {
+			throw new RegraNegocioException("Informe um mês válido.");
+		}
+		if (ano == null || ano.toString().length() != 4) {
+			throw new RegraNegocioException("Informe um Ano válido.");
+		}
+		if (valor == null || valor.signum() < 0) {
+			throw new RegraNegocioException("Informe um Valor válido.");
+		}
+		
+		ContextoRoteamento.definirUsuario(categoria.getUsuario().getId());
+		OrcamentoCategoria orcamento = orcamentoRepository.findByIdCategoriaAndAnoAndMes(categoria.getId(), ano, mes)
+				.orElseGet(() -> OrcamentoCategoria.builder()
+						.idUsuario(categoria.getUsuario().getId())
+						.idCategoria(categoria.getId())
+						.ano(ano)
+						.mes(mes)
+						.build());
+		orcamento.setValor(valor);
+		return orcamentoRepository.save(orcamento);
+	}
+
+	/**
+	 * Lê só as categorias do usuário e as linhas pré-calculadas do mês; os gastos vêm da
+	 * projeção e podem estar atrasados em relação aos lançamentos pelo intervalo da outbox.
+	 */
+	@Override
+	@Transactional(readOnly = true)
+	public List<ResumoOrcamentoCategoria> obterResumoOrcamento(Long idUsuario, Integer ano, Integer mes) {
+		ContextoRoteamento.definirUsuario(idUsuario);
+		Map<Long, BigDecimal> orcamentos = orcamentoRepository.findByIdUsuarioAndAnoAndMes(idUsuario, ano, mes).stream()
+				.collect(Collectors.toMap(OrcamentoCategoria::getIdCategoria, OrcamentoCategoria::getValor));
+		Map<Long, BigDecimal> gastos = gastoRepository.findByIdUsuarioAndAnoAndMes(idUsuario, ano, mes).stream()
+				.collect(Collectors.toMap(GastoCategoria::getIdCategoria, GastoCategoria::getValor));
+		
+		return repository.findByUsuarioIdOrderByNome(idUsuario).stream()
+				.map(categoria -> {
+					BigDecimal orcado = orcamentos.getOrDefault(categoria.getId(), BigDecimal.ZERO);
+					BigDecimal gasto = gastos.getOrDefault(categoria.getId(), BigDecimal.ZERO);
+					return ResumoOrcamentoCategoria.builder()
+							.idCategoria(categoria.getId())
+							.nome(categoria.getNome())
+							.orcado(orcado)
+							.gasto(gasto)
+							.disponivel(orcado.subtract(gasto))
+							.build();
+				})
+				.collect(Collectors.toList());
+	}
+}
@@ -0,0 +1,132 @@
+package com.amantovan.minhasfinancas.service.impl;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.amantovan.minhasfinancas.config.datasource.GerenciadorFragmentos;
+import com.amantovan.minhasfinancas.model.entity.EventoLancamento;
+import com.amantovan.minhasfinancas.model.entity.Lancamento;
+import com.amantovan.minhasfinancas.model.enuns.TipoEventoLancamento;
+import com.amantovan.minhasfinancas.model.repository.EventoLancamentoRepository;
+import com.amantovan.minhasfinancas.service.EventoLancamentoService;
+import com.amantovan.minhasfinancas.service.ProjecaoLancamento;
+
+@Service
+public class EventoLancamentoServiceImpl implements EventoLancamentoService {
+
+	private static final Logger log = LoggerFactory.getLogger(EventoLancamentoServiceImpl.class);
+	
+	private EventoLancamentoRepository repository;
+	private List<ProjecaoLancamento> projecoes;
+	private TransactionTemplate transactionTemplate;
+	private GerenciadorFragmentos fragmentos;
+	private int tamanhoLote;
+	private int maximoTentativas;
+	
+	public EventoLancamentoServiceImpl(
+			EventoLancamentoRepository repository, 
+			List<ProjecaoLancamento> projecoes,
+			PlatformTransactionManager transactionManager,
+			GerenciadorFragmentos fragmentos,
+			@Value("${minhasfinancas.outbox.tamanho-lote:200}") int tamanhoLote,
+			@Value("${minhasfinancas.outbox.maximo-tentativas:10}") int maximoTentativas) {
+		this.repository = repository;
+		this.projecoes = projecoes;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.fragmentos = fragmentos;
+		this.tamanhoLote = tamanhoLote;
+		this.maximoTentativas = maximoTentativas;
+	}
+	
+	@Override
+	@Transactional(propagation = Propagation.MANDATORY)
+	public void registrar(Lancamento lancamento, TipoEventoLancamento tipo) {
+		EventoLancamento evento = EventoLancamento.builder()
+				.idLancamento(lancamento.getId())
+				.idUsuario(lancamento.getUsuario() == null ? null : lancamento.getUsuario().getId())
+				.tipo(tipo)
+				.dataCriacao(LocalDateTime.now())
+				.build();
+		repository.save(evento);
+	}
+
+	@Override
+	@Scheduled(fixedDelayString = "${minhasfinancas.outbox.intervalo:1000}")
+	public int despacharPendentes() {
+		int total = 0;
+		for (int fragmento = 0; fragmento < fragmentos.getQuantidade(); fragmento++) {
+			total += fragmentos.comFragmento(fragmento, this::despacharFragmento);
+		}
+		return total;
+	}
+	
+	private int despacharFragmento() {
+		int total = 0;
+		int processados;
+		do {
+			processados = despacharLote();
+			total += processados;
+		} while (processados == tamanhoLote);
+		return total;
+	}
+	
+	private int despacharLote() {
+		List<EventoLancamento> eventos = transactionTemplate.execute(status -> buscarPendentes());
+		if (eventos.isEmpty()) {
+			return 0;
+		}
+		
+		try {
+			transactionTemplate.execute(status -> {
+				eventos.forEach(this::aplicar);
+				return null;
+			});
+			return eventos.size();
+		} catch (RuntimeException e) {
+			log.warn("Falha ao despachar lote de {} eventos, reprocessando individualmente.", eventos.size(), e);
+			return despacharIndividualmente(eventos);
+		}
+	}
+	
+	private int despacharIndividualmente(List<EventoLancamento> eventos) {
+		int processados = 0;
+		for (EventoLancamento evento : eventos) {
+			try {
+				transactionTemplate.execute(status -> {
+					aplicar(repository.findById(evento.getId()).orElse(evento));
+					return null;
+				});
+				processados++;
+			} catch (RuntimeException e) {
+				log.error("Falha ao aplicar evento {} do lançamento {}.", evento.getId(), evento.getIdLancamento(), e);
+				transactionTemplate.execute(status -> {
+					repository.findById(evento.getId()).ifPresent(falho -> falho.setTentativas(falho.getTentativas() + 1));
+					return null;
+				});
+			}
+		}
+		return processados;
+	}
+	
+	private List<EventoLancamento> buscarPendentes() {
+		return repository.findByDataProcessamentoIsNullAndTentativasLessThanOrderByIdAsc(
+				maximoTentativas, PageRequest.of(0, tamanhoLote));
+	}
+	
+	private void aplicar(EventoLancamento evento) {
+		projecoes.forEach(projecao -> projecao.aplicar(evento));
+		evento.setDataProcessamento(LocalDateTime.now());
+		repository.save(evento);
+	}
+}
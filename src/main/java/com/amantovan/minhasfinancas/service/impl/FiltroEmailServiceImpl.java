@@ -0,0 +1,326 @@
+package com.amantovan.minhasfinancas.service.impl;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.amantovan.minhasfinancas.config.datasource.GerenciadorFragmentos;
+import com.amantovan.minhasfinancas.model.repository.UsuarioRepository;
+import com.amantovan.minhasfinancas.service.FiltroEmailService;
+import com.amantovan.minhasfinancas.service.OuvinteInvalidacao;
+
+/**
+ * Filtro de Bloom dos emails cadastrados, consultado na autenticação. Uma resposta negativa
+ * dispensa a consulta ao banco; uma positiva pode ser falsa e precisa ser confirmada. O
+ * cadastro não confia na resposta negativa, já que um email cadastrado em outra instância
+ * pode ainda não ter chegado aqui.
+ * 
+ * Enquanto a primeira carga não termina o filtro responde sempre que o email pode existir.
+ * Emails novos entram no filtro dentro da transação e de novo após o commit, o que garante
+ * que uma reconstrução concorrente não perca nenhum deles. Os cadastros das demais instâncias
+ * chegam pelo {@link com.amantovan.minhasfinancas.service.BarramentoInvalidacaoService} como
+ * ids de usuário, cujos emails são lidos do banco em lote a cada
+ * {@code minhasfinancas.filtro-email.intervalo-pendentes-ms}; as demais alterações de usuário
+ * não mudam o conjunto de emails e são ignoradas. Se o barramento avisar que mensagens se
+ * perderam, o filtro é reconstruído.
+ */
+@Service
+public class FiltroEmailServiceImpl implements FiltroEmailService, OuvinteInvalidacao {
+
+	private static final Logger log = LoggerFactory.getLogger(FiltroEmailServiceImpl.class);
+	
+	private static final int TAMANHO_LOTE_PENDENTES = 500;
+	
+	private UsuarioRepository repository;
+	private TransactionTemplate transactionTemplate;
+	private GerenciadorFragmentos fragmentos;
+	private double taxaFalsoPositivoAlvo;
+	private int capacidadeMinima;
+	
+	private final Object trava = new Object();
+	private volatile FiltroBloom atual;
+	private FiltroBloom emConstrucao;
+	private Set<Long> pendentes = new LinkedHashSet<>();
+	private volatile boolean reconstrucaoPendente;
+	
+	private final AtomicLong consultas = new AtomicLong();
+	private final AtomicLong negativos = new AtomicLong();
+	private final AtomicLong falsosPositivos = new AtomicLong();
+	
+	public FiltroEmailServiceImpl(
+			UsuarioRepository repository,
+			PlatformTransactionManager transactionManager,
+			GerenciadorFragmentos fragmentos,
+			@Value("${minhasfinancas.filtro-email.taxa-falso-positivo:0.01}") double taxaFalsoPositivoAlvo,
+			@Value("${minhasfinancas.filtro-email.capacidade-minima:100000}") int capacidadeMinima) {
+		this.repository = repository;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.fragmentos = fragmentos;
+		this.taxaFalsoPositivoAlvo = taxaFalsoPositivoAlvo;
+		this.capacidadeMinima = capacidadeMinima;
+	}
+	
+	@Override
+	public boolean podeExistir(String email) {
+		FiltroBloom filtro = atual;
+		if (filtro == null || email == null) {
+			return true;
+		}
+		
+		consultas.incrementAndGet();
+		boolean podeExistir = filtro.contem(email);
+		if (!podeExistir) {
+			negativos.incrementAndGet();
+		}
+		return podeExistir;
+	}
+	
+	@Override
+	public void adicionar(String email) {
+		if (email == null) {
+			return;
+		}
+		
+		incluir(email);
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+				@Override
+				public void afterCommit() {
+					incluir(email);
+				}
+			});
+		}
+	}
+	
+	@Override
+	public void invalidarUsuarios(Collection<Long> usuarios) {
+	}
+	
+	@Override
+	public void registrarCadastrosDeOutraInstancia(Collection<Long> usuarios) {
+		synchronized (trava) {
+			pendentes.addAll(usuarios);
+		}
+	}
+	
+	@Override
+	public void invalidarTudo() {
+		reconstrucaoPendente = true;
+	}
+	
+	/**
+	 * Inclui os emails dos usuários recebidos do barramento ou, se alguma mensagem se perdeu,
+	 * reconstrói o filtro inteiro. Em caso de falha, tudo fica para a próxima execução.
+	 */
+	@Scheduled(fixedDelayString = "${minhasfinancas.filtro-email.intervalo-pendentes-ms:200}")
+	public void incluirPendentes() {
+		List<Long> usuarios;
+		synchronized (trava) {
+			usuarios = new ArrayList<>(pendentes);
+			pendentes = new LinkedHashSet<>();
+		}
+		boolean reconstruir = reconstrucaoPendente;
+		reconstrucaoPendente = false;
+		
+		try {
+			if (reconstruir) {
+				reconstruir();
+				return;
+			}
+			Map<Integer, List<Long>> porFragmento = usuarios.stream()
+					.collect(Collectors.groupingBy(fragmentos::fragmentoDoUsuario));
+			porFragmento.forEach(this::incluirEmails);
+		} catch (RuntimeException e) {
+			log.warn("Falha ao incluir no filtro os emails de {} usuários, nova tentativa na próxima execução.", usuarios.size(), e);
+			if (reconstruir) {
+				reconstrucaoPendente = true;
+			}
+			synchronized (trava) {
+				pendentes.addAll(usuarios);
+			}
+		}
+	}
+	
+	@Override
+	public void registrarFalsoPositivo() {
+		falsosPositivos.incrementAndGet();
+	}
+	
+	@EventListener(ApplicationReadyEvent.class)
+	public void carregar() {
+		try {
+			reconstruir();
+		} catch (RuntimeException e) {
+			log.warn("Falha na carga do filtro de emails, as consultas seguem para o banco até a próxima reconstrução.", e);
+		}
+	}
+	
+	@Override
+	@Scheduled(initialDelayString = "${minhasfinancas.filtro-email.intervalo-reconstrucao:3600000}",
+			fixedDelayString = "${minhasfinancas.filtro-email.intervalo-reconstrucao:3600000}")
+	public void reconstruir() {
+		long inicio = System.currentTimeMillis();
+		long quantidade = fragmentos.emTodos(() -> transactionTemplate.execute(status -> repository.countByEmailIsNotNull()))
+				.stream().mapToLong(Long::longValue).sum();
+		FiltroBloom novo = FiltroBloom.dimensionar(Math.max(quantidade * 2, capacidadeMinima), taxaFalsoPositivoAlvo);
+		synchronized (trava) {
+			emConstrucao = novo;
+		}
+		fragmentos.emTodos(() -> transactionTemplate.execute(status -> {
+			try (Stream<String> emails = repository.obterEmails()) {
+				emails.forEach(novo::adicionar);
+			}
+			return null;
+		}));
+		
+		synchronized (trava) {
+			atual = novo;
+			emConstrucao = null;
+		}
+		log.info("Filtro de emails reconstruído em {} ms com {} bits e {} funções de hash, taxa de falso positivo estimada {}.",
+				System.currentTimeMillis() - inicio, novo.tamanho(), novo.funcoes(), novo.taxaFalsoPositivoEstimada());
+	}
+	
+	@Override
+	public double getTaxaFalsoPositivoEstimada() {
+		FiltroBloom filtro = atual;
+		return filtro == null ? 1d : filtro.taxaFalsoPositivoEstimada();
+	}
+	
+	@Override
+	public long getConsultas() {
+		return consultas.get();
+	}
+	
+	@Override
+	public long getNegativos() {
+		return negativos.get();
+	}
+	
+	@Override
+	public long getFalsosPositivos() {
+		return falsosPositivos.get();
+	}
+	
+	private void incluirEmails(int fragmento, List<Long> usuarios) {
+		for (int inicio = 0; inicio < usuarios.size(); inicio += TAMANHO_LOTE_PENDENTES) {
+			List<Long> lote = new ArrayList<>(usuarios.subList(inicio, Math.min(inicio + TAMANHO_LOTE_PENDENTES, usuarios.size())));
+			List<String> emails = fragmentos.noFragmento(fragmento, 
+					() -> transactionTemplate.execute(status -> repository.obterEmailsPorIds(lote)));
+			emails.forEach(this::incluir);
+		}
+	}
+	
+	private void incluir(String email) {
+		synchronized (trava) {
+			if (atual != null) {
+				atual.adicionar(email);
+			}
+			if (emConstrucao != null) {
+				emConstrucao.adicionar(email);
+			}
+		}
+	}
+	
+	static class FiltroBloom {
+		
+		private final AtomicLongArray bits;
+		private final long tamanho;
+		private final int funcoes;
+		
+		FiltroBloom(long tamanho, int funcoes) {
+			this.bits = new AtomicLongArray((int) ((tamanho + 63) / 64));
+			this.tamanho = tamanho;
+			this.funcoes = funcoes;
+		}
+		
+		static FiltroBloom dimensionar(long capacidade, double taxaFalsoPositivo) {
+			double ln2 = Math.log(2);
+			long tamanho = Math.max(64, (long) Math.ceil(-capacidade * Math.log(taxaFalsoPositivo) / (ln2 * ln2)));
+			int funcoes = Math.max(1, (int) Math.round((double) tamanho / capacidade * ln2));
+			return new FiltroBloom(tamanho, funcoes);
+		}
+		
+		void adicionar(String valor) {
+			long hash = hash(valor);
+			int h1 = (int) hash;
+			int h2 = (int) (hash >>> 32);
+			for (int i = 1; i <= funcoes; i++) {
+				long bit = posicao(h1 + i * h2);
+				int indice = (int) (bit >>> 6);
+				long mascara = 1L << bit;
+				long anterior;
+				do {
+					anterior = bits.get(indice);
+				} while ((anterior & mascara) == 0 && !bits.compareAndSet(indice, anterior, anterior | mascara));
+			}
+		}
+		
+		boolean contem(String valor) {
+			long hash = hash(valor);
+			int h1 = (int) hash;
+			int h2 = (int) (hash >>> 32);
+			for (int i = 1; i <= funcoes; i++) {
+				long bit = posicao(h1 + i * h2);
+				if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+					return false;
+				}
+			}
+			return true;
+		}
+		
+		double taxaFalsoPositivoEstimada() {
+			long ligados = 0;
+			for (int i = 0; i < bits.length(); i++) {
+				ligados += Long.bitCount(bits.get(i));
+			}
+			return Math.pow((double) ligados / tamanho, funcoes);
+		}
+		
+		long tamanho() {
+			return tamanho;
+		}
+		
+		int funcoes() {
+			return funcoes;
+		}
+		
+		private long posicao(int hashCombinado) {
+			return (hashCombinado & Integer.MAX_VALUE) % tamanho;
+		}
+		
+		private static long hash(String valor) {
+			long h = 0xcbf29ce484222325L;
+			for (byte b : valor.getBytes(StandardCharsets.UTF_8)) {
+				h ^= b;
+				h *= 0x100000001b3L;
+			}
+			h ^= h >>> 33;
+			h *= 0xff51afd7ed558ccdL;
+			h ^= h >>> 33;
+			h *= 0xc4ceb9fe1a85ec53L;
+			h ^= h >>> 33;
+			return h;
+		}
+	}
+}
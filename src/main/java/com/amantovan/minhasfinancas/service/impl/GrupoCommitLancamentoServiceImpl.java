@@ -0,0 +1,251 @@
+package com.amantovan.minhasfinancas.service.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.amantovan.minhasfinancas.config.datasource.ContextoRoteamento;
+import com.amantovan.minhasfinancas.config.datasource.GerenciadorFragmentos;
+import com.amantovan.minhasfinancas.model.entity.Lancamento;
+import com.amantovan.minhasfinancas.model.entity.Usuario;
+import com.amantovan.minhasfinancas.service.GrupoCommitLancamentoService;
+import com.amantovan.minhasfinancas.service.LancamentoService;
+
+/**
+ * Agrupa inclusões concorrentes de lançamentos em uma única transação.
+ * 
+ * Com o modo habilitado, cada chamada de {@link #salvar(Lancamento)} é validada na própria
+ * thread, entra numa fila e aguarda o próximo lote, que é gravado por uma thread coletora
+ * assim que a janela configurada expira ou o lote enche. Se o lote falhar, os lançamentos
+ * são regravados um a um para que cada chamador receba o próprio resultado ou erro.
+ * Qualquer outra falha do coletor encerra apenas o lote em andamento, com o erro devolvido
+ * aos seus chamadores.
+ * 
+ * Um chamador espera no máximo {@code espera-maxima-ms}; se o coletor ainda não tiver pegado
+ * o lançamento, ele é retirado do lote e gravado diretamente, senão o chamador aguarda mais
+ * uma janela igual pelo lote já em gravação.
+ * Com fragmentação, cada lote é dividido por fragmento, já que uma transação não atravessa
+ * fragmentos.
+ */
+@Service
+public class GrupoCommitLancamentoServiceImpl implements GrupoCommitLancamentoService {
+
+	private static final Logger log = LoggerFactory.getLogger(GrupoCommitLancamentoServiceImpl.class);
+	
+	private LancamentoService lancamentoService;
+	private GerenciadorFragmentos fragmentos;
+	private boolean habilitado;
+	private long janelaNanos;
+	private int tamanhoMaximo;
+	private long esperaMaximaNanos;
+	private BlockingQueue<Pedido> fila;
+	private volatile boolean ativo;
+	private Thread coletor;
+	
+	public GrupoCommitLancamentoServiceImpl(
+			LancamentoService lancamentoService,
+			GerenciadorFragmentos fragmentos,
+			@Value("${minhasfinancas.lancamento.grupo-commit.habilitado:false}") boolean habilitado,
+			@Value("${minhasfinancas.lancamento.grupo-commit.janela-ms:5}") long janelaMillis,
+			@Value("${minhasfinancas.lancamento.grupo-commit.tamanho-maximo:100}") int tamanhoMaximo,
+			@Value("${minhasfinancas.lancamento.grupo-commit.capacidade-fila:10000}") int capacidadeFila,
+			@Value("${minhasfinancas.lancamento.grupo-commit.espera-maxima-ms:5000}") long esperaMaximaMillis) {
+		this.lancamentoService = lancamentoService;
+		this.fragmentos = fragmentos;
+		this.habilitado = habilitado;
+		this.janelaNanos = TimeUnit.MILLISECONDS.toNanos(janelaMillis);
+		this.tamanhoMaximo = tamanhoMaximo;
+		this.fila = new ArrayBlockingQueue<>(capacidadeFila);
+		this.esperaMaximaNanos = TimeUnit.MILLISECONDS.toNanos(esperaMaximaMillis);
+	}
+	
+	@PostConstruct
+	public void iniciar() {
+		if (!habilitado) {
+			return;
+		}
+		ativo = true;
+		coletor = new Thread(this::coletar, "grupo-commit-lancamento");
+		coletor.setDaemon(true);
+		coletor.start();
+	}
+	
+	@PreDestroy
+	public void encerrar() {
+		ativo = false;
+		if (coletor != null) {
+			coletor.interrupt();
+		}
+		List<Pedido> restantes = new ArrayList<>();
+		fila.drainTo(restantes);
+		restantes.forEach(pedido -> pedido.resultado.completeExceptionally(
+				new IllegalStateException("Aplicação em encerramento.")));
+	}
+	
+	@Override
+	public boolean isHabilitado() {
+		return habilitado;
+	}
+	
+	@Override
+	public Lancamento salvar(Lancamento lancamento) {
+		if (!habilitado || !ativo) {
+			return lancamentoService.salvar(lancamento);
+		}
+		
+		lancamentoService.validar(lancamento);
+		Pedido pedido = new Pedido(lancamento);
+		if (!fila.offer(pedido)) {
+			return lancamentoService.salvar(lancamento);
+		}
+		
+		try {
+			return aguardar(pedido);
+		} catch (TimeoutException e) {
+			if (pedido.assumir()) {
+				log.warn("Lançamento não entrou em nenhum lote em {} ms, gravando diretamente.", 
+						TimeUnit.NANOSECONDS.toMillis(esperaMaximaNanos));
+				return lancamentoService.salvar(lancamento);
+			}
+		}
+		
+		try {
+			return aguardar(pedido);
+		} catch (TimeoutException e) {
+			throw new IllegalStateException("Tempo esgotado aguardando a gravação do lançamento.", e);
+		}
+	}
+	
+	private Lancamento aguardar(Pedido pedido) throws TimeoutException {
+		try {
+			return pedido.resultado.get(esperaMaximaNanos, TimeUnit.NANOSECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrompido aguardando a gravação do lançamento.", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new IllegalStateException(e.getCause());
+		}
+	}
+	
+	private void coletar() {
+		while (ativo) {
+			List<Pedido> lote;
+			try {
+				lote = proximoLote();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+			
+			try {
+				Map<Integer, List<Pedido>> lotes = lote.stream()
+						.collect(Collectors.groupingBy(this::fragmento));
+				lotes.values().forEach(this::gravar);
+			} catch (Throwable e) {
+				log.error("Falha inesperada ao gravar lote de {} lançamentos.", lote.size(), e);
+				lote.forEach(pedido -> pedido.resultado.completeExceptionally(e));
+			}
+		}
+	}
+	
+	private List<Pedido> proximoLote() throws InterruptedException {
+		List<Pedido> lote = new ArrayList<>();
+		while (lote.isEmpty()) {
+			adicionarSeAssumido(lote, fila.take());
+		}
+		
+		long limite = System.nanoTime() + janelaNanos;
+		while (lote.size() < tamanhoMaximo) {
+			long restante = limite - System.nanoTime();
+			Pedido pedido = restante > 0 ? fila.poll(restante, TimeUnit.NANOSECONDS) : fila.poll();
+			if (pedido == null) {
+				break;
+			}
+			adicionarSeAssumido(lote, pedido);
+		}
+		return lote;
+	}
+	
+	/**
+	 * Pedidos cujo chamador desistiu de esperar já foram gravados por ele e ficam de fora.
+	 */
+	private static void adicionarSeAssumido(List<Pedido> lote, Pedido pedido) {
+		if (pedido.assumir()) {
+			lote.add(pedido);
+		}
+	}
+	
+	/**
+	 * O coletor é uma thread própria, fora do filtro que limpa o roteamento das requisições, então
+	 * o contexto de cada lote é limpo aqui para não vazar para o próximo.
+	 */
+	void gravar(List<Pedido> lote) {
+		try {
+			List<Lancamento> salvos = lancamentoService.salvarLote(
+					lote.stream().map(pedido -> pedido.lancamento).collect(Collectors.toList()));
+			for (int i = 0; i < lote.size(); i++) {
+				lote.get(i).resultado.complete(salvos.get(i));
+			}
+		} catch (RuntimeException e) {
+			if (lote.size() == 1) {
+				lote.get(0).resultado.completeExceptionally(e);
+				return;
+			}
+			log.warn("Falha ao gravar lote de {} lançamentos, gravando individualmente.", lote.size(), e);
+			lote.forEach(this::gravarIndividualmente);
+		} finally {
+			ContextoRoteamento.limpar();
+		}
+	}
+	
+	private int fragmento(Pedido pedido) {
+		Usuario usuario = pedido.lancamento.getUsuario();
+		return fragmentos.fragmentoDoUsuario(usuario == null ? null : usuario.getId());
+	}
+	
+	private void gravarIndividualmente(Pedido pedido) {
+		try {
+			pedido.lancamento.setId(null);
+			pedido.resultado.complete(lancamentoService.salvar(pedido.lancamento));
+		} catch (RuntimeException e) {
+			pedido.resultado.completeExceptionally(e);
+		}
+	}
+	
+	static class Pedido {
+		
+		private final Lancamento lancamento;
+		private final CompletableFuture<Lancamento> resultado = new CompletableFuture<>();
+		private final AtomicBoolean assumido = new AtomicBoolean();
+		
+		Pedido(Lancamento lancamento) {
+			this.lancamento = lancamento;
+		}
+		
+		/**
+		 * Só um entre o coletor e o chamador assume a gravação do pedido.
+		 */
+		boolean assumir() {
+			return assumido.compareAndSet(false, true);
+		}
+	}
+}
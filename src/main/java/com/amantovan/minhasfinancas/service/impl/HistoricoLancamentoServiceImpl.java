@@ -0,0 +1,125 @@
+package com.amantovan.minhasfinancas.service.impl;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.amantovan.minhasfinancas.config.datasource.ContextoRoteamento;
+import com.amantovan.minhasfinancas.config.datasource.GerenciadorFragmentos;
+import com.amantovan.minhasfinancas.model.entity.HistoricoLancamento;
+import com.amantovan.minhasfinancas.model.entity.SaldoConsolidado;
+import com.amantovan.minhasfinancas.model.enuns.StatusLancamento;
+import com.amantovan.minhasfinancas.model.enuns.TipoLancamento;
+import com.amantovan.minhasfinancas.model.repository.HistoricoLancamentoRepository;
+import com.amantovan.minhasfinancas.model.repository.SaldoConsolidadoRepository;
+import com.amantovan.minhasfinancas.service.HistoricoLancamentoService;
+
+/**
+ * Calcula o saldo em uma data passada a partir do histórico de estados dos lançamentos. O
+ * cálculo parte do último saldo consolidado até a data e só lê os estados gravados entre os
+ * dois instantes; sem consolidado, lê o histórico do usuário desde o início.
+ *
+ * A consolidação roda de madrugada e grava um novo ponto de partida para os usuários com
+ * alterações desde o último, sempre com alguns minutos de atraso para não deixar de fora
+ * transações que ainda não tinham sido confirmadas.
+ */
+@Service
+public class HistoricoLancamentoServiceImpl implements HistoricoLancamentoService {
+
+	private static final Logger log = LoggerFactory.getLogger(HistoricoLancamentoServiceImpl.class);
+
+	private static final LocalDateTime SEM_CONSOLIDACAO = LocalDateTime.of(1900, 1, 1, 0, 0);
+	private static final int TAMANHO_LOTE = 1000;
+
+	private HistoricoLancamentoRepository historicoRepository;
+	private SaldoConsolidadoRepository consolidadoRepository;
+	private GerenciadorFragmentos fragmentos;
+	private long margemMinutos;
+
+	public HistoricoLancamentoServiceImpl(
+			HistoricoLancamentoRepository historicoRepository,
+			SaldoConsolidadoRepository consolidadoRepository,
+			GerenciadorFragmentos fragmentos,
+			@Value("${minhasfinancas.historico.margem-minutos:60}") long margemMinutos) {
+		this.historicoRepository = historicoRepository;
+		this.consolidadoRepository = consolidadoRepository;
+		this.fragmentos = fragmentos;
+		this.margemMinutos = margemMinutos;
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public BigDecimal obterSaldoEm(Long idUsuario, LocalDateTime data) {
+		ContextoRoteamento.definirUsuario(idUsuario);
+		return calcular(idUsuario, data);
+	}
+
+	@Override
+	@Scheduled(cron = "${minhasfinancas.historico.consolidacao:0 0 4 * * *}")
+	public int consolidarSaldos() {
+		LocalDateTime limite = LocalDateTime.now().minusMinutes(margemMinutos);
+		int total = 0;
+		for (int fragmento = 0; fragmento < fragmentos.getQuantidade(); fragmento++) {
+			try {
+				List<Long> usuarios = fragmentos.comFragmento(fragmento,
+						() -> historicoRepository.obterUsuariosAlteradosAposConsolidacao(limite, SEM_CONSOLIDACAO));
+				for (Long idUsuario : usuarios) {
+					fragmentos.noFragmento(fragmento, () -> consolidadoRepository.save(SaldoConsolidado.builder()
+							.idUsuario(idUsuario)
+							.data(limite)
+							.saldo(calcular(idUsuario, limite))
+							.build()));
+				}
+				total += usuarios.size();
+			} catch (DataAccessException ex) {
+				log.warn("Não foi possível consolidar os saldos do fragmento {}", fragmento, ex);
+			}
+		}
+		return total;
+	}
+
+	private BigDecimal calcular(Long idUsuario, LocalDateTime data) {
+		SaldoConsolidado consolidado = consolidadoRepository
+				.findFirstByIdUsuarioAndDataLessThanEqualOrderByDataDesc(idUsuario, data).orElse(null);
+		LocalDateTime desde = consolidado == null ? SEM_CONSOLIDACAO : consolidado.getData();
+		BigDecimal saldo = consolidado == null ? BigDecimal.ZERO : consolidado.getSaldo();
+
+		// Ordenado por lançamento e id, o último estado de cada lançamento sobrescreve os anteriores.
+		Map<Long, HistoricoLancamento> ultimos = new LinkedHashMap<>();
+		historicoRepository.buscarDoPeriodo(idUsuario, desde, data)
+				.forEach(historico -> ultimos.put(historico.getIdLancamento(), historico));
+		for (HistoricoLancamento historico : ultimos.values()) {
+			saldo = saldo.add(efeito(historico));
+		}
+
+		// O consolidado já conta o estado anterior dos lançamentos alterados depois dele.
+		if (consolidado != null) {
+			List<Long> ids = new ArrayList<>(ultimos.keySet());
+			for (int inicio = 0; inicio < ids.size(); inicio += TAMANHO_LOTE) {
+				List<Long> lote = ids.subList(inicio, Math.min(inicio + TAMANHO_LOTE, ids.size()));
+				for (HistoricoLancamento anterior : historicoRepository.buscarVigentesEm(lote, desde)) {
+					saldo = saldo.subtract(efeito(anterior));
+				}
+			}
+		}
+		return saldo;
+	}
+
+	private static BigDecimal efeito(HistoricoLancamento historico) {
+		if (historico.getStatus() != StatusLancamento.EFETIVADO || historico.getValor() == null) {
+			return BigDecimal.ZERO;
+		}
+		return historico.getTipo() == TipoLancamento.DESPESA ? historico.getValor().negate() : historico.getValor();
+	}
+}
@@ -0,0 +1,171 @@
+package com.amantovan.minhasfinancas.service.impl;
+
+import java.io.Reader;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import com.amantovan.minhasfinancas.exception.RegraNegocioException;
+import com.amantovan.minhasfinancas.model.entity.Lancamento;
+import com.amantovan.minhasfinancas.model.entity.Usuario;
+import com.amantovan.minhasfinancas.model.enuns.FormatoExtrato;
+import com.amantovan.minhasfinancas.model.enuns.TipoLancamento;
+import com.amantovan.minhasfinancas.service.ErroImportacao;
+import com.amantovan.minhasfinancas.service.ImportacaoLancamentoService;
+import com.amantovan.minhasfinancas.service.LancamentoService;
+import com.amantovan.minhasfinancas.service.ObservadorImportacao;
+import com.amantovan.minhasfinancas.service.ResumoImportacao;
+
+/**
+ * Importa um extrato enquanto ele é lido, em lotes de tamanho fixo.
+ * 
+ * Só o lote atual fica em memória. Cada lote é gravado pelo {@code salvarLote}, numa
+ * transação própria, para manter o registro de eventos e a invalidação do cache; se ele
+ * falhar, os lançamentos são regravados um a um e só os que falharem de novo são rejeitados.
+ * Valores negativos viram despesas e positivos, receitas.
+ * 
+ * Cada lançamento recebe uma {@link ImpressaoDigitalLancamento impressão digital}, e as que já
+ * existem são descartadas com uma única consulta por lote, então importar de novo um período
+ * já importado não duplica nada. A ocorrência de transações idênticas é contada dentro de cada
+ * dia, considerando o extrato ordenado por data, como os bancos o geram.
+ */
+@Service
+public class ImportacaoLancamentoServiceImpl implements ImportacaoLancamentoService {
+
+	private static final Logger log = LoggerFactory.getLogger(ImportacaoLancamentoServiceImpl.class);
+	
+	private LancamentoService lancamentoService;
+	private int tamanhoLote;
+	
+	public ImportacaoLancamentoServiceImpl(
+			LancamentoService lancamentoService,
+			@Value("${minhasfinancas.importacao.tamanho-lote:500}") int tamanhoLote) {
+		this.lancamentoService = lancamentoService;
+		this.tamanhoLote = tamanhoLote;
+	}
+	
+	@Override
+	public ResumoImportacao importar(Reader extrato, FormatoExtrato formato, Usuario usuario, ObservadorImportacao observador) {
+		ResumoImportacao resumo = new ResumoImportacao();
+		List<Lancamento> lote = new ArrayList<>(tamanhoLote);
+		List<Integer> linhasLote = new ArrayList<>(tamanhoLote);
+		Map<String, Integer> ocorrenciasDia = new HashMap<>();
+		LocalDate dia = null;
+		
+		LeitorExtrato leitor = LeitorExtrato.para(formato, extrato);
+		while (leitor.hasNext()) {
+			LinhaExtrato linha = leitor.next();
+			resumo.setLidos(resumo.getLidos() + 1);
+			if (linha.getErro() != null) {
+				rejeitar(resumo, observador, linha.getNumero(), linha.getErro());
+				continue;
+			}
+			
+			Lancamento lancamento = converter(linha, usuario);
+			try {
+				lancamentoService.validar(lancamento);
+			} catch (RegraNegocioException e) {
+				rejeitar(resumo, observador, linha.getNumero(), e.getMessage());
+				continue;
+			}
+			
+			if (!linha.getData().equals(dia)) {
+				dia = linha.getData();
+				ocorrenciasDia.clear();
+			}
+			String chave = ImpressaoDigitalLancamento.normalizar(linha.getDescricao()) + "|" + linha.getValor().stripTrailingZeros();
+			int ocorrencia = ocorrenciasDia.merge(chave, 1, Integer::sum);
+			lancamento.setImpressaoDigital(ImpressaoDigitalLancamento.calcular(
+					usuario.getId(), linha.getData(), linha.getDescricao(), linha.getValor(), ocorrencia));
+			
+			lote.add(lancamento);
+			linhasLote.add(linha.getNumero());
+			if (lote.size() == tamanhoLote) {
+				gravar(usuario, lote, linhasLote, resumo, observador);
+			}
+		}
+		gravar(usuario, lote, linhasLote, resumo, observador);
+		
+		resumo.setConcluido(true);
+		observador.progresso(resumo);
+		return resumo;
+	}
+	
+	private Lancamento converter(LinhaExtrato linha, Usuario usuario) {
+		return Lancamento.builder()
+				.descricao(linha.getDescricao())
+				.mes(linha.getData().getMonthValue())
+				.ano(linha.getData().getYear())
+				.valor(linha.getValor().abs())
+				.tipo(linha.getValor().signum() < 0 ? TipoLancamento.DESPESA : TipoLancamento.RECEITA)
+				.usuario(usuario)
+				.build();
+	}
+	
+	private void gravar(Usuario usuario, List<Lancamento> lote, List<Integer> linhasLote,
+			ResumoImportacao resumo, ObservadorImportacao observador) {
+		if (lote.isEmpty()) {
+			return;
+		}
+		
+		descartarExistentes(usuario, lote, linhasLote, resumo);
+		if (!lote.isEmpty()) {
+			try {
+				lancamentoService.salvarLote(lote);
+				resumo.setImportados(resumo.getImportados() + lote.size());
+			} catch (RuntimeException e) {
+				log.warn("Falha ao gravar lote de {} lançamentos importados, regravando individualmente.", lote.size(), e);
+				gravarIndividualmente(lote, linhasLote, resumo, observador);
+			}
+		}
+		lote.clear();
+		linhasLote.clear();
+		observador.progresso(resumo);
+	}
+	
+	private void descartarExistentes(Usuario usuario, List<Lancamento> lote, List<Integer> linhasLote, ResumoImportacao resumo) {
+		Set<String> existentes = lancamentoService.obterImpressoesDigitaisExistentes(usuario.getId(),
+				lote.stream().map(Lancamento::getImpressaoDigital).collect(Collectors.toList()));
+		for (int i = lote.size() - 1; i >= 0; i--) {
+			if (existentes.contains(lote.get(i).getImpressaoDigital())) {
+				lote.remove(i);
+				linhasLote.remove(i);
+				resumo.setDuplicados(resumo.getDuplicados() + 1);
+			}
+		}
+	}
+	
+	private void gravarIndividualmente(List<Lancamento> lote, List<Integer> linhasLote,
+			ResumoImportacao resumo, ObservadorImportacao observador) {
+		for (int i = 0; i < lote.size(); i++) {
+			Lancamento lancamento = lote.get(i);
+			// O id gerado na tentativa desfeita não existe no banco.
+			lancamento.setId(null);
+			try {
+				lancamentoService.salvarLote(Collections.singletonList(lancamento));
+				resumo.setImportados(resumo.getImportados() + 1);
+			} catch (DataIntegrityViolationException e) {
+				// Gravado por outra importação do mesmo extrato depois da consulta do lote.
+				resumo.setDuplicados(resumo.getDuplicados() + 1);
+			} catch (RuntimeException e) {
+				rejeitar(resumo, observador, linhasLote.get(i), e.getMessage());
+			}
+		}
+	}
+	
+	private void rejeitar(ResumoImportacao resumo, ObservadorImportacao observador, int linha, String mensagem) {
+		resumo.setRejeitados(resumo.getRejeitados() + 1);
+		observador.erro(new ErroImportacao(linha, mensagem));
+	}
+}
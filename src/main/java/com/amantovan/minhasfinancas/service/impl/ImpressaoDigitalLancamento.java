@@ -0,0 +1,46 @@
+package com.amantovan.minhasfinancas.service.impl;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.Normalizer;
+import java.time.LocalDate;
+import java.util.Locale;
+
+/**
+ * SHA-256 em hexadecimal de usuário, data, descrição normalizada e valor com sinal de uma
+ * transação do extrato. A ocorrência diferencia transações idênticas no mesmo dia, como duas
+ * compras de mesmo valor no mesmo estabelecimento.
+ */
+final class ImpressaoDigitalLancamento {
+
+	private ImpressaoDigitalLancamento() {
+	}
+	
+	static String calcular(Long idUsuario, LocalDate data, String descricao, BigDecimal valor, int ocorrencia) {
+		String conteudo = idUsuario + "|" + data + "|" + normalizar(descricao) + "|"
+				+ valor.stripTrailingZeros().toPlainString() + "|" + ocorrencia;
+		try {
+			byte[] hash = MessageDigest.getInstance("SHA-256").digest(conteudo.getBytes(StandardCharsets.UTF_8));
+			StringBuilder hexadecimal = new StringBuilder(hash.length * 2);
+			for (byte b : hash) {
+				hexadecimal.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+			}
+			return hexadecimal.toString();
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+	
+	/**
+	 * Ignora acentos, maiúsculas e espaços repetidos, que variam entre os formatos do mesmo banco.
+	 */
+	static String normalizar(String descricao) {
+		return Normalizer.normalize(descricao, Normalizer.Form.NFD)
+				.replaceAll("\\p{M}", "")
+				.toLowerCase(Locale.ROOT)
+				.trim()
+				.replaceAll("\\s+", " ");
+	}
+}
@@ -1,29 +1,64 @@
 package com.amantovan.minhasfinancas.service.impl;
 
+import java.io.IOException;
+import java.io.Writer;
 import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.persistence.criteria.Predicate;
 
 import org.springframework.data.domain.Example;
 import org.springframework.data.domain.ExampleMatcher;
 import org.springframework.data.domain.ExampleMatcher.StringMatcher;
+import org.springframework.data.jpa.convert.QueryByExamplePredicateBuilder;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.amantovan.minhasfinancas.config.datasource.ContextoRoteamento;
+import com.amantovan.minhasfinancas.config.datasource.GerenciadorFragmentos;
 import com.amantovan.minhasfinancas.exception.RegraNegocioException;
+import com.amantovan.minhasfinancas.model.entity.HistoricoLancamento;
 import com.amantovan.minhasfinancas.model.entity.Lancamento;
+import com.amantovan.minhasfinancas.model.entity.Usuario;
+import com.amantovan.minhasfinancas.model.enuns.CampoLancamento;
 import com.amantovan.minhasfinancas.model.enuns.StatusLancamento;
+import com.amantovan.minhasfinancas.model.enuns.TipoEventoLancamento;
 import com.amantovan.minhasfinancas.model.enuns.TipoLancamento;
+import com.amantovan.minhasfinancas.model.repository.HistoricoLancamentoRepository;
 import com.amantovan.minhasfinancas.model.repository.LancamentoRepository;
+import com.amantovan.minhasfinancas.service.BarramentoInvalidacaoService;
+import com.amantovan.minhasfinancas.service.CacheBuscaLancamentoService;
+import com.amantovan.minhasfinancas.service.EventoLancamentoService;
 import com.amantovan.minhasfinancas.service.LancamentoService;
+import com.amantovan.minhasfinancas.service.NotificacaoSaldoService;
 
 @Service
 public class LancamentoServiceImpl implements LancamentoService {
 
+	/**
+	 * Limites usados para os períodos abertos, dentro dos anos aceitos por {@link #validar(Lancamento)}.
+	 */
+	private static final YearMonth COMPETENCIA_MINIMA = YearMonth.of(1000, 1);
+	private static final YearMonth COMPETENCIA_MAXIMA = YearMonth.of(9999, 12);
+
 	@Override
 	@Transactional(readOnly = true)
 	public BigDecimal obterSaldoPorUsuario(Long id) {
+		ContextoRoteamento.definirUsuario(id);
 		BigDecimal receitas= repository.obterSaldoPorTipoLancamentoEUsuarioEStatus(id, TipoLancamento.RECEITA, StatusLancamento.EFETIVADO);
 		BigDecimal despesas=repository.obterSaldoPorTipoLancamentoEUsuarioEStatus(id, TipoLancamento.DESPESA, StatusLancamento.EFETIVADO);
 		
@@ -36,23 +71,96 @@ public class LancamentoServiceImpl implements LancamentoService {
 		return receitas.subtract(despesas);
 	}
 
+	@Override
+	@Transactional(readOnly = true)
+	public BigDecimal obterSaldoPorUsuario(Long id, YearMonth de, YearMonth ate) {
+		if (de == null && ate == null) {
+			return obterSaldoPorUsuario(id);
+		}
+		ContextoRoteamento.definirUsuario(id);
+		LocalDate inicio = inicio(de);
+		LocalDate fim = fim(ate);
+		BigDecimal receitas = repository.obterSaldoPorTipoLancamentoEUsuarioEStatusNoPeriodo(
+				id, TipoLancamento.RECEITA, StatusLancamento.EFETIVADO, inicio, fim);
+		BigDecimal despesas = repository.obterSaldoPorTipoLancamentoEUsuarioEStatusNoPeriodo(
+				id, TipoLancamento.DESPESA, StatusLancamento.EFETIVADO, inicio, fim);
+		
+		return (receitas == null ? BigDecimal.ZERO : receitas).subtract(despesas == null ? BigDecimal.ZERO : despesas);
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public Set<String> obterImpressoesDigitaisExistentes(Long idUsuario, Collection<String> impressoesDigitais) {
+		if (impressoesDigitais.isEmpty()) {
+			return Collections.emptySet();
+		}
+		ContextoRoteamento.definirUsuario(idUsuario);
+		return repository.obterImpressoesDigitaisExistentes(idUsuario, impressoesDigitais);
+	}
+
 	@Override
 	public Optional<Lancamento> obterPorId(Long id) {
-		return repository.findById(id);
+		return fragmentos.buscar(fragmentos.fragmentoDoId(id), () -> repository.findById(id));
 	}
 
 	private LancamentoRepository repository;
+	private EventoLancamentoService eventoService;
+	private GerenciadorFragmentos fragmentos;
+	private CacheBuscaLancamentoService cacheBusca;
+	private NotificacaoSaldoService notificacoes;
+	private HistoricoLancamentoRepository historicoRepository;
+	private BarramentoInvalidacaoService invalidacao;
 	
-	public LancamentoServiceImpl(LancamentoRepository repository) {
+	public LancamentoServiceImpl(LancamentoRepository repository, EventoLancamentoService eventoService,
+			GerenciadorFragmentos fragmentos, CacheBuscaLancamentoService cacheBusca, NotificacaoSaldoService notificacoes,
+			HistoricoLancamentoRepository historicoRepository, BarramentoInvalidacaoService invalidacao) {
 		this.repository = repository;
+		this.eventoService = eventoService;
+		this.fragmentos = fragmentos;
+		this.cacheBusca = cacheBusca;
+		this.notificacoes = notificacoes;
+		this.historicoRepository = historicoRepository;
+		this.invalidacao = invalidacao;
 	}
 	
 	@Override
 	@Transactional
 	public Lancamento salvar(Lancamento lancamento) {
 		validar(lancamento);
+		definirContextoRoteamento(lancamento);
 		lancamento.setStatus(StatusLancamento.PENDENTE);
-		return repository.save(lancamento);
+		Lancamento lancamentoSalvo = repository.save(lancamento);
+		eventoService.registrar(lancamentoSalvo, TipoEventoLancamento.CRIADO);
+		registrarHistorico(lancamentoSalvo, TipoEventoLancamento.CRIADO);
+		invalidarBuscas(lancamentoSalvo);
+		return lancamentoSalvo;
+	}
+	
+	@Override
+	@Transactional
+	public List<Lancamento> salvarLote(List<Lancamento> lancamentos) {
+		lancamentos.forEach(this::validar);
+		ContextoRoteamento.definirUsuarios(lancamentos.stream()
+				.map(Lancamento::getUsuario)
+				.filter(Objects::nonNull)
+				.map(Usuario::getId)
+				.collect(Collectors.toList()));
+		lancamentos.forEach(lancamento -> lancamento.setStatus(StatusLancamento.PENDENTE));
+		List<Lancamento> lancamentosSalvos = repository.saveAll(lancamentos);
+		lancamentosSalvos.forEach(lancamento -> eventoService.registrar(lancamento, TipoEventoLancamento.CRIADO));
+		if (!lancamentosSalvos.isEmpty()) {
+			historicoRepository.registrar(lancamentosSalvos.stream().map(Lancamento::getId).collect(Collectors.toList()));
+		}
+		lancamentosSalvos.stream()
+			.map(Lancamento::getUsuario)
+			.filter(Objects::nonNull)
+			.map(Usuario::getId)
+			.distinct()
+			.forEach(invalidacao::publicar);
+		lancamentosSalvos.stream()
+			.filter(lancamento -> lancamento.getUsuario() != null)
+			.forEach(lancamento -> notificacoes.notificar(lancamento.getUsuario().getId(), lancamento.getId()));
+		return lancamentosSalvos;
 	}
 
 	@Override
@@ -60,35 +168,156 @@ public class LancamentoServiceImpl implements LancamentoService {
 	public Lancamento atualizar(Lancamento lancamento) {
 		Objects.requireNonNull(lancamento.getId());
 		validar(lancamento);
-		return repository.save(lancamento);
+		definirContextoRoteamento(lancamento);
+		// O merge do save carrega o registro de qualquer forma; aqui ele só é lido antes, para saber o dono anterior.
+		Optional<Lancamento> anterior = repository.findById(lancamento.getId());
+		anterior.map(Lancamento::getUsuario)
+			.map(Usuario::getId)
+			.ifPresent(idAnterior -> {
+				invalidacao.publicar(idAnterior);
+				notificacoes.notificar(idAnterior, lancamento.getId());
+			});
+		// A impressão digital não passa pela API; sem ela, importar o extrato de novo duplicaria o lançamento editado.
+		if (lancamento.getImpressaoDigital() == null) {
+			anterior.map(Lancamento::getImpressaoDigital).ifPresent(lancamento::setImpressaoDigital);
+		}
+		Lancamento lancamentoAtualizado = repository.save(lancamento);
+		eventoService.registrar(lancamentoAtualizado, TipoEventoLancamento.ATUALIZADO);
+		registrarHistorico(lancamentoAtualizado, TipoEventoLancamento.ATUALIZADO);
+		invalidarBuscas(lancamentoAtualizado);
+		return lancamentoAtualizado;
 	}
 
 	@Override
 	@Transactional
 	public void deletar(Lancamento lancamento) {
 		Objects.requireNonNull(lancamento.getId());
+		definirContextoRoteamento(lancamento);
 		repository.delete(lancamento);
-		
+		eventoService.registrar(lancamento, TipoEventoLancamento.DELETADO);
+		registrarHistorico(lancamento, TipoEventoLancamento.DELETADO);
+		invalidarBuscas(lancamento);
 	}
 
+	/**
+	 * Sem transação própria: um acerto no cache não ocupa conexão, e a consulta roda na
+	 * transação somente leitura do repositório.
+	 */
 	@Override
-	@Transactional(readOnly = true)
 	public List<Lancamento> buscar(Lancamento lancamentoFiltro) {
-		
+		definirContextoRoteamento(lancamentoFiltro);
 		Example example = Example.of(lancamentoFiltro, 
 				ExampleMatcher.matching()
 					.withIgnoreCase()
 					.withStringMatcher(StringMatcher.CONTAINING));
 		
-		return repository.findAll(example);
+		return cacheBusca.buscar(lancamentoFiltro, () -> repository.findAll(example));
 	}
 
+	/**
+	 * Com período, o filtro do exemplo é combinado à faixa de competência em uma única consulta,
+	 * que não passa pelo cache de buscas.
+	 */
 	@Override
+	@Transactional(readOnly = true)
+	public List<Lancamento> buscar(Lancamento lancamentoFiltro, YearMonth de, YearMonth ate) {
+		if (de == null && ate == null) {
+			return buscar(lancamentoFiltro);
+		}
+		definirContextoRoteamento(lancamentoFiltro);
+		return repository.findAll(especificacao(lancamentoFiltro, de, ate));
+	}
+
+	/**
+	 * Não passa pelo cache de buscas: a projeção já lê só o necessário.
+	 */
+	@Override
+	@Transactional(readOnly = true)
+	public List<Map<String, Object>> buscarCampos(Lancamento lancamentoFiltro, YearMonth de, YearMonth ate,
+			List<CampoLancamento> campos) {
+		definirContextoRoteamento(lancamentoFiltro);
+		return repository.buscarCampos(especificacao(lancamentoFiltro, de, ate), campos).stream()
+				.map(linha -> paraMapa(campos, linha))
+				.collect(Collectors.toList());
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public Optional<Map<String, Object>> obterCamposPorId(Long id, Long idUsuario, List<CampoLancamento> campos) {
+		ContextoRoteamento.definirUsuario(idUsuario);
+		Specification<Lancamento> doUsuario = (root, query, builder) -> builder.and(
+				builder.equal(root.get("id"), id),
+				builder.equal(root.get("usuario").get("id"), idUsuario));
+		return repository.buscarCampos(doUsuario, campos).stream()
+				.findFirst()
+				.map(linha -> paraMapa(campos, linha));
+	}
+
+	/**
+	 * As linhas vão do cursor direto para o {@code writer}, sem carregar o resultado inteiro; a
+	 * transação somente leitura fica aberta até a última linha ser escrita.
+	 */
+	@Override
+	@Transactional(readOnly = true)
+	public void exportar(Lancamento lancamentoFiltro, YearMonth de, YearMonth ate, List<CampoLancamento> campos,
+			Writer writer) throws IOException {
+		definirContextoRoteamento(lancamentoFiltro);
+		writer.write(campos.stream().map(CampoLancamento::getNome).collect(Collectors.joining(";")));
+		writer.write("\r\n");
+		try (Stream<Object[]> linhas = repository.percorrerCampos(especificacao(lancamentoFiltro, de, ate), campos)) {
+			Iterator<Object[]> iterador = linhas.iterator();
+			while (iterador.hasNext()) {
+				Object[] linha = iterador.next();
+				for (int i = 0; i < linha.length; i++) {
+					if (i > 0) {
+						writer.write(';');
+					}
+					writer.write(celulaCsv(linha[i]));
+				}
+				writer.write("\r\n");
+			}
+		}
+		writer.flush();
+	}
+
+	@Override
+	@Transactional
 	public void atualizarStatus(Lancamento lancamento, StatusLancamento status) {
 		lancamento.setStatus(status);
 		atualizar(lancamento);		
 	}
 
+	@Override
+	@Transactional
+	public boolean atualizarDoUsuario(Lancamento lancamento) {
+		Objects.requireNonNull(lancamento.getId());
+		validar(lancamento);
+		definirContextoRoteamento(lancamento);
+		// O comando em massa não passa pelos callbacks da entidade.
+		lancamento.prepararGravacao();
+		int alterados = lancamento.getCategoria() == null
+				? repository.atualizarDoUsuario(lancamento)
+				: repository.atualizarComCategoriaDoUsuario(lancamento);
+		return registrarAlteracao(alterados, lancamento, TipoEventoLancamento.ATUALIZADO);
+	}
+
+	@Override
+	@Transactional
+	public boolean atualizarStatusDoUsuario(Long id, Long idUsuario, StatusLancamento status) {
+		Objects.requireNonNull(status);
+		ContextoRoteamento.definirUsuario(idUsuario);
+		int alterados = repository.atualizarStatusDoUsuario(id, idUsuario, status, LocalDateTime.now());
+		return registrarAlteracao(alterados, referencia(id, idUsuario), TipoEventoLancamento.ATUALIZADO);
+	}
+
+	@Override
+	@Transactional
+	public boolean deletarDoUsuario(Long id, Long idUsuario) {
+		ContextoRoteamento.definirUsuario(idUsuario);
+		int alterados = repository.deletarDoUsuario(id, idUsuario);
+		return registrarAlteracao(alterados, referencia(id, idUsuario), TipoEventoLancamento.DELETADO);
+	}
+
 	@Override
 	public void validar(Lancamento lancamento) {
 		
@@ -100,7 +329,7 @@ public class LancamentoServiceImpl implements LancamentoService {
 			throw new RegraNegocioException("Informe um mês válido.");
 		}
 
-		if(lancamento.getAno() == null || lancamento.getAno().toString().length() != 4) {
+		if(lancamento.getAno() == null || lancamento.getAno() < COMPETENCIA_MINIMA.getYear() || lancamento.getAno() > COMPETENCIA_MAXIMA.getYear()) {
 			throw new RegraNegocioException("Informe um Ano válido.");
 		}
 		
@@ -115,6 +344,110 @@ public class LancamentoServiceImpl implements LancamentoService {
 		if(lancamento.getTipo() == null) {
 			throw new RegraNegocioException("Informe um Tipo de Lançamento.");
 		}
+		
+		if(lancamento.getCategoria() != null && lancamento.getCategoria().getUsuario() != null
+				&& !lancamento.getCategoria().getUsuario().getId().equals(lancamento.getUsuario().getId())) {
+			throw new RegraNegocioException("A categoria não pertence ao usuário do lançamento.");
+		}
+	}
+	
+	/**
+	 * O evento só precisa do id e do dono: as projeções leem o estado atual do lançamento.
+	 */
+	private boolean registrarAlteracao(int alterados, Lancamento lancamento, TipoEventoLancamento tipo) {
+		if (alterados == 0) {
+			return false;
+		}
+		eventoService.registrar(lancamento, tipo);
+		registrarHistorico(lancamento, tipo);
+		invalidarBuscas(lancamento);
+		return true;
+	}
+	
+	/**
+	 * O estado gravado é copiado do próprio lançamento no banco; a exclusão fica como um estado
+	 * sem status, a partir do qual o lançamento não conta mais no saldo.
+	 */
+	private void registrarHistorico(Lancamento lancamento, TipoEventoLancamento tipo) {
+		if (tipo != TipoEventoLancamento.DELETADO) {
+			historicoRepository.registrar(Collections.singletonList(lancamento.getId()));
+			return;
+		}
+		historicoRepository.save(HistoricoLancamento.builder()
+				.idLancamento(lancamento.getId())
+				.idUsuario(lancamento.getUsuario() == null ? null : lancamento.getUsuario().getId())
+				.data(LocalDateTime.now())
+				.build());
+	}
+	
+	private static Lancamento referencia(Long id, Long idUsuario) {
+		return Lancamento.builder().id(id).usuario(Usuario.builder().id(idUsuario).build()).build();
+	}
+	
+	private void invalidarBuscas(Lancamento lancamento) {
+		if (lancamento.getUsuario() != null) {
+			invalidacao.publicar(lancamento.getUsuario().getId());
+			notificacoes.notificar(lancamento.getUsuario().getId(), lancamento.getId());
+		}
+	}
+	
+	/**
+	 * Filtro do exemplo, combinado à faixa de competência quando há período.
+	 */
+	private static Specification<Lancamento> especificacao(Lancamento lancamentoFiltro, YearMonth de, YearMonth ate) {
+		Example<Lancamento> example = Example.of(lancamentoFiltro, 
+				ExampleMatcher.matching()
+					.withIgnoreCase()
+					.withStringMatcher(StringMatcher.CONTAINING));
+		boolean comPeriodo = de != null || ate != null;
+		LocalDate inicio = inicio(de);
+		LocalDate fim = fim(ate);
+		return (root, query, builder) -> {
+			Predicate exemplo = QueryByExamplePredicateBuilder.getPredicate(root, builder, example);
+			if (!comPeriodo) {
+				return exemplo;
+			}
+			Predicate periodo = builder.between(root.get("competencia"), inicio, fim);
+			return exemplo == null ? periodo : builder.and(exemplo, periodo);
+		};
+	}
+	
+	/**
+	 * Usuário e categoria mantêm a forma de objeto da entidade completa, só com o id.
+	 */
+	private static Map<String, Object> paraMapa(List<CampoLancamento> campos, Object[] linha) {
+		Map<String, Object> mapa = new LinkedHashMap<>();
+		for (int i = 0; i < linha.length; i++) {
+			CampoLancamento campo = campos.get(i);
+			Object valor = linha[i];
+			mapa.put(campo.getNome(), campo.isReferencia() && valor != null ? Collections.singletonMap("id", valor) : valor);
+		}
+		return mapa;
+	}
+	
+	private static String celulaCsv(Object valor) {
+		if (valor == null) {
+			return "";
+		}
+		String texto = valor instanceof BigDecimal ? ((BigDecimal) valor).toPlainString() : valor.toString();
+		if (texto.indexOf(';') < 0 && texto.indexOf('"') < 0 && texto.indexOf('\n') < 0 && texto.indexOf('\r') < 0) {
+			return texto;
+		}
+		return '"' + texto.replace("\"", "\"\"") + '"';
+	}
+	
+	private static LocalDate inicio(YearMonth de) {
+		return (de == null ? COMPETENCIA_MINIMA : de).atDay(1);
+	}
+	
+	private static LocalDate fim(YearMonth ate) {
+		return (ate == null ? COMPETENCIA_MAXIMA : ate).atDay(1);
+	}
+	
+	private void definirContextoRoteamento(Lancamento lancamento) {
+		if (lancamento.getUsuario() != null) {
+			ContextoRoteamento.definirUsuario(lancamento.getUsuario().getId());
+		}
 	}
 	
 	
@@ -0,0 +1,96 @@
+package com.amantovan.minhasfinancas.service.impl;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import com.amantovan.minhasfinancas.model.enuns.FormatoExtrato;
+
+/**
+ * Lê um extrato transação a transação, sem carregar o arquivo inteiro. Nenhum valor guardado
+ * passa de {@link #TAMANHO_MAXIMO_VALOR} caracteres, então a memória usada não depende do
+ * tamanho do arquivo nem do tamanho das linhas.
+ */
+abstract class LeitorExtrato implements Iterator<LinhaExtrato> {
+
+	static final int TAMANHO_MAXIMO_VALOR = 1024;
+	
+	private static final List<DateTimeFormatter> FORMATOS_DATA = Arrays.asList(
+			DateTimeFormatter.ofPattern("dd/MM/yyyy"),
+			DateTimeFormatter.ISO_LOCAL_DATE,
+			DateTimeFormatter.ofPattern("dd-MM-yyyy"),
+			DateTimeFormatter.BASIC_ISO_DATE);
+	
+	protected final Reader reader;
+	private LinhaExtrato proxima;
+	private boolean terminou;
+	
+	protected LeitorExtrato(Reader reader) {
+		this.reader = reader;
+	}
+	
+	static LeitorExtrato para(FormatoExtrato formato, Reader reader) {
+		return formato == FormatoExtrato.OFX ? new LeitorExtratoOfx(reader) : new LeitorExtratoCsv(reader);
+	}
+	
+	/**
+	 * Próxima transação do extrato, ou nulo no fim do arquivo.
+	 */
+	protected abstract LinhaExtrato ler() throws IOException;
+	
+	@Override
+	public boolean hasNext() {
+		if (proxima == null && !terminou) {
+			try {
+				proxima = ler();
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			terminou = proxima == null;
+		}
+		return proxima != null;
+	}
+	
+	@Override
+	public LinhaExtrato next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		LinhaExtrato atual = proxima;
+		proxima = null;
+		return atual;
+	}
+	
+	/**
+	 * Aceita ponto ou vírgula como separador decimal, com ou sem separador de milhar e
+	 * símbolo de moeda; o separador decimal é o último que aparece.
+	 */
+	static BigDecimal valor(String texto) {
+		String numero = texto.replace("R$", "").replaceAll("\\s", "");
+		if (numero.lastIndexOf(',') > numero.lastIndexOf('.')) {
+			numero = numero.replace(".", "").replace(',', '.');
+		} else {
+			numero = numero.replace(",", "");
+		}
+		return new BigDecimal(numero);
+	}
+	
+	static LocalDate data(String texto) {
+		for (DateTimeFormatter formato : FORMATOS_DATA) {
+			try {
+				return LocalDate.parse(texto.trim(), formato);
+			} catch (DateTimeParseException e) {
+				// Tenta o próximo formato.
+			}
+		}
+		throw new DateTimeParseException("Data não reconhecida", texto, 0);
+	}
+}
@@ -0,0 +1,141 @@
+package com.amantovan.minhasfinancas.service.impl;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Extrato em CSV com as colunas data, descrição e valor, separadas por ponto e vírgula ou
+ * vírgula. Um cabeçalho na primeira linha é opcional e permite outras ordens de coluna.
+ */
+class LeitorExtratoCsv extends LeitorExtrato {
+
+	private final StringBuilder linha = new StringBuilder();
+	private int numeroLinha;
+	private boolean fimArquivo;
+	private char separador;
+	private int colunaData = 0;
+	private int colunaDescricao = 1;
+	private int colunaValor = 2;
+	
+	LeitorExtratoCsv(Reader reader) {
+		super(reader);
+	}
+	
+	@Override
+	protected LinhaExtrato ler() throws IOException {
+		while (!fimArquivo) {
+			boolean completa = lerLinha();
+			if (!completa) {
+				return LinhaExtrato.builder().numero(numeroLinha)
+						.erro("Linha com mais de " + TAMANHO_MAXIMO_VALOR + " caracteres.").build();
+			}
+			String texto = linha.toString().trim();
+			if (texto.isEmpty()) {
+				continue;
+			}
+			if (separador == 0) {
+				separador = texto.indexOf(';') >= 0 ? ';' : ',';
+				if (lerCabecalho(separar(texto))) {
+					continue;
+				}
+			}
+			return interpretar(separar(texto));
+		}
+		return null;
+	}
+	
+	/**
+	 * Lê a próxima linha para o buffer. Se ela passar do tamanho máximo, o restante é descartado
+	 * e o retorno é falso.
+	 */
+	private boolean lerLinha() throws IOException {
+		linha.setLength(0);
+		numeroLinha++;
+		boolean completa = true;
+		int c;
+		while ((c = reader.read()) != -1 && c != '\n') {
+			if (c == '\r') {
+				continue;
+			}
+			if (linha.length() < TAMANHO_MAXIMO_VALOR) {
+				linha.append((char) c);
+			} else {
+				completa = false;
+			}
+		}
+		fimArquivo = c == -1;
+		return completa;
+	}
+	
+	private boolean lerCabecalho(List<String> colunas) {
+		int data = -1, descricao = -1, valor = -1;
+		for (int i = 0; i < colunas.size(); i++) {
+			String nome = colunas.get(i).toLowerCase(Locale.ROOT);
+			if (nome.startsWith("data")) {
+				data = i;
+			} else if (nome.startsWith("descri") || nome.startsWith("hist") || nome.startsWith("memo")) {
+				descricao = i;
+			} else if (nome.startsWith("valor") || nome.startsWith("quantia")) {
+				valor = i;
+			}
+		}
+		if (data < 0 || descricao < 0 || valor < 0) {
+			return false;
+		}
+		colunaData = data;
+		colunaDescricao = descricao;
+		colunaValor = valor;
+		return true;
+	}
+	
+	private LinhaExtrato interpretar(List<String> colunas) {
+		LinhaExtrato.LinhaExtratoBuilder resultado = LinhaExtrato.builder().numero(numeroLinha);
+		if (colunas.size() <= Math.max(colunaData, Math.max(colunaDescricao, colunaValor))) {
+			return resultado.erro("Quantidade de colunas inválida.").build();
+		}
+		
+		LocalDate data;
+		try {
+			data = data(colunas.get(colunaData));
+		} catch (DateTimeParseException e) {
+			return resultado.erro("Data inválida: " + colunas.get(colunaData)).build();
+		}
+		BigDecimal valor;
+		try {
+			valor = valor(colunas.get(colunaValor));
+		} catch (NumberFormatException e) {
+			return resultado.erro("Valor inválido: " + colunas.get(colunaValor)).build();
+		}
+		return resultado.data(data).descricao(colunas.get(colunaDescricao).trim()).valor(valor).build();
+	}
+	
+	private List<String> separar(String texto) {
+		List<String> colunas = new ArrayList<>();
+		StringBuilder coluna = new StringBuilder();
+		boolean entreAspas = false;
+		for (int i = 0; i < texto.length(); i++) {
+			char c = texto.charAt(i);
+			if (c == '"') {
+				if (entreAspas && i + 1 < texto.length() && texto.charAt(i + 1) == '"') {
+					coluna.append('"');
+					i++;
+				} else {
+					entreAspas = !entreAspas;
+				}
+			} else if (c == separador && !entreAspas) {
+				colunas.add(coluna.toString().trim());
+				coluna.setLength(0);
+			} else {
+				coluna.append(c);
+			}
+		}
+		colunas.add(coluna.toString().trim());
+		return colunas;
+	}
+}
@@ -0,0 +1,124 @@
+package com.amantovan.minhasfinancas.service.impl;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Locale;
+
+/**
+ * Extrato em OFX, tanto no formato SGML (tags sem fechamento) quanto em XML. Só os campos de
+ * {@code <STMTTRN>} são guardados, e cada transação é devolvida ao encontrar o seu fechamento.
+ */
+class LeitorExtratoOfx extends LeitorExtrato {
+
+	private final StringBuilder tag = new StringBuilder();
+	private final StringBuilder texto = new StringBuilder();
+	private int numeroLinha = 1;
+	private int linhaTransacao;
+	private boolean dentroTransacao;
+	private String valor;
+	private String data;
+	private String memo;
+	private String nome;
+	private String identificador;
+	
+	LeitorExtratoOfx(Reader reader) {
+		super(reader);
+	}
+	
+	@Override
+	protected LinhaExtrato ler() throws IOException {
+		int c;
+		while ((c = reader.read()) != -1) {
+			if (c == '\n') {
+				numeroLinha++;
+			}
+			if (c != '<') {
+				if (texto.length() < TAMANHO_MAXIMO_VALOR) {
+					texto.append((char) c);
+				}
+				continue;
+			}
+			
+			String conteudo = texto.toString().trim();
+			texto.setLength(0);
+			guardar(conteudo);
+			lerTag();
+			String nomeTag = tag.toString().trim().toUpperCase(Locale.ROOT);
+			if (nomeTag.equals("STMTTRN")) {
+				iniciarTransacao();
+			} else if (nomeTag.equals("/STMTTRN") && dentroTransacao) {
+				dentroTransacao = false;
+				return transacao();
+			}
+		}
+		return null;
+	}
+	
+	private void lerTag() throws IOException {
+		tag.setLength(0);
+		int c;
+		while ((c = reader.read()) != -1 && c != '>') {
+			if (c == '\n') {
+				numeroLinha++;
+			}
+			if (tag.length() < TAMANHO_MAXIMO_VALOR) {
+				tag.append((char) c);
+			}
+		}
+	}
+	
+	/**
+	 * Atribui o texto lido ao campo da última tag aberta; no SGML o valor vai até a próxima tag.
+	 */
+	private void guardar(String conteudo) {
+		if (!dentroTransacao || conteudo.isEmpty()) {
+			return;
+		}
+		switch (tag.toString().trim().toUpperCase(Locale.ROOT)) {
+			case "TRNAMT": valor = conteudo; break;
+			case "DTPOSTED": data = conteudo; break;
+			case "MEMO": memo = conteudo; break;
+			case "NAME": nome = conteudo; break;
+			case "FITID": identificador = conteudo; break;
+			default: break;
+		}
+	}
+	
+	private void iniciarTransacao() {
+		dentroTransacao = true;
+		linhaTransacao = numeroLinha;
+		valor = null;
+		data = null;
+		memo = null;
+		nome = null;
+		identificador = null;
+	}
+	
+	private LinhaExtrato transacao() {
+		LinhaExtrato.LinhaExtratoBuilder resultado = LinhaExtrato.builder().numero(linhaTransacao).identificador(identificador);
+		if (data == null || data.length() < 8) {
+			return resultado.erro("Transação sem DTPOSTED.").build();
+		}
+		if (valor == null) {
+			return resultado.erro("Transação sem TRNAMT.").build();
+		}
+		
+		LocalDate dataTransacao;
+		try {
+			// DTPOSTED pode trazer hora e fuso depois da data, como em 20200115120000[-3:BRT].
+			dataTransacao = data(data.substring(0, 8));
+		} catch (DateTimeParseException e) {
+			return resultado.erro("Data inválida: " + data).build();
+		}
+		BigDecimal valorTransacao;
+		try {
+			valorTransacao = valor(valor);
+		} catch (NumberFormatException e) {
+			return resultado.erro("Valor inválido: " + valor).build();
+		}
+		return resultado.data(dataTransacao).descricao(memo != null ? memo : nome).valor(valorTransacao).build();
+	}
+}
@@ -0,0 +1,23 @@
+package com.amantovan.minhasfinancas.service.impl;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * Transação lida de um extrato. Quando a linha não pôde ser interpretada só o número e o
+ * erro vêm preenchidos.
+ */
+@Value
+@Builder
+class LinhaExtrato {
+
+	int numero;
+	LocalDate data;
+	String descricao;
+	BigDecimal valor;
+	String identificador;
+	String erro;
+}
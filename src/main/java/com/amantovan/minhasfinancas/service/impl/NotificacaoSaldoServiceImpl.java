@@ -0,0 +1,319 @@
+package com.amantovan.minhasfinancas.service.impl;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.amantovan.minhasfinancas.service.LancamentoService;
+import com.amantovan.minhasfinancas.service.NotificacaoSaldo;
+import com.amantovan.minhasfinancas.service.NotificacaoSaldoService;
+import com.amantovan.minhasfinancas.service.OuvinteInvalidacao;
+
+/**
+ * Envia o saldo por Server-Sent Events aos assinantes do usuário depois de cada commit que
+ * altera os seus lançamentos. Sem assinantes a notificação não custa nada além de uma consulta
+ * ao mapa; com assinantes, as alterações que chegam antes do envio são juntadas e o saldo é
+ * consultado uma única vez para todas as conexões do usuário.
+ *
+ * Cada conexão tem uma fila limitada, escrita por um pool pequeno de threads. Um cliente que
+ * não acompanha os eventos enche a fila e tem a conexão encerrada, para reconectar e receber o
+ * saldo atual, em vez de acumular memória no servidor. Um comentário periódico mantém a conexão
+ * aberta nos proxies e detecta clientes que já foram embora.
+ *
+ * As alterações feitas nesta instância chegam por {@link #notificar(Long, Long)}, com o
+ * lançamento; as das demais, pelo {@link com.amantovan.minhasfinancas.service.BarramentoInvalidacaoService},
+ * só com o usuário, e geram um evento com o saldo atual e sem lançamentos. Se o barramento
+ * avisar que mensagens se perderam, todos os assinantes recebem o saldo de novo.
+ */
+@Service
+public class NotificacaoSaldoServiceImpl implements NotificacaoSaldoService, OuvinteInvalidacao {
+
+	private static final Logger log = LoggerFactory.getLogger(NotificacaoSaldoServiceImpl.class);
+
+	private static final String EVENTO = "saldo";
+	private static final Object HEARTBEAT = new Object();
+
+	private final LancamentoService lancamentoService;
+	private final int maximoConexoes;
+	private final int maximoPorUsuario;
+	private final int capacidadeFila;
+	private final long timeoutMs;
+	private final ScheduledExecutorService executor;
+
+	private final Object trava = new Object();
+	private final Map<Long, Set<Assinatura>> assinaturas = new ConcurrentHashMap<>();
+	private final Map<Long, Set<Long>> pendentes = new ConcurrentHashMap<>();
+	private final AtomicInteger conexoes = new AtomicInteger();
+
+	public NotificacaoSaldoServiceImpl(
+			@Lazy LancamentoService lancamentoService,
+			@Value("${minhasfinancas.notificacao.maximo-conexoes:1000}") int maximoConexoes,
+			@Value("${minhasfinancas.notificacao.maximo-por-usuario:5}") int maximoPorUsuario,
+			@Value("${minhasfinancas.notificacao.capacidade-fila:32}") int capacidadeFila,
+			@Value("${minhasfinancas.notificacao.heartbeat-ms:15000}") long heartbeatMs,
+			@Value("${minhasfinancas.notificacao.timeout-ms:1800000}") long timeoutMs,
+			@Value("${minhasfinancas.notificacao.threads:2}") int threads) {
+		this.lancamentoService = lancamentoService;
+		this.maximoConexoes = maximoConexoes;
+		this.maximoPorUsuario = maximoPorUsuario;
+		this.capacidadeFila = capacidadeFila;
+		this.timeoutMs = timeoutMs;
+		this.executor = Executors.newScheduledThreadPool(threads, novaThread());
+		this.executor.scheduleWithFixedDelay(this::enviarHeartbeats, heartbeatMs, heartbeatMs, TimeUnit.MILLISECONDS);
+	}
+
+	@Override
+	public Optional<SseEmitter> assinar(Long idUsuario) {
+		Assinatura assinatura = new Assinatura(idUsuario, new SseEmitter(timeoutMs));
+		synchronized (trava) {
+			Set<Assinatura> doUsuario = assinaturas.get(idUsuario);
+			if (conexoes.get() >= maximoConexoes || (doUsuario != null && doUsuario.size() >= maximoPorUsuario)) {
+				return Optional.empty();
+			}
+			assinaturas.computeIfAbsent(idUsuario, id -> new CopyOnWriteArraySet<>()).add(assinatura);
+			conexoes.incrementAndGet();
+		}
+
+		SseEmitter emitter = assinatura.emitter;
+		emitter.onCompletion(() -> remover(assinatura));
+		emitter.onTimeout(() -> remover(assinatura));
+		emitter.onError(erro -> remover(assinatura));
+		// O saldo inicial é lido depois do registro, então nenhum commit fica entre ele e o primeiro evento.
+		BigDecimal saldo;
+		try {
+			saldo = lancamentoService.obterSaldoPorUsuario(idUsuario);
+		} catch (RuntimeException e) {
+			remover(assinatura);
+			throw e;
+		}
+		assinatura.enfileirar(new NotificacaoSaldo(idUsuario, saldo, Collections.emptyList()));
+		return Optional.of(emitter);
+	}
+
+	@Override
+	public void notificar(Long idUsuario, Long idLancamento) {
+		if (idUsuario == null || !assinaturas.containsKey(idUsuario)) {
+			return;
+		}
+
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+				@Override
+				public void afterCommit() {
+					agendar(idUsuario, idLancamento);
+				}
+			});
+		} else {
+			agendar(idUsuario, idLancamento);
+		}
+	}
+
+	/**
+	 * As alterações locais já chegam por {@link #notificar(Long, Long)}, com os lançamentos.
+	 */
+	@Override
+	public void invalidarUsuarios(Collection<Long> usuarios) {
+	}
+
+	@Override
+	public void invalidarUsuariosDeOutraInstancia(Collection<Long> usuarios) {
+		for (Long idUsuario : usuarios) {
+			if (assinaturas.containsKey(idUsuario)) {
+				agendar(idUsuario, null);
+			}
+		}
+	}
+
+	@Override
+	public void invalidarTudo() {
+		assinaturas.keySet().forEach(idUsuario -> agendar(idUsuario, null));
+	}
+
+	@Override
+	public int getAssinaturas() {
+		return conexoes.get();
+	}
+
+	@PreDestroy
+	public void encerrar() {
+		executor.shutdownNow();
+		assinaturas.values().forEach(doUsuario -> doUsuario.forEach(assinatura -> assinatura.emitter.complete()));
+	}
+
+	private void agendar(Long idUsuario, Long idLancamento) {
+		boolean[] primeira = new boolean[1];
+		pendentes.compute(idUsuario, (id, ids) -> {
+			if (ids == null) {
+				ids = new LinkedHashSet<>();
+				primeira[0] = true;
+			}
+			if (idLancamento != null) {
+				ids.add(idLancamento);
+			}
+			return ids;
+		});
+		// Enquanto o envio não começa, as alterações seguintes do usuário entram no mesmo evento.
+		if (primeira[0]) {
+			executar(() -> entregar(idUsuario));
+		}
+	}
+
+	private void entregar(Long idUsuario) {
+		Set<Long> ids = pendentes.remove(idUsuario);
+		Set<Assinatura> doUsuario = assinaturas.get(idUsuario);
+		if (ids == null || doUsuario == null || doUsuario.isEmpty()) {
+			return;
+		}
+
+		BigDecimal saldo;
+		try {
+			saldo = lancamentoService.obterSaldoPorUsuario(idUsuario);
+		} catch (RuntimeException e) {
+			log.warn("Não foi possível obter o saldo do usuário {} para os assinantes", idUsuario, e);
+			return;
+		}
+		NotificacaoSaldo notificacao = new NotificacaoSaldo(idUsuario, saldo, new ArrayList<>(ids));
+		doUsuario.forEach(assinatura -> assinatura.enfileirar(notificacao));
+	}
+
+	private void enviarHeartbeats() {
+		assinaturas.values().forEach(doUsuario -> doUsuario.forEach(assinatura -> assinatura.enfileirar(HEARTBEAT)));
+	}
+
+	private void remover(Assinatura assinatura) {
+		synchronized (trava) {
+			Set<Assinatura> doUsuario = assinaturas.get(assinatura.idUsuario);
+			if (doUsuario == null || !doUsuario.remove(assinatura)) {
+				return;
+			}
+			if (doUsuario.isEmpty()) {
+				assinaturas.remove(assinatura.idUsuario);
+			}
+			conexoes.decrementAndGet();
+		}
+	}
+
+	private boolean executar(Runnable tarefa) {
+		try {
+			executor.execute(tarefa);
+			return true;
+		} catch (RejectedExecutionException e) {
+			// Só acontece no desligamento.
+			return false;
+		}
+	}
+
+	private static ThreadFactory novaThread() {
+		AtomicInteger contador = new AtomicInteger();
+		return tarefa -> {
+			Thread thread = new Thread(tarefa, "notificacao-saldo-" + contador.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		};
+	}
+
+	private final class Assinatura {
+
+		private final Long idUsuario;
+		private final SseEmitter emitter;
+		private final Queue<Object> fila = new ArrayDeque<>();
+		private boolean enviando;
+		private boolean encerrada;
+
+		Assinatura(Long idUsuario, SseEmitter emitter) {
+			this.idUsuario = idUsuario;
+			this.emitter = emitter;
+		}
+
+		void enfileirar(Object evento) {
+			boolean iniciarEnvio = false;
+			boolean estourou = false;
+			synchronized (this) {
+				if (encerrada) {
+					return;
+				}
+				if (evento == HEARTBEAT && !fila.isEmpty()) {
+					return;
+				}
+				if (fila.size() >= capacidadeFila) {
+					encerrada = true;
+					estourou = true;
+					fila.clear();
+				} else {
+					fila.add(evento);
+					iniciarEnvio = !enviando;
+					enviando = true;
+				}
+			}
+
+			if (estourou) {
+				log.debug("Fila de notificações do usuário {} cheia; encerrando a conexão", idUsuario);
+				remover(this);
+				emitter.complete();
+			} else if (iniciarEnvio && !executar(this::enviar)) {
+				encerrar();
+			}
+		}
+
+		/**
+		 * Uma única tarefa por conexão escreve de cada vez, na ordem da fila.
+		 */
+		private void enviar() {
+			while (true) {
+				Object evento;
+				synchronized (this) {
+					evento = fila.poll();
+					if (evento == null || encerrada) {
+						enviando = false;
+						return;
+					}
+				}
+				try {
+					emitter.send(evento == HEARTBEAT
+							? SseEmitter.event().comment("heartbeat")
+							: SseEmitter.event().name(EVENTO).data(evento, MediaType.APPLICATION_JSON));
+				} catch (IOException | IllegalStateException e) {
+					encerrar();
+					return;
+				}
+			}
+		}
+
+		private void encerrar() {
+			synchronized (this) {
+				encerrada = true;
+				fila.clear();
+			}
+			remover(this);
+			emitter.complete();
+		}
+	}
+}
@@ -0,0 +1,84 @@
+package com.amantovan.minhasfinancas.service.impl;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+
+import com.amantovan.minhasfinancas.config.datasource.GerenciadorFragmentos;
+import com.amantovan.minhasfinancas.model.repository.HistoricoLancamentoRepository;
+import com.amantovan.minhasfinancas.model.repository.LancamentoRepository;
+
+/**
+ * Na subida, preenche a competência dos lançamentos gravados antes da coluna existir. Cada mês
+ * é um único {@code update} em transação própria, então a carga pode ser interrompida e
+ * retomada na próxima subida. Os mesmos lançamentos recebem a data de atualização inicial da
+ * sincronização incremental, e os que ainda não têm histórico ganham o estado atual como
+ * primeiro registro.
+ */
+@Component
+@Order(1)
+@ConditionalOnProperty(name = "minhasfinancas.competencia.preencher", havingValue = "true", matchIfMissing = true)
+public class PreenchimentoCompetenciaLancamento implements ApplicationRunner {
+
+	private static final Logger log = LoggerFactory.getLogger(PreenchimentoCompetenciaLancamento.class);
+
+	private LancamentoRepository repository;
+	private HistoricoLancamentoRepository historicoRepository;
+	private GerenciadorFragmentos fragmentos;
+
+	public PreenchimentoCompetenciaLancamento(LancamentoRepository repository, HistoricoLancamentoRepository historicoRepository,
+			GerenciadorFragmentos fragmentos) {
+		this.repository = repository;
+		this.historicoRepository = historicoRepository;
+		this.fragmentos = fragmentos;
+	}
+
+	@Override
+	public void run(ApplicationArguments args) {
+		preencher();
+	}
+
+	public int preencher() {
+		int total = 0;
+		for (int fragmento = 0; fragmento < fragmentos.getQuantidade(); fragmento++) {
+			try {
+				total += preencher(fragmento);
+			} catch (DataAccessException e) {
+				log.warn("Não foi possível preencher a competência no fragmento {}; nova tentativa na próxima subida", fragmento, e);
+			}
+		}
+		if (total > 0) {
+			log.info("Competência preenchida em {} lançamentos", total);
+		}
+		return total;
+	}
+
+	private int preencher(int fragmento) {
+		int semData = fragmentos.noFragmento(fragmento,
+				() -> repository.preencherDataAtualizacao(SincronizacaoLancamentoServiceImpl.INICIO));
+		if (semData > 0) {
+			log.info("Data de atualização preenchida em {} lançamentos do fragmento {}", semData, fragmento);
+		}
+		int semHistorico = fragmentos.noFragmento(fragmento, historicoRepository::preencherSemHistorico);
+		if (semHistorico > 0) {
+			log.info("Histórico inicial gravado para {} lançamentos do fragmento {}", semHistorico, fragmento);
+		}
+		int total = 0;
+		List<Object[]> meses = fragmentos.comFragmento(fragmento, repository::obterMesesSemCompetencia);
+		for (Object[] mes : meses) {
+			Integer ano = (Integer) mes[0];
+			Integer numeroMes = (Integer) mes[1];
+			total += fragmentos.noFragmento(fragmento,
+					() -> repository.preencherCompetencia(ano, numeroMes, LocalDate.of(ano, numeroMes, 1)));
+		}
+		return total;
+	}
+}
@@ -0,0 +1,320 @@
+package com.amantovan.minhasfinancas.service.impl;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.amantovan.minhasfinancas.config.datasource.ContextoRoteamento;
+import com.amantovan.minhasfinancas.exception.RegraNegocioException;
+import com.amantovan.minhasfinancas.model.entity.Lancamento;
+import com.amantovan.minhasfinancas.model.enuns.StatusLancamento;
+import com.amantovan.minhasfinancas.model.enuns.TipoLancamento;
+import com.amantovan.minhasfinancas.model.repository.LancamentoRepository;
+import com.amantovan.minhasfinancas.service.LancamentoService;
+import com.amantovan.minhasfinancas.service.PrevisaoMensal;
+import com.amantovan.minhasfinancas.service.PrevisaoSaldo;
+import com.amantovan.minhasfinancas.service.PrevisaoSaldoService;
+
+/**
+ * Projeta o saldo dos próximos meses por simulação de Monte Carlo.
+ *
+ * Os dados do usuário são lidos uma única vez: o saldo efetivado, os lançamentos pendentes,
+ * que entram no mês em que vencem (ou no primeiro mês, se já venceram), e o histórico
+ * efetivado dos últimos {@code meses-historico} meses, limitado por competência no banco. No histórico, descrições do mesmo tipo que aparecem em vários
+ * meses viram padrões recorrentes, com frequência, média e desvio; o restante vira uma
+ * variação mensal avulsa. Cada cenário sorteia os padrões e a variação mês a mês.
+ *
+ * Os cenários são divididos entre as threads de um {@link ForkJoinPool} próprio, o que limita
+ * os núcleos ocupados por todas as previsões juntas, e cada previsão para de simular quando o
+ * seu orçamento de tempo acaba, usando os cenários já concluídos.
+ */
+@Service
+public class PrevisaoSaldoServiceImpl implements PrevisaoSaldoService {
+
+	private static final int CENARIOS_POR_TAREFA = 256;
+	private static final int OCORRENCIAS_MINIMAS = 3;
+
+	private LancamentoService lancamentoService;
+	private LancamentoRepository repository;
+	private int cenarios;
+	private long orcamentoNanos;
+	private int mesesMaximo;
+	private int mesesHistorico;
+	private ForkJoinPool pool;
+
+	public PrevisaoSaldoServiceImpl(
+			LancamentoService lancamentoService,
+			LancamentoRepository repository,
+			@Value("${minhasfinancas.previsao.cenarios:10000}") int cenarios,
+			@Value("${minhasfinancas.previsao.paralelismo:0}") int paralelismo,
+			@Value("${minhasfinancas.previsao.orcamento-ms:500}") long orcamentoMillis,
+			@Value("${minhasfinancas.previsao.meses-maximo:24}") int mesesMaximo,
+			@Value("${minhasfinancas.previsao.meses-historico:12}") int mesesHistorico) {
+		this.lancamentoService = lancamentoService;
+		this.repository = repository;
+		this.cenarios = cenarios;
+		this.orcamentoNanos = TimeUnit.MILLISECONDS.toNanos(orcamentoMillis);
+		this.mesesMaximo = mesesMaximo;
+		this.mesesHistorico = mesesHistorico;
+		this.pool = new ForkJoinPool(paralelismo > 0 ? paralelismo : Runtime.getRuntime().availableProcessors());
+	}
+
+	@PreDestroy
+	public void encerrar() {
+		pool.shutdownNow();
+	}
+
+	@Override
+	public PrevisaoSaldo prever(Long idUsuario, int meses) {
+		if (meses < 1 || meses > mesesMaximo) {
+			throw new RegraNegocioException("Informe uma quantidade de meses entre 1 e " + mesesMaximo + ".");
+		}
+
+		long prazo = System.nanoTime() + orcamentoNanos;
+		YearMonth atual = YearMonth.now();
+		BigDecimal saldoAtual = lancamentoService.obterSaldoPorUsuario(idUsuario);
+		ContextoRoteamento.definirUsuario(idUsuario);
+		List<Lancamento> lancamentos = repository.obterParaPrevisao(idUsuario,
+				atual.minusMonths(mesesHistorico).atDay(1), atual.atDay(1), atual.plusMonths(meses).atDay(1));
+
+		Modelo modelo = montarModelo(lancamentos, atual, meses);
+		double[][] saldos = new double[meses][cenarios];
+		boolean[] concluidos = new boolean[cenarios];
+		pool.invoke(new Simulacao(modelo, saldoAtual.doubleValue(), saldos, concluidos, 0, cenarios, prazo));
+
+		return resumir(modelo, saldoAtual, saldos, concluidos, atual);
+	}
+
+	private Modelo montarModelo(List<Lancamento> lancamentos, YearMonth atual, int meses) {
+		Modelo modelo = new Modelo(meses);
+		YearMonth inicioHistorico = atual.minusMonths(mesesHistorico);
+		YearMonth primeiroMes = atual;
+		Map<String, double[]> valoresPorPadrao = new HashMap<>();
+
+		for (Lancamento lancamento : lancamentos) {
+			YearMonth mes = YearMonth.of(lancamento.getAno(), lancamento.getMes());
+			double valor = lancamento.getTipo() == TipoLancamento.DESPESA
+					? -lancamento.getValor().doubleValue() : lancamento.getValor().doubleValue();
+
+			if (lancamento.getStatus() == StatusLancamento.PENDENTE) {
+				// Pendentes vencidos entram no primeiro mês projetado.
+				int indice = Math.max(0, (int) ChronoUnit.MONTHS.between(atual, mes) - 1);
+				if (indice < meses) {
+					modelo.pendentes[indice] += valor;
+					modelo.pendentesPorMes.get(indice).add(chave(lancamento));
+				}
+			} else if (!mes.isBefore(inicioHistorico) && mes.isBefore(atual)) {
+				if (mes.isBefore(primeiroMes)) {
+					primeiroMes = mes;
+				}
+				double[] valores = valoresPorPadrao.computeIfAbsent(chave(lancamento), chave -> new double[mesesHistorico]);
+				valores[(int) ChronoUnit.MONTHS.between(inicioHistorico, mes)] += valor;
+			}
+		}
+
+		// Um usuário com pouco histórico é avaliado só nos meses em que já usava o sistema.
+		int janela = (int) ChronoUnit.MONTHS.between(primeiroMes, atual);
+		int deslocamento = mesesHistorico - janela;
+		double[] avulsos = new double[janela];
+		for (Map.Entry<String, double[]> padrao : valoresPorPadrao.entrySet()) {
+			double[] valores = Arrays.copyOfRange(padrao.getValue(), deslocamento, mesesHistorico);
+			int ocorrencias = (int) Arrays.stream(valores).filter(valor -> valor != 0).count();
+			if (ocorrencias >= OCORRENCIAS_MINIMAS) {
+				modelo.padroes.add(Padrao.de(padrao.getKey(), valores, ocorrencias, janela, modelo.pendentesPorMes));
+			} else {
+				for (int i = 0; i < janela; i++) {
+					avulsos[i] += valores[i];
+				}
+			}
+		}
+		if (janela > 0) {
+			modelo.mediaAvulsos = media(avulsos);
+			modelo.desvioAvulsos = desvio(avulsos, modelo.mediaAvulsos);
+		}
+		return modelo;
+	}
+
+	private PrevisaoSaldo resumir(Modelo modelo, BigDecimal saldoAtual, double[][] saldos, boolean[] concluidos, YearMonth atual) {
+		int quantidade = 0;
+		for (boolean concluido : concluidos) {
+			if (concluido) {
+				quantidade++;
+			}
+		}
+
+		List<PrevisaoMensal> meses = new ArrayList<>(saldos.length);
+		double[] valores = new double[quantidade];
+		for (int mes = 0; mes < saldos.length; mes++) {
+			int j = 0;
+			for (int cenario = 0; cenario < concluidos.length; cenario++) {
+				if (concluidos[cenario]) {
+					valores[j++] = saldos[mes][cenario];
+				}
+			}
+			Arrays.sort(valores);
+			YearMonth referencia = atual.plusMonths(mes + 1L);
+			meses.add(PrevisaoMensal.builder()
+					.ano(referencia.getYear())
+					.mes(referencia.getMonthValue())
+					.pendente(dinheiro(modelo.pendentes[mes]))
+					.percentil10(dinheiro(percentil(valores, 0.1)))
+					.mediana(dinheiro(percentil(valores, 0.5)))
+					.percentil90(dinheiro(percentil(valores, 0.9)))
+					.build());
+		}
+
+		return PrevisaoSaldo.builder()
+				.saldoAtual(saldoAtual)
+				.cenarios(quantidade)
+				.interrompida(quantidade < concluidos.length)
+				.meses(meses)
+				.build();
+	}
+
+	private static String chave(Lancamento lancamento) {
+		String descricao = lancamento.getDescricao() == null ? "" : lancamento.getDescricao();
+		return lancamento.getTipo() + "|" + ImpressaoDigitalLancamento.normalizar(descricao);
+	}
+
+	private static double percentil(double[] ordenados, double fracao) {
+		return ordenados[(int) Math.ceil(fracao * ordenados.length) - 1];
+	}
+
+	private static double media(double[] valores) {
+		return Arrays.stream(valores).average().orElse(0);
+	}
+
+	private static double desvio(double[] valores, double media) {
+		return Math.sqrt(Arrays.stream(valores).map(valor -> (valor - media) * (valor - media)).average().orElse(0));
+	}
+
+	private static BigDecimal dinheiro(double valor) {
+		return BigDecimal.valueOf(valor).setScale(2, RoundingMode.HALF_EVEN);
+	}
+
+	/**
+	 * Normal padrão pelo método de Box-Muller; o {@link SplittableRandom} do Java 8 não tem
+	 * {@code nextGaussian}.
+	 */
+	private static double normal(SplittableRandom aleatorio) {
+		return Math.sqrt(-2 * Math.log(1 - aleatorio.nextDouble())) * Math.cos(2 * Math.PI * aleatorio.nextDouble());
+	}
+
+	private static class Modelo {
+
+		final double[] pendentes;
+		final List<Set<String>> pendentesPorMes = new ArrayList<>();
+		final List<Padrao> padroes = new ArrayList<>();
+		double mediaAvulsos;
+		double desvioAvulsos;
+
+		Modelo(int meses) {
+			pendentes = new double[meses];
+			for (int i = 0; i < meses; i++) {
+				pendentesPorMes.add(new HashSet<>());
+			}
+		}
+	}
+
+	private static class Padrao {
+
+		double frequencia;
+		double media;
+		double desvio;
+		double sinal;
+		/**
+		 * Meses em que o lançamento já está pendente e por isso não é sorteado.
+		 */
+		boolean[] lancado;
+
+		static Padrao de(String chave, double[] valores, int ocorrencias, int janela, List<Set<String>> pendentesPorMes) {
+			double[] ocorridos = Arrays.stream(valores).filter(valor -> valor != 0).map(Math::abs).toArray();
+			Padrao padrao = new Padrao();
+			padrao.frequencia = (double) ocorrencias / janela;
+			padrao.media = media(ocorridos);
+			padrao.desvio = desvio(ocorridos, padrao.media);
+			padrao.sinal = chave.startsWith(TipoLancamento.DESPESA.name()) ? -1 : 1;
+			padrao.lancado = new boolean[pendentesPorMes.size()];
+			for (int i = 0; i < padrao.lancado.length; i++) {
+				padrao.lancado[i] = pendentesPorMes.get(i).contains(chave);
+			}
+			return padrao;
+		}
+	}
+
+	/**
+	 * Simula os cenários de {@code inicio} até {@code fim}, dividindo a faixa ao meio enquanto ela
+	 * for maior que {@link #CENARIOS_POR_TAREFA}. Cada cenário tem a sua semente, então o
+	 * resultado não depende de quantas threads participaram.
+	 */
+	private static class Simulacao extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final Modelo modelo;
+		private final double saldoInicial;
+		private final double[][] saldos;
+		private final boolean[] concluidos;
+		private final int inicio;
+		private final int fim;
+		private final long prazo;
+
+		Simulacao(Modelo modelo, double saldoInicial, double[][] saldos, boolean[] concluidos, int inicio, int fim, long prazo) {
+			this.modelo = modelo;
+			this.saldoInicial = saldoInicial;
+			this.saldos = saldos;
+			this.concluidos = concluidos;
+			this.inicio = inicio;
+			this.fim = fim;
+			this.prazo = prazo;
+		}
+
+		@Override
+		protected void compute() {
+			if (fim - inicio > CENARIOS_POR_TAREFA) {
+				int meio = (inicio + fim) >>> 1;
+				invokeAll(new Simulacao(modelo, saldoInicial, saldos, concluidos, inicio, meio, prazo),
+						new Simulacao(modelo, saldoInicial, saldos, concluidos, meio, fim, prazo));
+				return;
+			}
+
+			// O primeiro cenário sempre roda, para que haja ao menos uma faixa mesmo com o orçamento esgotado.
+			for (int cenario = inicio; cenario < fim && (cenario == 0 || System.nanoTime() < prazo); cenario++) {
+				simular(cenario);
+				concluidos[cenario] = true;
+			}
+		}
+
+		private void simular(int cenario) {
+			SplittableRandom aleatorio = new SplittableRandom(cenario);
+			double saldo = saldoInicial;
+			for (int mes = 0; mes < saldos.length; mes++) {
+				saldo += modelo.pendentes[mes];
+				for (Padrao padrao : modelo.padroes) {
+					if (!padrao.lancado[mes] && aleatorio.nextDouble() < padrao.frequencia) {
+						saldo += padrao.sinal * Math.max(0, padrao.media + padrao.desvio * normal(aleatorio));
+					}
+				}
+				saldo += modelo.mediaAvulsos + modelo.desvioAvulsos * normal(aleatorio);
+				saldos[mes][cenario] = saldo;
+			}
+		}
+	}
+}
@@ -0,0 +1,113 @@
+package com.amantovan.minhasfinancas.service.impl;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import org.springframework.stereotype.Component;
+
+import com.amantovan.minhasfinancas.model.entity.ContribuicaoCategoria;
+import com.amantovan.minhasfinancas.model.entity.EventoLancamento;
+import com.amantovan.minhasfinancas.model.entity.GastoCategoria;
+import com.amantovan.minhasfinancas.model.entity.Lancamento;
+import com.amantovan.minhasfinancas.model.enuns.StatusLancamento;
+import com.amantovan.minhasfinancas.model.enuns.TipoLancamento;
+import com.amantovan.minhasfinancas.model.repository.ContribuicaoCategoriaRepository;
+import com.amantovan.minhasfinancas.model.repository.GastoCategoriaRepository;
+import com.amantovan.minhasfinancas.model.repository.LancamentoRepository;
+import com.amantovan.minhasfinancas.service.ProjecaoLancamento;
+
+/**
+ * Mantém o total gasto por categoria e mês, somando apenas a diferença de cada lançamento
+ * alterado em vez de reagregar o histórico do usuário.
+ */
+@Component
+public class ProjecaoGastoCategoria implements ProjecaoLancamento {
+
+	private LancamentoRepository lancamentoRepository;
+	private ContribuicaoCategoriaRepository contribuicaoRepository;
+	private GastoCategoriaRepository gastoRepository;
+	
+	public ProjecaoGastoCategoria(
+			LancamentoRepository lancamentoRepository,
+			ContribuicaoCategoriaRepository contribuicaoRepository,
+			GastoCategoriaRepository gastoRepository) {
+		this.lancamentoRepository = lancamentoRepository;
+		this.contribuicaoRepository = contribuicaoRepository;
+		this.gastoRepository = gastoRepository;
+	}
+	
+	@Override
+	public void aplicar(EventoLancamento evento) {
+		Lancamento lancamento = lancamentoRepository.findById(evento.getIdLancamento())
+				.filter(encontrado -> encontrado.getCategoria() != null && encontrado.getUsuario() != null)
+				.orElse(null);
+		ContribuicaoCategoria anterior = contribuicaoRepository.findById(evento.getIdLancamento()).orElse(null);
+		
+		ContribuicaoCategoria atual = lancamento == null ? null : ContribuicaoCategoria.builder()
+				.idLancamento(lancamento.getId())
+				.idUsuario(lancamento.getUsuario().getId())
+				.idCategoria(lancamento.getCategoria().getId())
+				.ano(lancamento.getAno())
+				.mes(lancamento.getMes())
+				.valor(gasto(lancamento))
+				.build();
+		
+		if (anterior != null && atual != null && mesmoMes(anterior, atual)) {
+			somar(atual, atual.getValor().subtract(anterior.getValor()));
+		} else {
+			if (anterior != null) {
+				somar(anterior, anterior.getValor().negate());
+			}
+			if (atual != null) {
+				somar(atual, atual.getValor());
+			}
+		}
+		
+		if (atual == null) {
+			if (anterior != null) {
+				contribuicaoRepository.delete(anterior);
+			}
+			return;
+		}
+		
+		if (anterior != null) {
+			atual.setVersao(anterior.getVersao());
+		}
+		contribuicaoRepository.save(atual);
+	}
+	
+	private void somar(ContribuicaoCategoria contribuicao, BigDecimal delta) {
+		if (delta.signum() == 0) {
+			return;
+		}
+		
+		GastoCategoria gasto = gastoRepository.findByIdCategoriaAndAnoAndMes(
+					contribuicao.getIdCategoria(), contribuicao.getAno(), contribuicao.getMes())
+				.orElseGet(() -> GastoCategoria.builder()
+						.idUsuario(contribuicao.getIdUsuario())
+						.idCategoria(contribuicao.getIdCategoria())
+						.ano(contribuicao.getAno())
+						.mes(contribuicao.getMes())
+						.valor(BigDecimal.ZERO)
+						.build());
+		gasto.setValor(gasto.getValor().add(delta));
+		gasto.setDataAtualizacao(LocalDateTime.now());
+		gastoRepository.save(gasto);
+	}
+	
+	private static boolean mesmoMes(ContribuicaoCategoria anterior, ContribuicaoCategoria atual) {
+		return anterior.getIdCategoria().equals(atual.getIdCategoria())
+				&& anterior.getAno().equals(atual.getAno())
+				&& anterior.getMes().equals(atual.getMes());
+	}
+	
+	static BigDecimal gasto(Lancamento lancamento) {
+		if (lancamento.getValor() == null 
+				|| lancamento.getTipo() != TipoLancamento.DESPESA
+				|| lancamento.getStatus() != StatusLancamento.EFETIVADO) {
+			return BigDecimal.ZERO;
+		}
+		
+		return lancamento.getValor();
+	}
+}
@@ -0,0 +1,43 @@
+package com.amantovan.minhasfinancas.service.impl;
+
+import java.time.LocalDateTime;
+
+import org.springframework.stereotype.Component;
+
+import com.amantovan.minhasfinancas.model.entity.EventoLancamento;
+import com.amantovan.minhasfinancas.model.entity.LancamentoExcluido;
+import com.amantovan.minhasfinancas.model.enuns.TipoEventoLancamento;
+import com.amantovan.minhasfinancas.model.repository.LancamentoExcluidoRepository;
+import com.amantovan.minhasfinancas.model.repository.LancamentoRepository;
+import com.amantovan.minhasfinancas.service.ProjecaoLancamento;
+
+/**
+ * Deixa a marca de exclusão lida pela sincronização incremental. A data é a da aplicação do
+ * evento, não a da exclusão, para que a marca nunca fique atrás de um cursor já entregue.
+ */
+@Component
+public class ProjecaoLancamentoExcluido implements ProjecaoLancamento {
+
+	private LancamentoRepository lancamentoRepository;
+	private LancamentoExcluidoRepository excluidoRepository;
+
+	public ProjecaoLancamentoExcluido(LancamentoRepository lancamentoRepository,
+			LancamentoExcluidoRepository excluidoRepository) {
+		this.lancamentoRepository = lancamentoRepository;
+		this.excluidoRepository = excluidoRepository;
+	}
+
+	@Override
+	public void aplicar(EventoLancamento evento) {
+		if (evento.getTipo() != TipoEventoLancamento.DELETADO
+				|| excluidoRepository.existsById(evento.getIdLancamento())
+				|| lancamentoRepository.existsById(evento.getIdLancamento())) {
+			return;
+		}
+		excluidoRepository.save(LancamentoExcluido.builder()
+				.idLancamento(evento.getIdLancamento())
+				.idUsuario(evento.getIdUsuario())
+				.dataExclusao(LocalDateTime.now())
+				.build());
+	}
+}
@@ -0,0 +1,89 @@
+package com.amantovan.minhasfinancas.service.impl;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+import org.springframework.stereotype.Component;
+
+import com.amantovan.minhasfinancas.model.entity.ContribuicaoSaldo;
+import com.amantovan.minhasfinancas.model.entity.EventoLancamento;
+import com.amantovan.minhasfinancas.model.entity.Lancamento;
+import com.amantovan.minhasfinancas.model.entity.SaldoUsuario;
+import com.amantovan.minhasfinancas.model.enuns.StatusLancamento;
+import com.amantovan.minhasfinancas.model.enuns.TipoLancamento;
+import com.amantovan.minhasfinancas.model.repository.ContribuicaoSaldoRepository;
+import com.amantovan.minhasfinancas.model.repository.LancamentoRepository;
+import com.amantovan.minhasfinancas.model.repository.SaldoUsuarioRepository;
+import com.amantovan.minhasfinancas.service.ProjecaoLancamento;
+
+@Component
+public class ProjecaoSaldoUsuario implements ProjecaoLancamento {
+
+	private LancamentoRepository lancamentoRepository;
+	private ContribuicaoSaldoRepository contribuicaoRepository;
+	private SaldoUsuarioRepository saldoRepository;
+	
+	public ProjecaoSaldoUsuario(
+			LancamentoRepository lancamentoRepository,
+			ContribuicaoSaldoRepository contribuicaoRepository,
+			SaldoUsuarioRepository saldoRepository) {
+		this.lancamentoRepository = lancamentoRepository;
+		this.contribuicaoRepository = contribuicaoRepository;
+		this.saldoRepository = saldoRepository;
+	}
+	
+	@Override
+	public void aplicar(EventoLancamento evento) {
+		Lancamento lancamento = lancamentoRepository.findById(evento.getIdLancamento()).orElse(null);
+		ContribuicaoSaldo contribuicao = contribuicaoRepository.findById(evento.getIdLancamento()).orElse(null);
+		
+		Long usuarioAnterior = contribuicao == null ? null : contribuicao.getIdUsuario();
+		BigDecimal valorAnterior = contribuicao == null ? BigDecimal.ZERO : contribuicao.getValor();
+		Long usuarioAtual = lancamento == null || lancamento.getUsuario() == null ? null : lancamento.getUsuario().getId();
+		BigDecimal valorAtual = contribuicao(lancamento);
+		
+		if (Objects.equals(usuarioAnterior, usuarioAtual)) {
+			somar(usuarioAtual, valorAtual.subtract(valorAnterior));
+		} else {
+			somar(usuarioAnterior, valorAnterior.negate());
+			somar(usuarioAtual, valorAtual);
+		}
+		
+		if (lancamento == null) {
+			if (contribuicao != null) {
+				contribuicaoRepository.delete(contribuicao);
+			}
+			return;
+		}
+		
+		if (contribuicao == null) {
+			contribuicao = ContribuicaoSaldo.builder().idLancamento(lancamento.getId()).build();
+		}
+		contribuicao.setIdUsuario(usuarioAtual);
+		contribuicao.setValor(valorAtual);
+		contribuicaoRepository.save(contribuicao);
+	}
+	
+	private void somar(Long idUsuario, BigDecimal delta) {
+		if (idUsuario == null || delta.signum() == 0) {
+			return;
+		}
+		
+		SaldoUsuario saldo = saldoRepository.findById(idUsuario)
+				.orElseGet(() -> SaldoUsuario.builder().idUsuario(idUsuario).saldo(BigDecimal.ZERO).build());
+		saldo.setSaldo(saldo.getSaldo().add(delta));
+		saldo.setDataAtualizacao(LocalDateTime.now());
+		saldoRepository.save(saldo);
+	}
+	
+	static BigDecimal contribuicao(Lancamento lancamento) {
+		if (lancamento == null 
+				|| lancamento.getValor() == null 
+				|| lancamento.getStatus() != StatusLancamento.EFETIVADO) {
+			return BigDecimal.ZERO;
+		}
+		
+		return lancamento.getTipo() == TipoLancamento.DESPESA ? lancamento.getValor().negate() : lancamento.getValor();
+	}
+}
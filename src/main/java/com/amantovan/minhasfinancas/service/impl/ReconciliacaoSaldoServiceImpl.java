@@ -0,0 +1,359 @@
+package com.amantovan.minhasfinancas.service.impl;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.amantovan.minhasfinancas.config.datasource.GerenciadorFragmentos;
+import com.amantovan.minhasfinancas.model.entity.ContribuicaoSaldo;
+import com.amantovan.minhasfinancas.model.entity.DivergenciaSaldo;
+import com.amantovan.minhasfinancas.model.entity.Lancamento;
+import com.amantovan.minhasfinancas.model.entity.ParticaoReconciliacao;
+import com.amantovan.minhasfinancas.model.entity.SaldoUsuario;
+import com.amantovan.minhasfinancas.model.enuns.StatusLancamento;
+import com.amantovan.minhasfinancas.model.enuns.TipoLancamento;
+import com.amantovan.minhasfinancas.model.repository.ContribuicaoSaldoRepository;
+import com.amantovan.minhasfinancas.model.repository.DivergenciaSaldoRepository;
+import com.amantovan.minhasfinancas.model.repository.EventoLancamentoRepository;
+import com.amantovan.minhasfinancas.model.repository.LancamentoRepository;
+import com.amantovan.minhasfinancas.model.repository.ParticaoReconciliacaoRepository;
+import com.amantovan.minhasfinancas.model.repository.SaldoUsuarioRepository;
+import com.amantovan.minhasfinancas.model.repository.UsuarioRepository;
+import com.amantovan.minhasfinancas.service.ReconciliacaoSaldoService;
+import com.amantovan.minhasfinancas.service.ResumoReconciliacao;
+
+/**
+ * Confere, de madrugada, o saldo projetado de cada usuário contra a soma dos seus lançamentos
+ * efetivados, registrando e, se configurado, corrigindo as divergências.
+ *
+ * Em cada fragmento, a faixa de ids de usuário é dividida em partições, que são processadas
+ * em paralelo por um conjunto fixo de threads. Com várias instâncias, cada partição é
+ * reivindicada no banco antes de cada página e só é processada pela instância que a detém; a
+ * reivindicação de uma instância que caiu expira depois de
+ * {@code minhasfinancas.reconciliacao.expiracao-reivindicacao-ms}. Duas instâncias que dividem
+ * a faixa ao mesmo tempo colidem na primeira partição, pelo índice único de (data, id inicial),
+ * e a que perde passa a disputar as partições da outra. Um semáforo limita quantas delas usam uma
+ * conexão ao mesmo tempo, para que o job não esgote o pool da aplicação. Cada página de
+ * usuários roda em uma transação que também avança o ponto de retomada da partição; se a
+ * aplicação cair, a próxima execução retoma as partições não concluídas de onde pararam.
+ *
+ * Usuários com eventos ainda não aplicados pela projeção são pulados, já que a diferença
+ * nesse caso é só atraso; eventos que esgotaram as tentativas não impedem a conferência.
+ * A correção refaz, na mesma transação, o saldo e as contribuições de cada lançamento do usuário.
+ */
+@Service
+public class ReconciliacaoSaldoServiceImpl implements ReconciliacaoSaldoService {
+
+	private static final Logger log = LoggerFactory.getLogger(ReconciliacaoSaldoServiceImpl.class);
+
+	private UsuarioRepository usuarioRepository;
+	private LancamentoRepository lancamentoRepository;
+	private SaldoUsuarioRepository saldoRepository;
+	private ContribuicaoSaldoRepository contribuicaoRepository;
+	private EventoLancamentoRepository eventoRepository;
+	private ParticaoReconciliacaoRepository particaoRepository;
+	private DivergenciaSaldoRepository divergenciaRepository;
+	private GerenciadorFragmentos fragmentos;
+	private TransactionTemplate transactionTemplate;
+	private int particoes;
+	private int threads;
+	private Semaphore conexoes;
+	private int tamanhoPagina;
+	private boolean corrigir;
+	private int maximoTentativas;
+	private long expiracaoReivindicacaoMs;
+	private final String instancia = UUID.randomUUID().toString();
+	private final AtomicBoolean emExecucao = new AtomicBoolean();
+
+	public ReconciliacaoSaldoServiceImpl(
+			UsuarioRepository usuarioRepository,
+			LancamentoRepository lancamentoRepository,
+			SaldoUsuarioRepository saldoRepository,
+			ContribuicaoSaldoRepository contribuicaoRepository,
+			EventoLancamentoRepository eventoRepository,
+			ParticaoReconciliacaoRepository particaoRepository,
+			DivergenciaSaldoRepository divergenciaRepository,
+			GerenciadorFragmentos fragmentos,
+			PlatformTransactionManager transactionManager,
+			@Value("${minhasfinancas.reconciliacao.particoes:16}") int particoes,
+			@Value("${minhasfinancas.reconciliacao.threads:4}") int threads,
+			@Value("${minhasfinancas.reconciliacao.conexoes:2}") int conexoes,
+			@Value("${minhasfinancas.reconciliacao.tamanho-pagina:200}") int tamanhoPagina,
+			@Value("${minhasfinancas.reconciliacao.corrigir:true}") boolean corrigir,
+			@Value("${minhasfinancas.outbox.maximo-tentativas:10}") int maximoTentativas,
+			@Value("${minhasfinancas.reconciliacao.expiracao-reivindicacao-ms:600000}") long expiracaoReivindicacaoMs) {
+		this.usuarioRepository = usuarioRepository;
+		this.lancamentoRepository = lancamentoRepository;
+		this.saldoRepository = saldoRepository;
+		this.contribuicaoRepository = contribuicaoRepository;
+		this.eventoRepository = eventoRepository;
+		this.particaoRepository = particaoRepository;
+		this.divergenciaRepository = divergenciaRepository;
+		this.fragmentos = fragmentos;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+		this.particoes = particoes;
+		this.threads = threads;
+		this.conexoes = new Semaphore(conexoes, true);
+		this.tamanhoPagina = tamanhoPagina;
+		this.corrigir = corrigir;
+		this.maximoTentativas = maximoTentativas;
+		this.expiracaoReivindicacaoMs = expiracaoReivindicacaoMs;
+	}
+
+	/**
+	 * Devolve nulo se já houver uma execução em andamento nesta instância.
+	 */
+	@Override
+	@Scheduled(cron = "${minhasfinancas.reconciliacao.cron:0 0 3 * * *}")
+	public ResumoReconciliacao reconciliar() {
+		if (!emExecucao.compareAndSet(false, true)) {
+			log.warn("Reconciliação de saldos já em andamento, ignorando o novo disparo.");
+			return null;
+		}
+
+		long inicio = System.nanoTime();
+		ExecutorService trabalhadores = Executors.newFixedThreadPool(threads, novaThread());
+		try {
+			List<Future<ParticaoReconciliacao>> tarefas = new ArrayList<>();
+			for (int fragmento = 0; fragmento < fragmentos.getQuantidade(); fragmento++) {
+				int atual = fragmento;
+				for (ParticaoReconciliacao particao : particoesDoFragmento(atual)) {
+					tarefas.add(trabalhadores.submit(() -> processar(atual, particao.getId())));
+				}
+			}
+
+			ResumoReconciliacao resumo = ResumoReconciliacao.builder().build();
+			RuntimeException falha = null;
+			for (Future<ParticaoReconciliacao> tarefa : tarefas) {
+				try {
+					ParticaoReconciliacao particao = tarefa.get();
+					if (particao == null) {
+						continue;
+					}
+					resumo.setParticoes(resumo.getParticoes() + 1);
+					resumo.setUsuariosVerificados(resumo.getUsuariosVerificados() + particao.getUsuariosVerificados());
+					resumo.setDivergencias(resumo.getDivergencias() + particao.getDivergencias());
+				} catch (ExecutionException e) {
+					log.error("Falha em uma partição da reconciliação; ela será retomada na próxima execução.", e.getCause());
+					falha = falha == null ? new IllegalStateException("Falha na reconciliação de saldos.", e.getCause()) : falha;
+				}
+			}
+			if (falha != null) {
+				throw falha;
+			}
+
+			resumo.setDuracaoMs(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio));
+			log.info("Reconciliação de saldos concluída: {} partições, {} usuários verificados, {} divergências em {} ms.",
+					resumo.getParticoes(), resumo.getUsuariosVerificados(), resumo.getDivergencias(), resumo.getDuracaoMs());
+			return resumo;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Reconciliação de saldos interrompida.", e);
+		} finally {
+			trabalhadores.shutdownNow();
+			emExecucao.set(false);
+		}
+	}
+
+	private List<ParticaoReconciliacao> particoesDoFragmento(int fragmento) {
+		try {
+			return emTransacao(fragmento, this::prepararParticoes);
+		} catch (DataIntegrityViolationException e) {
+			log.info("Outra instância dividiu o fragmento {} ao mesmo tempo; disputando as partições dela.", fragmento);
+			return emTransacao(fragmento, particaoRepository::findByDataConclusaoIsNullOrderByIdAsc);
+		}
+	}
+
+	/**
+	 * Retoma as partições não concluídas do fragmento ou, se não houver nenhuma, divide a faixa
+	 * atual de ids de usuário em novas partições.
+	 */
+	private List<ParticaoReconciliacao> prepararParticoes() {
+		List<ParticaoReconciliacao> pendentes = particaoRepository.findByDataConclusaoIsNullOrderByIdAsc();
+		if (!pendentes.isEmpty()) {
+			log.info("Retomando {} partições da reconciliação de {}.", pendentes.size(), pendentes.get(0).getDataExecucao());
+			return pendentes;
+		}
+
+		Long menor = usuarioRepository.obterMenorId();
+		if (menor == null) {
+			return Collections.emptyList();
+		}
+		long maior = usuarioRepository.obterMaiorId();
+		long largura = Math.max(1, (maior - menor + particoes) / particoes);
+		List<ParticaoReconciliacao> novas = new ArrayList<>();
+		for (long idInicial = menor; idInicial <= maior; idInicial += largura) {
+			novas.add(ParticaoReconciliacao.builder()
+					.dataExecucao(LocalDate.now())
+					.idInicial(idInicial)
+					.idFinal(Math.min(idInicial + largura, maior + 1))
+					.ultimoIdProcessado(idInicial - 1)
+					.build());
+		}
+		return particaoRepository.saveAll(novas);
+	}
+
+	/**
+	 * Devolve nulo se a partição estiver com outra instância ou já tiver sido concluída por ela.
+	 */
+	private ParticaoReconciliacao processar(int fragmento, Long idParticao) throws InterruptedException {
+		ParticaoReconciliacao particao;
+		do {
+			conexoes.acquire();
+			try {
+				particao = emTransacao(fragmento, () -> processarPagina(idParticao));
+				if (particao == null) {
+					log.info("Partição {} do fragmento {} está com outra instância.", idParticao, fragmento);
+					return null;
+				}
+			} catch (OptimisticLockingFailureException e) {
+				// A projeção atualizou um saldo corrigido nesta página; ela é refeita, agora sem a divergência.
+				log.debug("Conflito ao corrigir saldo na partição {}, refazendo a página.", idParticao, e);
+				particao = null;
+			} finally {
+				conexoes.release();
+			}
+		} while (particao == null || particao.getDataConclusao() == null);
+		return particao;
+	}
+
+	private ParticaoReconciliacao processarPagina(Long idParticao) {
+		LocalDateTime agora = LocalDateTime.now();
+		if (particaoRepository.reivindicar(idParticao, instancia, agora, agora.minus(expiracaoReivindicacaoMs, ChronoUnit.MILLIS)) == 0) {
+			return null;
+		}
+		ParticaoReconciliacao particao = particaoRepository.findById(idParticao)
+				.orElseThrow(() -> new IllegalStateException("Partição da reconciliação não encontrada: " + idParticao));
+		List<Long> usuarios = usuarioRepository.obterIdsAPartirDe(
+				particao.getUltimoIdProcessado(), particao.getIdFinal(), PageRequest.of(0, tamanhoPagina));
+
+		for (Long idUsuario : usuarios) {
+			if (verificar(idUsuario, particao.getDataExecucao())) {
+				particao.setDivergencias(particao.getDivergencias() + 1);
+			}
+			particao.setUsuariosVerificados(particao.getUsuariosVerificados() + 1);
+		}
+		if (!usuarios.isEmpty()) {
+			particao.setUltimoIdProcessado(usuarios.get(usuarios.size() - 1));
+		}
+		if (usuarios.size() < tamanhoPagina) {
+			particao.setDataConclusao(LocalDateTime.now());
+		}
+		return particaoRepository.save(particao);
+	}
+
+	/**
+	 * Devolve verdadeiro se o saldo projetado do usuário divergir do calculado.
+	 */
+	private boolean verificar(Long idUsuario, LocalDate dataExecucao) {
+		if (comEventosPendentes(idUsuario)) {
+			return false;
+		}
+		SaldoUsuario saldo = saldoRepository.findById(idUsuario).orElse(null);
+		BigDecimal projetado = saldo == null ? BigDecimal.ZERO : saldo.getSaldo();
+		BigDecimal calculado = saldoCalculado(idUsuario);
+		// Um lançamento gravado entre as duas leituras deixa um evento pendente e não é divergência.
+		if (projetado.compareTo(calculado) == 0 || comEventosPendentes(idUsuario)) {
+			return false;
+		}
+
+		log.warn("Saldo projetado do usuário {} é {}, mas os lançamentos somam {}.", idUsuario, projetado, calculado);
+		divergenciaRepository.save(DivergenciaSaldo.builder()
+				.dataExecucao(dataExecucao)
+				.idUsuario(idUsuario)
+				.saldoProjetado(projetado)
+				.saldoCalculado(calculado)
+				.corrigido(corrigir)
+				.dataRegistro(LocalDateTime.now())
+				.build());
+		if (corrigir) {
+			if (saldo == null) {
+				saldo = SaldoUsuario.builder().idUsuario(idUsuario).build();
+			}
+			saldo.setSaldo(calculado);
+			saldo.setDataAtualizacao(LocalDateTime.now());
+			saldoRepository.save(saldo);
+			refazerContribuicoes(idUsuario);
+		}
+		return true;
+	}
+
+	/**
+	 * A projeção aplica a diferença entre o valor atual do lançamento e a contribuição gravada;
+	 * corrigir só o saldo faria a divergência voltar no próximo evento do usuário.
+	 */
+	private void refazerContribuicoes(Long idUsuario) {
+		Map<Long, ContribuicaoSaldo> gravadas = new HashMap<>();
+		for (ContribuicaoSaldo contribuicao : contribuicaoRepository.findByIdUsuario(idUsuario)) {
+			gravadas.put(contribuicao.getIdLancamento(), contribuicao);
+		}
+
+		List<ContribuicaoSaldo> refeitas = new ArrayList<>();
+		for (Lancamento lancamento : lancamentoRepository.findByUsuarioIdAndStatusIn(idUsuario, EnumSet.allOf(StatusLancamento.class))) {
+			ContribuicaoSaldo contribuicao = gravadas.remove(lancamento.getId());
+			if (contribuicao == null) {
+				contribuicao = contribuicaoRepository.findById(lancamento.getId())
+						.orElseGet(() -> ContribuicaoSaldo.builder().idLancamento(lancamento.getId()).build());
+			}
+			contribuicao.setIdUsuario(idUsuario);
+			contribuicao.setValor(ProjecaoSaldoUsuario.contribuicao(lancamento));
+			refeitas.add(contribuicao);
+		}
+		contribuicaoRepository.saveAll(refeitas);
+		contribuicaoRepository.deleteAll(gravadas.values());
+	}
+
+	private BigDecimal saldoCalculado(Long idUsuario) {
+		BigDecimal receitas = lancamentoRepository.obterSaldoPorTipoLancamentoEUsuarioEStatus(idUsuario, TipoLancamento.RECEITA, StatusLancamento.EFETIVADO);
+		BigDecimal despesas = lancamentoRepository.obterSaldoPorTipoLancamentoEUsuarioEStatus(idUsuario, TipoLancamento.DESPESA, StatusLancamento.EFETIVADO);
+		return (receitas == null ? BigDecimal.ZERO : receitas).subtract(despesas == null ? BigDecimal.ZERO : despesas);
+	}
+
+	private boolean comEventosPendentes(Long idUsuario) {
+		return eventoRepository.existsByIdUsuarioAndDataProcessamentoIsNullAndTentativasLessThan(idUsuario, maximoTentativas);
+	}
+
+	private <T> T emTransacao(int fragmento, Supplier<T> acao) {
+		return fragmentos.comFragmento(fragmento, () -> transactionTemplate.execute(status -> acao.get()));
+	}
+
+	private static ThreadFactory novaThread() {
+		AtomicInteger contador = new AtomicInteger();
+		return tarefa -> {
+			Thread thread = new Thread(tarefa, "reconciliacao-saldo-" + contador.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		};
+	}
+}
@@ -0,0 +1,148 @@
+package com.amantovan.minhasfinancas.service.impl;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.PreDestroy;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.amantovan.minhasfinancas.exception.ServicoSobrecarregadoException;
+import com.amantovan.minhasfinancas.service.SenhaService;
+
+/**
+ * Senhas em PBKDF2-HMAC-SHA256 com salt aleatório, gravadas como
+ * {@code pbkdf2-sha256$iterações$salt$hash}. O número de iterações é o custo e fica no próprio
+ * valor, então pode ser aumentado sem invalidar as senhas existentes.
+ *
+ * O cálculo roda em um pool próprio com fila limitada: uma rajada de logins espera na fila ou é
+ * recusada com {@link ServicoSobrecarregadoException}, em vez de ocupar todas as threads de
+ * requisição com hashes lentos.
+ */
+@Service
+public class SenhaServiceImpl implements SenhaService {
+
+	private static final String ALGORITMO = "PBKDF2WithHmacSHA256";
+	private static final String PREFIXO = "pbkdf2-sha256";
+	private static final String SEPARADOR = "$";
+	private static final int TAMANHO_SALT = 16;
+	private static final int TAMANHO_HASH_BITS = 256;
+
+	private final SecureRandom aleatorio = new SecureRandom();
+	private final int iteracoes;
+	private final long timeoutMs;
+	private final ThreadPoolExecutor executor;
+
+	public SenhaServiceImpl(
+			@Value("${minhasfinancas.senha.iteracoes:310000}") int iteracoes,
+			@Value("${minhasfinancas.senha.threads:0}") int threads,
+			@Value("${minhasfinancas.senha.capacidade-fila:64}") int capacidadeFila,
+			@Value("${minhasfinancas.senha.timeout-ms:5000}") long timeoutMs) {
+		int quantidade = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+		this.iteracoes = iteracoes;
+		this.timeoutMs = timeoutMs;
+		this.executor = new ThreadPoolExecutor(quantidade, quantidade, 0, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(capacidadeFila), novaThread(), new ThreadPoolExecutor.AbortPolicy());
+	}
+
+	@Override
+	public String codificar(String senha) {
+		if (senha == null) {
+			return null;
+		}
+		byte[] salt = new byte[TAMANHO_SALT];
+		aleatorio.nextBytes(salt);
+		byte[] hash = executar(() -> derivar(senha, salt, iteracoes));
+		Base64.Encoder base64 = Base64.getEncoder().withoutPadding();
+		return PREFIXO + SEPARADOR + iteracoes + SEPARADOR + base64.encodeToString(salt) + SEPARADOR + base64.encodeToString(hash);
+	}
+
+	@Override
+	public boolean confere(String senha, String codificada) {
+		if (senha == null || codificada == null) {
+			return false;
+		}
+		if (!codificada.startsWith(PREFIXO + SEPARADOR)) {
+			return MessageDigest.isEqual(senha.getBytes(StandardCharsets.UTF_8), codificada.getBytes(StandardCharsets.UTF_8));
+		}
+
+		String[] partes = codificada.split("\\$");
+		if (partes.length != 4) {
+			return false;
+		}
+		int custo = Integer.parseInt(partes[1]);
+		byte[] salt = Base64.getDecoder().decode(partes[2]);
+		byte[] esperado = Base64.getDecoder().decode(partes[3]);
+		byte[] hash = executar(() -> derivar(senha, salt, custo));
+		return MessageDigest.isEqual(esperado, hash);
+	}
+
+	@Override
+	public boolean precisaRecodificar(String codificada) {
+		return codificada != null && !codificada.startsWith(PREFIXO + SEPARADOR + iteracoes + SEPARADOR);
+	}
+
+	public int getIteracoes() {
+		return iteracoes;
+	}
+
+	@PreDestroy
+	public void encerrar() {
+		executor.shutdownNow();
+	}
+
+	private byte[] executar(Callable<byte[]> calculo) {
+		Future<byte[]> resultado;
+		try {
+			resultado = executor.submit(calculo);
+		} catch (RejectedExecutionException e) {
+			throw new ServicoSobrecarregadoException("Muitas autenticações em andamento, tente novamente em instantes.");
+		}
+		try {
+			return resultado.get(timeoutMs, TimeUnit.MILLISECONDS);
+		} catch (TimeoutException e) {
+			resultado.cancel(true);
+			throw new ServicoSobrecarregadoException("Muitas autenticações em andamento, tente novamente em instantes.");
+		} catch (InterruptedException e) {
+			resultado.cancel(true);
+			Thread.currentThread().interrupt();
+			throw new ServicoSobrecarregadoException("Autenticação interrompida.");
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Falha ao calcular o hash da senha", e.getCause());
+		}
+	}
+
+	private static byte[] derivar(String senha, byte[] salt, int iteracoes) throws GeneralSecurityException {
+		PBEKeySpec especificacao = new PBEKeySpec(senha.toCharArray(), salt, iteracoes, TAMANHO_HASH_BITS);
+		try {
+			return SecretKeyFactory.getInstance(ALGORITMO).generateSecret(especificacao).getEncoded();
+		} finally {
+			especificacao.clearPassword();
+		}
+	}
+
+	private static ThreadFactory novaThread() {
+		AtomicInteger contador = new AtomicInteger();
+		return tarefa -> {
+			Thread thread = new Thread(tarefa, "credenciais-" + contador.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		};
+	}
+}
@@ -0,0 +1,172 @@
+package com.amantovan.minhasfinancas.service.impl;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.amantovan.minhasfinancas.config.datasource.ContextoRoteamento;
+import com.amantovan.minhasfinancas.config.datasource.GerenciadorFragmentos;
+import com.amantovan.minhasfinancas.exception.RegraNegocioException;
+import com.amantovan.minhasfinancas.exception.TokenSincronizacaoExpiradoException;
+import com.amantovan.minhasfinancas.model.entity.Lancamento;
+import com.amantovan.minhasfinancas.model.entity.LancamentoExcluido;
+import com.amantovan.minhasfinancas.model.repository.LancamentoExcluidoRepository;
+import com.amantovan.minhasfinancas.model.repository.LancamentoRepository;
+import com.amantovan.minhasfinancas.service.AlteracoesLancamento;
+import com.amantovan.minhasfinancas.service.SincronizacaoLancamentoService;
+
+/**
+ * Percorre alterações e exclusões do usuário pelo cursor (data, id), juntando as duas em uma
+ * única sequência ordenada. O custo de cada sincronização depende só do que mudou desde o token.
+ *
+ * Só entra na resposta o que foi gravado até alguns segundos atrás: uma transação que ainda não
+ * fez commit pode ter carimbado uma data anterior à do último registro visível, e sem essa
+ * margem o cursor passaria por ela.
+ */
+@Service
+public class SincronizacaoLancamentoServiceImpl implements SincronizacaoLancamentoService {
+
+	private static final Logger log = LoggerFactory.getLogger(SincronizacaoLancamentoServiceImpl.class);
+
+	/**
+	 * Data dos lançamentos gravados antes do controle de alterações.
+	 */
+	static final LocalDateTime INICIO = LocalDateTime.of(1970, 1, 1, 0, 0);
+	private static final String SEPARADOR = "|";
+
+	private LancamentoRepository lancamentoRepository;
+	private LancamentoExcluidoRepository excluidoRepository;
+	private GerenciadorFragmentos fragmentos;
+	private long margemMs;
+	private int tamanhoMaximo;
+	private int retencaoDias;
+
+	public SincronizacaoLancamentoServiceImpl(
+			LancamentoRepository lancamentoRepository,
+			LancamentoExcluidoRepository excluidoRepository,
+			GerenciadorFragmentos fragmentos,
+			@Value("${minhasfinancas.sincronizacao.margem-ms:5000}") long margemMs,
+			@Value("${minhasfinancas.sincronizacao.tamanho-maximo:500}") int tamanhoMaximo,
+			@Value("${minhasfinancas.sincronizacao.retencao-dias:90}") int retencaoDias) {
+		this.lancamentoRepository = lancamentoRepository;
+		this.excluidoRepository = excluidoRepository;
+		this.fragmentos = fragmentos;
+		this.margemMs = margemMs;
+		this.tamanhoMaximo = tamanhoMaximo;
+		this.retencaoDias = retencaoDias;
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public AlteracoesLancamento buscarAlteracoes(Long idUsuario, String token, int tamanho) {
+		if (tamanho < 1 || tamanho > tamanhoMaximo) {
+			throw new RegraNegocioException("Informe um tamanho de página entre 1 e " + tamanhoMaximo + ".");
+		}
+		LocalDateTime agora = LocalDateTime.now();
+		Cursor desde = token == null ? new Cursor(INICIO, 0l) : Cursor.ler(token);
+		if (token != null && desde.data.isBefore(agora.minusDays(retencaoDias))) {
+			throw new TokenSincronizacaoExpiradoException(
+					"Token de sincronização expirado, sincronize novamente sem o token.");
+		}
+
+		ContextoRoteamento.definirUsuario(idUsuario);
+		LocalDateTime limite = agora.minusNanos(margemMs * 1_000_000);
+		PageRequest pagina = PageRequest.of(0, tamanho + 1);
+		List<Lancamento> alterados = lancamentoRepository.buscarAlteradosDesde(idUsuario, desde.data, desde.id, limite, pagina);
+		List<LancamentoExcluido> excluidos = excluidoRepository.buscarExcluidosDesde(idUsuario, desde.data, desde.id, limite, pagina);
+
+		List<Lancamento> paginaAlterados = new ArrayList<>();
+		List<Long> paginaExcluidos = new ArrayList<>();
+		Cursor ultimo = desde;
+		int a = 0;
+		int e = 0;
+		while (paginaAlterados.size() + paginaExcluidos.size() < tamanho && (a < alterados.size() || e < excluidos.size())) {
+			Cursor alterado = a < alterados.size() ? Cursor.de(alterados.get(a)) : null;
+			Cursor excluido = e < excluidos.size() ? Cursor.de(excluidos.get(e)) : null;
+			if (excluido == null || (alterado != null && alterado.compareTo(excluido) <= 0)) {
+				paginaAlterados.add(alterados.get(a++));
+				ultimo = alterado;
+			} else {
+				paginaExcluidos.add(excluidos.get(e++).getIdLancamento());
+				ultimo = excluido;
+			}
+		}
+
+		boolean maisAlteracoes = a < alterados.size() || e < excluidos.size();
+		// Em dia, o cursor avança até o limite, para que um cliente sem alterações não fique com um token antigo.
+		Cursor proximo = maisAlteracoes || ultimo.data.isAfter(limite) ? ultimo : new Cursor(limite, Long.MAX_VALUE);
+		return AlteracoesLancamento.builder()
+				.alterados(paginaAlterados)
+				.excluidos(paginaExcluidos)
+				.token(proximo.escrever())
+				.maisAlteracoes(maisAlteracoes)
+				.build();
+	}
+
+	@Override
+	@Scheduled(cron = "${minhasfinancas.sincronizacao.limpeza:0 30 3 * * *}")
+	public int removerExclusoesAntigas() {
+		LocalDateTime limite = LocalDateTime.now().minusDays(retencaoDias);
+		int total = 0;
+		for (int fragmento = 0; fragmento < fragmentos.getQuantidade(); fragmento++) {
+			try {
+				total += fragmentos.noFragmento(fragmento, () -> excluidoRepository.removerAnteriores(limite));
+			} catch (DataAccessException ex) {
+				log.warn("Não foi possível remover as exclusões antigas do fragmento {}", fragmento, ex);
+			}
+		}
+		return total;
+	}
+
+	private static final class Cursor implements Comparable<Cursor> {
+
+		private final LocalDateTime data;
+		private final Long id;
+
+		Cursor(LocalDateTime data, Long id) {
+			this.data = data;
+			this.id = id;
+		}
+
+		static Cursor de(Lancamento lancamento) {
+			return new Cursor(lancamento.getDataAtualizacao(), lancamento.getId());
+		}
+
+		static Cursor de(LancamentoExcluido excluido) {
+			return new Cursor(excluido.getDataExclusao(), excluido.getIdLancamento());
+		}
+
+		static Cursor ler(String token) {
+			try {
+				String texto = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+				int separador = texto.indexOf(SEPARADOR);
+				return new Cursor(LocalDateTime.parse(texto.substring(0, separador)), Long.valueOf(texto.substring(separador + 1)));
+			} catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+				throw new RegraNegocioException("Token de sincronização inválido.");
+			}
+		}
+
+		String escrever() {
+			return Base64.getUrlEncoder().withoutPadding()
+					.encodeToString((data + SEPARADOR + id).getBytes(StandardCharsets.UTF_8));
+		}
+
+		@Override
+		public int compareTo(Cursor outro) {
+			int comparacao = data.compareTo(outro.data);
+			return comparacao != 0 ? comparacao : id.compareTo(outro.id);
+		}
+	}
+}
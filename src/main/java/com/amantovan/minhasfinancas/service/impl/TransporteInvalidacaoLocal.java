@@ -0,0 +1,32 @@
+package com.amantovan.minhasfinancas.service.impl;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import com.amantovan.minhasfinancas.service.TipoInvalidacao;
+import com.amantovan.minhasfinancas.service.TransporteInvalidacao;
+
+/**
+ * Entrega as mensagens, na própria thread do envio, aos assinantes do mesmo processo. Serve
+ * para uma instância só e para os testes, em que vários barramentos compartilham o transporte
+ * como se fossem instâncias diferentes.
+ */
+public class TransporteInvalidacaoLocal implements TransporteInvalidacao {
+
+	private final List<Receptor> receptores = new CopyOnWriteArrayList<>();
+
+	@Override
+	public void enviar(String origem, TipoInvalidacao tipo, Collection<Long> usuarios) {
+		Set<Long> mensagem = Collections.unmodifiableSet(new LinkedHashSet<>(usuarios));
+		receptores.forEach(receptor -> receptor.receber(origem, tipo, mensagem));
+	}
+
+	@Override
+	public void assinar(Receptor receptor, Runnable aoPerderMensagens) {
+		receptores.add(receptor);
+	}
+}
@@ -0,0 +1,174 @@
+package com.amantovan.minhasfinancas.service.impl;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import javax.sql.DataSource;
+
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.amantovan.minhasfinancas.config.datasource.GerenciadorFragmentos;
+import com.amantovan.minhasfinancas.service.TipoInvalidacao;
+import com.amantovan.minhasfinancas.service.TransporteInvalidacao;
+
+/**
+ * Envia as invalidações com {@code NOTIFY} no banco do fragmento 0 e as recebe com
+ * {@code LISTEN} em uma thread própria, que mantém uma conexão do pool presa enquanto a
+ * aplicação estiver no ar. Cada mensagem leva a origem e os ids separados por vírgula e é
+ * dividida para caber no limite de 8000 bytes do {@code NOTIFY}. Os ids de um
+ * {@link TipoInvalidacao#CADASTRO} vêm depois de {@code cadastro:}; as alterações mantêm o
+ * formato sem tipo, que as versões anteriores entendem, e elas descartam os cadastros como
+ * mensagens mal formadas.
+ *
+ * O Postgres não guarda as notificações de quem não estava escutando, então a cada
+ * (re)conexão os assinantes são avisados de que podem ter perdido mensagens.
+ */
+public class TransporteInvalidacaoPostgres implements TransporteInvalidacao, AutoCloseable {
+
+	private static final Logger log = LoggerFactory.getLogger(TransporteInvalidacaoPostgres.class);
+
+	private static final Pattern CANAL_VALIDO = Pattern.compile("[a-z_][a-z0-9_]*");
+	private static final int TAMANHO_MAXIMO_MENSAGEM = 7900;
+	private static final int ESPERA_NOTIFICACOES_MS = 500;
+	private static final char SEPARADOR_ORIGEM = ';';
+	private static final String PREFIXO_CADASTRO = "cadastro:";
+
+	private final DataSource dataSource;
+	private final JdbcTemplate jdbcTemplate;
+	private final GerenciadorFragmentos fragmentos;
+	private final String canal;
+	private final long esperaReconexaoMs;
+	private volatile boolean ativo = true;
+
+	public TransporteInvalidacaoPostgres(DataSource dataSource, GerenciadorFragmentos fragmentos, String canal,
+			long esperaReconexaoMs) {
+		if (!CANAL_VALIDO.matcher(canal).matches()) {
+			throw new IllegalStateException("Canal de invalidação inválido: " + canal);
+		}
+		this.dataSource = dataSource;
+		this.jdbcTemplate = new JdbcTemplate(dataSource);
+		this.fragmentos = fragmentos;
+		this.canal = canal;
+		this.esperaReconexaoMs = esperaReconexaoMs;
+	}
+
+	@Override
+	public void enviar(String origem, TipoInvalidacao tipo, Collection<Long> usuarios) {
+		for (String mensagem : mensagens(origem, tipo, usuarios)) {
+			fragmentos.comFragmento(0, () -> {
+				jdbcTemplate.query("select pg_notify(?, ?)", resultado -> { }, canal, mensagem);
+				return null;
+			});
+		}
+	}
+
+	@Override
+	public void assinar(Receptor receptor, Runnable aoPerderMensagens) {
+		Thread ouvinte = new Thread(() -> escutar(receptor, aoPerderMensagens), "invalidacao-" + canal);
+		ouvinte.setDaemon(true);
+		ouvinte.start();
+	}
+
+	@Override
+	public void close() {
+		ativo = false;
+	}
+
+	private void escutar(Receptor receptor, Runnable aoPerderMensagens) {
+		while (ativo) {
+			try {
+				fragmentos.comFragmento(0, () -> {
+					escutarConexao(receptor, aoPerderMensagens);
+					return null;
+				});
+			} catch (RuntimeException e) {
+				log.warn("Escuta das invalidações no canal {} interrompida; reconectando em {} ms", canal, esperaReconexaoMs, e);
+			}
+			try {
+				Thread.sleep(esperaReconexaoMs);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+		}
+	}
+
+	private void escutarConexao(Receptor receptor, Runnable aoPerderMensagens) {
+		try (Connection conexao = dataSource.getConnection(); Statement comando = conexao.createStatement()) {
+			comando.execute("LISTEN " + canal);
+			PGConnection postgres = conexao.unwrap(PGConnection.class);
+			aoPerderMensagens.run();
+			while (ativo) {
+				PGNotification[] notificacoes = postgres.getNotifications(ESPERA_NOTIFICACOES_MS);
+				if (notificacoes == null) {
+					continue;
+				}
+				for (PGNotification notificacao : notificacoes) {
+					receber(notificacao.getParameter(), receptor);
+				}
+			}
+		} catch (SQLException e) {
+			throw new IllegalStateException("Falha na conexão de escuta das invalidações", e);
+		}
+	}
+
+	private static void receber(String mensagem, Receptor receptor) {
+		int separador = mensagem == null ? -1 : mensagem.indexOf(SEPARADOR_ORIGEM);
+		Set<Long> usuarios = new LinkedHashSet<>();
+		TipoInvalidacao tipo = TipoInvalidacao.ALTERACAO;
+		if (separador > 0) {
+			String ids = mensagem.substring(separador + 1);
+			if (ids.startsWith(PREFIXO_CADASTRO)) {
+				tipo = TipoInvalidacao.CADASTRO;
+				ids = ids.substring(PREFIXO_CADASTRO.length());
+			}
+			try {
+				for (String id : ids.split(",")) {
+					usuarios.add(Long.valueOf(id));
+				}
+			} catch (NumberFormatException e) {
+				usuarios.clear();
+			}
+		}
+		if (usuarios.isEmpty()) {
+			log.warn("Mensagem de invalidação mal formada ignorada: {}", mensagem);
+			return;
+		}
+		receptor.receber(mensagem.substring(0, separador), tipo, usuarios);
+	}
+
+	private static List<String> mensagens(String origem, TipoInvalidacao tipo, Collection<Long> usuarios) {
+		List<String> mensagens = new ArrayList<>();
+		StringBuilder atual = new StringBuilder(origem).append(SEPARADOR_ORIGEM);
+		if (tipo == TipoInvalidacao.CADASTRO) {
+			atual.append(PREFIXO_CADASTRO);
+		}
+		int inicio = atual.length();
+		for (Long usuario : usuarios) {
+			String id = usuario.toString();
+			if (atual.length() > inicio && atual.length() + id.length() + 1 > TAMANHO_MAXIMO_MENSAGEM) {
+				mensagens.add(atual.toString());
+				atual.setLength(inicio);
+			}
+			if (atual.length() > inicio) {
+				atual.append(',');
+			}
+			atual.append(id);
+		}
+		if (atual.length() > inicio) {
+			mensagens.add(atual.toString());
+		}
+		return mensagens;
+	}
+}
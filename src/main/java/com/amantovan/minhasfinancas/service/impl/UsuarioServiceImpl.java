@@ -2,51 +2,104 @@ package com.amantovan.minhasfinancas.service.impl;
 
 import java.util.Optional;
 
-
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import com.amantovan.minhasfinancas.config.datasource.ContextoRoteamento;
+import com.amantovan.minhasfinancas.config.datasource.GerenciadorFragmentos;
 import com.amantovan.minhasfinancas.exception.ErroAutenticacao;
 import com.amantovan.minhasfinancas.exception.RegraNegocioException;
 import com.amantovan.minhasfinancas.model.entity.Usuario;
 import com.amantovan.minhasfinancas.model.repository.UsuarioRepository;
+import com.amantovan.minhasfinancas.service.BarramentoInvalidacaoService;
+import com.amantovan.minhasfinancas.service.FiltroEmailService;
+import com.amantovan.minhasfinancas.service.SenhaService;
 import com.amantovan.minhasfinancas.service.UsuarioService;
 
 @Service
 public class UsuarioServiceImpl implements UsuarioService{
 
+	private static final Logger log = LoggerFactory.getLogger(UsuarioServiceImpl.class);
+
 	private UsuarioRepository repository;
+	private FiltroEmailService filtroEmail;
+	private GerenciadorFragmentos fragmentos;
+	private SenhaService senhaService;
+	private BarramentoInvalidacaoService invalidacao;
+	private TransactionTemplate transactionTemplate;
 	
-	public UsuarioServiceImpl(UsuarioRepository repository) {
+	public UsuarioServiceImpl(UsuarioRepository repository, FiltroEmailService filtroEmail, GerenciadorFragmentos fragmentos,
+			SenhaService senhaService, BarramentoInvalidacaoService invalidacao, PlatformTransactionManager transactionManager) {
 		super();
 		this.repository = repository;
+		this.filtroEmail = filtroEmail;
+		this.fragmentos = fragmentos;
+		this.senhaService = senhaService;
+		this.invalidacao = invalidacao;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
 	}
 
 	@Override
 	public Usuario autenticar(String email, String senha) {
-		Optional<Usuario> usuario = repository.findByEmail(email);
+		if(!filtroEmail.podeExistir(email)) {
+			throw new ErroAutenticacao("Usuario não encontrado para o email informado.");
+		}
+		
+		Optional<Usuario> usuario = fragmentos.buscar(fragmentos.fragmentoParaNovoUsuario(email), () -> repository.findByEmail(email));
 		
 		if(!usuario.isPresent()) {
+			filtroEmail.registrarFalsoPositivo();
 			throw new ErroAutenticacao("Usuario não encontrado para o email informado.");
 		}
 		
-		if(!senha.equals(usuario.get().getSenha())) {
+		String senhaGravada = usuario.get().getSenha();
+		if(!senhaService.confere(senha, senhaGravada)) {
 			throw new ErroAutenticacao("Senha inválida.");
 		}
 		
+		if(senhaService.precisaRecodificar(senhaGravada)) {
+			recodificarSenha(usuario.get().getId(), senha, senhaGravada);
+		}
+		
 		return usuario.get();
 	}
 
+	/**
+	 * A senha é codificada antes de a transação abrir, para que a derivação, que pode esperar na
+	 * fila do {@link SenhaService}, não prenda uma conexão do pool.
+	 */
 	@Override
-	@Transactional
 	public Usuario salvarUsuario(Usuario usuario) {
 		validarEmail(usuario.getEmail());
-		return repository.save(usuario);
+		usuario.setSenha(senhaService.codificar(usuario.getSenha()));
+		return transactionTemplate.execute(status -> gravar(usuario));
+	}
+	
+	private Usuario gravar(Usuario usuario) {
+		Usuario usuarioSalvo;
+		try {
+			usuarioSalvo = fragmentos.comFragmento(fragmentos.fragmentoParaNovoUsuario(usuario.getEmail()), () -> repository.save(usuario));
+		} catch (DataIntegrityViolationException e) {
+			throw new RegraNegocioException("Já existe um usuário cadastrado com este email.");
+		}
+		filtroEmail.adicionar(usuarioSalvo.getEmail());
+		invalidacao.publicar(usuarioSalvo.getId());
+		invalidacao.publicarCadastro(usuarioSalvo.getId());
+		return usuarioSalvo;
 	}
 
+	/**
+	 * Sempre consulta o banco: o filtro de emails pode não ter recebido um cadastro feito em
+	 * outra instância, e aqui um falso negativo criaria uma conta duplicada. O índice único de
+	 * {@code email} cobre os cadastros concorrentes.
+	 */
 	@Override
 	public void validarEmail(String email) {
-		boolean existe = repository.existsByEmail(email);	
+		boolean existe = fragmentos.emTodos(() -> repository.existsByEmail(email)).contains(true);
 		if (existe) {
 			throw new RegraNegocioException("Já existe um usuário cadastrado com este email.");
 		}
@@ -54,7 +107,23 @@ public class UsuarioServiceImpl implements UsuarioService{
 	
 	@Override
 	public Optional<Usuario> obterPorId(Long id){
+		ContextoRoteamento.definirUsuario(id);
 		return repository.findById(id);
 	}
+	
+	/**
+	 * Regrava a senha com o custo atual, aproveitando que ela acabou de ser conferida. Uma falha aqui
+	 * não impede o login: a senha antiga continua válida e a troca é tentada de novo no próximo.
+	 */
+	private void recodificarSenha(Long id, String senha, String senhaGravada) {
+		try {
+			ContextoRoteamento.definirUsuario(id);
+			if (repository.recodificarSenha(id, senhaGravada, senhaService.codificar(senha)) > 0) {
+				invalidacao.publicar(id);
+			}
+		} catch (RuntimeException e) {
+			log.warn("Não foi possível recodificar a senha do usuário {}", id, e);
+		}
+	}
 
 }
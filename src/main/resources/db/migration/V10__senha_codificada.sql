@@ -0,0 +1,2 @@
+-- As senhas passam a ser gravadas como pbkdf2-sha256$iterações$salt$hash.
+alter table financas.usuario alter column senha type varchar(255);
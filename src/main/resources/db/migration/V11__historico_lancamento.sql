@@ -0,0 +1,21 @@
+create table financas.historico_lancamento (
+	id bigserial primary key,
+	id_lancamento bigint,
+	id_usuario bigint,
+	tipo varchar(20),
+	status varchar(20),
+	valor numeric(19, 2),
+	data timestamp
+);
+
+create index idx_historico_lancamento_usuario_data on financas.historico_lancamento (id_usuario, data);
+create index idx_historico_lancamento_lancamento on financas.historico_lancamento (id_lancamento, id);
+
+create table financas.saldo_consolidado (
+	id bigserial primary key,
+	id_usuario bigint,
+	data timestamp,
+	saldo numeric(19, 2)
+);
+
+create index idx_saldo_consolidado_usuario_data on financas.saldo_consolidado (id_usuario, data);
@@ -0,0 +1,5 @@
+alter table financas.particao_reconciliacao add column responsavel varchar(100);
+alter table financas.particao_reconciliacao add column data_reivindicacao timestamp;
+
+alter table financas.particao_reconciliacao
+	add constraint uk_particao_reconciliacao_inicio unique (data_execucao, id_inicial);
@@ -0,0 +1,20 @@
+-- Esquema anterior às migrações. Bancos que já o têm são marcados nesta versão pelo
+-- spring.flyway.baseline-on-migrate e seguem a partir da V2.
+create table financas.usuario (
+	id bigserial primary key,
+	nome varchar(150),
+	email varchar(100),
+	senha varchar(255)
+);
+
+create table financas.lancamento (
+	id bigserial primary key,
+	descricao varchar(100),
+	mes integer,
+	ano integer,
+	id_usuario bigint references financas.usuario (id),
+	valor numeric(19, 2),
+	data_cadastro date,
+	tipo varchar(20),
+	status varchar(20)
+);
@@ -0,0 +1,25 @@
+create table financas.evento_lancamento (
+	id bigserial primary key,
+	id_lancamento bigint,
+	id_usuario bigint,
+	tipo varchar(20),
+	data_criacao timestamp,
+	data_processamento timestamp,
+	tentativas integer not null default 0
+);
+
+create index idx_evento_lancamento_pendente on financas.evento_lancamento (data_processamento, id);
+
+create table financas.saldo_usuario (
+	id_usuario bigint primary key,
+	saldo numeric(19, 2),
+	data_atualizacao timestamp,
+	versao bigint
+);
+
+create table financas.contribuicao_saldo (
+	id_lancamento bigint primary key,
+	id_usuario bigint,
+	valor numeric(19, 2),
+	versao bigint
+);
@@ -0,0 +1,2 @@
+-- Falha se já houver emails repetidos, que precisam ser resolvidos antes da migração.
+alter table financas.usuario add constraint uk_usuario_email unique (email);
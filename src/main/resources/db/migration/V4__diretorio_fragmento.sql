@@ -0,0 +1,5 @@
+-- Só é usada no fragmento 0, mas existe em todos para que o esquema seja o mesmo.
+create table financas.diretorio_fragmento (
+	id_usuario bigint primary key,
+	fragmento integer
+);
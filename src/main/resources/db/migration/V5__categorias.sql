@@ -0,0 +1,44 @@
+create table financas.categoria (
+	id bigserial primary key,
+	nome varchar(255),
+	id_usuario bigint references financas.usuario (id),
+	constraint uk_categoria_usuario_nome unique (id_usuario, nome)
+);
+
+alter table financas.lancamento add column id_categoria bigint references financas.categoria (id);
+
+create table financas.orcamento_categoria (
+	id bigserial primary key,
+	id_usuario bigint,
+	id_categoria bigint,
+	ano integer,
+	mes integer,
+	valor numeric(19, 2),
+	constraint uk_orcamento_categoria_mes unique (id_categoria, ano, mes)
+);
+
+create index idx_orcamento_categoria_usuario on financas.orcamento_categoria (id_usuario, ano, mes);
+
+create table financas.gasto_categoria (
+	id bigserial primary key,
+	id_usuario bigint,
+	id_categoria bigint,
+	ano integer,
+	mes integer,
+	valor numeric(19, 2),
+	data_atualizacao timestamp,
+	versao bigint,
+	constraint uk_gasto_categoria_mes unique (id_categoria, ano, mes)
+);
+
+create index idx_gasto_categoria_usuario on financas.gasto_categoria (id_usuario, ano, mes);
+
+create table financas.contribuicao_categoria (
+	id_lancamento bigint primary key,
+	id_usuario bigint,
+	id_categoria bigint,
+	ano integer,
+	mes integer,
+	valor numeric(19, 2),
+	versao bigint
+);
@@ -0,0 +1,4 @@
+alter table financas.lancamento add column impressao_digital varchar(64);
+
+-- Lançamentos fora da importação têm impressão nula e não entram na restrição.
+alter table financas.lancamento add constraint uk_lancamento_impressao_digital unique (id_usuario, impressao_digital);
@@ -0,0 +1,24 @@
+create table financas.divergencia_saldo (
+	id bigserial primary key,
+	data_execucao date,
+	id_usuario bigint,
+	saldo_projetado numeric(19, 2),
+	saldo_calculado numeric(19, 2),
+	corrigido boolean not null default false,
+	data_registro timestamp
+);
+
+create index idx_divergencia_saldo_execucao on financas.divergencia_saldo (data_execucao);
+
+create table financas.particao_reconciliacao (
+	id bigserial primary key,
+	data_execucao date,
+	id_inicial bigint,
+	id_final bigint,
+	ultimo_id_processado bigint,
+	usuarios_verificados integer not null default 0,
+	divergencias integer not null default 0,
+	data_conclusao timestamp
+);
+
+create index idx_particao_reconciliacao_pendente on financas.particao_reconciliacao (data_conclusao);
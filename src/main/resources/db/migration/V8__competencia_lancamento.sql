@@ -0,0 +1,5 @@
+-- Os lançamentos existentes ficam com competência nula até o PreenchimentoCompetenciaLancamento
+-- preenchê-la, mês a mês, na subida.
+alter table financas.lancamento add column competencia date;
+
+create index idx_lancamento_usuario_competencia on financas.lancamento (id_usuario, competencia);
@@ -0,0 +1,13 @@
+-- Os lançamentos existentes recebem a data de atualização inicial da sincronização no
+-- PreenchimentoCompetenciaLancamento, na subida.
+alter table financas.lancamento add column data_atualizacao timestamp;
+
+create index idx_lancamento_usuario_atualizacao on financas.lancamento (id_usuario, data_atualizacao, id);
+
+create table financas.lancamento_excluido (
+	id_lancamento bigint primary key,
+	id_usuario bigint,
+	data_exclusao timestamp
+);
+
+create index idx_lancamento_excluido_usuario_exclusao on financas.lancamento_excluido (id_usuario, data_exclusao, id_lancamento);
@@ -0,0 +1,89 @@
+package com.amantovan.minhasfinancas.api.admissao;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.amantovan.minhasfinancas.api.admissao.AdmissaoProperties.Limite;
+import com.amantovan.minhasfinancas.api.admissao.ControleAdmissao.Admissao;
+import com.amantovan.minhasfinancas.api.admissao.ControleAdmissao.ContadorRejeicoes;
+import com.amantovan.minhasfinancas.api.admissao.ControleAdmissao.Motivo;
+
+public class ControleAdmissaoTest {
+
+	MonitorPoolConexoes monitorPool;
+	ControleAdmissao controle;
+	
+	@Before
+	public void setUp() {
+		AdmissaoProperties propriedades = new AdmissaoProperties();
+		propriedades.getLimitePadrao().setCapacidade(100);
+		
+		Limite lancamentos = new Limite();
+		lancamentos.setMetodo("GET");
+		lancamentos.setCaminho("/api/lancamentos");
+		lancamentos.setCapacidade(3);
+		lancamentos.setReposicaoPorSegundo(0.001);
+		lancamentos.setConcorrenciaPorUsuario(10);
+		propriedades.getEndpoints().add(lancamentos);
+		
+		monitorPool = mock(MonitorPoolConexoes.class);
+		controle = new ControleAdmissao(propriedades, monitorPool);
+	}
+	
+	@Test
+	public void deveRecusarOClienteQueEsgotouOBaldeDoEndpoint() {
+		List<ContadorRejeicoes> contadores = new ArrayList<>();
+		controle.observarRejeicoes(contadores::add);
+		
+		for (int i = 0; i < 3; i++) {
+			liberar(controle.admitir("GET", "/api/lancamentos", "usuario:1"));
+		}
+		Admissao recusada = controle.admitir("GET", "/api/lancamentos", "usuario:1");
+		
+		assertThat(recusada.isAceita()).isFalse();
+		assertThat(recusada.getMotivo()).isEqualTo(Motivo.TAXA);
+		assertThat(recusada.getEsperaSegundos()).isGreaterThan(1);
+		assertThat(controle.admitir("GET", "/api/lancamentos", "usuario:2").isAceita()).isTrue();
+		assertThat(controle.admitir("POST", "/api/lancamentos", "usuario:1").isAceita()).isTrue();
+		assertThat(contadores).hasSize(1);
+		assertThat(contadores.get(0).getEndpoint()).isEqualTo("GET /api/lancamentos");
+		assertThat(contadores.get(0).getTotal()).isEqualTo(1);
+	}
+	
+	@Test
+	public void deveLimitarAsRequisicoesSimultaneasDoCliente() {
+		List<Admissao> emAndamento = new ArrayList<>();
+		for (int i = 0; i < 4; i++) {
+			emAndamento.add(controle.admitir("GET", "/api/usuarios/{id}/saldo", "usuario:1"));
+		}
+		
+		Admissao recusada = controle.admitir("GET", "/api/usuarios/{id}/saldo", "usuario:1");
+		assertThat(recusada.getMotivo()).isEqualTo(Motivo.CONCORRENCIA);
+		
+		liberar(emAndamento.get(0));
+		assertThat(controle.admitir("GET", "/api/usuarios/{id}/saldo", "usuario:1").isAceita()).isTrue();
+	}
+	
+	@Test
+	public void deveRecusarTudoQuandoOPoolEstiverSaturado() {
+		when(monitorPool.isSaturado()).thenReturn(true);
+		
+		Admissao recusada = controle.admitir("GET", "/api/lancamentos", "usuario:1");
+		
+		assertThat(recusada.getMotivo()).isEqualTo(Motivo.SOBRECARGA);
+		when(monitorPool.isSaturado()).thenReturn(false);
+		assertThat(controle.admitir("GET", "/api/lancamentos", "usuario:1").isAceita()).isTrue();
+	}
+	
+	private void liberar(Admissao admissao) {
+		assertThat(admissao.isAceita()).isTrue();
+		controle.liberar(admissao);
+	}
+}
@@ -0,0 +1,65 @@
+package com.amantovan.minhasfinancas.api.autenticacao;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import org.junit.Test;
+
+public class EmissorTokenAcessoTest {
+
+	static final String CHAVE_2024 = "segredo-de-2024-com-pelo-menos-32-bytes";
+	static final String CHAVE_2025 = "segredo-de-2025-com-pelo-menos-32-bytes";
+	static final Clock RELOGIO = Clock.fixed(Instant.parse("2025-01-10T12:00:00Z"), ZoneOffset.UTC);
+
+	@Test
+	public void deveDevolverOUsuarioDoTokenAteExpirar() {
+		EmissorTokenAcesso emissor = emissor(RELOGIO, "2024", "2024");
+		String token = emissor.emitir(42l).getValor();
+
+		assertThat(emissor.verificar(token)).contains(42l);
+		assertThat(emissor(Clock.offset(RELOGIO, Duration.ofMinutes(14)), "2024", "2024").verificar(token)).contains(42l);
+		assertThat(emissor(Clock.offset(RELOGIO, Duration.ofMinutes(15)), "2024", "2024").verificar(token)).isEmpty();
+	}
+
+	@Test
+	public void deveRecusarTokenAlteradoOuMalFormado() {
+		EmissorTokenAcesso emissor = emissor(RELOGIO, "2024", "2024");
+		String token = emissor.emitir(42l).getValor();
+		String[] partes = token.split("\\.");
+		String outroUsuario = emissor.emitir(43l).getValor().split("\\.")[1];
+
+		assertThat(emissor.verificar(partes[0] + "." + outroUsuario + "." + partes[2])).isEmpty();
+		assertThat(emissor.verificar(token.substring(0, token.length() - 2))).isEmpty();
+		assertThat(emissor.verificar("2024.abc")).isEmpty();
+		assertThat(emissor.verificar("")).isEmpty();
+		assertThat(emissor.verificar(null)).isEmpty();
+	}
+
+	@Test
+	public void deveAceitarAsChavesDaListaDuranteATroca() {
+		String antigo = emissor(RELOGIO, "2024", "2024").emitir(42l).getValor();
+
+		EmissorTokenAcesso durante = emissor(RELOGIO, "2025", "2024", "2025");
+		String novo = durante.emitir(42l).getValor();
+		EmissorTokenAcesso depois = emissor(RELOGIO, "2025", "2025");
+
+		assertThat(novo).startsWith("2025.");
+		assertThat(durante.verificar(antigo)).contains(42l);
+		assertThat(durante.verificar(novo)).contains(42l);
+		assertThat(depois.verificar(novo)).contains(42l);
+		assertThat(depois.verificar(antigo)).isEmpty();
+	}
+
+	private static EmissorTokenAcesso emissor(Clock relogio, String atual, String... chaves) {
+		AutenticacaoProperties propriedades = new AutenticacaoProperties();
+		propriedades.setChaveAtual(atual);
+		for (String chave : chaves) {
+			propriedades.getChaves().put(chave, chave.equals("2024") ? CHAVE_2024 : CHAVE_2025);
+		}
+		return new EmissorTokenAcesso(propriedades, relogio);
+	}
+}
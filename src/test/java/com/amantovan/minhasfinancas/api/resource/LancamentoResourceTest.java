@@ -0,0 +1,154 @@
+package com.amantovan.minhasfinancas.api.resource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import com.amantovan.minhasfinancas.api.autenticacao.EmissorTokenAcesso;
+import com.amantovan.minhasfinancas.api.dto.AtualizaStatusDTO;
+import com.amantovan.minhasfinancas.api.dto.LancamentoDTO;
+import com.amantovan.minhasfinancas.model.entity.Lancamento;
+import com.amantovan.minhasfinancas.model.entity.Usuario;
+import com.amantovan.minhasfinancas.model.enuns.StatusLancamento;
+import com.amantovan.minhasfinancas.service.CategoriaService;
+import com.amantovan.minhasfinancas.service.GrupoCommitLancamentoService;
+import com.amantovan.minhasfinancas.service.LancamentoService;
+import com.amantovan.minhasfinancas.service.SincronizacaoLancamentoService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+@RunWith(SpringRunner.class)
+@ActiveProfiles("test")
+@WebMvcTest(controllers = LancamentoResource.class)
+@AutoConfigureMockMvc
+public class LancamentoResourceTest {
+
+	static final String API = "/api/lancamentos";
+	static final MediaType JSON = MediaType.APPLICATION_JSON;
+	
+	@Autowired
+	MockMvc mvc;
+	
+	@Autowired
+	EmissorTokenAcesso emissorToken;
+	
+	@MockBean
+	LancamentoService service;
+	
+	@MockBean
+	GrupoCommitLancamentoService grupoCommitService;
+	
+	@MockBean
+	CategoriaService categoriaService;
+	
+	@MockBean
+	SincronizacaoLancamentoService sincronizacaoService;
+	
+	@Test
+	public void deveIgnorarOIdInformadoAoCriarUmLancamento() throws Exception {
+		Mockito.when(grupoCommitService.salvar(Mockito.any(Lancamento.class))).thenAnswer(invocacao -> invocacao.getArgument(0));
+		LancamentoDTO dto = LancamentoDTO.builder()
+				.id(99l)
+				.descricao("lancamento")
+				.mes(1)
+				.ano(2026)
+				.valor(BigDecimal.TEN)
+				.tipo("RECEITA")
+				.status("PENDENTE")
+				.build();
+		
+		mvc.perform(criar(dto, 1l))
+			.andExpect(MockMvcResultMatchers.status().isCreated());
+		
+		ArgumentCaptor<Lancamento> salvo = ArgumentCaptor.forClass(Lancamento.class);
+		Mockito.verify(grupoCommitService).salvar(salvo.capture());
+		assertThat(salvo.getValue().getId()).isNull();
+		assertThat(salvo.getValue().getUsuario().getId()).isEqualTo(1l);
+	}
+	
+	@Test
+	public void deveRetornarOLancamentoAtualizadoAoAlterarOStatus() throws Exception {
+		Lancamento atualizado = Lancamento.builder()
+				.id(5l)
+				.descricao("lancamento")
+				.status(StatusLancamento.EFETIVADO)
+				.usuario(Usuario.builder().id(1l).build())
+				.build();
+		Mockito.when(service.atualizarStatusDoUsuario(5l, 1l, StatusLancamento.EFETIVADO)).thenReturn(true);
+		Mockito.when(service.obterPorId(5l)).thenReturn(Optional.of(atualizado));
+		
+		mvc.perform(autenticado(MockMvcRequestBuilders.put(API + "/5/atualiza-status"), 1l)
+				.contentType(JSON)
+				.content(new ObjectMapper().writeValueAsString(new AtualizaStatusDTO("EFETIVADO"))))
+			.andExpect(MockMvcResultMatchers.status().isOk())
+			.andExpect(MockMvcResultMatchers.jsonPath("id").value(5))
+			.andExpect(MockMvcResultMatchers.jsonPath("status").value("EFETIVADO"));
+	}
+	
+	@Test
+	public void deveExcluirLancamentoDoUsuarioDoToken() throws Exception {
+		Mockito.when(service.deletarDoUsuario(5l, 1l)).thenReturn(true);
+		
+		mvc.perform(autenticado(MockMvcRequestBuilders.delete(API + "/5"), 1l))
+			.andExpect(MockMvcResultMatchers.status().isNoContent());
+		
+		Mockito.verify(service).deletarDoUsuario(5l, 1l);
+	}
+	
+	@Test
+	public void deveBuscarOsLancamentosDoUsuarioDoToken() throws Exception {
+		mvc.perform(autenticado(MockMvcRequestBuilders.get(API), 1l))
+			.andExpect(MockMvcResultMatchers.status().isOk());
+		
+		ArgumentCaptor<Lancamento> filtro = ArgumentCaptor.forClass(Lancamento.class);
+		Mockito.verify(service).buscar(filtro.capture(), Mockito.isNull(), Mockito.isNull());
+		assertThat(filtro.getValue().getUsuario().getId()).isEqualTo(1l);
+	}
+	
+	@Test
+	public void deveRecusarUsuarioInformadoDiferenteDoToken() throws Exception {
+		mvc.perform(autenticado(MockMvcRequestBuilders.get(API).param("usuario", "2"), 1l))
+			.andExpect(MockMvcResultMatchers.status().isForbidden());
+		
+		Mockito.verifyZeroInteractions(service);
+	}
+	
+	@Test
+	public void naoDeveEncontrarLancamentoDeOutroUsuario() throws Exception {
+		Mockito.when(service.obterCamposPorId(Mockito.eq(7l), Mockito.eq(1l), Mockito.anyList())).thenReturn(Optional.empty());
+		
+		mvc.perform(autenticado(MockMvcRequestBuilders.get(API + "/7"), 1l))
+			.andExpect(MockMvcResultMatchers.status().isNotFound());
+		
+		Mockito.verify(service).obterCamposPorId(Mockito.eq(7l), Mockito.eq(1l), Mockito.anyList());
+	}
+	
+	private MockHttpServletRequestBuilder autenticado(MockHttpServletRequestBuilder request, Long usuarioToken) {
+		return request
+				.header(HttpHeaders.AUTHORIZATION, "Bearer " + emissorToken.emitir(usuarioToken).getValor())
+				.accept(JSON);
+	}
+	
+	private MockHttpServletRequestBuilder criar(LancamentoDTO dto, Long usuarioToken) throws Exception {
+		return autenticado(MockMvcRequestBuilders.post(API), usuarioToken)
+				.contentType(JSON)
+				.content(new ObjectMapper().writeValueAsString(dto));
+	}
+}
@@ -0,0 +1,122 @@
+package com.amantovan.minhasfinancas.api.resource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import com.amantovan.minhasfinancas.api.autenticacao.EmissorTokenAcesso;
+import com.amantovan.minhasfinancas.service.LancamentoService;
+import com.amantovan.minhasfinancas.service.NotificacaoSaldoService;
+import com.amantovan.minhasfinancas.service.OuvinteInvalidacao;
+import com.amantovan.minhasfinancas.service.impl.BarramentoInvalidacaoServiceImpl;
+import com.amantovan.minhasfinancas.service.impl.NotificacaoSaldoServiceImpl;
+import com.amantovan.minhasfinancas.service.impl.TransporteInvalidacaoLocal;
+
+@RunWith(SpringRunner.class)
+@ActiveProfiles("test")
+@WebMvcTest(controllers = NotificacaoSaldoResource.class, properties = "minhasfinancas.notificacao.maximo-por-usuario=1")
+@AutoConfigureMockMvc
+@Import(NotificacaoSaldoServiceImpl.class)
+public class NotificacaoSaldoResourceTest {
+
+	static final String API = "/api/usuarios";
+
+	@Autowired
+	MockMvc mvc;
+
+	@Autowired
+	NotificacaoSaldoService notificacaoService;
+
+	@Autowired
+	EmissorTokenAcesso emissorToken;
+
+	@MockBean
+	LancamentoService lancamentoService;
+
+	@Test
+	public void deveEnviarOSaldoInicialEOsLancamentosAlteradosDepoisDoCommit() throws Exception {
+		Mockito.when(lancamentoService.obterSaldoPorUsuario(1l)).thenReturn(BigDecimal.valueOf(10), BigDecimal.valueOf(25));
+
+		MvcResult resultado = mvc.perform(assinar(1l, 1l))
+			.andExpect(MockMvcResultMatchers.request().asyncStarted())
+			.andReturn();
+		notificacaoService.notificar(1l, 7l);
+		notificacaoService.notificar(1l, 8l);
+
+		String eventos = aguardarConteudo(resultado.getResponse(), "\"saldo\":25");
+		assertThat(eventos)
+			.contains("event:saldo")
+			.contains("{\"usuario\":1,\"saldo\":10,\"lancamentos\":[]}")
+			.containsPattern("\"saldo\":25,\"lancamentos\":\\[7(,8)?\\]");
+	}
+
+	@Test
+	public void deveEnviarOSaldoQuandoOLancamentoForAlteradoEmOutraInstancia() throws Exception {
+		Mockito.when(lancamentoService.obterSaldoPorUsuario(5l)).thenReturn(BigDecimal.valueOf(10), BigDecimal.valueOf(40));
+		TransporteInvalidacaoLocal transporte = new TransporteInvalidacaoLocal();
+		BarramentoInvalidacaoServiceImpl outraInstancia = new BarramentoInvalidacaoServiceImpl(transporte,
+				new StaticListableBeanFactory().getBeanProvider(OuvinteInvalidacao.class), 100);
+		new BarramentoInvalidacaoServiceImpl(transporte,
+				new StaticListableBeanFactory(Collections.singletonMap("notificacao", notificacaoService))
+					.getBeanProvider(OuvinteInvalidacao.class), 100);
+
+		MvcResult resultado = mvc.perform(assinar(5l, 5l))
+			.andExpect(MockMvcResultMatchers.request().asyncStarted())
+			.andReturn();
+		outraInstancia.publicar(5l);
+		outraInstancia.enviarPendentes();
+
+		assertThat(aguardarConteudo(resultado.getResponse(), "\"saldo\":40"))
+			.contains("{\"usuario\":5,\"saldo\":40,\"lancamentos\":[]}");
+	}
+
+	@Test
+	public void deveRecusarConexoesAlemDoLimiteDoUsuario() throws Exception {
+		Mockito.when(lancamentoService.obterSaldoPorUsuario(2l)).thenReturn(BigDecimal.ZERO);
+
+		mvc.perform(assinar(2l, 2l))
+			.andExpect(MockMvcResultMatchers.request().asyncStarted());
+		mvc.perform(assinar(2l, 2l))
+			.andExpect(MockMvcResultMatchers.status().isServiceUnavailable())
+			.andExpect(MockMvcResultMatchers.header().exists("Retry-After"));
+	}
+
+	@Test
+	public void deveRecusarAssinaturaComTokenDeOutroUsuario() throws Exception {
+		mvc.perform(assinar(3l, 4l))
+			.andExpect(MockMvcResultMatchers.status().isForbidden());
+	}
+
+	private MockHttpServletRequestBuilder assinar(Long id, Long usuarioToken) {
+		return MockMvcRequestBuilders.get(API.concat("/" + id + "/saldo/eventos"))
+				.header(HttpHeaders.AUTHORIZATION, "Bearer " + emissorToken.emitir(usuarioToken).getValor());
+	}
+
+	private static String aguardarConteudo(MockHttpServletResponse resposta, String trecho) throws Exception {
+		long limite = System.currentTimeMillis() + 5000;
+		while (!resposta.getContentAsString().contains(trecho) && System.currentTimeMillis() < limite) {
+			Thread.sleep(10);
+		}
+		return resposta.getContentAsString();
+	}
+}
@@ -1,7 +1,7 @@
 package com.amantovan.minhasfinancas.api.resource;
 
 import java.math.BigDecimal;
-import java.util.Optional;
+import java.time.LocalDateTime;
 
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -10,6 +10,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit4.SpringRunner;
@@ -18,11 +19,15 @@ import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilde
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 
+import com.amantovan.minhasfinancas.api.autenticacao.EmissorTokenAcesso;
 import com.amantovan.minhasfinancas.api.dto.UsuarioDTO;
 import com.amantovan.minhasfinancas.exception.ErroAutenticacao;
 import com.amantovan.minhasfinancas.exception.RegraNegocioException;
+import com.amantovan.minhasfinancas.exception.ServicoSobrecarregadoException;
 import com.amantovan.minhasfinancas.model.entity.Usuario;
+import com.amantovan.minhasfinancas.service.HistoricoLancamentoService;
 import com.amantovan.minhasfinancas.service.LancamentoService;
+import com.amantovan.minhasfinancas.service.PrevisaoSaldoService;
 import com.amantovan.minhasfinancas.service.UsuarioService;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -39,12 +44,21 @@ public class UsuarioResourceTest {
 	@Autowired
 	MockMvc mvc;
 	
+	@Autowired
+	EmissorTokenAcesso emissorToken;
+	
 	@MockBean
 	UsuarioService service;
 	
 	@MockBean
 	LancamentoService lancamentoService;
 	
+	@MockBean
+	PrevisaoSaldoService previsaoService;
+	
+	@MockBean
+	HistoricoLancamentoService historicoService;
+	
 	@Test
 	public void deveAutenticarUsuario() throws Exception {
 		String email = "usuario@email.com";
@@ -67,7 +81,9 @@ public class UsuarioResourceTest {
 			.andExpect(MockMvcResultMatchers.status().isOk())
 			.andExpect(MockMvcResultMatchers.jsonPath("id").value(usuario.getId()))
 			.andExpect(MockMvcResultMatchers.jsonPath("nome").value(usuario.getNome()))
-			.andExpect(MockMvcResultMatchers.jsonPath("email").value(usuario.getEmail()));
+			.andExpect(MockMvcResultMatchers.jsonPath("email").value(usuario.getEmail()))
+			.andExpect(MockMvcResultMatchers.jsonPath("token").isNotEmpty())
+			.andExpect(MockMvcResultMatchers.jsonPath("senha").doesNotExist());
 	}
 	
 	@Test
@@ -91,6 +107,28 @@ public class UsuarioResourceTest {
 			.andExpect(MockMvcResultMatchers.status().isBadRequest());
 	}
 	
+	@Test
+	public void deveRetornarServicoIndisponivelQuandoOsHashesDeSenhaEstiveremSobrecarregados() throws Exception {
+		String email = "usuario@email.com";
+		String senha = "123";
+		
+		UsuarioDTO dto = UsuarioDTO.builder().email(email).senha(senha).build();
+		
+		Mockito.when(service.autenticar(email, senha)).thenThrow(new ServicoSobrecarregadoException("sobrecarga"));
+		
+		String json = new ObjectMapper().writeValueAsString(dto);
+		
+		MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+			.post(API.concat("/autenticar"))
+			.accept(JSON)
+			.contentType(JSON)
+			.content(json);
+		
+		mvc.perform(request)
+			.andExpect(MockMvcResultMatchers.status().isServiceUnavailable())
+			.andExpect(MockMvcResultMatchers.header().exists("Retry-After"));
+	}
+	
 	@Test
 	public void deveCriarUmNovoUsuario() throws Exception {
 		String email = "usuario@email.com";
@@ -141,12 +179,11 @@ public class UsuarioResourceTest {
 	public void deveObterSaldoDoUsuario() throws Exception{
 		
 		BigDecimal saldo = BigDecimal.valueOf(10);
-		Usuario usuario = Usuario.builder().id(1l).email("usuario@email.com").senha("123").build();
-		Mockito.when(service.obterPorId(1l)).thenReturn(Optional.of(usuario));
-		Mockito.when(lancamentoService.obterSaldoPorUsuario(1l)).thenReturn(saldo);
+		Mockito.when(lancamentoService.obterSaldoPorUsuario(1l, null, null)).thenReturn(saldo);
 
 		MockHttpServletRequestBuilder request = MockMvcRequestBuilders
 			.get( API.concat("/1/saldo") )
+			.header(HttpHeaders.AUTHORIZATION, "Bearer " + emissorToken.emitir(1l).getValor())
 			.accept(JSON)
 			.contentType(JSON);
 		
@@ -154,19 +191,42 @@ public class UsuarioResourceTest {
 			.andExpect( MockMvcResultMatchers.status().isOk())
 			.andExpect( MockMvcResultMatchers.content().string("10"));
 		
+		Mockito.verify(service, Mockito.never()).obterPorId(Mockito.anyLong());
 	}
 	
 	@Test
-	public void deveRetornarResourceNotFoundQuandoUsuarioNaoExisteParaObterSaldo() throws Exception{
+	public void deveObterSaldoDoUsuarioEmUmaData() throws Exception{
 		
-		Mockito.when(service.obterPorId(1l)).thenReturn(Optional.empty());
-		MockHttpServletRequestBuilder request = MockMvcRequestBuilders
-			.get( API.concat("/1/saldo") )
-			.accept(JSON)
-			.contentType(JSON);
+		LocalDateTime data = LocalDateTime.of(2024, 11, 30, 23, 59);
+		Mockito.when(historicoService.obterSaldoEm(1l, data)).thenReturn(BigDecimal.valueOf(7));
+		String token = "Bearer " + emissorToken.emitir(1l).getValor();
 		
-		mvc.perform(request)
-			.andExpect( MockMvcResultMatchers.status().isNotFound());
+		mvc.perform(MockMvcRequestBuilders.get( API.concat("/1/saldo") ).param("em", "2024-11-30T23:59:00")
+				.header(HttpHeaders.AUTHORIZATION, token).accept(JSON))
+			.andExpect( MockMvcResultMatchers.status().isOk())
+			.andExpect( MockMvcResultMatchers.content().string("7"));
+		
+		mvc.perform(MockMvcRequestBuilders.get( API.concat("/1/saldo") ).param("em", "2024-11-30T23:59:00").param("de", "2024-01")
+				.header(HttpHeaders.AUTHORIZATION, token).accept(JSON))
+			.andExpect( MockMvcResultMatchers.status().isBadRequest());
+	}
+	
+	@Test
+	public void deveRecusarOSaldoSemTokenOuComTokenDeOutroUsuario() throws Exception{
+		
+		mvc.perform(MockMvcRequestBuilders.get( API.concat("/1/saldo") ).accept(JSON))
+			.andExpect( MockMvcResultMatchers.status().isUnauthorized());
+		
+		mvc.perform(MockMvcRequestBuilders.get( API.concat("/1/saldo") )
+				.header(HttpHeaders.AUTHORIZATION, "Bearer " + emissorToken.emitir(1l).getValor() + "x")
+				.accept(JSON))
+			.andExpect( MockMvcResultMatchers.status().isUnauthorized());
+		
+		mvc.perform(MockMvcRequestBuilders.get( API.concat("/1/saldo") )
+				.header(HttpHeaders.AUTHORIZATION, "Bearer " + emissorToken.emitir(2l).getValor())
+				.accept(JSON))
+			.andExpect( MockMvcResultMatchers.status().isForbidden());
 		
+		Mockito.verify(lancamentoService, Mockito.never()).obterSaldoPorUsuario(Mockito.any(), Mockito.any(), Mockito.any());
 	}
 }
@@ -0,0 +1,57 @@
+package com.amantovan.minhasfinancas.api.temporizacao;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class TemporizacaoRequisicaoTest {
+
+	@After
+	public void tearDown() {
+		TemporizacaoRequisicao.encerrarRequisicao();
+	}
+
+	@Test
+	public void deveDescontarDeCadaFaseOTempoDasFasesInternas() {
+		TemporizacaoRequisicao medicao = TemporizacaoRequisicao.iniciarRequisicao();
+		medicao.abrir(FaseRequisicao.SERVICO, 0);
+		medicao.abrir(FaseRequisicao.HIDRATACAO, 1_000_000);
+		medicao.abrir(FaseRequisicao.BANCO, 2_000_000);
+		medicao.fechar(5_000_000);
+		medicao.fechar(6_000_000);
+		medicao.abrir(FaseRequisicao.HIDRATACAO, 7_000_000);
+		medicao.fechar(7_500_000);
+		medicao.fechar(10_000_000);
+
+		assertThat(medicao.getNanos(FaseRequisicao.BANCO)).isEqualTo(3_000_000);
+		assertThat(medicao.getNanos(FaseRequisicao.HIDRATACAO)).isEqualTo(2_500_000);
+		assertThat(medicao.getNanos(FaseRequisicao.SERVICO)).isEqualTo(4_500_000);
+	}
+
+	@Test
+	public void deveAtribuirAoUsuarioAsConsultasFeitasParaBuscaLo() {
+		TemporizacaoRequisicao medicao = TemporizacaoRequisicao.iniciarRequisicao();
+		medicao.abrir(FaseRequisicao.USUARIO, 0);
+		medicao.abrir(FaseRequisicao.HIDRATACAO, 1_000_000);
+		medicao.abrir(FaseRequisicao.BANCO, 1_500_000);
+		medicao.fechar(2_500_000);
+		medicao.fechar(3_000_000);
+		medicao.fechar(4_000_000);
+		medicao.abrir(FaseRequisicao.BANCO, 4_000_000);
+		medicao.fechar(4_250_000);
+
+		assertThat(medicao.getNanos(FaseRequisicao.USUARIO)).isEqualTo(4_000_000);
+		assertThat(medicao.getNanos(FaseRequisicao.BANCO)).isEqualTo(250_000);
+		assertThat(medicao.getNanos(FaseRequisicao.HIDRATACAO)).isZero();
+		assertThat(medicao.cabecalho()).matches("usuario;dur=4\\.00, db;dur=0\\.25, total;dur=\\d+\\.\\d{2}");
+	}
+
+	@Test
+	public void naoDeveMedirForaDeUmaRequisicao() {
+		TemporizacaoRequisicao.iniciar(FaseRequisicao.SERVICO);
+		TemporizacaoRequisicao.encerrar();
+
+		assertThat(TemporizacaoRequisicao.atual()).isNull();
+	}
+}
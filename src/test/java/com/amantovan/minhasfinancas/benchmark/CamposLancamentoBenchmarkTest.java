@@ -0,0 +1,134 @@
+package com.amantovan.minhasfinancas.benchmark;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.math.BigDecimal;
+import java.time.YearMonth;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+import org.junit.Assume;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.amantovan.minhasfinancas.config.InvalidacaoConfig;
+import com.amantovan.minhasfinancas.config.datasource.FragmentacaoConfig;
+import com.amantovan.minhasfinancas.model.entity.Categoria;
+import com.amantovan.minhasfinancas.model.entity.Lancamento;
+import com.amantovan.minhasfinancas.model.entity.Usuario;
+import com.amantovan.minhasfinancas.model.enuns.CampoLancamento;
+import com.amantovan.minhasfinancas.model.enuns.StatusLancamento;
+import com.amantovan.minhasfinancas.model.enuns.TipoLancamento;
+import com.amantovan.minhasfinancas.service.LancamentoService;
+import com.amantovan.minhasfinancas.service.impl.BarramentoInvalidacaoServiceImpl;
+import com.amantovan.minhasfinancas.service.impl.CacheBuscaLancamentoServiceImpl;
+import com.amantovan.minhasfinancas.service.impl.EventoLancamentoServiceImpl;
+import com.amantovan.minhasfinancas.service.impl.LancamentoServiceImpl;
+import com.amantovan.minhasfinancas.service.impl.NotificacaoSaldoServiceImpl;
+import com.amantovan.minhasfinancas.service.impl.ProjecaoSaldoUsuario;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Compara a listagem com entidades completas e com {@code fields=id,descricao,valor,status},
+ * medindo o tamanho do JSON e o tempo de CPU de consulta mais serialização. Só roda com
+ * {@code -Dbenchmark=true}; a quantidade de lançamentos é configurada em {@code -Dbenchmark.lancamentos}.
+ */
+@RunWith(SpringRunner.class)
+@ActiveProfiles("test")
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = Replace.NONE)
+@Import({LancamentoServiceImpl.class, EventoLancamentoServiceImpl.class, CacheBuscaLancamentoServiceImpl.class,
+	NotificacaoSaldoServiceImpl.class, ProjecaoSaldoUsuario.class, BarramentoInvalidacaoServiceImpl.class, InvalidacaoConfig.class, FragmentacaoConfig.class})
+public class CamposLancamentoBenchmarkTest {
+
+	private static final int AQUECIMENTO = 5;
+	private static final int RODADAS = 7;
+	private static final List<CampoLancamento> CAMPOS_LISTA = Arrays.asList(
+			CampoLancamento.ID, CampoLancamento.DESCRICAO, CampoLancamento.VALOR, CampoLancamento.STATUS);
+
+	@Autowired LancamentoService service;
+	@Autowired TestEntityManager entityManager;
+
+	ObjectMapper mapper = Jackson2ObjectMapperBuilder.json().build();
+
+	@BeforeClass
+	public static void habilitado() {
+		Assume.assumeTrue("Benchmark desabilitado, rode com -Dbenchmark=true", Boolean.getBoolean("benchmark"));
+	}
+
+	@Test
+	public void deveReduzirOPayloadEOTempoDeCpuDaListagem() throws Exception {
+		int quantidade = Integer.getInteger("benchmark.lancamentos", 5000);
+		Usuario usuario = entityManager.persist(Usuario.builder().nome("usuario").email("benchmark@email.com").senha("senha").build());
+		Categoria categoria = entityManager.persist(Categoria.builder().nome("Mercado").usuario(usuario).build());
+		for (int i = 0; i < quantidade; i++) {
+			entityManager.persist(Lancamento.builder()
+					.descricao("Lançamento " + i)
+					.mes(1 + i % 12)
+					.ano(2024)
+					.valor(BigDecimal.valueOf(10 + i % 500))
+					.tipo(i % 3 == 0 ? TipoLancamento.RECEITA : TipoLancamento.DESPESA)
+					.status(StatusLancamento.EFETIVADO)
+					.usuario(usuario)
+					.categoria(categoria)
+					.build());
+		}
+		entityManager.flush();
+		entityManager.clear();
+
+		Lancamento filtro = Lancamento.builder().usuario(Usuario.builder().id(usuario.getId()).build()).build();
+		// O período tira as duas buscas do cache, para medir a consulta em todas as rodadas.
+		YearMonth de = YearMonth.of(2024, 1);
+		YearMonth ate = YearMonth.of(2024, 12);
+
+		Supplier<?> buscaCompleta = () -> service.buscar(filtro, de, ate);
+		Supplier<?> buscaCampos = () -> service.buscarCampos(filtro, de, ate, CAMPOS_LISTA);
+		// Os dois caminhos são aquecidos antes de medir; sem isso o JIT favorece o primeiro medido.
+		for (int i = 0; i < AQUECIMENTO; i++) {
+			mapper.writeValueAsBytes(buscaCompleta.get());
+			mapper.writeValueAsBytes(buscaCampos.get());
+			entityManager.clear();
+		}
+		long[] completo = medir(buscaCompleta);
+		long[] campos = medir(buscaCampos);
+
+		System.out.printf("%-10s %12s %14s%n", "Listagem", "JSON (bytes)", "CPU (ms)");
+		System.out.printf("%-10s %12d %14.1f%n", "completa", completo[0], completo[1] / 1e6);
+		System.out.printf("%-10s %12d %14.1f%n", "fields", campos[0], campos[1] / 1e6);
+		System.out.printf("Redução: %.0f%% do payload, %.0f%% da CPU%n",
+				100.0 * (completo[0] - campos[0]) / completo[0], 100.0 * (completo[1] - campos[1]) / completo[1]);
+
+		assertThat(campos[0]).isLessThan(completo[0]);
+	}
+
+	/**
+	 * Tamanho do JSON e mediana do tempo de CPU da thread, em nanossegundos.
+	 */
+	private long[] medir(Supplier<?> busca) throws Exception {
+		ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		long bytes = mapper.writeValueAsBytes(busca.get()).length;
+		entityManager.clear();
+		long[] tempos = new long[RODADAS];
+		for (int i = 0; i < RODADAS; i++) {
+			long inicio = threads.getCurrentThreadCpuTime();
+			mapper.writeValueAsBytes(busca.get());
+			tempos[i] = threads.getCurrentThreadCpuTime() - inicio;
+			entityManager.clear();
+		}
+		Arrays.sort(tempos);
+		return new long[] {bytes, tempos[RODADAS / 2]};
+	}
+}
@@ -0,0 +1,133 @@
+package com.amantovan.minhasfinancas.benchmark;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Teste de fumaça do executável gerado pelo perfil {@code native}, contra o H2 embutido, seguido
+ * de um relatório comparando o tempo até a primeira requisição e a memória residente com a JVM.
+ * Só roda com {@code -Dnativo.executavel=target/minhasfinancas} e no Linux.
+ */
+public class ImagemNativaBenchmarkTest {
+
+	private static final String[] ARGUMENTOS = { "--spring.profiles.active=test", "--server.port=0" };
+
+	private final ObjectMapper mapper = new ObjectMapper();
+
+	private String executavel;
+
+	@Before
+	public void setUp() {
+		executavel = System.getProperty("nativo.executavel");
+		Assume.assumeTrue("Executável nativo não informado, rode com -Dnativo.executavel", executavel != null && !executavel.isEmpty());
+	}
+
+	@Test
+	public void deveExercitarAApiNoExecutavelNativoECompararComAJvm() throws Exception {
+		Medicao nativa;
+		try (ProcessoAplicacao aplicacao = ProcessoAplicacao.iniciar(Collections.singletonList(executavel), ARGUMENTOS)) {
+			nativa = exercitar("nativo", aplicacao);
+		}
+		Medicao jvm;
+		try (ProcessoAplicacao aplicacao = ProcessoAplicacao.iniciar(ProcessoAplicacao.comandoJvm(), ARGUMENTOS)) {
+			jvm = exercitar("jvm", aplicacao);
+		}
+
+		System.out.printf("%-8s %28s %26s%n", "Build", "Primeira requisição (ms)", "Memória residente (MB)");
+		for (Medicao medicao : Arrays.asList(nativa, jvm)) {
+			System.out.printf("%-8s %28d %26d%n", medicao.nome, medicao.primeiraRequisicaoMs, medicao.memoriaResidenteKb / 1024);
+		}
+	}
+
+	private Medicao exercitar(String nome, ProcessoAplicacao aplicacao) throws IOException {
+		String base = "http://localhost:" + aplicacao.getPorta() + "/api";
+
+		Map<String, Object> usuario = new HashMap<>();
+		usuario.put("nome", "Usuário");
+		usuario.put("email", "usuario@email.com");
+		usuario.put("senha", "senha");
+		JsonNode salvo = chamar("POST", base + "/usuarios", usuario, 201);
+		long idUsuario = salvo.get("id").asLong();
+
+		usuario.remove("nome");
+		assertThat(chamar("POST", base + "/usuarios/autenticar", usuario, 200).get("id").asLong()).isEqualTo(idUsuario);
+
+		Map<String, Object> lancamento = new HashMap<>();
+		lancamento.put("descricao", "Salário");
+		lancamento.put("mes", 1);
+		lancamento.put("ano", 2020);
+		lancamento.put("valor", new BigDecimal("100"));
+		lancamento.put("usuario", idUsuario);
+		lancamento.put("tipo", "RECEITA");
+		long idLancamento = chamar("POST", base + "/lancamentos", lancamento, 201).get("id").asLong();
+		chamar("PUT", base + "/lancamentos/" + idLancamento + "/atualiza-status", Collections.singletonMap("status", "EFETIVADO"), 200);
+
+		assertThat(chamar("GET", base + "/lancamentos?usuario=" + idUsuario, null, 200).size()).isEqualTo(1);
+		assertThat(chamar("GET", base + "/usuarios/" + idUsuario + "/saldo", null, 200).decimalValue()).isEqualByComparingTo("100");
+
+		return new Medicao(nome, aplicacao.getTempoPrimeiraRequisicao(), aplicacao.getMemoriaResidenteKb());
+	}
+
+	private JsonNode chamar(String metodo, String url, Object corpo, int statusEsperado) throws IOException {
+		HttpURLConnection conexao = (HttpURLConnection) new URL(url).openConnection();
+		conexao.setRequestMethod(metodo);
+		if (corpo != null) {
+			conexao.setDoOutput(true);
+			conexao.setRequestProperty("Content-Type", "application/json");
+			try (OutputStream saida = conexao.getOutputStream()) {
+				mapper.writeValue(saida, corpo);
+			}
+		}
+		int status = conexao.getResponseCode();
+		String resposta = ler(status < 400 ? conexao.getInputStream() : conexao.getErrorStream());
+		assertThat(status).as("%s %s: %s", metodo, url, resposta).isEqualTo(statusEsperado);
+		return mapper.readTree(resposta);
+	}
+
+	private String ler(InputStream entrada) throws IOException {
+		if (entrada == null) {
+			return "";
+		}
+		try (InputStream corpo = entrada) {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			byte[] buffer = new byte[4096];
+			int lidos;
+			while ((lidos = corpo.read(buffer)) != -1) {
+				bytes.write(buffer, 0, lidos);
+			}
+			return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+		}
+	}
+
+	private static class Medicao {
+
+		final String nome;
+		final long primeiraRequisicaoMs;
+		final long memoriaResidenteKb;
+
+		Medicao(String nome, long primeiraRequisicaoMs, long memoriaResidenteKb) {
+			this.nome = nome;
+			this.primeiraRequisicaoMs = primeiraRequisicaoMs;
+			this.memoriaResidenteKb = memoriaResidenteKb;
+		}
+	}
+}
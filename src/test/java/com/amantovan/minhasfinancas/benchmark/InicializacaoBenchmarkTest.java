@@ -0,0 +1,51 @@
+package com.amantovan.minhasfinancas.benchmark;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Sobe a aplicação em JVMs novas e mede o tempo até a primeira requisição, com e sem o perfil
+ * de produção. Só roda com {@code -Dbenchmark=true}; as rodadas são configuradas em
+ * {@code -Dbenchmark.rodadas}.
+ */
+public class InicializacaoBenchmarkTest {
+
+	@Before
+	public void setUp() {
+		Assume.assumeTrue("Benchmark desabilitado, rode com -Dbenchmark=true", Boolean.getBoolean("benchmark"));
+	}
+	
+	@Test
+	public void deveMedirOTempoAtePrimeiraRequisicao() throws Exception {
+		int rodadas = Integer.getInteger("benchmark.rodadas", 3);
+		for (String perfis : Arrays.asList("test", "producao,test")) {
+			List<Long> tempos = new ArrayList<>();
+			for (int i = 0; i < rodadas; i++) {
+				tempos.add(medir(perfis));
+			}
+			Collections.sort(tempos);
+			System.out.printf("Perfis %s: mediana %d ms, mínimo %d ms, máximo %d ms até a primeira requisição%n", 
+					perfis, tempos.get(tempos.size() / 2), tempos.get(0), tempos.get(tempos.size() - 1));
+		}
+	}
+	
+	private long medir(String perfis) throws IOException, InterruptedException {
+		try (ProcessoAplicacao aplicacao = ProcessoAplicacao.iniciar(ProcessoAplicacao.comandoJvm(),
+				"--spring.profiles.active=" + perfis,
+				"--server.port=0",
+				"--minhasfinancas.inicializacao.encerrar-apos-subida=true")) {
+			long tempo = aplicacao.getTempoPrimeiraRequisicao();
+			assertThat(aplicacao.aguardarTermino()).isTrue();
+			return tempo;
+		}
+	}
+}
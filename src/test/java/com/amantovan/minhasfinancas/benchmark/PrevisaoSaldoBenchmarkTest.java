@@ -0,0 +1,95 @@
+package com.amantovan.minhasfinancas.benchmark;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.amantovan.minhasfinancas.model.entity.Lancamento;
+import com.amantovan.minhasfinancas.model.enuns.StatusLancamento;
+import com.amantovan.minhasfinancas.model.enuns.TipoLancamento;
+import com.amantovan.minhasfinancas.model.repository.LancamentoRepository;
+import com.amantovan.minhasfinancas.service.LancamentoService;
+import com.amantovan.minhasfinancas.service.PrevisaoSaldo;
+import com.amantovan.minhasfinancas.service.impl.PrevisaoSaldoServiceImpl;
+
+/**
+ * Mede a previsão de saldo com 1, 2, 4... threads até o número de núcleos, sobre um histórico
+ * sintético de 40 padrões em 24 meses. Só roda com {@code -Dbenchmark=true}; a quantidade de
+ * cenários é configurada em {@code -Dbenchmark.cenarios}.
+ */
+public class PrevisaoSaldoBenchmarkTest {
+
+	private static final int RODADAS = 5;
+	
+	@Before
+	public void setUp() {
+		Assume.assumeTrue("Benchmark desabilitado, rode com -Dbenchmark=true", Boolean.getBoolean("benchmark"));
+	}
+	
+	@Test
+	public void deveEscalarComONumeroDeNucleos() {
+		int cenarios = Integer.getInteger("benchmark.cenarios", 200000);
+		LancamentoService lancamentoService = mock(LancamentoService.class);
+		LancamentoRepository repository = mock(LancamentoRepository.class);
+		when(lancamentoService.obterSaldoPorUsuario(any())).thenReturn(new BigDecimal("1000"));
+		when(repository.obterParaPrevisao(any(), any(), any(), any())).thenReturn(historico());
+		
+		long referencia = 0;
+		System.out.printf("%-8s %12s %10s%n", "Threads", "Mediana (ms)", "Aceleração");
+		for (int threads = 1; threads <= Runtime.getRuntime().availableProcessors(); threads *= 2) {
+			PrevisaoSaldoServiceImpl service = new PrevisaoSaldoServiceImpl(lancamentoService, repository, cenarios, threads,
+					TimeUnit.MINUTES.toMillis(10), 24, 24);
+			try {
+				// A primeira rodada só aquece o JIT.
+				service.prever(1l, 24);
+				long[] tempos = new long[RODADAS];
+				for (int i = 0; i < RODADAS; i++) {
+					long inicio = System.nanoTime();
+					PrevisaoSaldo previsao = service.prever(1l, 24);
+					tempos[i] = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio);
+					assertThat(previsao.getCenarios()).isEqualTo(cenarios);
+				}
+				Arrays.sort(tempos);
+				long mediana = tempos[RODADAS / 2];
+				if (threads == 1) {
+					referencia = mediana;
+				}
+				System.out.printf("%-8d %12d %9.2fx%n", threads, mediana, (double) referencia / Math.max(1, mediana));
+			} finally {
+				service.encerrar();
+			}
+		}
+	}
+	
+	private List<Lancamento> historico() {
+		List<Lancamento> lancamentos = new ArrayList<>();
+		YearMonth atual = YearMonth.now();
+		for (int padrao = 0; padrao < 40; padrao++) {
+			for (int mes = 1; mes <= 24; mes++) {
+				if ((mes + padrao) % (1 + padrao % 3) == 0) {
+					lancamentos.add(Lancamento.builder()
+							.descricao("Padrão " + padrao)
+							.tipo(padrao % 4 == 0 ? TipoLancamento.RECEITA : TipoLancamento.DESPESA)
+							.status(StatusLancamento.EFETIVADO)
+							.mes(atual.minusMonths(mes).getMonthValue())
+							.ano(atual.minusMonths(mes).getYear())
+							.valor(BigDecimal.valueOf(50 + (mes * 37 + padrao * 11) % 400))
+							.build());
+				}
+			}
+		}
+		return lancamentos;
+	}
+}
@@ -0,0 +1,153 @@
+package com.amantovan.minhasfinancas.benchmark;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import com.amantovan.minhasfinancas.MinhasfinancasApplication;
+
+/**
+ * Aplicação rodando em um processo filho (JVM ou executável nativo). A saída é lida em segundo
+ * plano para descobrir o PID, a porta e o tempo até a primeira requisição.
+ */
+class ProcessoAplicacao implements AutoCloseable {
+
+	static final Pattern PID = Pattern.compile("with PID (\\d+)");
+	static final Pattern PORTA = Pattern.compile("Tomcat started on port\\(s\\): (\\d+)");
+	static final Pattern PRIMEIRA_REQUISICAO = Pattern.compile("Primeira requisição concluída (\\d+) ms");
+
+	private static final int LINHAS_GUARDADAS = 40;
+
+	private final Process processo;
+	private final CompletableFuture<Long> pid = new CompletableFuture<>();
+	private final CompletableFuture<Integer> porta = new CompletableFuture<>();
+	private final CompletableFuture<Long> primeiraRequisicao = new CompletableFuture<>();
+	private final LinkedList<String> ultimasLinhas = new LinkedList<>();
+
+	private ProcessoAplicacao(Process processo) {
+		this.processo = processo;
+		Thread leitor = new Thread(this::lerSaida, "saida-aplicacao");
+		leitor.setDaemon(true);
+		leitor.start();
+	}
+
+	static ProcessoAplicacao iniciar(List<String> comando, String... argumentos) throws IOException {
+		List<String> completo = new ArrayList<>(comando);
+		completo.addAll(Arrays.asList(argumentos));
+		return new ProcessoAplicacao(new ProcessBuilder(completo).redirectErrorStream(true).start());
+	}
+
+	/**
+	 * Comando que sobe a aplicação numa JVM nova com o classpath dos testes.
+	 */
+	static List<String> comandoJvm() {
+		String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+		// O devtools não vai no jar empacotado e reinicia a aplicação em outra thread, então fica de fora.
+		String classpath = Arrays.stream(System.getProperty("java.class.path").split(File.pathSeparator))
+				.filter(entrada -> !entrada.contains("spring-boot-devtools"))
+				.collect(Collectors.joining(File.pathSeparator));
+		return Arrays.asList(java, "-Dfile.encoding=UTF-8", "-cp", classpath, MinhasfinancasApplication.class.getName());
+	}
+
+	long getPid() {
+		return aguardar(pid);
+	}
+
+	int getPorta() {
+		return aguardar(porta);
+	}
+
+	long getTempoPrimeiraRequisicao() {
+		return aguardar(primeiraRequisicao);
+	}
+
+	/**
+	 * Memória residente do processo em KB, lida de /proc (só no Linux).
+	 */
+	long getMemoriaResidenteKb() throws IOException {
+		return Files.readAllLines(Paths.get("/proc", String.valueOf(getPid()), "status")).stream()
+				.filter(linha -> linha.startsWith("VmRSS:"))
+				.map(linha -> Long.valueOf(linha.replaceAll("\\D", "")))
+				.findFirst()
+				.orElseThrow(() -> new IllegalStateException("VmRSS não encontrado para o processo " + getPid()));
+	}
+
+	boolean aguardarTermino() throws InterruptedException {
+		return processo.waitFor(2, TimeUnit.MINUTES);
+	}
+
+	@Override
+	public void close() throws InterruptedException {
+		processo.destroy();
+		if (!processo.waitFor(30, TimeUnit.SECONDS)) {
+			processo.destroyForcibly();
+		}
+	}
+
+	private void lerSaida() {
+		try (BufferedReader saida = new BufferedReader(new InputStreamReader(processo.getInputStream(), StandardCharsets.UTF_8))) {
+			String linha;
+			while ((linha = saida.readLine()) != null) {
+				guardar(linha);
+				capturar(PID, linha, pid, Long::valueOf);
+				capturar(PORTA, linha, porta, Integer::valueOf);
+				capturar(PRIMEIRA_REQUISICAO, linha, primeiraRequisicao, Long::valueOf);
+			}
+		} catch (IOException e) {
+			// O processo foi encerrado; os valores pendentes falham abaixo.
+		}
+		IllegalStateException encerrado = new IllegalStateException("A aplicação encerrou. Últimas linhas:\n" + getUltimasLinhas());
+		pid.completeExceptionally(encerrado);
+		porta.completeExceptionally(encerrado);
+		primeiraRequisicao.completeExceptionally(encerrado);
+	}
+
+	private <T> void capturar(Pattern padrao, String linha, CompletableFuture<T> valor, Function<String, T> conversao) {
+		if (!valor.isDone()) {
+			Matcher matcher = padrao.matcher(linha);
+			if (matcher.find()) {
+				valor.complete(conversao.apply(matcher.group(1)));
+			}
+		}
+	}
+
+	private synchronized void guardar(String linha) {
+		ultimasLinhas.add(linha);
+		if (ultimasLinhas.size() > LINHAS_GUARDADAS) {
+			ultimasLinhas.removeFirst();
+		}
+	}
+
+	private synchronized String getUltimasLinhas() {
+		return String.join("\n", ultimasLinhas);
+	}
+
+	private <T> T aguardar(CompletableFuture<T> valor) {
+		try {
+			return valor.get(2, TimeUnit.MINUTES);
+		} catch (ExecutionException e) {
+			throw (RuntimeException) e.getCause();
+		} catch (TimeoutException e) {
+			throw new IllegalStateException("Tempo esgotado esperando a aplicação. Últimas linhas:\n" + getUltimasLinhas(), e);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(e);
+		}
+	}
+}
@@ -0,0 +1,87 @@
+package com.amantovan.minhasfinancas.benchmark;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.amantovan.minhasfinancas.exception.ServicoSobrecarregadoException;
+import com.amantovan.minhasfinancas.service.impl.SenhaServiceImpl;
+
+/**
+ * Mede logins por segundo e a latência de cada conferência de senha para alguns custos de
+ * PBKDF2, com o dobro de clientes simultâneos que núcleos. Só roda com {@code -Dbenchmark=true};
+ * a duração de cada medição é configurada em {@code -Dbenchmark.segundos}.
+ */
+public class SenhaBenchmarkTest {
+
+	private static final int[] CUSTOS = {10000, 100000, 310000, 600000};
+
+	@Before
+	public void setUp() {
+		Assume.assumeTrue("Benchmark desabilitado, rode com -Dbenchmark=true", Boolean.getBoolean("benchmark"));
+	}
+
+	@Test
+	public void deveMedirLoginsPorSegundoParaCadaCusto() throws Exception {
+		long duracaoMs = TimeUnit.SECONDS.toMillis(Integer.getInteger("benchmark.segundos", 5));
+		int clientes = Runtime.getRuntime().availableProcessors() * 2;
+
+		System.out.printf("%-10s %12s %12s %12s %10s%n", "Iterações", "Logins/s", "p50 (ms)", "p99 (ms)", "Recusados");
+		for (int custo : CUSTOS) {
+			SenhaServiceImpl senhas = new SenhaServiceImpl(custo, 0, 64, 30000);
+			ExecutorService executor = Executors.newFixedThreadPool(clientes);
+			try {
+				String codificada = senhas.codificar("senha");
+				// Aquece o JIT antes de medir.
+				for (int i = 0; i < 3; i++) {
+					senhas.confere("senha", codificada);
+				}
+
+				AtomicInteger recusados = new AtomicInteger();
+				long fim = System.currentTimeMillis() + duracaoMs;
+				List<Future<List<Long>>> resultados = new ArrayList<>();
+				for (int c = 0; c < clientes; c++) {
+					resultados.add(executor.submit(() -> {
+						List<Long> tempos = new ArrayList<>();
+						while (System.currentTimeMillis() < fim) {
+							long inicio = System.nanoTime();
+							try {
+								assertThat(senhas.confere("senha", codificada)).isTrue();
+								tempos.add(System.nanoTime() - inicio);
+							} catch (ServicoSobrecarregadoException e) {
+								recusados.incrementAndGet();
+							}
+						}
+						return tempos;
+					}));
+				}
+
+				List<Long> tempos = new ArrayList<>();
+				for (Future<List<Long>> resultado : resultados) {
+					tempos.addAll(resultado.get());
+				}
+				long[] ordenados = tempos.stream().mapToLong(Long::longValue).toArray();
+				Arrays.sort(ordenados);
+				System.out.printf("%-10d %12.1f %12.1f %12.1f %10d%n", custo,
+						ordenados.length * 1000.0 / duracaoMs,
+						ordenados[ordenados.length / 2] / 1e6,
+						ordenados[(int) (ordenados.length * 0.99)] / 1e6,
+						recusados.get());
+			} finally {
+				executor.shutdownNow();
+				senhas.encerrar();
+			}
+		}
+	}
+}
@@ -0,0 +1,106 @@
+package com.amantovan.minhasfinancas.config.datasource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+
+import javax.sql.DataSource;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+public class DataSourceRoteadoTest {
+
+	DataSourceRoteado roteado;
+	JdbcTemplate jdbcTemplate;
+	TransactionTemplate escrita;
+	TransactionTemplate leitura;
+	
+	@Before
+	public void setUp() {
+		DataSource primario = criarBanco("primario");
+		DataSource replica = criarBanco("replica");
+		configurar(new DataSourceRoteado(primario, Arrays.asList(replica), Duration.ofMinutes(1)));
+	}
+	
+	@After
+	public void tearDown() {
+		ContextoRoteamento.limpar();
+	}
+	
+	@Test
+	public void deveLerDaReplicaEEscreverNoPrimario() {
+		assertThat(origemDaLeitura()).isEqualTo("replica");
+		assertThat(origemDaEscrita()).isEqualTo("primario");
+	}
+	
+	@Test
+	public void deveManterAsLeiturasDoUsuarioNoPrimarioDepoisDeUmaEscrita() {
+		ContextoRoteamento.definirUsuario(1l);
+		origemDaEscrita();
+		
+		assertThat(origemDaLeitura()).isEqualTo("primario");
+		
+		ContextoRoteamento.definirUsuario(2l);
+		assertThat(origemDaLeitura()).isEqualTo("replica");
+	}
+	
+	@Test
+	public void deveAlternarEntreAsReplicasSaudaveis() {
+		configurar(new DataSourceRoteado(criarBanco("primario"), 
+				Arrays.asList(criarBanco("replica"), criarBanco("replica2")), Duration.ofMinutes(1)));
+		
+		assertThat(Arrays.asList(origemDaLeitura(), origemDaLeitura(), origemDaLeitura()))
+			.containsExactly("replica", "replica2", "replica");
+	}
+	
+	@Test
+	public void deveLerDoPrimarioQuandoNenhumaReplicaEstiverSaudavel() {
+		DriverManagerDataSource indisponivel = new DriverManagerDataSource("jdbc:h2:mem:inexistente;IFEXISTS=TRUE", "sa", "");
+		configurar(new DataSourceRoteado(criarBanco("primario"), Collections.singletonList(indisponivel), Duration.ofMinutes(1)));
+		
+		roteado.verificarReplicas();
+		
+		assertThat(roteado.getReplicasSaudaveis()).isEmpty();
+		assertThat(origemDaLeitura()).isEqualTo("primario");
+	}
+	
+	private void configurar(DataSourceRoteado dataSourceRoteado) {
+		roteado = dataSourceRoteado;
+		roteado.afterPropertiesSet();
+		DataSource dataSource = new LazyConnectionDataSourceProxy(roteado);
+		DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+		jdbcTemplate = new JdbcTemplate(dataSource);
+		escrita = new TransactionTemplate(transactionManager);
+		leitura = new TransactionTemplate(transactionManager);
+		leitura.setReadOnly(true);
+	}
+	
+	private String origemDaLeitura() {
+		return leitura.execute(status -> jdbcTemplate.queryForObject("select nome from origem", String.class));
+	}
+	
+	private String origemDaEscrita() {
+		return escrita.execute(status -> {
+			jdbcTemplate.update("update origem set nome = nome");
+			return jdbcTemplate.queryForObject("select nome from origem", String.class);
+		});
+	}
+	
+	private static DataSource criarBanco(String nome) {
+		DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:" + nome + ";DB_CLOSE_DELAY=-1", "sa", "");
+		JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+		jdbc.execute("create table if not exists origem (nome varchar(20))");
+		jdbc.update("delete from origem");
+		jdbc.update("insert into origem (nome) values (?)", nome);
+		return dataSource;
+	}
+}
@@ -0,0 +1,162 @@
+package com.amantovan.minhasfinancas.config.datasource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.amantovan.minhasfinancas.exception.RegraNegocioException;
+import com.amantovan.minhasfinancas.model.entity.Lancamento;
+import com.amantovan.minhasfinancas.model.entity.Usuario;
+import com.amantovan.minhasfinancas.model.enuns.StatusLancamento;
+import com.amantovan.minhasfinancas.model.enuns.TipoLancamento;
+import com.amantovan.minhasfinancas.service.EventoLancamentoService;
+import com.amantovan.minhasfinancas.service.LancamentoService;
+import com.amantovan.minhasfinancas.service.UsuarioService;
+
+@RunWith(SpringRunner.class)
+@ActiveProfiles("test")
+@SpringBootTest(properties = {
+		"minhasfinancas.fragmentos.habilitado=true",
+		"minhasfinancas.fragmentos.ajustar-sequencias=false",
+		"minhasfinancas.fragmentos.fontes[0].url=jdbc:h2:mem:fragmento0;DB_CLOSE_DELAY=-1;INIT=CREATE SCHEMA IF NOT EXISTS financas",
+		"minhasfinancas.fragmentos.fontes[0].username=sa",
+		"minhasfinancas.fragmentos.fontes[0].password=sa",
+		"minhasfinancas.fragmentos.fontes[1].url=jdbc:h2:mem:fragmento1;DB_CLOSE_DELAY=-1",
+		"minhasfinancas.fragmentos.fontes[1].username=sa",
+		"minhasfinancas.fragmentos.fontes[1].password=sa",
+		"minhasfinancas.fragmentos.fontes[2].url=jdbc:h2:mem:fragmento2;DB_CLOSE_DELAY=-1",
+		"minhasfinancas.fragmentos.fontes[2].username=sa",
+		"minhasfinancas.fragmentos.fontes[2].password=sa",
+		"minhasfinancas.outbox.intervalo=3600000"
+})
+public class FragmentacaoTest {
+
+	static final int FRAGMENTOS = 3;
+	static boolean esquemaReplicado;
+	
+	@Autowired UsuarioService usuarioService;
+	@Autowired LancamentoService lancamentoService;
+	@Autowired EventoLancamentoService eventoService;
+	@Autowired GerenciadorFragmentos gerenciador;
+	@Autowired InicializadorFragmentos inicializador;
+	@Autowired RebalanceadorFragmentos rebalanceador;
+	
+	@Before
+	public void setUp() {
+		if (esquemaReplicado) {
+			return;
+		}
+		// O Hibernate só cria as tabelas no fragmento 0; os demais recebem uma cópia do esquema.
+		List<String> esquema = fragmento(0).queryForList("SCRIPT NODATA", String.class).stream()
+				.filter(comando -> !comando.startsWith("--"))
+				.collect(Collectors.toList());
+		for (int i = 1; i < FRAGMENTOS; i++) {
+			esquema.forEach(fragmento(i)::execute);
+		}
+		inicializador.ajustarSequencias();
+		esquemaReplicado = true;
+	}
+	
+	@After
+	public void tearDown() {
+		ContextoRoteamento.limpar();
+	}
+	
+	@Test
+	public void deveGravarCadaUsuarioNoFragmentoDoEmail() {
+		for (int i = 0; i < 6; i++) {
+			String email = "usuario" + i + "@fragmentos.com";
+			Usuario usuario = usuarioService.salvarUsuario(Usuario.builder().nome("usuario").email(email).senha("senha").build());
+			int esperado = gerenciador.fragmentoParaNovoUsuario(email);
+			
+			assertThat(IdFragmentado.fragmento(usuario.getId())).isEqualTo(esperado);
+			for (int fragmento = 0; fragmento < FRAGMENTOS; fragmento++) {
+				assertThat(contar(fragmento, "usuario", "email = ?", email)).isEqualTo(fragmento == esperado ? 1 : 0);
+			}
+			assertThat(usuarioService.autenticar(email, "senha").getId()).isEqualTo(usuario.getId());
+			assertThat(catchThrowable(() -> usuarioService.validarEmail(email))).isInstanceOf(RegraNegocioException.class);
+		}
+	}
+	
+	@Test
+	public void deveGravarELerLancamentosNoFragmentoDoUsuario() {
+		Usuario usuario = usuarioService.salvarUsuario(Usuario.builder().nome("usuario").email("lancamentos@fragmentos.com").senha("senha").build());
+		int fragmentoUsuario = IdFragmentado.fragmento(usuario.getId());
+		
+		Lancamento lancamento = lancamentoService.salvar(criarLancamento(usuario));
+		lancamentoService.atualizarStatus(lancamento, StatusLancamento.EFETIVADO);
+		
+		assertThat(IdFragmentado.fragmento(lancamento.getId())).isEqualTo(fragmentoUsuario);
+		assertThat(contar(fragmentoUsuario, "lancamento", "id = ?", lancamento.getId())).isEqualTo(1);
+		assertThat(lancamentoService.obterPorId(lancamento.getId())).isPresent();
+		assertThat(lancamentoService.buscar(Lancamento.builder().usuario(usuario).build())).hasSize(1);
+		assertThat(lancamentoService.obterSaldoPorUsuario(usuario.getId())).isEqualByComparingTo("150");
+	}
+	
+	@Test
+	public void deveMoverUmUsuarioEntreFragmentos() {
+		Usuario usuario = usuarioService.salvarUsuario(Usuario.builder().nome("usuario").email("mudanca@fragmentos.com").senha("senha").build());
+		int origem = IdFragmentado.fragmento(usuario.getId());
+		int destino = (origem + 1) % FRAGMENTOS;
+		Lancamento lancamento = lancamentoService.salvar(criarLancamento(usuario));
+		lancamentoService.atualizarStatus(lancamento, StatusLancamento.EFETIVADO);
+		lancamentoService.salvar(criarLancamento(usuario));
+		eventoService.despacharPendentes();
+		
+		rebalanceador.moverUsuario(usuario.getId(), destino);
+		eventoService.despacharPendentes();
+		ContextoRoteamento.limpar();
+		
+		assertThat(gerenciador.fragmentoDoUsuario(usuario.getId())).isEqualTo(destino);
+		assertThat(contar(origem, "lancamento", "id_usuario = ?", usuario.getId())).isZero();
+		assertThat(contar(origem, "usuario", "id = ?", usuario.getId())).isZero();
+		assertThat(contar(destino, "lancamento", "id_usuario = ?", usuario.getId())).isEqualTo(2);
+		assertThat(contar(0, "diretorio_fragmento", "id_usuario = ?", usuario.getId())).isEqualTo(1);
+		
+		assertThat(usuarioService.autenticar("mudanca@fragmentos.com", "senha").getId()).isEqualTo(usuario.getId());
+		assertThat(lancamentoService.obterPorId(lancamento.getId())).isPresent();
+		assertThat(lancamentoService.buscar(Lancamento.builder().usuario(usuario).build())).hasSize(2);
+		assertThat(lancamentoService.obterSaldoPorUsuario(usuario.getId())).isEqualByComparingTo("150");
+		assertThat(saldoProjetado(origem, usuario.getId())).isEqualByComparingTo("0");
+		assertThat(saldoProjetado(destino, usuario.getId())).isEqualByComparingTo("150");
+	}
+	
+	private Lancamento criarLancamento(Usuario usuario) {
+		return Lancamento.builder()
+				.descricao("lancamento")
+				.mes(1)
+				.ano(2019)
+				.valor(BigDecimal.valueOf(150))
+				.tipo(TipoLancamento.RECEITA)
+				.usuario(usuario)
+				.build();
+	}
+	
+	private int contar(int fragmento, String tabela, String condicao, Object parametro) {
+		return fragmento(fragmento).queryForObject(
+				"select count(*) from financas." + tabela + " where " + condicao, Integer.class, parametro);
+	}
+	
+	private BigDecimal saldoProjetado(int fragmento, Long idUsuario) {
+		return fragmento(fragmento).queryForObject(
+				"select saldo from financas.saldo_usuario where id_usuario = ?", BigDecimal.class, idUsuario);
+	}
+	
+	private static JdbcTemplate fragmento(int fragmento) {
+		return new JdbcTemplate(new DriverManagerDataSource("jdbc:h2:mem:fragmento" + fragmento + ";DB_CLOSE_DELAY=-1", "sa", "sa"));
+	}
+}
@@ -2,7 +2,10 @@ package com.amantovan.minhasfinancas.model.repository;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import org.junit.Test;
@@ -17,6 +20,8 @@ import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit4.SpringRunner;
 
 import com.amantovan.minhasfinancas.model.entity.Lancamento;
+import com.amantovan.minhasfinancas.model.entity.Usuario;
+import com.amantovan.minhasfinancas.model.enuns.CampoLancamento;
 import com.amantovan.minhasfinancas.model.enuns.StatusLancamento;
 import com.amantovan.minhasfinancas.model.enuns.TipoLancamento;
 
@@ -84,6 +89,105 @@ public class LancamentoRepositoryTest {
 		assertThat(lancamentoEncontrado.isPresent()).isTrue();
 	}
 
+	@Test
+	public void deveRetornarSomenteAsImpressoesDigitaisJaGravadasDoUsuario() {
+		Usuario usuario = entityManager.persist(Usuario.builder().nome("usuario").email("usuario@email.com").build());
+		Usuario outroUsuario = entityManager.persist(Usuario.builder().nome("outro").email("outro@email.com").build());
+		Lancamento lancamento = criarLancamento();
+		lancamento.setUsuario(usuario);
+		lancamento.setImpressaoDigital("a");
+		entityManager.persist(lancamento);
+		Lancamento deOutroUsuario = criarLancamento();
+		deOutroUsuario.setUsuario(outroUsuario);
+		deOutroUsuario.setImpressaoDigital("b");
+		entityManager.persist(deOutroUsuario);
+		
+		Set<String> existentes = repository.obterImpressoesDigitaisExistentes(usuario.getId(), Arrays.asList("a", "b", "c"));
+		
+		assertThat(existentes).containsExactly("a");
+	}
+
+	@Test
+	public void deveSomarOSaldoEfetivadoDoPeriodoPelaCompetencia() {
+		Usuario usuario = entityManager.persist(Usuario.builder().nome("usuario").email("usuario@email.com").build());
+		persistirEfetivado(usuario, 2023, 11, "100");
+		persistirEfetivado(usuario, 2023, 12, "20");
+		persistirEfetivado(usuario, 2024, 1, "3");
+		
+		BigDecimal saldo = repository.obterSaldoPorTipoLancamentoEUsuarioEStatusNoPeriodo(usuario.getId(), 
+				TipoLancamento.RECEITA, StatusLancamento.EFETIVADO, LocalDate.of(2023, 12, 1), LocalDate.of(2024, 1, 1));
+		
+		assertThat(saldo).isEqualByComparingTo("23");
+	}
+	
+	@Test
+	public void devePreencherACompetenciaDosLancamentosAntigos() {
+		Lancamento lancamento = criarEPersitirLancamento();
+		entityManager.flush();
+		entityManager.getEntityManager()
+			.createNativeQuery("update financas.lancamento set competencia = null where id = :id")
+			.setParameter("id", lancamento.getId())
+			.executeUpdate();
+		
+		assertThat(repository.obterMesesSemCompetencia()).containsExactly(new Object[] {2024, 11});
+		assertThat(repository.preencherCompetencia(2024, 11, LocalDate.of(2024, 11, 1))).isEqualTo(1);
+		assertThat(repository.obterMesesSemCompetencia()).isEmpty();
+	}
+	
+	@Test
+	public void deveBuscarParaAPrevisaoSoOHistoricoDoPeriodoEOsPendentesAteOUltimoMes() {
+		Usuario usuario = entityManager.persist(Usuario.builder().nome("usuario").email("usuario@email.com").build());
+		persistir(usuario, 2023, 5, StatusLancamento.EFETIVADO, "antes do historico");
+		persistir(usuario, 2023, 6, StatusLancamento.EFETIVADO, "inicio do historico");
+		persistir(usuario, 2024, 5, StatusLancamento.EFETIVADO, "fim do historico");
+		persistir(usuario, 2024, 6, StatusLancamento.EFETIVADO, "mes atual");
+		persistir(usuario, 2024, 1, StatusLancamento.CANCELADO, "cancelado");
+		persistir(usuario, 2020, 1, StatusLancamento.PENDENTE, "pendente vencido");
+		persistir(usuario, 2024, 9, StatusLancamento.PENDENTE, "pendente do ultimo mes");
+		persistir(usuario, 2024, 10, StatusLancamento.PENDENTE, "pendente depois da previsao");
+		
+		List<Lancamento> lancamentos = repository.obterParaPrevisao(usuario.getId(), 
+				LocalDate.of(2023, 6, 1), LocalDate.of(2024, 6, 1), LocalDate.of(2024, 9, 1));
+		
+		assertThat(lancamentos).extracting(Lancamento::getDescricao).containsExactlyInAnyOrder(
+				"inicio do historico", "fim do historico", "pendente vencido", "pendente do ultimo mes");
+	}
+	
+	@Test
+	public void deveBuscarSomenteOsCamposPedidosDoUsuario() {
+		Usuario usuario = entityManager.persist(Usuario.builder().nome("usuario").email("usuario@email.com").build());
+		persistirEfetivado(usuario, 2024, 1, "7");
+		criarEPersitirLancamento();
+		
+		List<Object[]> linhas = repository.buscarCampos(
+				(root, query, builder) -> builder.equal(root.get("usuario").get("id"), usuario.getId()),
+				Arrays.asList(CampoLancamento.VALOR, CampoLancamento.STATUS, CampoLancamento.USUARIO, CampoLancamento.CATEGORIA));
+		
+		assertThat(linhas).hasSize(1);
+		assertThat((BigDecimal) linhas.get(0)[0]).isEqualByComparingTo("7");
+		assertThat(linhas.get(0)).containsExactly(linhas.get(0)[0], StatusLancamento.EFETIVADO, usuario.getId(), null);
+	}
+	
+	private void persistir(Usuario usuario, int ano, int mes, StatusLancamento status, String descricao) {
+		Lancamento lancamento = criarLancamento();
+		lancamento.setUsuario(usuario);
+		lancamento.setAno(ano);
+		lancamento.setMes(mes);
+		lancamento.setStatus(status);
+		lancamento.setDescricao(descricao);
+		entityManager.persist(lancamento);
+	}
+	
+	private void persistirEfetivado(Usuario usuario, int ano, int mes, String valor) {
+		Lancamento lancamento = criarLancamento();
+		lancamento.setUsuario(usuario);
+		lancamento.setAno(ano);
+		lancamento.setMes(mes);
+		lancamento.setValor(new BigDecimal(valor));
+		lancamento.setStatus(StatusLancamento.EFETIVADO);
+		entityManager.persist(lancamento);
+	}
+
 	private Lancamento criarEPersitirLancamento() {
 		Lancamento lancamento = criarLancamento();
 		entityManager.persist(lancamento);
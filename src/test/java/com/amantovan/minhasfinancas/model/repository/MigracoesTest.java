@@ -0,0 +1,58 @@
+package com.amantovan.minhasfinancas.model.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.flywaydb.core.Flyway;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.amantovan.minhasfinancas.model.entity.Lancamento;
+import com.amantovan.minhasfinancas.model.entity.Usuario;
+
+/**
+ * Cria o esquema só com as migrações, em um banco próprio, e deixa o Hibernate validá-lo
+ * contra as entidades: uma coluna esquecida em uma migração quebra o build.
+ */
+@RunWith(SpringRunner.class)
+@DataJpaTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:migracoes;MODE=PostgreSQL;DB_CLOSE_DELAY=-1;INIT=CREATE SCHEMA IF NOT EXISTS financas",
+		"spring.flyway.enabled=true",
+		"spring.jpa.hibernate.ddl-auto=validate"
+})
+@AutoConfigureTestDatabase(replace = Replace.NONE)
+@ActiveProfiles("test")
+public class MigracoesTest {
+
+	@Autowired
+	Flyway flyway;
+
+	@Autowired
+	LancamentoRepository repository;
+
+	@Autowired
+	TestEntityManager entityManager;
+
+	@Test
+	public void deveAplicarTodasAsMigracoes() {
+		assertThat(flyway.info().pending()).isEmpty();
+		assertThat(flyway.info().current()).isNotNull();
+	}
+
+	@Test
+	public void deveGravarUmLancamentoNoEsquemaDasMigracoes() {
+		Usuario usuario = entityManager.persist(UsuarioRepositoryTest.criarUsuario());
+		Lancamento lancamento = LancamentoRepositoryTest.criarLancamento();
+		lancamento.setUsuario(usuario);
+
+		lancamento = repository.saveAndFlush(lancamento);
+
+		assertThat(repository.findById(lancamento.getId())).isPresent();
+	}
+}
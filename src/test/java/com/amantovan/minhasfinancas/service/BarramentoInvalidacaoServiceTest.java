@@ -0,0 +1,144 @@
+package com.amantovan.minhasfinancas.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import com.amantovan.minhasfinancas.model.entity.Lancamento;
+import com.amantovan.minhasfinancas.model.entity.Usuario;
+import com.amantovan.minhasfinancas.service.impl.BarramentoInvalidacaoServiceImpl;
+import com.amantovan.minhasfinancas.service.impl.CacheBuscaLancamentoServiceImpl;
+import com.amantovan.minhasfinancas.service.impl.TransporteInvalidacaoLocal;
+
+public class BarramentoInvalidacaoServiceTest {
+
+	TransporteRegistrado transporte;
+	CacheBuscaLancamentoServiceImpl cacheA;
+	CacheBuscaLancamentoServiceImpl cacheB;
+	BarramentoInvalidacaoServiceImpl instanciaA;
+	BarramentoInvalidacaoServiceImpl instanciaB;
+
+	@Before
+	public void setUp() {
+		transporte = new TransporteRegistrado();
+		cacheA = new CacheBuscaLancamentoServiceImpl(true, 100, 100, 0, 60000);
+		cacheB = new CacheBuscaLancamentoServiceImpl(true, 100, 100, 0, 60000);
+		instanciaA = barramento(cacheA, 2);
+		instanciaB = barramento(cacheB, 2);
+	}
+
+	@Test
+	public void deveInvalidarAOutraInstanciaEmLotesSemRepetirUsuarios() {
+		buscar(cacheB, 1l, 2l, 3l);
+
+		instanciaA.publicar(1l);
+		instanciaA.publicar(2l);
+		instanciaA.publicar(1l);
+		instanciaA.publicar(3l);
+		assertThat(cacheB.getEntradas()).isEqualTo(3);
+
+		assertThat(instanciaA.enviarPendentes()).isEqualTo(3);
+		assertThat(transporte.mensagens).containsExactly(Arrays.asList(1l, 2l), Arrays.asList(3l));
+		assertThat(cacheB.getEntradas()).isZero();
+		assertThat(instanciaA.enviarPendentes()).isZero();
+	}
+
+	@Test
+	public void deveInvalidarSoDepoisDoCommit() {
+		buscar(cacheA, 1l);
+		TransactionSynchronizationManager.initSynchronization();
+		try {
+			instanciaA.publicar(1l);
+			instanciaA.publicar(1l);
+			assertThat(cacheA.getEntradas()).isEqualTo(1);
+			assertThat(instanciaA.enviarPendentes()).isZero();
+
+			TransactionSynchronizationUtils.triggerAfterCommit();
+			assertThat(cacheA.getEntradas()).isZero();
+			assertThat(cacheA.getInvalidacoes()).isEqualTo(1);
+		} finally {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+		assertThat(instanciaA.enviarPendentes()).isEqualTo(1);
+	}
+
+	@Test
+	public void deveReenviarQuandoOTransporteFalhar() {
+		buscar(cacheB, 1l);
+		instanciaA.publicar(1l);
+
+		transporte.falhar = true;
+		assertThat(instanciaA.enviarPendentes()).isZero();
+		assertThat(cacheB.getEntradas()).isEqualTo(1);
+
+		transporte.falhar = false;
+		assertThat(instanciaA.enviarPendentes()).isEqualTo(1);
+		assertThat(cacheB.getEntradas()).isZero();
+	}
+
+	@Test
+	public void deveEntregarOsCadastrosSemInvalidarOsCaches() {
+		List<Long> cadastrados = new ArrayList<>();
+		List<Long> alterados = new ArrayList<>();
+		barramento(new OuvinteInvalidacao() {
+			@Override
+			public void invalidarUsuarios(Collection<Long> usuarios) {
+				alterados.addAll(usuarios);
+			}
+
+			@Override
+			public void registrarCadastrosDeOutraInstancia(Collection<Long> usuarios) {
+				cadastrados.addAll(usuarios);
+			}
+
+			@Override
+			public void invalidarTudo() {
+			}
+		}, 2);
+		buscar(cacheA, 1l);
+
+		instanciaA.publicarCadastro(1l);
+		assertThat(cacheA.getEntradas()).isEqualTo(1);
+
+		assertThat(instanciaA.enviarPendentes()).isEqualTo(1);
+		assertThat(cadastrados).containsExactly(1l);
+		assertThat(alterados).isEmpty();
+	}
+
+	private BarramentoInvalidacaoServiceImpl barramento(OuvinteInvalidacao ouvinte, int tamanhoLote) {
+		StaticListableBeanFactory beans = new StaticListableBeanFactory(Collections.singletonMap("cache", ouvinte));
+		return new BarramentoInvalidacaoServiceImpl(transporte, beans.getBeanProvider(OuvinteInvalidacao.class), tamanhoLote);
+	}
+
+	private static void buscar(CacheBuscaLancamentoServiceImpl cache, Long... usuarios) {
+		for (Long usuario : usuarios) {
+			Lancamento filtro = Lancamento.builder().usuario(Usuario.builder().id(usuario).build()).build();
+			cache.buscar(filtro, Collections::emptyList);
+		}
+	}
+
+	static class TransporteRegistrado extends TransporteInvalidacaoLocal {
+
+		final List<List<Long>> mensagens = new ArrayList<>();
+		boolean falhar;
+
+		@Override
+		public void enviar(String origem, TipoInvalidacao tipo, Collection<Long> usuarios) {
+			if (falhar) {
+				throw new IllegalStateException("transporte indisponível");
+			}
+			mensagens.add(new ArrayList<>(usuarios));
+			super.enviar(origem, tipo, usuarios);
+		}
+	}
+}
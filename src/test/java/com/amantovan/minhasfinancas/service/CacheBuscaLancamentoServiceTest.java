@@ -0,0 +1,165 @@
+package com.amantovan.minhasfinancas.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.amantovan.minhasfinancas.model.entity.Lancamento;
+import com.amantovan.minhasfinancas.model.entity.Usuario;
+import com.amantovan.minhasfinancas.service.impl.CacheBuscaLancamentoServiceImpl;
+
+public class CacheBuscaLancamentoServiceTest {
+
+	CacheBuscaLancamentoServiceImpl cache;
+	AtomicInteger consultas;
+	ExecutorService executor;
+
+	@Before
+	public void setUp() {
+		cache = new CacheBuscaLancamentoServiceImpl(true, 3, 100, 0, 60000);
+		consultas = new AtomicInteger();
+		executor = Executors.newFixedThreadPool(4);
+	}
+
+	@After
+	public void tearDown() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	public void deveReaproveitarFiltrosEquivalentesAteOUsuarioSerInvalidado() {
+		cache.buscar(filtro(1l, "Aluguel", 1), consulta());
+		cache.buscar(filtro(1l, "aluguel", 1), consulta());
+		cache.buscar(filtro(2l, "aluguel", 1), consulta());
+		assertThat(consultas.get()).isEqualTo(2);
+
+		cache.invalidar(1l);
+		cache.buscar(filtro(1l, "aluguel", 1), consulta());
+		cache.buscar(filtro(2l, "aluguel", 1), consulta());
+
+		assertThat(consultas.get()).isEqualTo(3);
+		assertThat(cache.getAcertos()).isEqualTo(2);
+		assertThat(cache.getTaxaAcerto()).isEqualTo(0.4);
+		assertThat(cache.getBytesEstimados()).isPositive();
+	}
+
+	@Test
+	public void deveDescartarAsEntradasMenosUsadasAlemDaCapacidade() {
+		for (int mes = 1; mes <= 4; mes++) {
+			cache.buscar(filtro(1l, null, mes), consulta());
+		}
+
+		assertThat(cache.getEntradas()).isEqualTo(3);
+		cache.buscar(filtro(1l, null, 1), consulta());
+		assertThat(consultas.get()).isEqualTo(5);
+	}
+
+	@Test
+	public void deveExecutarUmaUnicaConsultaParaFalhasSimultaneas() throws Exception {
+		CountDownLatch liberar = new CountDownLatch(1);
+		Supplier<List<Lancamento>> consultaLenta = () -> {
+			consultas.incrementAndGet();
+			aguardar(liberar);
+			return Collections.singletonList(new Lancamento());
+		};
+
+		List<Future<List<Lancamento>>> resultados = new ArrayList<>();
+		for (int i = 0; i < 4; i++) {
+			resultados.add(executor.submit(() -> cache.buscar(filtro(1l, "mercado", 2), consultaLenta)));
+		}
+		while (cache.getCoalescidas() < 3) {
+			Thread.sleep(5);
+		}
+		liberar.countDown();
+
+		for (Future<List<Lancamento>> resultado : resultados) {
+			assertThat(resultado.get(5, TimeUnit.SECONDS)).hasSize(1);
+		}
+		assertThat(consultas.get()).isEqualTo(1);
+	}
+
+	@Test
+	public void naoDeveGuardarResultadoDeConsultaInvalidadaDuranteAExecucao() throws Exception {
+		CountDownLatch iniciada = new CountDownLatch(1);
+		CountDownLatch liberar = new CountDownLatch(1);
+		Future<List<Lancamento>> emAndamento = executor.submit(() -> cache.buscar(filtro(1l, null, 3), () -> {
+			consultas.incrementAndGet();
+			iniciada.countDown();
+			aguardar(liberar);
+			return Collections.emptyList();
+		}));
+
+		iniciada.await(5, TimeUnit.SECONDS);
+		cache.invalidar(1l);
+		liberar.countDown();
+		emAndamento.get(5, TimeUnit.SECONDS);
+
+		cache.buscar(filtro(1l, null, 3), consulta());
+		assertThat(consultas.get()).isEqualTo(2);
+	}
+
+	@Test
+	public void naoDeveGuardarConsultaFeitaLogoAposUmaInvalidacaoDeOutraInstancia() throws Exception {
+		cache = new CacheBuscaLancamentoServiceImpl(true, 3, 100, 200, 60000);
+		cache.invalidarUsuarios(Collections.singleton(1l));
+		
+		cache.buscar(filtro(1l, null, 1), consulta());
+		cache.buscar(filtro(1l, null, 1), consulta());
+		assertThat(consultas.get()).isEqualTo(2);
+		
+		Thread.sleep(250);
+		cache.buscar(filtro(1l, null, 1), consulta());
+		cache.buscar(filtro(1l, null, 1), consulta());
+		assertThat(consultas.get()).isEqualTo(3);
+	}
+
+	@Test
+	public void deveExpirarAsEntradasDepoisDoTtl() throws Exception {
+		cache = new CacheBuscaLancamentoServiceImpl(true, 3, 100, 0, 50);
+		cache.buscar(filtro(1l, null, 1), consulta());
+		cache.buscar(filtro(1l, null, 1), consulta());
+		assertThat(consultas.get()).isEqualTo(1);
+		
+		Thread.sleep(100);
+		cache.buscar(filtro(1l, null, 1), consulta());
+		assertThat(consultas.get()).isEqualTo(2);
+		assertThat(cache.getEntradas()).isEqualTo(1);
+	}
+
+	private Supplier<List<Lancamento>> consulta() {
+		return () -> {
+			consultas.incrementAndGet();
+			return Collections.singletonList(Lancamento.builder().descricao("lançamento").build());
+		};
+	}
+
+	private static Lancamento filtro(Long usuario, String descricao, Integer mes) {
+		return Lancamento.builder()
+				.usuario(Usuario.builder().id(usuario).build())
+				.descricao(descricao)
+				.mes(mes)
+				.ano(2020)
+				.build();
+	}
+
+	private static void aguardar(CountDownLatch latch) {
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -0,0 +1,104 @@
+package com.amantovan.minhasfinancas.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.amantovan.minhasfinancas.config.datasource.FragmentacaoConfig;
+import com.amantovan.minhasfinancas.exception.RegraNegocioException;
+import com.amantovan.minhasfinancas.model.entity.Categoria;
+import com.amantovan.minhasfinancas.model.entity.Lancamento;
+import com.amantovan.minhasfinancas.model.entity.Usuario;
+import com.amantovan.minhasfinancas.model.enuns.StatusLancamento;
+import com.amantovan.minhasfinancas.model.enuns.TipoEventoLancamento;
+import com.amantovan.minhasfinancas.model.enuns.TipoLancamento;
+import com.amantovan.minhasfinancas.model.repository.LancamentoRepositoryTest;
+import com.amantovan.minhasfinancas.model.repository.UsuarioRepositoryTest;
+import com.amantovan.minhasfinancas.service.impl.CategoriaServiceImpl;
+import com.amantovan.minhasfinancas.service.impl.EventoLancamentoServiceImpl;
+import com.amantovan.minhasfinancas.service.impl.ProjecaoGastoCategoria;
+
+@RunWith(SpringRunner.class)
+@ActiveProfiles("test")
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = Replace.NONE)
+@Import({CategoriaServiceImpl.class, EventoLancamentoServiceImpl.class, ProjecaoGastoCategoria.class, FragmentacaoConfig.class})
+public class CategoriaServiceTest {
+
+	@Autowired
+	CategoriaService service;
+	
+	@Autowired
+	EventoLancamentoService eventoService;
+	
+	@Autowired
+	TestEntityManager entityManager;
+	
+	@Test
+	public void deveResumirOOrcamentoComOsGastosMantidosPelaProjecao() {
+		Usuario usuario = entityManager.persist(UsuarioRepositoryTest.criarUsuario());
+		Categoria alimentacao = service.salvar(Categoria.builder().nome("Alimentação").usuario(usuario).build());
+		Categoria lazer = service.salvar(Categoria.builder().nome("Lazer").usuario(usuario).build());
+		service.definirOrcamento(alimentacao, 2024, 11, BigDecimal.valueOf(100));
+		
+		Lancamento mercado = criarEPersistirDespesa(usuario, alimentacao, 30, StatusLancamento.EFETIVADO);
+		criarEPersistirDespesa(usuario, alimentacao, 20, StatusLancamento.PENDENTE);
+		eventoService.despacharPendentes();
+		
+		List<ResumoOrcamentoCategoria> resumo = service.obterResumoOrcamento(usuario.getId(), 2024, 11);
+		assertThat(resumo).extracting(ResumoOrcamentoCategoria::getNome).containsExactly("Alimentação", "Lazer");
+		assertThat(resumo.get(0).getOrcado()).isEqualByComparingTo("100");
+		assertThat(resumo.get(0).getGasto()).isEqualByComparingTo("30");
+		assertThat(resumo.get(0).getDisponivel()).isEqualByComparingTo("70");
+		assertThat(resumo.get(1).getGasto()).isEqualByComparingTo("0");
+		
+		mercado.setCategoria(lazer);
+		mercado.setMes(12);
+		eventoService.registrar(mercado, TipoEventoLancamento.ATUALIZADO);
+		eventoService.despacharPendentes();
+		
+		assertThat(service.obterResumoOrcamento(usuario.getId(), 2024, 11).get(0).getGasto()).isEqualByComparingTo("0");
+		assertThat(service.obterResumoOrcamento(usuario.getId(), 2024, 12).get(1).getGasto()).isEqualByComparingTo("30");
+		
+		entityManager.remove(mercado);
+		eventoService.registrar(mercado, TipoEventoLancamento.DELETADO);
+		eventoService.despacharPendentes();
+		
+		assertThat(service.obterResumoOrcamento(usuario.getId(), 2024, 12).get(1).getGasto()).isEqualByComparingTo("0");
+	}
+	
+	@Test
+	public void naoDeveSalvarCategoriaComNomeRepetidoParaOMesmoUsuario() {
+		Usuario usuario = entityManager.persist(UsuarioRepositoryTest.criarUsuario());
+		service.salvar(Categoria.builder().nome("Moradia").usuario(usuario).build());
+		
+		Throwable erro = catchThrowable(() -> service.salvar(Categoria.builder().nome(" moradia ").usuario(usuario).build()));
+		
+		assertThat(erro).isInstanceOf(RegraNegocioException.class).hasMessage("Já existe uma categoria com este nome.");
+	}
+	
+	private Lancamento criarEPersistirDespesa(Usuario usuario, Categoria categoria, int valor, StatusLancamento status) {
+		Lancamento lancamento = LancamentoRepositoryTest.criarLancamento();
+		lancamento.setUsuario(usuario);
+		lancamento.setCategoria(categoria);
+		lancamento.setTipo(TipoLancamento.DESPESA);
+		lancamento.setStatus(status);
+		lancamento.setValor(BigDecimal.valueOf(valor));
+		entityManager.persist(lancamento);
+		eventoService.registrar(lancamento, TipoEventoLancamento.CRIADO);
+		return lancamento;
+	}
+}
@@ -0,0 +1,111 @@
+package com.amantovan.minhasfinancas.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.amantovan.minhasfinancas.config.datasource.FragmentacaoConfig;
+import com.amantovan.minhasfinancas.model.entity.EventoLancamento;
+import com.amantovan.minhasfinancas.model.entity.Lancamento;
+import com.amantovan.minhasfinancas.model.entity.SaldoUsuario;
+import com.amantovan.minhasfinancas.model.entity.Usuario;
+import com.amantovan.minhasfinancas.model.enuns.StatusLancamento;
+import com.amantovan.minhasfinancas.model.enuns.TipoEventoLancamento;
+import com.amantovan.minhasfinancas.model.repository.ContribuicaoSaldoRepository;
+import com.amantovan.minhasfinancas.model.repository.EventoLancamentoRepository;
+import com.amantovan.minhasfinancas.model.repository.LancamentoRepositoryTest;
+import com.amantovan.minhasfinancas.model.repository.SaldoUsuarioRepository;
+import com.amantovan.minhasfinancas.model.repository.UsuarioRepositoryTest;
+import com.amantovan.minhasfinancas.service.impl.EventoLancamentoServiceImpl;
+import com.amantovan.minhasfinancas.service.impl.ProjecaoSaldoUsuario;
+
+@RunWith(SpringRunner.class)
+@ActiveProfiles("test")
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = Replace.NONE)
+@Import({EventoLancamentoServiceImpl.class, ProjecaoSaldoUsuario.class, FragmentacaoConfig.class})
+public class EventoLancamentoServiceTest {
+
+	@Autowired
+	EventoLancamentoService service;
+	
+	@Autowired
+	EventoLancamentoRepository eventoRepository;
+	
+	@Autowired
+	SaldoUsuarioRepository saldoRepository;
+	
+	@Autowired
+	ContribuicaoSaldoRepository contribuicaoRepository;
+	
+	@Autowired
+	TestEntityManager entityManager;
+	
+	@Test
+	public void deveAtualizarOSaldoProjetadoAoDespacharOsEventos() {
+		Lancamento lancamento = criarEPersistirLancamentoEfetivado();
+		service.registrar(lancamento, TipoEventoLancamento.CRIADO);
+		
+		int processados = service.despacharPendentes();
+		
+		assertThat(processados).isEqualTo(1);
+		assertThat(saldoDoUsuario(lancamento)).isEqualByComparingTo(BigDecimal.valueOf(10));
+		assertThat(service.despacharPendentes()).isZero();
+	}
+	
+	@Test
+	public void deveSerIdempotenteAoReprocessarUmEvento() {
+		Lancamento lancamento = criarEPersistirLancamentoEfetivado();
+		service.registrar(lancamento, TipoEventoLancamento.CRIADO);
+		service.despacharPendentes();
+		
+		EventoLancamento evento = eventoRepository.findAll().get(0);
+		evento.setDataProcessamento(null);
+		service.despacharPendentes();
+		
+		assertThat(saldoDoUsuario(lancamento)).isEqualByComparingTo(BigDecimal.valueOf(10));
+	}
+	
+	@Test
+	public void deveAplicarApenasADiferencaQuandoOLancamentoMudaEDeixarDeContarAoDeletar() {
+		Lancamento lancamento = criarEPersistirLancamentoEfetivado();
+		service.registrar(lancamento, TipoEventoLancamento.CRIADO);
+		service.despacharPendentes();
+		
+		lancamento.setValor(BigDecimal.valueOf(25));
+		service.registrar(lancamento, TipoEventoLancamento.ATUALIZADO);
+		service.despacharPendentes();
+		
+		assertThat(saldoDoUsuario(lancamento)).isEqualByComparingTo(BigDecimal.valueOf(25));
+		
+		entityManager.remove(lancamento);
+		service.registrar(lancamento, TipoEventoLancamento.DELETADO);
+		service.despacharPendentes();
+		
+		assertThat(saldoDoUsuario(lancamento)).isEqualByComparingTo(BigDecimal.ZERO);
+		assertThat(contribuicaoRepository.findById(lancamento.getId()).isPresent()).isFalse();
+	}
+	
+	private BigDecimal saldoDoUsuario(Lancamento lancamento) {
+		return saldoRepository.findById(lancamento.getUsuario().getId()).map(SaldoUsuario::getSaldo).get();
+	}
+	
+	private Lancamento criarEPersistirLancamentoEfetivado() {
+		Usuario usuario = entityManager.persist(UsuarioRepositoryTest.criarUsuario());
+		Lancamento lancamento = LancamentoRepositoryTest.criarLancamento();
+		lancamento.setUsuario(usuario);
+		lancamento.setStatus(StatusLancamento.EFETIVADO);
+		return entityManager.persist(lancamento);
+	}
+}
@@ -0,0 +1,101 @@
+package com.amantovan.minhasfinancas.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.amantovan.minhasfinancas.config.datasource.GerenciadorFragmentos;
+import com.amantovan.minhasfinancas.model.repository.UsuarioRepository;
+import com.amantovan.minhasfinancas.service.impl.FiltroEmailServiceImpl;
+
+public class FiltroEmailServiceTest {
+
+	static final int CADASTRADOS = 10000;
+	
+	UsuarioRepository repository;
+	FiltroEmailServiceImpl filtro;
+	
+	@Before
+	public void setUp() {
+		repository = mock(UsuarioRepository.class);
+		when(repository.countByEmailIsNotNull()).thenReturn((long) CADASTRADOS);
+		when(repository.obterEmails()).thenAnswer(invocacao -> IntStream.range(0, CADASTRADOS).mapToObj(FiltroEmailServiceTest::email));
+		filtro = new FiltroEmailServiceImpl(repository, mock(PlatformTransactionManager.class), GerenciadorFragmentos.unico(), 0.01, 1000);
+	}
+	
+	@Test
+	public void deveResponderQueOEmailPodeExistirAntesDaPrimeiraCarga() {
+		assertThat(filtro.podeExistir("qualquer@email.com")).isTrue();
+	}
+	
+	@Test
+	public void naoDeveTerFalsoNegativoParaEmailsCarregadosOuAdicionados() {
+		filtro.reconstruir();
+		filtro.adicionar("novo@email.com");
+		
+		assertThat(IntStream.range(0, CADASTRADOS).allMatch(i -> filtro.podeExistir(email(i)))).isTrue();
+		assertThat(filtro.podeExistir("novo@email.com")).isTrue();
+	}
+	
+	@Test
+	public void deveIncluirOsEmailsDeUsuariosCadastradosEmOutraInstancia() {
+		filtro.reconstruir();
+		when(repository.obterEmailsPorIds(anyCollection())).thenReturn(Arrays.asList("outra1@email.com", "outra2@email.com"));
+		
+		filtro.registrarCadastrosDeOutraInstancia(Arrays.asList(42l, 43l));
+		filtro.incluirPendentes();
+		
+		assertThat(filtro.podeExistir("outra1@email.com")).isTrue();
+		assertThat(filtro.podeExistir("outra2@email.com")).isTrue();
+		verify(repository).obterEmailsPorIds(Arrays.asList(42l, 43l));
+	}
+	
+	@Test
+	public void naoDeveConsultarOsEmailsDeUsuariosApenasAlterados() {
+		filtro.reconstruir();
+		
+		filtro.invalidarUsuarios(Arrays.asList(42l, 43l));
+		filtro.incluirPendentes();
+		
+		verify(repository, times(0)).obterEmailsPorIds(anyCollection());
+	}
+	
+	@Test
+	public void deveReconstruirQuandoInvalidacoesSePerderem() {
+		filtro.reconstruir();
+		
+		filtro.invalidarTudo();
+		filtro.incluirPendentes();
+		filtro.incluirPendentes();
+		
+		verify(repository, times(2)).obterEmails();
+		verify(repository, times(0)).obterEmailsPorIds(anyCollection());
+	}
+	
+	@Test
+	public void deveManterATaxaDeFalsoPositivoProximaDoAlvo() {
+		filtro.reconstruir();
+		
+		long falsosPositivos = IntStream.range(CADASTRADOS, CADASTRADOS * 11)
+				.filter(i -> filtro.podeExistir(email(i)))
+				.count();
+		
+		assertThat(falsosPositivos / (double) (CADASTRADOS * 10)).isLessThan(0.02);
+		assertThat(filtro.getTaxaFalsoPositivoEstimada()).isLessThan(0.02);
+		assertThat(filtro.getNegativos()).isEqualTo(CADASTRADOS * 10 - falsosPositivos);
+	}
+	
+	private static String email(int i) {
+		return "usuario" + i + "@email.com";
+	}
+}
@@ -0,0 +1,177 @@
+package com.amantovan.minhasfinancas.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.amantovan.minhasfinancas.config.datasource.ContextoRoteamento;
+import com.amantovan.minhasfinancas.config.datasource.GerenciadorFragmentos;
+import com.amantovan.minhasfinancas.exception.RegraNegocioException;
+import com.amantovan.minhasfinancas.model.entity.Lancamento;
+import com.amantovan.minhasfinancas.model.repository.LancamentoRepositoryTest;
+import com.amantovan.minhasfinancas.service.impl.GrupoCommitLancamentoServiceImpl;
+
+public class GrupoCommitLancamentoServiceTest {
+
+	LancamentoService lancamentoService;
+	GrupoCommitLancamentoServiceImpl service;
+	ExecutorService chamadores;
+	
+	@Before
+	public void setUp() {
+		lancamentoService = mock(LancamentoService.class);
+		service = new GrupoCommitLancamentoServiceImpl(lancamentoService, GerenciadorFragmentos.unico(), true, 300, 10, 100, 5000);
+		service.iniciar();
+		chamadores = Executors.newFixedThreadPool(3);
+	}
+	
+	@After
+	public void tearDown() {
+		chamadores.shutdownNow();
+		service.encerrar();
+	}
+	
+	@Test
+	public void deveGravarChamadasConcorrentesEmUmUnicoLote() throws Exception {
+		when(lancamentoService.salvarLote(anyList())).thenAnswer(invocacao -> {
+			List<Lancamento> lote = invocacao.getArgument(0);
+			long id = 1;
+			for (Lancamento lancamento : lote) {
+				lancamento.setId(id++);
+			}
+			return lote;
+		});
+		
+		List<Future<Lancamento>> resultados = salvarConcorrentemente(3);
+		
+		List<Long> ids = new ArrayList<>();
+		for (Future<Lancamento> resultado : resultados) {
+			ids.add(resultado.get().getId());
+		}
+		assertThat(ids).containsExactlyInAnyOrder(1l, 2l, 3l);
+		verify(lancamentoService, times(1)).salvarLote(anyList());
+	}
+	
+	@Test
+	public void deveDevolverOErroApenasAoChamadorDoLancamentoInvalido() throws Exception {
+		Lancamento invalido = LancamentoRepositoryTest.criarLancamento();
+		invalido.setDescricao("lancamento invalido");
+		when(lancamentoService.salvarLote(anyList())).thenAnswer(invocacao -> {
+			List<Lancamento> lote = invocacao.getArgument(0);
+			if (lote.contains(invalido)) {
+				throw new RegraNegocioException("falha no lote");
+			}
+			return lote;
+		});
+		when(lancamentoService.salvar(any(Lancamento.class))).thenAnswer(invocacao -> invocacao.getArgument(0));
+		doThrow(new RegraNegocioException("Informe um Valor válido.")).when(lancamentoService).salvar(invalido);
+		
+		List<Future<Lancamento>> resultados = salvarConcorrentemente(2);
+		Future<Lancamento> falho = chamadores.submit(() -> service.salvar(invalido));
+		
+		for (Future<Lancamento> resultado : resultados) {
+			assertThat(resultado.get()).isNotNull();
+		}
+		Throwable erro = catchThrowable(falho::get);
+		assertThat(erro).hasCauseInstanceOf(RegraNegocioException.class);
+	}
+	
+	@Test
+	public void deveManterOColetorAposUmErroInesperado() throws Exception {
+		when(lancamentoService.salvarLote(anyList()))
+			.thenThrow(new StackOverflowError())
+			.thenAnswer(invocacao -> invocacao.getArgument(0));
+		
+		Throwable erro = catchThrowable(() -> service.salvar(LancamentoRepositoryTest.criarLancamento()));
+		Lancamento salvo = chamadores.submit(() -> service.salvar(LancamentoRepositoryTest.criarLancamento()))
+				.get(5, TimeUnit.SECONDS);
+		
+		assertThat(erro).isInstanceOf(IllegalStateException.class).hasCauseInstanceOf(StackOverflowError.class);
+		assertThat(salvo).isNotNull();
+		verify(lancamentoService, times(2)).salvarLote(anyList());
+		verify(lancamentoService, never()).salvar(any(Lancamento.class));
+	}
+	
+	@Test
+	public void naoDeveLevarORoteamentoDeUmLoteParaOProximo() throws Exception {
+		List<Set<Long>> roteamentos = new ArrayList<>();
+		when(lancamentoService.salvarLote(anyList())).thenAnswer(invocacao -> {
+			roteamentos.add(ContextoRoteamento.obterUsuarios());
+			ContextoRoteamento.definirUsuario(7l);
+			return invocacao.getArgument(0);
+		});
+		
+		service.salvar(LancamentoRepositoryTest.criarLancamento());
+		service.salvar(LancamentoRepositoryTest.criarLancamento());
+		
+		assertThat(roteamentos).hasSize(2).allMatch(Set::isEmpty);
+	}
+	
+	@Test
+	public void deveGravarDiretamenteQuandoOColetorNaoResponde() throws Exception {
+		CountDownLatch liberar = new CountDownLatch(1);
+		when(lancamentoService.salvarLote(anyList())).thenAnswer(invocacao -> {
+			liberar.await();
+			return invocacao.getArgument(0);
+		});
+		when(lancamentoService.salvar(any(Lancamento.class))).thenAnswer(invocacao -> invocacao.getArgument(0));
+		GrupoCommitLancamentoServiceImpl travado = new GrupoCommitLancamentoServiceImpl(lancamentoService, GerenciadorFragmentos.unico(), true, 5, 1, 100, 100);
+		travado.iniciar();
+		
+		try {
+			chamadores.submit(() -> travado.salvar(LancamentoRepositoryTest.criarLancamento()));
+			verify(lancamentoService, timeout(2000)).salvarLote(anyList());
+			Lancamento lancamento = LancamentoRepositoryTest.criarLancamento();
+			
+			Lancamento salvo = travado.salvar(lancamento);
+			
+			assertThat(salvo).isSameAs(lancamento);
+			verify(lancamentoService).salvar(lancamento);
+		} finally {
+			liberar.countDown();
+			travado.encerrar();
+		}
+	}
+	
+	@Test
+	public void deveGravarDiretamenteQuandoDesabilitado() {
+		GrupoCommitLancamentoServiceImpl desabilitado = new GrupoCommitLancamentoServiceImpl(lancamentoService, GerenciadorFragmentos.unico(), false, 5, 10, 100, 5000);
+		desabilitado.iniciar();
+		Lancamento lancamento = LancamentoRepositoryTest.criarLancamento();
+		
+		desabilitado.salvar(lancamento);
+		
+		verify(lancamentoService).salvar(lancamento);
+	}
+	
+	private List<Future<Lancamento>> salvarConcorrentemente(int quantidade) {
+		List<Future<Lancamento>> resultados = new ArrayList<>();
+		for (int i = 0; i < quantidade; i++) {
+			Callable<Lancamento> chamada = () -> service.salvar(LancamentoRepositoryTest.criarLancamento());
+			resultados.add(chamadores.submit(chamada));
+		}
+		return resultados;
+	}
+}
@@ -0,0 +1,110 @@
+package com.amantovan.minhasfinancas.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.amantovan.minhasfinancas.config.InvalidacaoConfig;
+import com.amantovan.minhasfinancas.config.datasource.FragmentacaoConfig;
+import com.amantovan.minhasfinancas.model.entity.Lancamento;
+import com.amantovan.minhasfinancas.model.entity.Usuario;
+import com.amantovan.minhasfinancas.model.enuns.StatusLancamento;
+import com.amantovan.minhasfinancas.model.enuns.TipoLancamento;
+import com.amantovan.minhasfinancas.model.repository.LancamentoRepositoryTest;
+import com.amantovan.minhasfinancas.service.impl.BarramentoInvalidacaoServiceImpl;
+import com.amantovan.minhasfinancas.service.impl.CacheBuscaLancamentoServiceImpl;
+import com.amantovan.minhasfinancas.service.impl.EventoLancamentoServiceImpl;
+import com.amantovan.minhasfinancas.service.impl.HistoricoLancamentoServiceImpl;
+import com.amantovan.minhasfinancas.service.impl.LancamentoServiceImpl;
+import com.amantovan.minhasfinancas.service.impl.NotificacaoSaldoServiceImpl;
+
+@RunWith(SpringRunner.class)
+@ActiveProfiles("test")
+@DataJpaTest(properties = "minhasfinancas.historico.margem-minutos=0")
+@AutoConfigureTestDatabase(replace = Replace.NONE)
+@Import({HistoricoLancamentoServiceImpl.class, LancamentoServiceImpl.class, EventoLancamentoServiceImpl.class,
+	CacheBuscaLancamentoServiceImpl.class, NotificacaoSaldoServiceImpl.class, BarramentoInvalidacaoServiceImpl.class, InvalidacaoConfig.class, FragmentacaoConfig.class})
+public class HistoricoLancamentoServiceTest {
+
+	@Autowired HistoricoLancamentoService service;
+	@Autowired LancamentoService lancamentoService;
+	@Autowired TestEntityManager entityManager;
+
+	Usuario usuario;
+
+	@Before
+	public void setUp() {
+		usuario = entityManager.persist(Usuario.builder().nome("usuario").email("historico@email.com").senha("senha").build());
+	}
+
+	@Test
+	public void deveCalcularOSaldoComOEstadoDosLancamentosNaData() throws InterruptedException {
+		Lancamento receita = salvar(TipoLancamento.RECEITA, 10);
+		Lancamento despesa = salvar(TipoLancamento.DESPESA, 4);
+		LocalDateTime pendentes = marco();
+
+		lancamentoService.atualizarStatusDoUsuario(receita.getId(), usuario.getId(), StatusLancamento.EFETIVADO);
+		lancamentoService.atualizarStatusDoUsuario(despesa.getId(), usuario.getId(), StatusLancamento.EFETIVADO);
+		LocalDateTime efetivados = marco();
+
+		lancamentoService.deletarDoUsuario(despesa.getId(), usuario.getId());
+		LocalDateTime excluida = marco();
+
+		assertThat(service.obterSaldoEm(usuario.getId(), pendentes)).isEqualByComparingTo(BigDecimal.ZERO);
+		assertThat(service.obterSaldoEm(usuario.getId(), efetivados)).isEqualByComparingTo(BigDecimal.valueOf(6));
+		assertThat(service.obterSaldoEm(usuario.getId(), excluida)).isEqualByComparingTo(BigDecimal.valueOf(10));
+	}
+
+	@Test
+	public void deveCalcularOSaldoAPartirDoConsolidado() throws InterruptedException {
+		Lancamento receita = salvar(TipoLancamento.RECEITA, 10);
+		Lancamento despesa = salvar(TipoLancamento.DESPESA, 4);
+		lancamentoService.atualizarStatusDoUsuario(receita.getId(), usuario.getId(), StatusLancamento.EFETIVADO);
+		lancamentoService.atualizarStatusDoUsuario(despesa.getId(), usuario.getId(), StatusLancamento.EFETIVADO);
+		LocalDateTime efetivados = marco();
+
+		assertThat(service.consolidarSaldos()).isEqualTo(1);
+		marco();
+		assertThat(service.consolidarSaldos()).isZero();
+
+		lancamentoService.atualizarStatusDoUsuario(receita.getId(), usuario.getId(), StatusLancamento.CANCELADO);
+		salvar(TipoLancamento.RECEITA, 7);
+		LocalDateTime cancelada = marco();
+		lancamentoService.deletarDoUsuario(despesa.getId(), usuario.getId());
+
+		assertThat(service.obterSaldoEm(usuario.getId(), efetivados)).isEqualByComparingTo(BigDecimal.valueOf(6));
+		assertThat(service.obterSaldoEm(usuario.getId(), cancelada)).isEqualByComparingTo(BigDecimal.valueOf(-4));
+		assertThat(service.obterSaldoEm(usuario.getId(), LocalDateTime.now())).isEqualByComparingTo(BigDecimal.ZERO);
+	}
+
+	private Lancamento salvar(TipoLancamento tipo, int valor) {
+		Lancamento lancamento = LancamentoRepositoryTest.criarLancamento();
+		lancamento.setUsuario(usuario);
+		lancamento.setTipo(tipo);
+		lancamento.setValor(BigDecimal.valueOf(valor));
+		return lancamentoService.salvar(lancamento);
+	}
+
+	/**
+	 * Separa os instantes das gravações anteriores e seguintes.
+	 */
+	private static LocalDateTime marco() throws InterruptedException {
+		Thread.sleep(5);
+		LocalDateTime agora = LocalDateTime.now();
+		Thread.sleep(5);
+		return agora;
+	}
+}
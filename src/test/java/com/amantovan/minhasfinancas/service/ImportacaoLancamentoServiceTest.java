@@ -0,0 +1,146 @@
+package com.amantovan.minhasfinancas.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.amantovan.minhasfinancas.model.entity.Lancamento;
+import com.amantovan.minhasfinancas.model.entity.Usuario;
+import com.amantovan.minhasfinancas.model.enuns.FormatoExtrato;
+import com.amantovan.minhasfinancas.model.enuns.TipoLancamento;
+import com.amantovan.minhasfinancas.service.impl.ImportacaoLancamentoServiceImpl;
+import com.amantovan.minhasfinancas.service.impl.LancamentoServiceImpl;
+
+public class ImportacaoLancamentoServiceTest {
+
+	LancamentoService lancamentoService;
+	ImportacaoLancamentoServiceImpl service;
+	List<Lancamento> gravados;
+	List<ErroImportacao> erros;
+	List<ResumoImportacao> progresso;
+	Usuario usuario = Usuario.builder().id(1l).build();
+	
+	@Before
+	public void setUp() {
+		LancamentoService validador = new LancamentoServiceImpl(null, null, null, null, null, null, null);
+		lancamentoService = mock(LancamentoService.class);
+		doAnswer(invocacao -> {
+			validador.validar(invocacao.getArgument(0));
+			return null;
+		}).when(lancamentoService).validar(any());
+		gravados = new ArrayList<>();
+		when(lancamentoService.salvarLote(anyList())).thenAnswer(invocacao -> {
+			List<Lancamento> lote = invocacao.getArgument(0);
+			gravados.addAll(lote);
+			return lote;
+		});
+		service = new ImportacaoLancamentoServiceImpl(lancamentoService, 2);
+		erros = new ArrayList<>();
+		progresso = new ArrayList<>();
+	}
+	
+	@Test
+	public void deveImportarCsvEmLotesERelatarAsLinhasRejeitadas() {
+		String csv = "Valor;Data;Histórico\n"
+				+ "\"-1.234,56\";05/01/2020;Aluguel\n"
+				+ "2500,00;2020-01-06;\"Salário; janeiro\"\n"
+				+ "10,00;32/01/2020;Data inválida\n"
+				+ "0;07/01/2020;Zerado\n"
+				+ "-15.90;08/02/2020;Padaria\n";
+		
+		ResumoImportacao resumo = importar(csv, FormatoExtrato.CSV);
+		
+		assertThat(resumo).isEqualTo(new ResumoImportacao(5, 3, 2, 0, true));
+		assertThat(gravados).extracting(Lancamento::getDescricao).containsExactly("Aluguel", "Salário; janeiro", "Padaria");
+		assertThat(gravados).extracting(Lancamento::getTipo)
+			.containsExactly(TipoLancamento.DESPESA, TipoLancamento.RECEITA, TipoLancamento.DESPESA);
+		assertThat(gravados.get(0).getValor()).isEqualByComparingTo("1234.56");
+		assertThat(gravados.get(2).getMes()).isEqualTo(2);
+		assertThat(erros).extracting(ErroImportacao::getLinha).containsExactly(4, 5);
+		assertThat(erros.get(1).getMensagem()).isEqualTo("Informe um Valor válido.");
+		verify(lancamentoService, times(2)).salvarLote(anyList());
+		assertThat(progresso).hasSize(3);
+	}
+	
+	@Test
+	public void deveImportarOfxSgml() {
+		String ofx = "OFXHEADER:100\nDATA:OFXSGML\n\n<OFX><BANKMSGSRSV1><STMTTRNRS><STMTRS><BANKTRANLIST>\n"
+				+ "<STMTTRN>\n<TRNTYPE>DEBIT\n<DTPOSTED>20200115120000[-3:BRT]\n<TRNAMT>-42.10\n<FITID>123\n<MEMO>Mercado\n</STMTTRN>\n"
+				+ "<STMTTRN><TRNTYPE>CREDIT</TRNTYPE><DTPOSTED>20200120</DTPOSTED><TRNAMT>100.00</TRNAMT><NAME>Pix</NAME></STMTTRN>\n"
+				+ "<STMTTRN>\n<TRNAMT>5.00\n</STMTTRN>\n"
+				+ "</BANKTRANLIST></STMTRS></STMTTRNRS></BANKMSGSRSV1></OFX>\n";
+		
+		ResumoImportacao resumo = importar(ofx, FormatoExtrato.OFX);
+		
+		assertThat(resumo).isEqualTo(new ResumoImportacao(3, 2, 1, 0, true));
+		assertThat(gravados).extracting(Lancamento::getDescricao).containsExactly("Mercado", "Pix");
+		assertThat(gravados.get(0).getValor()).isEqualByComparingTo("42.10");
+		assertThat(gravados.get(0).getTipo()).isEqualTo(TipoLancamento.DESPESA);
+		assertThat(gravados.get(1).getTipo()).isEqualTo(TipoLancamento.RECEITA);
+		assertThat(erros).extracting(ErroImportacao::getLinha).containsExactly(13);
+	}
+	
+	@Test
+	public void deveRegravarIndividualmenteQuandoOLoteFalhar() {
+		when(lancamentoService.salvarLote(argThat(lote -> lote != null && lote.size() > 1)))
+			.thenThrow(new IllegalStateException("Falha no lote"));
+		when(lancamentoService.salvarLote(argThat(lote -> lote != null && lote.size() == 1 && lote.get(0).getDescricao().equals("B"))))
+			.thenThrow(new IllegalStateException("Violação de restrição"));
+		
+		ResumoImportacao resumo = importar("01/01/2020;A;1\n02/01/2020;B;2\n03/01/2020;C;3\n", FormatoExtrato.CSV);
+		
+		assertThat(resumo).isEqualTo(new ResumoImportacao(3, 2, 1, 0, true));
+		assertThat(gravados).extracting(Lancamento::getDescricao).containsExactly("A", "C");
+		assertThat(erros).containsExactly(new ErroImportacao(2, "Violação de restrição"));
+	}
+	
+	@Test
+	public void deveIgnorarTransacoesJaImportadasMantendoRepeticoesDoMesmoDia() {
+		when(lancamentoService.obterImpressoesDigitaisExistentes(any(), anyCollection())).thenAnswer(invocacao -> {
+			Collection<String> impressoes = invocacao.getArgument(1);
+			return gravados.stream()
+					.map(Lancamento::getImpressaoDigital)
+					.filter(impressoes::contains)
+					.collect(Collectors.toSet());
+		});
+		String janeiro = "01/01/2020;Café;-5,00\n01/01/2020;CAFÉ;-5,00\n02/01/2020;Café;-5,00\n";
+		
+		importar(janeiro, FormatoExtrato.CSV);
+		ResumoImportacao resumo = importar(janeiro + "03/01/2020;Cafe;-5,00\n", FormatoExtrato.CSV);
+		
+		assertThat(resumo).isEqualTo(new ResumoImportacao(4, 1, 0, 3, true));
+		assertThat(gravados).hasSize(4);
+		assertThat(gravados).extracting(Lancamento::getImpressaoDigital).doesNotHaveDuplicates();
+	}
+	
+	private ResumoImportacao importar(String extrato, FormatoExtrato formato) {
+		return service.importar(new StringReader(extrato), formato, usuario, new ObservadorImportacao() {
+			@Override
+			public void erro(ErroImportacao erro) {
+				erros.add(erro);
+			}
+			
+			@Override
+			public void progresso(ResumoImportacao resumo) {
+				progresso.add(new ResumoImportacao(resumo.getLidos(), resumo.getImportados(), resumo.getRejeitados(),
+						resumo.getDuplicados(), resumo.isConcluido()));
+			}
+		});
+	}
+}
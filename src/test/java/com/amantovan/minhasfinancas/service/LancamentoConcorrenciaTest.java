@@ -0,0 +1,256 @@
+package com.amantovan.minhasfinancas.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.amantovan.minhasfinancas.config.InvalidacaoConfig;
+import com.amantovan.minhasfinancas.config.datasource.FragmentacaoConfig;
+import com.amantovan.minhasfinancas.model.entity.Lancamento;
+import com.amantovan.minhasfinancas.model.entity.SaldoUsuario;
+import com.amantovan.minhasfinancas.model.entity.Usuario;
+import com.amantovan.minhasfinancas.model.enuns.StatusLancamento;
+import com.amantovan.minhasfinancas.model.enuns.TipoLancamento;
+import com.amantovan.minhasfinancas.model.repository.ContribuicaoCategoriaRepository;
+import com.amantovan.minhasfinancas.model.repository.ContribuicaoSaldoRepository;
+import com.amantovan.minhasfinancas.model.repository.EventoLancamentoRepository;
+import com.amantovan.minhasfinancas.model.repository.GastoCategoriaRepository;
+import com.amantovan.minhasfinancas.model.repository.LancamentoRepository;
+import com.amantovan.minhasfinancas.model.repository.LancamentoRepositoryTest;
+import com.amantovan.minhasfinancas.model.repository.SaldoUsuarioRepository;
+import com.amantovan.minhasfinancas.model.repository.UsuarioRepository;
+import com.amantovan.minhasfinancas.service.impl.BarramentoInvalidacaoServiceImpl;
+import com.amantovan.minhasfinancas.service.impl.CacheBuscaLancamentoServiceImpl;
+import com.amantovan.minhasfinancas.service.impl.EventoLancamentoServiceImpl;
+import com.amantovan.minhasfinancas.service.impl.LancamentoServiceImpl;
+import com.amantovan.minhasfinancas.service.impl.NotificacaoSaldoServiceImpl;
+import com.amantovan.minhasfinancas.service.impl.ProjecaoGastoCategoria;
+import com.amantovan.minhasfinancas.service.impl.ProjecaoSaldoUsuario;
+
+/**
+ * Escritores salvam, efetivam, cancelam e apagam lançamentos de vários usuários ao mesmo tempo
+ * em que leitores consultam o saldo e o outbox é despachado. Cada lançamento só é alterado pela
+ * thread que o criou, então o saldo esperado de cada usuário é conhecido exatamente no fim.
+ *
+ * O volume pode ser aumentado com {@code -Dconcorrencia.operacoes}, {@code -Dconcorrencia.escritores},
+ * {@code -Dconcorrencia.leitores} e {@code -Dconcorrencia.usuarios}.
+ */
+@RunWith(SpringRunner.class)
+@ActiveProfiles("test")
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = Replace.NONE)
+@Import({LancamentoServiceImpl.class, EventoLancamentoServiceImpl.class, CacheBuscaLancamentoServiceImpl.class,
+	NotificacaoSaldoServiceImpl.class, ProjecaoSaldoUsuario.class, ProjecaoGastoCategoria.class, BarramentoInvalidacaoServiceImpl.class, InvalidacaoConfig.class, FragmentacaoConfig.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class LancamentoConcorrenciaTest {
+
+	private static final StatusLancamento[] STATUS = StatusLancamento.values();
+
+	@Autowired LancamentoService service;
+	@Autowired EventoLancamentoService eventoService;
+	@Autowired UsuarioRepository usuarioRepository;
+	@Autowired LancamentoRepository lancamentoRepository;
+	@Autowired EventoLancamentoRepository eventoRepository;
+	@Autowired SaldoUsuarioRepository saldoRepository;
+	@Autowired ContribuicaoSaldoRepository contribuicaoSaldoRepository;
+	@Autowired GastoCategoriaRepository gastoRepository;
+	@Autowired ContribuicaoCategoriaRepository contribuicaoCategoriaRepository;
+
+	int operacoes = Integer.getInteger("concorrencia.operacoes", 2000);
+	int escritores = Integer.getInteger("concorrencia.escritores", 8);
+	int leitores = Integer.getInteger("concorrencia.leitores", 4);
+	int quantidadeUsuarios = Integer.getInteger("concorrencia.usuarios", 20);
+
+	List<Usuario> usuarios;
+	ExecutorService executor;
+
+	@Before
+	public void setUp() {
+		limpar();
+		usuarios = new ArrayList<>();
+		for (int i = 0; i < quantidadeUsuarios; i++) {
+			usuarios.add(usuarioRepository.save(Usuario.builder()
+					.nome("usuario" + i).email("concorrencia" + i + "@email.com").senha("senha").build()));
+		}
+		executor = Executors.newFixedThreadPool(escritores + leitores + 1);
+	}
+
+	@After
+	public void tearDown() throws InterruptedException {
+		executor.shutdownNow();
+		executor.awaitTermination(30, TimeUnit.SECONDS);
+		limpar();
+	}
+
+	@Test
+	public void deveManterOsSaldosExatosSobEscritasELeiturasConcorrentes() throws Exception {
+		CountDownLatch largada = new CountDownLatch(1);
+		AtomicBoolean escrevendo = new AtomicBoolean(true);
+		AtomicLong leituras = new AtomicLong();
+		AtomicLong repeticoes = new AtomicLong();
+		AtomicLong despachados = new AtomicLong();
+
+		List<Future<List<Lancamento>>> escritas = new ArrayList<>();
+		for (int i = 0; i < escritores; i++) {
+			int operacoesDoEscritor = operacoes / escritores + (i < operacoes % escritores ? 1 : 0);
+			SplittableRandom aleatorio = new SplittableRandom(i);
+			escritas.add(executor.submit(() -> escrever(largada, operacoesDoEscritor, aleatorio)));
+		}
+		List<Future<?>> leituraEDespacho = new ArrayList<>();
+		for (int i = 0; i < leitores; i++) {
+			SplittableRandom aleatorio = new SplittableRandom(-i - 1);
+			leituraEDespacho.add(executor.submit(() -> ler(largada, escrevendo, leituras, repeticoes, aleatorio)));
+		}
+		leituraEDespacho.add(executor.submit(() -> despachar(largada, escrevendo, despachados)));
+
+		long inicio = System.nanoTime();
+		largada.countDown();
+		List<Lancamento> existentes = new ArrayList<>();
+		try {
+			for (Future<List<Lancamento>> escrita : escritas) {
+				existentes.addAll(escrita.get(5, TimeUnit.MINUTES));
+			}
+		} finally {
+			escrevendo.set(false);
+		}
+		double segundos = (System.nanoTime() - inicio) / 1e9;
+		for (Future<?> tarefa : leituraEDespacho) {
+			tarefa.get(1, TimeUnit.MINUTES);
+		}
+		despachados.addAndGet(eventoService.despacharPendentes());
+
+		System.out.printf("Concorrência: %d escritas em %.2f s (%.0f/s), %d leituras (%.0f/s, %d repetidas), %d eventos despachados%n",
+				operacoes, segundos, operacoes / segundos, leituras.get(), leituras.get() / segundos, repeticoes.get(),
+				despachados.get());
+
+		Map<Long, BigDecimal> esperados = saldosEsperados(existentes);
+		for (Usuario usuario : usuarios) {
+			BigDecimal esperado = esperados.getOrDefault(usuario.getId(), BigDecimal.ZERO);
+			assertThat(service.obterSaldoPorUsuario(usuario.getId()))
+				.as("saldo do usuário %d", usuario.getId())
+				.isEqualByComparingTo(esperado);
+			assertThat(saldoRepository.findById(usuario.getId()).map(SaldoUsuario::getSaldo).orElse(BigDecimal.ZERO))
+				.as("saldo projetado do usuário %d", usuario.getId())
+				.isEqualByComparingTo(esperado);
+		}
+		assertThat(lancamentoRepository.count()).isEqualTo(existentes.size());
+	}
+
+	/**
+	 * Devolve os lançamentos que continuam existindo, com o último estado gravado.
+	 */
+	private List<Lancamento> escrever(CountDownLatch largada, int operacoesDoEscritor, SplittableRandom aleatorio)
+			throws InterruptedException {
+		largada.await();
+		List<Lancamento> proprios = new ArrayList<>();
+		for (int i = 0; i < operacoesDoEscritor; i++) {
+			int sorteio = aleatorio.nextInt(100);
+			if (proprios.isEmpty() || sorteio < 40) {
+				proprios.add(service.salvar(novoLancamento(aleatorio)));
+			} else if (sorteio < 80) {
+				Lancamento lancamento = proprios.get(aleatorio.nextInt(proprios.size()));
+				service.atualizarStatus(lancamento, STATUS[aleatorio.nextInt(STATUS.length)]);
+			} else {
+				service.deletar(proprios.remove(aleatorio.nextInt(proprios.size())));
+			}
+		}
+		return proprios;
+	}
+
+	private Void ler(CountDownLatch largada, AtomicBoolean escrevendo, AtomicLong leituras, AtomicLong repeticoes,
+			SplittableRandom aleatorio)
+			throws InterruptedException {
+		largada.await();
+		while (escrevendo.get()) {
+			Usuario usuario = usuarios.get(aleatorio.nextInt(usuarios.size()));
+			assertThat(obterSaldo(usuario, repeticoes)).isNotNull();
+			leituras.incrementAndGet();
+		}
+		return null;
+	}
+
+	/**
+	 * O H2 embutido às vezes falha uma leitura que cruza com a remoção de uma linha ainda não
+	 * confirmada ("row not found in primary index"); o erro é transitório e a leitura é repetida.
+	 */
+	private BigDecimal obterSaldo(Usuario usuario, AtomicLong repeticoes) {
+		for (int tentativa = 1; ; tentativa++) {
+			try {
+				return service.obterSaldoPorUsuario(usuario.getId());
+			} catch (TransientDataAccessException e) {
+				if (tentativa == 3) {
+					throw e;
+				}
+				repeticoes.incrementAndGet();
+			}
+		}
+	}
+
+	private Void despachar(CountDownLatch largada, AtomicBoolean escrevendo, AtomicLong despachados)
+			throws InterruptedException {
+		largada.await();
+		while (escrevendo.get()) {
+			despachados.addAndGet(eventoService.despacharPendentes());
+			Thread.sleep(10);
+		}
+		return null;
+	}
+
+	private Lancamento novoLancamento(SplittableRandom aleatorio) {
+		Lancamento lancamento = LancamentoRepositoryTest.criarLancamento();
+		lancamento.setUsuario(usuarios.get(aleatorio.nextInt(usuarios.size())));
+		lancamento.setValor(BigDecimal.valueOf(aleatorio.nextInt(1, 10000), 2));
+		lancamento.setTipo(aleatorio.nextBoolean() ? TipoLancamento.RECEITA : TipoLancamento.DESPESA);
+		return lancamento;
+	}
+
+	private static Map<Long, BigDecimal> saldosEsperados(List<Lancamento> lancamentos) {
+		Map<Long, BigDecimal> saldos = new HashMap<>();
+		for (Lancamento lancamento : lancamentos) {
+			if (lancamento.getStatus() == StatusLancamento.EFETIVADO) {
+				BigDecimal valor = lancamento.getTipo() == TipoLancamento.DESPESA
+						? lancamento.getValor().negate() : lancamento.getValor();
+				saldos.merge(lancamento.getUsuario().getId(), valor, BigDecimal::add);
+			}
+		}
+		return Collections.unmodifiableMap(saldos);
+	}
+
+	private void limpar() {
+		eventoRepository.deleteAll();
+		contribuicaoSaldoRepository.deleteAll();
+		saldoRepository.deleteAll();
+		contribuicaoCategoriaRepository.deleteAll();
+		gastoRepository.deleteAll();
+		lancamentoRepository.deleteAll();
+		usuarioRepository.deleteAll();
+	}
+}
@@ -0,0 +1,157 @@
+package com.amantovan.minhasfinancas.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.amantovan.minhasfinancas.config.InvalidacaoConfig;
+import com.amantovan.minhasfinancas.config.datasource.FragmentacaoConfig;
+import com.amantovan.minhasfinancas.model.entity.Categoria;
+import com.amantovan.minhasfinancas.model.entity.Lancamento;
+import com.amantovan.minhasfinancas.model.entity.Usuario;
+import com.amantovan.minhasfinancas.model.enuns.StatusLancamento;
+import com.amantovan.minhasfinancas.model.enuns.TipoLancamento;
+import com.amantovan.minhasfinancas.model.repository.LancamentoRepositoryTest;
+import com.amantovan.minhasfinancas.service.impl.BarramentoInvalidacaoServiceImpl;
+import com.amantovan.minhasfinancas.service.impl.CacheBuscaLancamentoServiceImpl;
+import com.amantovan.minhasfinancas.service.impl.EventoLancamentoServiceImpl;
+import com.amantovan.minhasfinancas.service.impl.LancamentoServiceImpl;
+import com.amantovan.minhasfinancas.service.impl.NotificacaoSaldoServiceImpl;
+import com.amantovan.minhasfinancas.service.impl.ProjecaoSaldoUsuario;
+
+/**
+ * Conta os comandos enviados ao banco em cada alteração: um único {@code update}/{@code delete}
+ * no lançamento, sem leitura prévia, mais a gravação do evento no outbox e do estado no histórico.
+ */
+@RunWith(SpringRunner.class)
+@ActiveProfiles("test")
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureTestDatabase(replace = Replace.NONE)
+@Import({LancamentoServiceImpl.class, EventoLancamentoServiceImpl.class, CacheBuscaLancamentoServiceImpl.class,
+	NotificacaoSaldoServiceImpl.class, ProjecaoSaldoUsuario.class, BarramentoInvalidacaoServiceImpl.class, InvalidacaoConfig.class, FragmentacaoConfig.class})
+public class LancamentoServiceComandosTest {
+
+	private static final long COMANDOS_POR_ALTERACAO = 3;
+
+	@Autowired LancamentoService service;
+	@Autowired TestEntityManager entityManager;
+
+	Statistics estatisticas;
+	Usuario usuario;
+	Usuario outroUsuario;
+	Lancamento lancamento;
+
+	@Before
+	public void setUp() {
+		usuario = entityManager.persist(Usuario.builder().nome("dono").email("dono@email.com").senha("senha").build());
+		outroUsuario = entityManager.persist(Usuario.builder().nome("outro").email("outro@email.com").senha("senha").build());
+		lancamento = LancamentoRepositoryTest.criarLancamento();
+		lancamento.setUsuario(usuario);
+		lancamento = entityManager.persistFlushFind(lancamento);
+		entityManager.clear();
+
+		estatisticas = entityManager.getEntityManager().getEntityManagerFactory()
+				.unwrap(SessionFactory.class).getStatistics();
+		estatisticas.clear();
+	}
+
+	@Test
+	public void deveAtualizarOLancamentoEmUmUnicoComando() {
+		Categoria categoria = entityManager.persistAndFlush(Categoria.builder().nome("Mercado").usuario(usuario).build());
+		estatisticas.clear();
+
+		boolean atualizado = service.atualizarDoUsuario(Lancamento.builder()
+				.id(lancamento.getId())
+				.descricao("editado")
+				.mes(3)
+				.ano(2025)
+				.valor(BigDecimal.valueOf(42))
+				.tipo(TipoLancamento.DESPESA)
+				.status(StatusLancamento.EFETIVADO)
+				.usuario(Usuario.builder().id(usuario.getId()).build())
+				.categoria(Categoria.builder().id(categoria.getId()).build())
+				.build());
+		entityManager.flush();
+
+		assertThat(atualizado).isTrue();
+		assertThat(estatisticas.getPrepareStatementCount()).isEqualTo(COMANDOS_POR_ALTERACAO);
+		assertThat(estatisticas.getEntityLoadCount()).isZero();
+
+		entityManager.clear();
+		Lancamento gravado = entityManager.find(Lancamento.class, lancamento.getId());
+		assertThat(gravado.getDescricao()).isEqualTo("editado");
+		assertThat(gravado.getCompetencia()).isEqualTo(LocalDate.of(2025, 3, 1));
+		assertThat(gravado.getCategoria().getId()).isEqualTo(categoria.getId());
+		assertThat(gravado.getImpressaoDigital()).isEqualTo(lancamento.getImpressaoDigital());
+		assertThat(gravado.getDataCadastro()).isEqualTo(lancamento.getDataCadastro());
+	}
+
+	@Test
+	public void deveAtualizarOStatusEmUmUnicoComando() {
+		boolean atualizado = service.atualizarStatusDoUsuario(lancamento.getId(), usuario.getId(), StatusLancamento.EFETIVADO);
+		entityManager.flush();
+
+		assertThat(atualizado).isTrue();
+		assertThat(estatisticas.getPrepareStatementCount()).isEqualTo(COMANDOS_POR_ALTERACAO);
+		assertThat(estatisticas.getEntityLoadCount()).isZero();
+		entityManager.clear();
+		assertThat(entityManager.find(Lancamento.class, lancamento.getId()).getStatus()).isEqualTo(StatusLancamento.EFETIVADO);
+	}
+
+	@Test
+	public void deveDeletarEmUmUnicoComando() {
+		boolean deletado = service.deletarDoUsuario(lancamento.getId(), usuario.getId());
+		entityManager.flush();
+
+		assertThat(deletado).isTrue();
+		assertThat(estatisticas.getPrepareStatementCount()).isEqualTo(COMANDOS_POR_ALTERACAO);
+		assertThat(estatisticas.getEntityLoadCount()).isZero();
+		assertThat(entityManager.find(Lancamento.class, lancamento.getId())).isNull();
+	}
+
+	@Test
+	public void naoDeveAlterarLancamentoDeOutroUsuarioNemGravarEvento() {
+		assertThat(service.atualizarStatusDoUsuario(lancamento.getId(), outroUsuario.getId(), StatusLancamento.CANCELADO)).isFalse();
+		assertThat(service.deletarDoUsuario(lancamento.getId(), outroUsuario.getId())).isFalse();
+		entityManager.flush();
+
+		assertThat(estatisticas.getPrepareStatementCount()).isEqualTo(2);
+		entityManager.clear();
+		assertThat(entityManager.find(Lancamento.class, lancamento.getId()).getStatus()).isEqualTo(StatusLancamento.PENDENTE);
+	}
+
+	@Test
+	public void naoDeveAtualizarComCategoriaDeOutroUsuario() {
+		Categoria categoria = entityManager.persistAndFlush(Categoria.builder().nome("Alheia").usuario(outroUsuario).build());
+
+		boolean atualizado = service.atualizarDoUsuario(Lancamento.builder()
+				.id(lancamento.getId())
+				.descricao("editado")
+				.mes(3)
+				.ano(2025)
+				.valor(BigDecimal.valueOf(42))
+				.tipo(TipoLancamento.DESPESA)
+				.usuario(Usuario.builder().id(usuario.getId()).build())
+				.categoria(Categoria.builder().id(categoria.getId()).build())
+				.build());
+
+		assertThat(atualizado).isFalse();
+		entityManager.clear();
+		assertThat(entityManager.find(Lancamento.class, lancamento.getId()).getDescricao()).isEqualTo("lancamento qualquer");
+	}
+}
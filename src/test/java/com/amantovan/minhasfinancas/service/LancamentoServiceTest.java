@@ -3,13 +3,17 @@ package com.amantovan.minhasfinancas.service;
 import static org.assertj.core.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
+import java.io.StringWriter;
 import java.math.BigDecimal;
+import java.time.YearMonth;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import org.assertj.core.api.Assertions;
 import org.springframework.data.domain.Example;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -17,24 +21,38 @@ import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit4.SpringRunner;
 
+import com.amantovan.minhasfinancas.config.InvalidacaoConfig;
+import com.amantovan.minhasfinancas.config.datasource.FragmentacaoConfig;
 import com.amantovan.minhasfinancas.exception.RegraNegocioException;
+import com.amantovan.minhasfinancas.model.entity.Categoria;
 import com.amantovan.minhasfinancas.model.entity.Lancamento;
+import com.amantovan.minhasfinancas.model.entity.Usuario;
+import com.amantovan.minhasfinancas.model.enuns.CampoLancamento;
 import com.amantovan.minhasfinancas.model.enuns.StatusLancamento;
+import com.amantovan.minhasfinancas.model.enuns.TipoEventoLancamento;
 import com.amantovan.minhasfinancas.model.enuns.TipoLancamento;
+import com.amantovan.minhasfinancas.model.repository.HistoricoLancamentoRepository;
 import com.amantovan.minhasfinancas.model.repository.LancamentoRepository;
 import com.amantovan.minhasfinancas.model.repository.LancamentoRepositoryTest;
 import com.amantovan.minhasfinancas.model.repository.UsuarioRepositoryTest;
+import com.amantovan.minhasfinancas.service.impl.BarramentoInvalidacaoServiceImpl;
+import com.amantovan.minhasfinancas.service.impl.CacheBuscaLancamentoServiceImpl;
 import com.amantovan.minhasfinancas.service.impl.LancamentoServiceImpl;
 
 @RunWith(SpringRunner.class)
 @ActiveProfiles("test")
+@Import({FragmentacaoConfig.class, CacheBuscaLancamentoServiceImpl.class, BarramentoInvalidacaoServiceImpl.class, InvalidacaoConfig.class})
 public class LancamentoServiceTest {
 
 	@SpyBean LancamentoServiceImpl service;
 	@MockBean LancamentoRepository repository;
+	@MockBean EventoLancamentoService eventoService;
+	@MockBean NotificacaoSaldoService notificacaoService;
+	@MockBean HistoricoLancamentoRepository historicoRepository;
 	
 	@Test
 	public void deveSalvarUmLancamento() {
@@ -50,9 +68,25 @@ public class LancamentoServiceTest {
 		
 		assertThat(lancamento.getId()).isEqualTo(lancamentoSalvo.getId());
 		assertThat(lancamento.getStatus()).isEqualTo(StatusLancamento.PENDENTE);
+		verify(eventoService).registrar(lancamentoSalvo, TipoEventoLancamento.CRIADO);
 		
 	}
 	
+	@Test
+	public void deveSalvarUmLoteDeLancamentosRegistrandoUmEventoPorLancamento() {
+		Lancamento primeiro = LancamentoRepositoryTest.criarLancamento();
+		Lancamento segundo = LancamentoRepositoryTest.criarLancamento();
+		List<Lancamento> lote = Arrays.asList(primeiro, segundo);
+		doNothing().when(service).validar(any(Lancamento.class));
+		when(repository.saveAll(lote)).thenReturn(lote);
+		
+		List<Lancamento> salvos = service.salvarLote(lote);
+		
+		assertThat(salvos).hasSize(2).allMatch(lancamento -> lancamento.getStatus() == StatusLancamento.PENDENTE);
+		verify(repository, times(1)).saveAll(lote);
+		verify(eventoService, times(2)).registrar(any(Lancamento.class), org.mockito.ArgumentMatchers.eq(TipoEventoLancamento.CRIADO));
+	}
+	
 	@Test
 	public void naoDeveSalvarUmLancamentoQuandoHouverErroDeValidacao() {
 		Lancamento lancamentoASalvar = LancamentoRepositoryTest.criarLancamento();
@@ -61,6 +95,7 @@ public class LancamentoServiceTest {
 		catchThrowableOfType(() -> service.salvar(lancamentoASalvar), RegraNegocioException.class) ;
 		
 		verify(repository, never()).save(lancamentoASalvar);
+		verify(eventoService, never()).registrar(any(Lancamento.class), any(TipoEventoLancamento.class));
 		
 	}
 	
@@ -78,6 +113,7 @@ public class LancamentoServiceTest {
 		service.atualizar(lancamentoSalvo);
 		
 		verify(repository, times(1)).save(lancamentoSalvo);
+		verify(eventoService).registrar(lancamentoSalvo, TipoEventoLancamento.ATUALIZADO);
 	}
 	
 
@@ -99,6 +135,7 @@ public class LancamentoServiceTest {
 		service.deletar(lancamento);
 		
 		verify(repository).delete(lancamento);
+		verify(eventoService).registrar(lancamento, TipoEventoLancamento.DELETADO);
 		
 	}
 	
@@ -127,6 +164,48 @@ public class LancamentoServiceTest {
 			.contains(lancamento);
 	}
 	
+	@Test
+	public void deveFiltrarLancamentosPorPeriodoEmUmaUnicaConsulta() {
+		Lancamento lancamento = LancamentoRepositoryTest.criarLancamento();
+		lancamento.setUsuario(Usuario.builder().id(1l).build());
+		when(repository.findAll(any(Specification.class))).thenReturn(Arrays.asList(lancamento));
+		
+		List<Lancamento> resultado = service.buscar(Lancamento.builder().usuario(lancamento.getUsuario()).build(), 
+				YearMonth.of(2023, 12), YearMonth.of(2024, 11));
+		
+		assertThat(resultado).containsExactly(lancamento);
+		verify(repository, never()).findAll(any(Example.class));
+	}
+	
+	@Test
+	public void deveLancarErroDeValidacaoQuandoACategoriaForDeOutroUsuario() {
+		Lancamento lancamento = LancamentoRepositoryTest.criarLancamento();
+		lancamento.setUsuario(Usuario.builder().id(1l).build());
+		lancamento.setCategoria(Categoria.builder().id(5l).usuario(Usuario.builder().id(2l).build()).build());
+		
+		Throwable erro = catchThrowable(() -> service.validar(lancamento));
+		
+		assertThat(erro).isInstanceOf(RegraNegocioException.class).hasMessage("A categoria não pertence ao usuário do lançamento.");
+	}
+	
+	@Test
+	public void deveReaproveitarABuscaAteOUsuarioAlterarUmLancamento() {
+		Lancamento lancamento = LancamentoRepositoryTest.criarLancamento();
+		lancamento.setId(1l);
+		lancamento.setUsuario(Usuario.builder().id(10l).build());
+		when(repository.findAll(any(Example.class))).thenReturn(Arrays.asList(lancamento));
+		when(repository.save(lancamento)).thenReturn(lancamento);
+		Lancamento filtro = Lancamento.builder().usuario(lancamento.getUsuario()).ano(lancamento.getAno()).build();
+		
+		service.buscar(filtro);
+		service.buscar(filtro);
+		verify(repository, times(1)).findAll(any(Example.class));
+		
+		service.atualizar(lancamento);
+		service.buscar(filtro);
+		verify(repository, times(2)).findAll(any(Example.class));
+	}
+	
 	@Test
 	public void deveAtualizarOStatusDeUmLancamento() {
 		Lancamento lancamento = LancamentoRepositoryTest.criarLancamento();
@@ -230,4 +309,19 @@ public class LancamentoServiceTest {
 		assertThat(saldo).isEqualTo(BigDecimal.valueOf(50));
 		
 	}
+	
+	@Test
+	public void deveExportarOsCamposPedidosEmCsv() throws Exception {
+		List<CampoLancamento> campos = Arrays.asList(CampoLancamento.ID, CampoLancamento.DESCRICAO, CampoLancamento.VALOR, CampoLancamento.CATEGORIA);
+		when(repository.percorrerCampos(any(Specification.class), eq(campos))).thenReturn(Stream.of(
+				new Object[] {1l, "Mercado; feira", new BigDecimal("1E+2"), null},
+				new Object[] {2l, "Aluguel \"sala\"", new BigDecimal("10.50"), 3l}));
+		StringWriter csv = new StringWriter();
+		
+		service.exportar(Lancamento.builder().usuario(Usuario.builder().id(1l).build()).build(), null, null, campos, csv);
+		
+		assertThat(csv.toString()).isEqualTo("id;descricao;valor;categoria\r\n"
+				+ "1;\"Mercado; feira\";100;\r\n"
+				+ "2;\"Aluguel \"\"sala\"\"\";10.50;3\r\n");
+	}
 }
@@ -0,0 +1,118 @@
+package com.amantovan.minhasfinancas.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.amantovan.minhasfinancas.exception.RegraNegocioException;
+import com.amantovan.minhasfinancas.model.entity.Lancamento;
+import com.amantovan.minhasfinancas.model.enuns.StatusLancamento;
+import com.amantovan.minhasfinancas.model.enuns.TipoLancamento;
+import com.amantovan.minhasfinancas.model.repository.LancamentoRepository;
+import com.amantovan.minhasfinancas.service.impl.PrevisaoSaldoServiceImpl;
+
+public class PrevisaoSaldoServiceTest {
+
+	LancamentoService lancamentoService;
+	LancamentoRepository repository;
+	List<Lancamento> lancamentos;
+	PrevisaoSaldoServiceImpl service;
+	YearMonth atual = YearMonth.now();
+	
+	@Before
+	public void setUp() {
+		lancamentoService = mock(LancamentoService.class);
+		repository = mock(LancamentoRepository.class);
+		lancamentos = new ArrayList<>();
+		when(lancamentoService.obterSaldoPorUsuario(1l)).thenReturn(new BigDecimal("500"));
+		when(repository.obterParaPrevisao(any(), any(), any(), any())).thenReturn(lancamentos);
+		service = new PrevisaoSaldoServiceImpl(lancamentoService, repository, 1000, 2, 10000, 12, 12);
+	}
+	
+	@After
+	public void tearDown() {
+		service.encerrar();
+	}
+	
+	@Test
+	public void deveSomarPendentesEPadroesRecorrentesSemContarDuasVezes() {
+		for (int i = 1; i <= 12; i++) {
+			lancamentos.add(lancamento("Salário", TipoLancamento.RECEITA, StatusLancamento.EFETIVADO, atual.minusMonths(i), "1000"));
+		}
+		lancamentos.add(lancamento("Aluguel", TipoLancamento.DESPESA, StatusLancamento.PENDENTE, atual.plusMonths(1), "200"));
+		lancamentos.add(lancamento("Salário", TipoLancamento.RECEITA, StatusLancamento.PENDENTE, atual.plusMonths(2), "1000"));
+		
+		PrevisaoSaldo previsao = service.prever(1l, 3);
+		
+		assertThat(previsao.getCenarios()).isEqualTo(1000);
+		assertThat(previsao.isInterrompida()).isFalse();
+		assertThat(previsao.getMeses()).extracting(PrevisaoMensal::getMediana)
+			.containsExactly(new BigDecimal("1300.00"), new BigDecimal("2300.00"), new BigDecimal("3300.00"));
+		assertThat(previsao.getMeses()).extracting(PrevisaoMensal::getPendente)
+			.containsExactly(new BigDecimal("-200.00"), new BigDecimal("1000.00"), new BigDecimal("0.00"));
+		PrevisaoMensal primeiro = previsao.getMeses().get(0);
+		assertThat(primeiro.getPercentil10()).isEqualTo(primeiro.getPercentil90());
+		assertThat(primeiro.getMes()).isEqualTo(atual.plusMonths(1).getMonthValue());
+	}
+	
+	@Test
+	public void deveAlargarAsFaixasComGastosVariaveis() {
+		for (int i = 1; i <= 12; i++) {
+			lancamentos.add(lancamento("Mercado", TipoLancamento.DESPESA, StatusLancamento.EFETIVADO, atual.minusMonths(i), String.valueOf(300 + 40 * (i % 5))));
+			if (i % 2 == 0) {
+				lancamentos.add(lancamento("Freela " + i, TipoLancamento.RECEITA, StatusLancamento.EFETIVADO, atual.minusMonths(i), "250"));
+			}
+		}
+		
+		List<PrevisaoMensal> meses = service.prever(1l, 6).getMeses();
+		
+		for (PrevisaoMensal mes : meses) {
+			assertThat(mes.getPercentil10()).isLessThan(mes.getMediana());
+			assertThat(mes.getMediana()).isLessThan(mes.getPercentil90());
+		}
+		BigDecimal faixaInicial = meses.get(0).getPercentil90().subtract(meses.get(0).getPercentil10());
+		BigDecimal faixaFinal = meses.get(5).getPercentil90().subtract(meses.get(5).getPercentil10());
+		assertThat(faixaFinal).isGreaterThan(faixaInicial);
+	}
+	
+	@Test
+	public void deveUsarOsCenariosConcluidosQuandoOOrcamentoAcabar() {
+		service.encerrar();
+		service = new PrevisaoSaldoServiceImpl(lancamentoService, repository, 100000, 2, 0, 12, 12);
+		
+		PrevisaoSaldo previsao = service.prever(1l, 2);
+		
+		assertThat(previsao.isInterrompida()).isTrue();
+		assertThat(previsao.getCenarios()).isPositive().isLessThan(100000);
+		assertThat(previsao.getMeses().get(1).getMediana()).isEqualByComparingTo("500");
+	}
+	
+	@Test
+	public void deveRecusarQuantidadeDeMesesForaDoLimite() {
+		Throwable erro = catchThrowable(() -> service.prever(1l, 13));
+		
+		assertThat(erro).isInstanceOf(RegraNegocioException.class).hasMessage("Informe uma quantidade de meses entre 1 e 12.");
+	}
+	
+	static Lancamento lancamento(String descricao, TipoLancamento tipo, StatusLancamento status, YearMonth mes, String valor) {
+		return Lancamento.builder()
+				.descricao(descricao)
+				.tipo(tipo)
+				.status(status)
+				.mes(mes.getMonthValue())
+				.ano(mes.getYear())
+				.valor(new BigDecimal(valor))
+				.build();
+	}
+}
@@ -0,0 +1,215 @@
+package com.amantovan.minhasfinancas.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.amantovan.minhasfinancas.config.datasource.GerenciadorFragmentos;
+import com.amantovan.minhasfinancas.model.entity.ContribuicaoSaldo;
+import com.amantovan.minhasfinancas.model.entity.DivergenciaSaldo;
+import com.amantovan.minhasfinancas.model.entity.EventoLancamento;
+import com.amantovan.minhasfinancas.model.entity.Lancamento;
+import com.amantovan.minhasfinancas.model.entity.ParticaoReconciliacao;
+import com.amantovan.minhasfinancas.model.entity.SaldoUsuario;
+import com.amantovan.minhasfinancas.model.entity.Usuario;
+import com.amantovan.minhasfinancas.model.enuns.StatusLancamento;
+import com.amantovan.minhasfinancas.model.enuns.TipoEventoLancamento;
+import com.amantovan.minhasfinancas.model.enuns.TipoLancamento;
+import com.amantovan.minhasfinancas.model.repository.ContribuicaoSaldoRepository;
+import com.amantovan.minhasfinancas.model.repository.DivergenciaSaldoRepository;
+import com.amantovan.minhasfinancas.model.repository.EventoLancamentoRepository;
+import com.amantovan.minhasfinancas.model.repository.LancamentoRepository;
+import com.amantovan.minhasfinancas.model.repository.LancamentoRepositoryTest;
+import com.amantovan.minhasfinancas.model.repository.ParticaoReconciliacaoRepository;
+import com.amantovan.minhasfinancas.model.repository.SaldoUsuarioRepository;
+import com.amantovan.minhasfinancas.model.repository.UsuarioRepository;
+import com.amantovan.minhasfinancas.service.impl.ProjecaoSaldoUsuario;
+import com.amantovan.minhasfinancas.service.impl.ReconciliacaoSaldoServiceImpl;
+
+/**
+ * Sem a transação do teste: as partições são processadas por outras threads, que só enxergam
+ * dados já gravados.
+ */
+@RunWith(SpringRunner.class)
+@ActiveProfiles("test")
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class ReconciliacaoSaldoServiceTest {
+
+	@Autowired UsuarioRepository usuarioRepository;
+	@Autowired LancamentoRepository lancamentoRepository;
+	@Autowired SaldoUsuarioRepository saldoRepository;
+	@Autowired ContribuicaoSaldoRepository contribuicaoRepository;
+	@Autowired EventoLancamentoRepository eventoRepository;
+	@Autowired ParticaoReconciliacaoRepository particaoRepository;
+	@Autowired DivergenciaSaldoRepository divergenciaRepository;
+	@Autowired PlatformTransactionManager transactionManager;
+	
+	ReconciliacaoSaldoService service;
+	
+	@Before
+	public void setUp() {
+		limpar();
+		service = new ReconciliacaoSaldoServiceImpl(usuarioRepository, lancamentoRepository, saldoRepository,
+				contribuicaoRepository, eventoRepository, particaoRepository, divergenciaRepository, GerenciadorFragmentos.unico(),
+				transactionManager, 3, 2, 1, 2, true, 10, 600000);
+	}
+	
+	@After
+	public void tearDown() {
+		limpar();
+	}
+	
+	@Test
+	public void deveRegistrarECorrigirOsSaldosDivergentes() {
+		Usuario correto = usuario("correto", "100", "100");
+		Usuario divergente = usuario("divergente", "100", "40");
+		Usuario semSaldo = usuario("semsaldo", "30", null);
+		Usuario atrasado = usuario("atrasado", "70", "0");
+		eventoRepository.save(EventoLancamento.builder().idUsuario(atrasado.getId()).tipo(TipoEventoLancamento.CRIADO).build());
+		
+		ResumoReconciliacao resumo = service.reconciliar();
+		
+		assertThat(resumo.getUsuariosVerificados()).isEqualTo(4);
+		assertThat(resumo.getDivergencias()).isEqualTo(2);
+		assertThat(divergenciaRepository.findByDataExecucaoOrderByIdUsuarioAsc(LocalDate.now()))
+			.extracting(DivergenciaSaldo::getIdUsuario)
+			.containsExactly(divergente.getId(), semSaldo.getId());
+		assertThat(saldo(divergente)).isEqualByComparingTo("100");
+		assertThat(saldo(semSaldo)).isEqualByComparingTo("30");
+		assertThat(saldo(correto)).isEqualByComparingTo("100");
+		assertThat(saldo(atrasado)).isEqualByComparingTo("0");
+		assertThat(particaoRepository.findByDataConclusaoIsNullOrderByIdAsc()).isEmpty();
+	}
+	
+	@Test
+	public void deveRetomarAsParticoesDeOndePararam() {
+		Usuario verificado = usuario("verificado", "10", "0");
+		Usuario pendente = usuario("pendente", "20", "0");
+		particaoRepository.save(ParticaoReconciliacao.builder()
+				.dataExecucao(LocalDate.now().minusDays(1))
+				.idInicial(verificado.getId())
+				.idFinal(pendente.getId() + 1)
+				.ultimoIdProcessado(verificado.getId())
+				.usuariosVerificados(1)
+				.divergencias(1)
+				.build());
+		
+		ResumoReconciliacao resumo = service.reconciliar();
+		
+		assertThat(resumo.getParticoes()).isEqualTo(1);
+		assertThat(resumo.getUsuariosVerificados()).isEqualTo(2);
+		assertThat(resumo.getDivergencias()).isEqualTo(2);
+		assertThat(saldo(verificado)).isEqualByComparingTo("0");
+		assertThat(saldo(pendente)).isEqualByComparingTo("20");
+		assertThat(service.reconciliar().getParticoes()).isGreaterThan(1);
+	}
+	
+	@Test
+	public void deveRespeitarAsParticoesReivindicadasPorOutraInstancia() {
+		Usuario comOutra = usuario("comoutra", "10", "0");
+		Usuario abandonado = usuario("abandonado", "20", "0");
+		particaoRepository.save(particaoDe(comOutra, LocalDateTime.now()));
+		particaoRepository.save(particaoDe(abandonado, LocalDateTime.now().minusHours(1)));
+		
+		ResumoReconciliacao resumo = service.reconciliar();
+		
+		assertThat(resumo.getParticoes()).isEqualTo(1);
+		assertThat(saldo(comOutra)).isEqualByComparingTo("0");
+		assertThat(saldo(abandonado)).isEqualByComparingTo("20");
+		assertThat(particaoRepository.findByDataConclusaoIsNullOrderByIdAsc())
+			.extracting(ParticaoReconciliacao::getIdInicial)
+			.containsExactly(comOutra.getId());
+	}
+	
+	@Test
+	public void deveManterOSaldoCorrigidoNosEventosSeguintes() {
+		Usuario divergente = usuario("divergente", "100", "40");
+		Lancamento lancamento = lancamentoRepository.findByUsuarioIdAndStatusIn(
+				divergente.getId(), EnumSet.allOf(StatusLancamento.class)).get(0);
+		contribuicaoRepository.save(ContribuicaoSaldo.builder()
+				.idLancamento(lancamento.getId())
+				.idUsuario(divergente.getId())
+				.valor(new BigDecimal("40"))
+				.build());
+		
+		service.reconciliar();
+		assertThat(contribuicaoRepository.findById(lancamento.getId()).get().getValor()).isEqualByComparingTo("100");
+		
+		lancamento.setValor(new BigDecimal("150"));
+		lancamentoRepository.save(lancamento);
+		ProjecaoSaldoUsuario projecao = new ProjecaoSaldoUsuario(lancamentoRepository, contribuicaoRepository, saldoRepository);
+		new TransactionTemplate(transactionManager).execute(status -> {
+			projecao.aplicar(EventoLancamento.builder()
+					.idLancamento(lancamento.getId())
+					.idUsuario(divergente.getId())
+					.tipo(TipoEventoLancamento.ATUALIZADO)
+					.build());
+			return null;
+		});
+		
+		assertThat(saldo(divergente)).isEqualByComparingTo("150");
+	}
+	
+	private Usuario usuario(String nome, String efetivado, String saldoProjetado) {
+		Usuario usuario = usuarioRepository.save(Usuario.builder().nome(nome).email(nome + "@email.com").senha("senha").build());
+		Lancamento lancamento = LancamentoRepositoryTest.criarLancamento();
+		lancamento.setUsuario(usuario);
+		lancamento.setValor(new BigDecimal(efetivado));
+		lancamento.setStatus(StatusLancamento.EFETIVADO);
+		lancamento.setTipo(TipoLancamento.RECEITA);
+		lancamentoRepository.save(lancamento);
+		if (saldoProjetado != null) {
+			saldoRepository.save(SaldoUsuario.builder()
+					.idUsuario(usuario.getId())
+					.saldo(new BigDecimal(saldoProjetado))
+					.dataAtualizacao(LocalDateTime.now())
+					.build());
+		}
+		return usuario;
+	}
+	
+	private ParticaoReconciliacao particaoDe(Usuario usuario, LocalDateTime dataReivindicacao) {
+		return ParticaoReconciliacao.builder()
+				.dataExecucao(LocalDate.now())
+				.idInicial(usuario.getId())
+				.idFinal(usuario.getId() + 1)
+				.ultimoIdProcessado(usuario.getId() - 1)
+				.responsavel("outra-instancia")
+				.dataReivindicacao(dataReivindicacao)
+				.build();
+	}
+	
+	private BigDecimal saldo(Usuario usuario) {
+		return saldoRepository.findById(usuario.getId()).map(SaldoUsuario::getSaldo).orElse(BigDecimal.ZERO);
+	}
+	
+	private void limpar() {
+		divergenciaRepository.deleteAll();
+		particaoRepository.deleteAll();
+		eventoRepository.deleteAll();
+		saldoRepository.deleteAll();
+		contribuicaoRepository.deleteAll();
+		lancamentoRepository.deleteAll();
+		usuarioRepository.deleteAll();
+	}
+}
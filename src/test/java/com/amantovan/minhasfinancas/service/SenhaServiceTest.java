@@ -0,0 +1,78 @@
+package com.amantovan.minhasfinancas.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+import com.amantovan.minhasfinancas.exception.ServicoSobrecarregadoException;
+import com.amantovan.minhasfinancas.service.impl.SenhaServiceImpl;
+
+public class SenhaServiceTest {
+
+	@Test
+	public void deveConferirASenhaCodificadaEALegada() {
+		SenhaServiceImpl senhas = new SenhaServiceImpl(1000, 1, 4, 5000);
+		try {
+			String codificada = senhas.codificar("senha");
+
+			assertThat(codificada).startsWith("pbkdf2-sha256$1000$").isNotEqualTo(senhas.codificar("senha"));
+			assertThat(senhas.confere("senha", codificada)).isTrue();
+			assertThat(senhas.confere("outra", codificada)).isFalse();
+			assertThat(senhas.confere("senha", "senha")).isTrue();
+			assertThat(senhas.confere("outra", "senha")).isFalse();
+		} finally {
+			senhas.encerrar();
+		}
+	}
+
+	@Test
+	public void devePedirRecodificacaoQuandoOCustoMudar() {
+		SenhaServiceImpl antigo = new SenhaServiceImpl(1000, 1, 4, 5000);
+		SenhaServiceImpl atual = new SenhaServiceImpl(2000, 1, 4, 5000);
+		try {
+			String codificada = antigo.codificar("senha");
+
+			assertThat(antigo.precisaRecodificar(codificada)).isFalse();
+			assertThat(atual.precisaRecodificar(codificada)).isTrue();
+			assertThat(atual.precisaRecodificar("senha")).isTrue();
+			assertThat(atual.confere("senha", codificada)).isTrue();
+		} finally {
+			antigo.encerrar();
+			atual.encerrar();
+		}
+	}
+
+	@Test
+	public void deveRecusarQuandoAFilaEstiverCheia() throws InterruptedException {
+		// Uma thread e uma vaga na fila: dos quatro pedidos simultâneos, ao menos dois são recusados.
+		SenhaServiceImpl senhas = new SenhaServiceImpl(2_000_000, 1, 1, 30000);
+		ExecutorService clientes = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<String>> pedidos = new ArrayList<>();
+			for (int i = 0; i < 4; i++) {
+				pedidos.add(clientes.submit(() -> senhas.codificar("senha")));
+			}
+
+			int recusados = 0;
+			for (Future<String> pedido : pedidos) {
+				try {
+					pedido.get();
+				} catch (ExecutionException e) {
+					assertThat(e.getCause()).isInstanceOf(ServicoSobrecarregadoException.class);
+					recusados++;
+				}
+			}
+			assertThat(recusados).isGreaterThanOrEqualTo(2);
+		} finally {
+			clientes.shutdownNow();
+			senhas.encerrar();
+		}
+	}
+}
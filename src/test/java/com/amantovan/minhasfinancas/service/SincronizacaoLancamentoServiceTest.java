@@ -0,0 +1,102 @@
+package com.amantovan.minhasfinancas.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.amantovan.minhasfinancas.config.InvalidacaoConfig;
+import com.amantovan.minhasfinancas.config.datasource.FragmentacaoConfig;
+import com.amantovan.minhasfinancas.exception.RegraNegocioException;
+import com.amantovan.minhasfinancas.exception.TokenSincronizacaoExpiradoException;
+import com.amantovan.minhasfinancas.model.entity.Lancamento;
+import com.amantovan.minhasfinancas.model.entity.Usuario;
+import com.amantovan.minhasfinancas.model.enuns.StatusLancamento;
+import com.amantovan.minhasfinancas.model.repository.LancamentoRepositoryTest;
+import com.amantovan.minhasfinancas.service.impl.BarramentoInvalidacaoServiceImpl;
+import com.amantovan.minhasfinancas.service.impl.CacheBuscaLancamentoServiceImpl;
+import com.amantovan.minhasfinancas.service.impl.EventoLancamentoServiceImpl;
+import com.amantovan.minhasfinancas.service.impl.LancamentoServiceImpl;
+import com.amantovan.minhasfinancas.service.impl.NotificacaoSaldoServiceImpl;
+import com.amantovan.minhasfinancas.service.impl.ProjecaoLancamentoExcluido;
+import com.amantovan.minhasfinancas.service.impl.SincronizacaoLancamentoServiceImpl;
+
+@RunWith(SpringRunner.class)
+@ActiveProfiles("test")
+@DataJpaTest(properties = "minhasfinancas.sincronizacao.margem-ms=0")
+@AutoConfigureTestDatabase(replace = Replace.NONE)
+@Import({SincronizacaoLancamentoServiceImpl.class, LancamentoServiceImpl.class, EventoLancamentoServiceImpl.class,
+	CacheBuscaLancamentoServiceImpl.class, NotificacaoSaldoServiceImpl.class, ProjecaoLancamentoExcluido.class,
+	BarramentoInvalidacaoServiceImpl.class, InvalidacaoConfig.class, FragmentacaoConfig.class})
+public class SincronizacaoLancamentoServiceTest {
+
+	@Autowired SincronizacaoLancamentoService service;
+	@Autowired LancamentoService lancamentoService;
+	@Autowired EventoLancamentoService eventoService;
+	@Autowired TestEntityManager entityManager;
+
+	Usuario usuario;
+
+	@Before
+	public void setUp() {
+		usuario = entityManager.persist(Usuario.builder().nome("usuario").email("sincronizacao@email.com").senha("senha").build());
+	}
+
+	@Test
+	public void deveEntregarEmPaginasSoOQueMudouDesdeOToken() throws InterruptedException {
+		Lancamento primeiro = salvar();
+		Lancamento segundo = salvar();
+		Lancamento terceiro = salvar();
+
+		AlteracoesLancamento pagina = service.buscarAlteracoes(usuario.getId(), null, 2);
+		assertThat(pagina.getAlterados()).extracting(Lancamento::getId).containsExactly(primeiro.getId(), segundo.getId());
+		assertThat(pagina.isMaisAlteracoes()).isTrue();
+
+		pagina = service.buscarAlteracoes(usuario.getId(), pagina.getToken(), 2);
+		assertThat(pagina.getAlterados()).extracting(Lancamento::getId).containsExactly(terceiro.getId());
+		assertThat(pagina.isMaisAlteracoes()).isFalse();
+		String emDia = pagina.getToken();
+		assertThat(service.buscarAlteracoes(usuario.getId(), emDia, 2).getAlterados()).isEmpty();
+
+		// Garante que as próximas gravações não caiam no mesmo instante do limite do token.
+		Thread.sleep(5);
+		lancamentoService.atualizarStatusDoUsuario(segundo.getId(), usuario.getId(), StatusLancamento.EFETIVADO);
+		lancamentoService.deletarDoUsuario(terceiro.getId(), usuario.getId());
+		eventoService.despacharPendentes();
+
+		pagina = service.buscarAlteracoes(usuario.getId(), emDia, 10);
+		assertThat(pagina.getAlterados()).extracting(Lancamento::getId).containsExactly(segundo.getId());
+		assertThat(pagina.getExcluidos()).containsExactly(terceiro.getId());
+		assertThat(pagina.isMaisAlteracoes()).isFalse();
+	}
+
+	@Test
+	public void deveRecusarTokenInvalidoOuExpirado() {
+		String expirado = Base64.getUrlEncoder().withoutPadding()
+				.encodeToString("2000-01-01T00:00|1".getBytes(StandardCharsets.UTF_8));
+
+		assertThat(catchThrowable(() -> service.buscarAlteracoes(usuario.getId(), "nao-e-token", 10)))
+			.isInstanceOf(RegraNegocioException.class);
+		assertThat(catchThrowable(() -> service.buscarAlteracoes(usuario.getId(), expirado, 10)))
+			.isInstanceOf(TokenSincronizacaoExpiradoException.class);
+	}
+
+	private Lancamento salvar() {
+		Lancamento lancamento = LancamentoRepositoryTest.criarLancamento();
+		lancamento.setUsuario(usuario);
+		return lancamentoService.salvar(lancamento);
+	}
+}
@@ -1,27 +1,35 @@
 package com.amantovan.minhasfinancas.service;
 
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.assertj.core.api.Assertions;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
 
+import com.amantovan.minhasfinancas.config.datasource.FragmentacaoConfig;
 import com.amantovan.minhasfinancas.exception.ErroAutenticacao;
 import com.amantovan.minhasfinancas.exception.RegraNegocioException;
 import com.amantovan.minhasfinancas.model.entity.Usuario;
 import com.amantovan.minhasfinancas.model.repository.UsuarioRepository;
+import com.amantovan.minhasfinancas.service.impl.SenhaServiceImpl;
 import com.amantovan.minhasfinancas.service.impl.UsuarioServiceImpl;
 
 @RunWith(SpringRunner.class)
 @ActiveProfiles("test")
+@Import({SenhaServiceImpl.class, FragmentacaoConfig.class})
 public class UsuarioServiceTest {
 		
 	@SpyBean
@@ -30,6 +38,23 @@ public class UsuarioServiceTest {
 	@MockBean
 	UsuarioRepository repository;
 	
+	@MockBean
+	FiltroEmailService filtroEmail;
+	
+	@MockBean
+	BarramentoInvalidacaoService invalidacao;
+	
+	@MockBean
+	PlatformTransactionManager transactionManager;
+	
+	@Autowired
+	SenhaService senhaService;
+	
+	@Before
+	public void setUp() {
+		Mockito.when(filtroEmail.podeExistir(Mockito.anyString())).thenReturn(true);
+	}
+	
 	@Test
 	public void deveSalvarUmUsuario() {
 		Mockito.doNothing().when(service).validarEmail(Mockito.anyString());
@@ -44,7 +69,24 @@ public class UsuarioServiceTest {
 		Assertions.assertThat(usuarioSalvo.getNome()).isEqualTo("nome");
 		Assertions.assertThat(usuarioSalvo.getEmail()).isEqualTo("email@email.com");
 		Assertions.assertThat(usuarioSalvo.getSenha()).isEqualTo("senha");
+		Mockito.verify(filtroEmail).adicionar("email@email.com");
+		
+	}
+
+	@Test
+	public void deveCodificarASenhaAntesDeAbrirATransacao() {
+		Mockito.doNothing().when(service).validarEmail(Mockito.anyString());
+		Usuario usuario = Usuario.builder().nome("nome").email("email@email.com").senha("senha").build();
+		AtomicReference<String> senhaNaAbertura = new AtomicReference<>();
+		Mockito.when(transactionManager.getTransaction(Mockito.any())).thenAnswer(invocacao -> {
+			senhaNaAbertura.set(usuario.getSenha());
+			return null;
+		});
+		Mockito.when(repository.save(usuario)).thenReturn(usuario);
+		
+		service.salvarUsuario(usuario);
 		
+		Assertions.assertThat(senhaService.confere("senha", senhaNaAbertura.get())).isTrue();
 	}
 
 	@Test(expected = RegraNegocioException.class)
@@ -72,6 +114,31 @@ public class UsuarioServiceTest {
 		Assertions.assertThat(result).isNotNull();
 	}
 	
+	@Test
+	public void deveRecodificarASenhaLegadaNoLogin() {
+		String email = "email@email.com";
+		Usuario usuario = Usuario.builder().email(email).senha("senha").id(1l).build();
+		Mockito.when(repository.findByEmail(email)).thenReturn(Optional.of(usuario));
+		
+		service.autenticar(email, "senha");
+		
+		ArgumentCaptor<String> nova = ArgumentCaptor.forClass(String.class);
+		Mockito.verify(repository).recodificarSenha(Mockito.eq(1l), Mockito.eq("senha"), nova.capture());
+		Assertions.assertThat(senhaService.confere("senha", nova.getValue())).isTrue();
+		Assertions.assertThat(senhaService.precisaRecodificar(nova.getValue())).isFalse();
+	}
+	
+	@Test
+	public void naoDeveRecodificarASenhaJaNoCustoAtual() {
+		String email = "email@email.com";
+		Usuario usuario = Usuario.builder().email(email).senha(senhaService.codificar("senha")).id(1l).build();
+		Mockito.when(repository.findByEmail(email)).thenReturn(Optional.of(usuario));
+		
+		service.autenticar(email, "senha");
+		
+		Mockito.verify(repository, Mockito.never()).recodificarSenha(Mockito.any(), Mockito.any(), Mockito.any());
+	}
+	
 	@Test
 	public void deveLancarErroQuandoNaoEncontrarUsuarioCadastradoComOEmailInformado() {
 		
@@ -105,6 +172,35 @@ public class UsuarioServiceTest {
 		
 	}
 	
+	@Test
+	public void naoDeveConsultarOBancoNaAutenticacaoQuandoOFiltroDescartarOEmail() {
+		Mockito.when(filtroEmail.podeExistir("email@email.com")).thenReturn(false);
+		
+		Throwable exception = Assertions.catchThrowable(() -> service.autenticar("email@email.com", "senha"));
+		
+		Assertions.assertThat(exception).isInstanceOf(ErroAutenticacao.class).hasMessage("Usuario não encontrado para o email informado.");
+		Mockito.verify(repository, Mockito.never()).findByEmail(Mockito.anyString());
+	}
+	
+	@Test(expected = RegraNegocioException.class)
+	public void deveValidarEmailNoBancoMesmoQuandoOFiltroDescartarOEmail() {
+		Mockito.when(filtroEmail.podeExistir("email@email.com")).thenReturn(false);
+		Mockito.when(repository.existsByEmail("email@email.com")).thenReturn(true);
+		
+		service.validarEmail("email@email.com");
+	}
+	
+	@Test
+	public void deveLancarErroDeRegraQuandoOEmailForCadastradoConcorrentemente() {
+		Mockito.doNothing().when(service).validarEmail(Mockito.anyString());
+		Mockito.when(repository.save(Mockito.any(Usuario.class))).thenThrow(new DataIntegrityViolationException("uk_usuario_email"));
+		
+		Throwable exception = Assertions.catchThrowable(() -> service.salvarUsuario(Usuario.builder().email("email@email.com").senha("senha").build()));
+		
+		Assertions.assertThat(exception).isInstanceOf(RegraNegocioException.class).hasMessage("Já existe um usuário cadastrado com este email.");
+		Mockito.verify(filtroEmail, Mockito.never()).adicionar(Mockito.anyString());
+	}
+	
 	@Test(expected = RegraNegocioException.class)
 	public void deveLancarErroAoValidarEmailQuandoExistirEmailCadastrado() {
 		Mockito.when(repository.existsByEmail(Mockito.anyString())).thenReturn(true);